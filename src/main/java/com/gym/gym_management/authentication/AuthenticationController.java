@@ -3,6 +3,10 @@ package com.gym.gym_management.authentication;
 
 import com.gym.gym_management.configuration.JwtService;
 import com.gym.gym_management.service.RateLimitService;
+import com.gym.gym_management.service.RefreshTokenService;
+import com.gym.gym_management.service.TokenRevocationService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -24,7 +28,9 @@ import jakarta.validation.Valid;
  * Expone endpoints REST para iniciar sesión (login) y registrar nuevos usuarios.
  *
  * Funcionalidad:
- * - /auth/login → Autenticación de usuarios y generación de token JWT.
+ * - /auth/login → Autenticación de usuarios y generación de token JWT (corta duración) y refresh token.
+ * - /auth/refresh → Renovación del token JWT con un refresh token (que se rota en cada uso).
+ * - /auth/logout → Revocación del token JWT y de la sesión del refresh token.
  * - /auth/admin/register → Registro específico de nuevos administradores (solo accesible para administradores).
  *
  * Esta clase interactúa con:
@@ -49,14 +55,21 @@ public class AuthenticationController {
     // Administrador de autenticaciones que valida usuario y contraseña.
     private final AuthenticationManager authenticationManager;
     private final RateLimitService rateLimitService; // Nuevo servicio para rate limiting
+    // Revocación de tokens (cierre de sesión)
+    private final TokenRevocationService tokenRevocationService;
+    // Refresh tokens de cada sesión
+    private final RefreshTokenService refreshTokenService;
 
     //Constructor con inyección de dependencias
     @Autowired
-    public AuthenticationController(AuthenticationService authenticationService, JwtService jwtService, AuthenticationManager authenticationManager, RateLimitService rateLimitService) {
+    public AuthenticationController(AuthenticationService authenticationService, JwtService jwtService, AuthenticationManager authenticationManager, RateLimitService rateLimitService,
+                                    TokenRevocationService tokenRevocationService, RefreshTokenService refreshTokenService) {
         this.authenticationService = authenticationService;
         this.jwtService = jwtService;
         this.authenticationManager = authenticationManager;
         this.rateLimitService = rateLimitService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.refreshTokenService = refreshTokenService;
     }
 
 
@@ -105,7 +118,7 @@ public class AuthenticationController {
      * genera un token JWT que el cliente usará para autenticarse en futuras peticiones.
      *
      * @param request objeto con email y contraseña del usuario (opcional para evitar 400 si no se envía body).
-     * @return token JWT en caso de éxito, o estado UNAUTHORIZED si las credenciales son inválidas o faltan.
+     * @return token JWT y refresh token en caso de éxito, o estado UNAUTHORIZED si las credenciales son inválidas o faltan.
      */
     @PostMapping("/login")
     public ResponseEntity<AuthenticationResponse> login (@RequestBody(required = false) AuthenticationRequest request, HttpServletRequest httpRequest) {
@@ -126,9 +139,10 @@ public class AuthenticationController {
             );
             // Éxito: limpiar contador
             rateLimitService.registerLoginSuccess(email, ip);
-            //Generar token jwt si las credenciales son válidas
+            //Generar token jwt y refresh token (nueva sesión) si las credenciales son válidas
             String token = jwtService.generateToken(authentication);
-            return ResponseEntity.ok(new AuthenticationResponse(token));
+            String refreshToken = refreshTokenService.issue(authentication.getName());
+            return ResponseEntity.ok(new AuthenticationResponse(token, refreshToken));
         } catch (AuthenticationException ex){
             // Fallo de credenciales: registrar intento fallido
             rateLimitService.registerLoginFailure(email, ip);
@@ -136,4 +150,50 @@ public class AuthenticationController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
     }
+
+    /**
+     * Endpoint para renovar el token JWT.
+     * El refresh token recibido queda usado y se devuelve otro junto al nuevo token JWT;
+     * presentar de nuevo un refresh token ya usado cierra la sesión completa.
+     *
+     * @param request objeto con el refresh token.
+     * @return token JWT y refresh token nuevos, UNAUTHORIZED si el refresh token no es válido
+     *         o CONFLICT si una renovación concurrente del mismo token lo usó primero.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthenticationResponse> refresh(@RequestBody(required = false) RefreshRequest request) {
+        if (request == null || request.getRefreshToken() == null || request.getRefreshToken().isBlank()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(authenticationService.refresh(request.getRefreshToken()));
+    }
+
+    /**
+     * Endpoint para cerrar sesión.
+     * Revoca el token del request hasta su expiración: deja de ser aceptado aunque su firma siga siendo válida.
+     * Si se envía el refresh token, también se revoca su sesión (ya no se puede renovar).
+     * Es público para poder cerrar sesión aunque el token JWT ya haya expirado.
+     *
+     * @param request objeto con el refresh token (opcional).
+     * @param httpRequest request con el token en la cabecera Authorization.
+     * @return 204 al cerrar la sesión.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestBody(required = false) RefreshRequest request, HttpServletRequest httpRequest) {
+        if (request != null) {
+            refreshTokenService.revoke(request.getRefreshToken());
+        }
+        String authHeader = httpRequest.getHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            String token = authHeader.substring(7);
+            try {
+                Claims claims = jwtService.verify(token);
+                tokenRevocationService.revoke(claims.getId(), claims.getExpiration());
+                jwtService.forget(token);
+            } catch (JwtException | IllegalArgumentException ex) {
+                // Token expirado o inválido: ya no se acepta, no hace falta revocarlo
+            }
+        }
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -5,7 +5,8 @@ package com.gym.gym_management.authentication;
  * después de un inicio de sesión o registro exitoso.
  *
  * Contiene el token JWT que el usuario deberá usar en sus solicitudes
- * posteriores para acceder a recursos protegidos de la API.
+ * posteriores para acceder a recursos protegidos de la API, y el refresh token
+ * para obtener uno nuevo cuando expire (POST /auth/refresh).
  *
  * Relación con los requerimientos:
  * Cumple con la parte de "Autenticación y Seguridad" al proveer un
@@ -13,13 +14,16 @@ package com.gym.gym_management.authentication;
  *
  * Ejemplo de uso en JSON (respuesta del backend):
  * {
- *   "token": "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9..."
+ *   "token": "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9...",
+ *   "refreshToken": "q3Jx0m..."
  * }
  */
 
 public class AuthenticationResponse {
     //token JWT generado para el usuario autenticado
     private String token;
+    //refresh token opaco (de un solo uso) para renovar el token JWT
+    private String refreshToken;
 
     // === CONSTRUCTORES ===
     //vacio requerido por spring para deserializar o inicializar automáticamente objetos
@@ -32,6 +36,12 @@ public class AuthenticationResponse {
         this.token = token;
     }
 
+    //Constructor con token JWT y refresh token
+    public AuthenticationResponse(String token, String refreshToken) {
+        this.token = token;
+        this.refreshToken = refreshToken;
+    }
+
     // === GETTERS Y SETTERS ===
     public String getToken() {
         return token;
@@ -41,6 +51,14 @@ public class AuthenticationResponse {
         this.token = token;
     }
 
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+
     // === BUILDER MANUAL ===
     /**
      * Método estático para construir una AuthenticationResponse
@@ -53,6 +71,7 @@ public class AuthenticationResponse {
     //Clase interna que implementa el patrón Builder para AuthenticationResponse.
     public static class AuthenticationResponseBuilder {
         private String token;
+        private String refreshToken;
 
         /**
          * Asigna el token JWT en la construcción del objeto.
@@ -64,12 +83,22 @@ public class AuthenticationResponse {
             return this;
         }
 
+        /**
+         * Asigna el refresh token en la construcción del objeto.
+         * @param refreshToken valor del refresh token.
+         * @return la misma instancia del builder para encadenar llamadas.
+         */
+        public AuthenticationResponseBuilder refreshToken(String refreshToken) {
+            this.refreshToken = refreshToken;
+            return this;
+        }
+
         /**
          * Crea una nueva instancia de AuthenticationResponse
          * con los valores establecidos en el builder.
          */
         public AuthenticationResponse build() {
-            return new AuthenticationResponse(token);
+            return new AuthenticationResponse(token, refreshToken);
         }
     }
 }
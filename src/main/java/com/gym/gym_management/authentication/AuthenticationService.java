@@ -4,6 +4,10 @@ import com.gym.gym_management.configuration.JwtService;
 import com.gym.gym_management.repository.IUserRepository;
 import com.gym.gym_management.model.User;
 import com.gym.gym_management.model.Role;
+import com.gym.gym_management.service.InvalidRefreshTokenException;
+import com.gym.gym_management.service.RefreshTokenService;
+import com.gym.gym_management.service.UserCredentialsChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -15,6 +19,7 @@ import org.springframework.stereotype.Service;
  * Funcionalidades principales:
  * - Registrar nuevos administradores (solo por usuarios con rol ADMIN).
  * - Autenticar usuarios existentes y generar un token JWT para sesiones seguras.
+ * - Renovar el token JWT (de corta duración) a partir de un refresh token rotativo.
  *
  * Relación con los requerimientos:
  * Cumple con la parte de "Autenticación y Seguridad" del proyecto:
@@ -33,18 +38,26 @@ public class AuthenticationService {
     private final JwtService jwtService;
     //Componente de spring security para manejar la autenticación
     private final AuthenticationManager authenticationManager;
+    //Avisa a la caché de usuarios del filtro JWT cuando se crea un usuario
+    private final ApplicationEventPublisher eventPublisher;
+    //Emisión y rotación de refresh tokens
+    private final RefreshTokenService refreshTokenService;
 
     //Constructor que inyecta las dependencias requeridas
     public AuthenticationService(
             IUserRepository userRepository,
             PasswordEncoder passwordEncoder,
             JwtService jwtService,
-            AuthenticationManager authenticationManager
+            AuthenticationManager authenticationManager,
+            ApplicationEventPublisher eventPublisher,
+            RefreshTokenService refreshTokenService
     ) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtService = jwtService;
         this.authenticationManager = authenticationManager;
+        this.eventPublisher = eventPublisher;
+        this.refreshTokenService = refreshTokenService;
     }
 
     /**
@@ -107,6 +120,8 @@ public class AuthenticationService {
 
         // Guardar el nuevo administrador
         userRepository.save(newAdmin);
+        eventPublisher.publishEvent(new UserCredentialsChangedEvent(newAdmin.getEmail(),
+                UserCredentialsChangedEvent.Reason.CREATED));
     }
 
     /**
@@ -131,9 +146,30 @@ public class AuthenticationService {
         // Genera un token JWT para ese usuario
         var jwtToken = jwtService.generateToken(user);
 
-        // Devuelve el token en la respuesta
+        // Devuelve el token y el refresh token de la nueva sesión en la respuesta
         return AuthenticationResponse.builder()
                 .token(jwtToken)
+                .refreshToken(refreshTokenService.issue(user.getEmail()))
+                .build();
+    }
+
+    /**
+     * Renueva la sesión a partir de un refresh token.
+     * - Rota el refresh token (el recibido deja de servir y se entrega otro).
+     * - Vuelve a leer el usuario de la base, así un usuario eliminado no puede renovar.
+     * - Genera un token JWT nuevo con los roles y la versión de credenciales actuales.
+     *
+     * @param refreshToken refresh token recibido del cliente.
+     * @return token JWT y refresh token nuevos.
+     * @throws InvalidRefreshTokenException si el refresh token no es válido o ya se había usado.
+     */
+    public AuthenticationResponse refresh(String refreshToken) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+        User user = userRepository.findByEmail(rotation.getEmail())
+                .orElseThrow(() -> new InvalidRefreshTokenException("Usuario no encontrado"));
+        return AuthenticationResponse.builder()
+                .token(jwtService.generateToken(user))
+                .refreshToken(rotation.getRefreshToken())
                 .build();
     }
 }
@@ -0,0 +1,34 @@
+package com.gym.gym_management.authentication;
+
+/**
+ * DTO con el refresh token que el cliente envía a /auth/refresh (para renovar el token JWT)
+ * y, opcionalmente, a /auth/logout (para cerrar la sesión también en el servidor).
+ *
+ * Ejemplo de uso en JSON:
+ * {
+ *   "refreshToken": "q3Jx0m..."
+ * }
+ */
+
+public class RefreshRequest {
+    //refresh token recibido en el login o en el último refresh
+    private String refreshToken;
+
+    // === CONSTRUCTORES ===
+    //vacio es requerido por spring para deserializar automáticamente datos JSON a este objeto
+    public RefreshRequest() {
+    }
+
+    public RefreshRequest(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+
+    // === GETTERS Y SETTERS ===
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+}
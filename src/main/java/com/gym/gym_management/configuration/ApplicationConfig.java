@@ -1,23 +1,21 @@
 package com.gym.gym_management.configuration;
 
 import com.gym.gym_management.repository.IUserRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
 /**
  * Clase de configuración principal para la seguridad y autenticación en la aplicación.
  *
  * Funciones clave:
  * - Define cómo se cargan los detalles de un usuario desde la base de datos.
- * - Configura el proveedor de autenticación usando DAO y BCrypt.
+ * - Configura el proveedor de autenticación usando DAO y BCrypt (calculado en un pool acotado).
  * - Expone beans para `AuthenticationManager` y `PasswordEncoder`.
  *
  * Relación con los requerimientos:
@@ -54,19 +52,19 @@ public class ApplicationConfig {
      * Flujo:
      * - Se busca el usuario en la base de datos a partir de su email (username).
      * - Si no existe, se lanza una UsernameNotFoundException.
+     * - El resultado queda en una caché acotada (ver CachedUserDetailsService) para que el filtro JWT
+     *   no consulte la base en cada request.
      *
-     * @return implementación de UserDetailsService basada en una expresión lambda.
+     * @param ttlSeconds segundos que se conserva un usuario en caché.
+     * @param maxEntries máximo de usuarios en caché (0 = sin caché).
+     * @return implementación de UserDetailsService con caché.
      * @throws UsernameNotFoundException si no existe el usuario en la base de datos.
      */
     @Bean
-    public UserDetailsService userDetailsService() {
-        // Se retorna una lambda que implementa el método loadUserByUsername de UserDetailsService.
-        return username -> {
-            // Busca el usuario en la BD
-            // Si no lo encuentra, lanza una excepción específica que Spring Security entiende.
-            return userRepository.findByEmail(username)
-                    .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
-        };
+    public CachedUserDetailsService userDetailsService(
+            @Value("${app.userCache.ttlSeconds:300}") long ttlSeconds,
+            @Value("${app.userCache.maxEntries:1000}") int maxEntries) {
+        return new CachedUserDetailsService(userRepository, ttlSeconds, maxEntries);
     }
 
     /**
@@ -74,13 +72,20 @@ public class ApplicationConfig {
      * Usa `DaoAuthenticationProvider` para obtener los usuarios desde la base de datos
      * a través de `UserDetailsService` y compara las contraseñas usando BCrypt.
      *
+     * Si el hash guardado tiene un costo distinto del configurado, se recalcula y guarda tras un login exitoso.
+     *
+     * @param userDetailsService servicio de usuarios (se usa su lectura directa a la base).
+     * @param passwordEncoder codificador BCrypt con pool acotado.
      * @return proveedor de autenticación configurado.
      */
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider(CachedUserDetailsService userDetailsService,
+                                                         BoundedPasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider();
-        authenticationProvider.setUserDetailsService(userDetailsService()); // Carga usuario
-        authenticationProvider.setPasswordEncoder(passwordEncoder()); // Verifica contraseña encriptada
+        // Carga usuario desde la base, sin caché: el login siempre compara contra la contraseña vigente
+        authenticationProvider.setUserDetailsService(userDetailsService::loadFromDatabase);
+        authenticationProvider.setPasswordEncoder(passwordEncoder); // Verifica contraseña encriptada
+        authenticationProvider.setUserDetailsPasswordService(userDetailsService); // Rehash al cambiar el costo
         return authenticationProvider;
     }
 
@@ -104,11 +109,22 @@ public class ApplicationConfig {
     /**
      * Bean que define el codificador de contraseñas.
      * Usa BCrypt, recomendado por su resistencia frente a ataques de fuerza bruta.
-     * @return instancia de BCryptPasswordEncoder.
+     * Los hashes se calculan en un pool propio y acotado (ver BoundedPasswordEncoder), no en los hilos
+     * del servidor: si se satura, se responde 503 en lugar de bloquear el resto de la aplicación.
+     *
+     * @param strength costo de BCrypt (4 a 31).
+     * @param threads hilos del pool (0 = uno por núcleo).
+     * @param queueCapacity pedidos que pueden esperar en cola.
+     * @param timeoutMs espera máxima de un pedido (cola + cálculo).
+     * @return instancia de BoundedPasswordEncoder.
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BoundedPasswordEncoder passwordEncoder(
+            @Value("${app.passwordHashing.strength:10}") int strength,
+            @Value("${app.passwordHashing.threads:0}") int threads,
+            @Value("${app.passwordHashing.queueCapacity:32}") int queueCapacity,
+            @Value("${app.passwordHashing.timeoutMs:5000}") long timeoutMs) {
+        return new BoundedPasswordEncoder(strength, threads, queueCapacity, timeoutMs);
     }
 
 }
@@ -0,0 +1,164 @@
+package com.gym.gym_management.configuration;
+
+import com.gym.gym_management.service.PasswordHashingBusyException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * PasswordEncoder BCrypt que calcula los hashes en un pool propio y acotado, fuera de los hilos de Tomcat.
+ * <p>
+ * Características:
+ * <ul>
+ *     <li><b>Pool acotado</b>: {@code app.passwordHashing.threads} hilos (0 = uno por núcleo) y una cola de
+ *     {@code app.passwordHashing.queueCapacity} pedidos. Con la cola llena, o si la espera supera
+ *     {@code app.passwordHashing.timeoutMs}, se lanza {@link PasswordHashingBusyException} (HTTP 503): una ola de
+ *     logins ocupa como máximo hilos + cola requests y el resto de la aplicación sigue atendiendo.</li>
+ *     <li><b>Costo configurable</b>: {@code app.passwordHashing.strength}. {@link #upgradeEncoding(String)} indica
+ *     que un hash guardado tiene otro costo, y el proveedor de autenticación lo recalcula al iniciar sesión
+ *     (ver {@link CachedUserDetailsService#updatePassword}).</li>
+ * </ul>
+ * Las métricas (cola, rechazos, latencia de espera y de hash) se exponen en GET /api/maintenance/password-hashing.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    // Costo dentro de un hash BCrypt: $2a$10$...
+    private static final Pattern BCRYPT_COST = Pattern.compile("\\A\\$2[abyx]?\\$(\\d\\d)\\$");
+
+    private final BCryptPasswordEncoder delegate;
+    private final int strength;
+    private final int threads;
+    private final int queueCapacity;
+    private final long timeoutMs;
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder hashes = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAccumulator maxHashNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    public BoundedPasswordEncoder(int strength, int threads, int queueCapacity, long timeoutMs) {
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.strength = strength;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.timeoutMs = timeoutMs;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.queueCapacity), r -> {
+                    Thread t = new Thread(r, "password-hash-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Un hash necesita recalcularse si su costo es distinto del configurado (mayor o menor).
+     * @param encodedPassword hash guardado
+     * @return true si el costo no coincide con {@code app.passwordHashing.strength}
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher m = BCRYPT_COST.matcher(encodedPassword);
+        return m.find() && Integer.parseInt(m.group(1)) != strength;
+    }
+
+    /**
+     * Ejecuta un cálculo en el pool y espera su resultado.
+     * @throws PasswordHashingBusyException si la cola está llena o la espera supera el límite
+     */
+    <T> T run(Callable<T> task) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long start = System.nanoTime();
+                waitNanos.add(start - submitted);
+                try {
+                    return task.call();
+                } finally {
+                    long elapsed = System.nanoTime() - start;
+                    hashes.increment();
+                    hashNanos.add(elapsed);
+                    maxHashNanos.accumulate(elapsed);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw new PasswordHashingBusyException("Demasiados inicios de sesión simultáneos, reintente en unos segundos");
+        }
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            timeouts.increment();
+            throw new PasswordHashingBusyException("Demasiados inicios de sesión simultáneos, reintente en unos segundos");
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException("Verificación de contraseña interrumpida");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /** Detiene el pool al cerrar el contexto (Spring lo invoca como método de destrucción del bean). */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Métricas acumuladas desde el arranque.
+     * @return strength, threads, active, queueDepth, queueCapacity, completed, rejected, timeouts,
+     *         avgWaitMillis, avgHashMillis y maxHashMillis
+     */
+    public Map<String, Object> stats() {
+        long n = hashes.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("strength", strength);
+        stats.put("threads", threads);
+        stats.put("active", executor.getActiveCount());
+        stats.put("queueDepth", executor.getQueue().size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("completed", n);
+        stats.put("rejected", rejected.sum());
+        stats.put("timeouts", timeouts.sum());
+        stats.put("avgWaitMillis", n == 0 ? 0.0 : waitNanos.sum() / 1_000_000.0 / n);
+        stats.put("avgHashMillis", n == 0 ? 0.0 : hashNanos.sum() / 1_000_000.0 / n);
+        stats.put("maxHashMillis", maxHashNanos.get() / 1_000_000.0);
+        return stats;
+    }
+}
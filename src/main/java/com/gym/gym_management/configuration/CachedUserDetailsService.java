@@ -0,0 +1,114 @@
+package com.gym.gym_management.configuration;
+
+import com.gym.gym_management.repository.IUserRepository;
+import com.gym.gym_management.service.BoundedTtlCache;
+import com.gym.gym_management.service.UserCredentialsChangedEvent;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UserDetailsService con caché en memoria de usuarios, usado por el filtro JWT en cada request autenticado.
+ * <p>
+ * Características:
+ * <ul>
+ *     <li><b>Expiración</b>: cada usuario se conserva {@code app.userCache.ttlSeconds} desde que se leyó.</li>
+ *     <li><b>Tamaño acotado</b>: al superar {@code app.userCache.maxEntries} se descartan primero los vencidos y
+ *     luego los más antiguos (ver {@link BoundedTtlCache}).</li>
+ *     <li><b>Invalidación</b>: un {@link UserCredentialsChangedEvent} (alta de administrador, cambio o recuperación
+ *     de contraseña) descarta al usuario en cuanto se confirma el cambio. Una lectura en curso durante una
+ *     invalidación devuelve su resultado pero no queda en caché, así nunca se guarda un dato anterior al cambio.</li>
+ * </ul>
+ * El login no pasa por la caché ({@link #loadFromDatabase(String)}): la contraseña siempre se compara contra la base.
+ * Si el hash guardado tiene un costo distinto del configurado, el login lo recalcula ({@link #updatePassword}).
+ * Las métricas se exponen en GET /api/maintenance/user-cache.
+ */
+public class CachedUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
+
+    private final IUserRepository userRepository;
+    private final long ttlNanos;
+
+    /** Usuarios por email; vencen según {@code System.nanoTime()}. */
+    private final BoundedTtlCache<String, UserDetails> entries;
+
+    /** Se incrementa en cada invalidación; una lectura solo se guarda si no cambió mientras corría. */
+    private final AtomicLong generation = new AtomicLong();
+
+    public CachedUserDetailsService(IUserRepository userRepository, long ttlSeconds, int maxEntries) {
+        this.userRepository = userRepository;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.entries = new BoundedTtlCache<>(maxEntries);
+    }
+
+    /**
+     * Devuelve el usuario desde la caché o lo lee de la base.
+     * @throws UsernameNotFoundException si no existe (no se guarda en caché)
+     */
+    @Override
+    public UserDetails loadUserByUsername(String username) {
+        UserDetails cached = entries.get(username, System.nanoTime());
+        if (cached != null) {
+            return cached;
+        }
+        long gen = generation.get();
+        UserDetails user = loadFromDatabase(username);
+        if (generation.get() == gen) {
+            entries.put(username, user, System.nanoTime() + ttlNanos);
+        }
+        return user;
+    }
+
+    /**
+     * Lee el usuario directamente de la base, sin caché.
+     * @throws UsernameNotFoundException si no existe
+     */
+    public UserDetails loadFromDatabase(String username) {
+        return userRepository.findByEmail(username)
+                .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
+    }
+
+    /**
+     * Guarda el hash recalculado tras un login exitoso cuando cambió el costo de BCrypt.
+     * La contraseña es la misma: no se publica un cambio de credenciales ni se invalidan los tokens del usuario.
+     * @param user usuario autenticado
+     * @param newPassword nuevo hash de la misma contraseña
+     * @return usuario actualizado
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        return userRepository.findByEmail(user.getUsername())
+                .<UserDetails>map(u -> {
+                    u.setPassword(newPassword);
+                    userRepository.save(u);
+                    invalidate(u.getEmail());
+                    return u;
+                })
+                .orElse(user);
+    }
+
+    /** Descarta un usuario tras un cambio confirmado de sus credenciales. */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCredentialsChanged(UserCredentialsChangedEvent event) {
+        invalidate(event.getEmail());
+    }
+
+    /** Descarta un usuario de la caché. */
+    public void invalidate(String email) {
+        generation.incrementAndGet();
+        entries.invalidate(email);
+    }
+
+    /**
+     * Métricas acumuladas desde el arranque.
+     * @return entries, maxEntries, hits, misses, evictions, invalidations y hitRatio (ver BoundedTtlCache)
+     */
+    public Map<String, Object> stats() {
+        return entries.stats();
+    }
+}
@@ -1,9 +1,13 @@
 package com.gym.gym_management.configuration;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import com.gym.gym_management.service.TokenRevocationService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -19,7 +23,12 @@ import java.io.IOException;
  *
  * Funciones principales:
  * - Extrae el token JWT de la cabecera "Authorization" (prefijo "Bearer ").
- * - Valida el token y obtiene el usuario asociado.
+ * - Verifica el token una sola vez (firma y expiración) y obtiene el usuario asociado de sus claims.
+ * - Un token inválido o vencido deja el request sin autenticar (responde 401/403 según la ruta).
+ * - Un token revocado (cierre de sesión) o emitido antes de un cambio de contraseña también se rechaza;
+ *   la comprobación es en memoria (TokenRevocationService).
+ * - Con {@code app.auth.statelessTokens=true} la autenticación se arma solo con los claims del token
+ *   (usuario y roles), sin consultar la base. Los tokens emitidos sin roles siguen usando la búsqueda del usuario.
  * - Si el token es válido, crea la autenticación y la guarda en el contexto de seguridad de Spring.
  *
  * Relación con los requerimientos:
@@ -39,12 +48,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     // Servicio de Spring Security para cargar los detalles del usuario desde la base de datos.
     private final UserDetailsService userDetailsService;
 
+    // Tokens revocados y versiones de credenciales, en memoria.
+    private final TokenRevocationService tokenRevocationService;
+
+    // true = autenticar solo con los claims del token, sin buscar el usuario.
+    private final boolean statelessTokens;
+
     /**
-     * Constructor que inyecta JwtService y UserDetailsService.
+     * Constructor que inyecta JwtService, UserDetailsService y TokenRevocationService.
      */
-    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService,
+                                   TokenRevocationService tokenRevocationService,
+                                   @Value("${app.auth.statelessTokens:false}") boolean statelessTokens) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.statelessTokens = statelessTokens;
     }
 
     /**
@@ -65,11 +84,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         final String jwt = authHeader.substring(7);
-        final String userEmail = jwtService.extractUsername(jwt);
+        final Claims claims;
+        try {
+            claims = jwtService.verify(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            // Token inválido, mal formado o vencido: seguir sin autenticación
+            filterChain.doFilter(request, response);
+            return;
+        }
+        final String userEmail = claims.getSubject();
 
-        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null
+                && tokenRevocationService.isActive(claims)) {
+            UserDetails userDetails = statelessTokens ? jwtService.toUserDetails(claims) : null;
+            if (userDetails == null) {
+                userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+            }
+            if (jwtService.isTokenValid(claims, userDetails)) {
                 UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
@@ -1,20 +1,34 @@
 package com.gym.gym_management.configuration;
 
+import com.gym.gym_management.service.BoundedTtlCache;
+import com.gym.gym_management.service.TokenRevocationService;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Servicio encargado de generar, firmar, extraer y validar tokens JWT.
@@ -32,6 +46,19 @@ import java.util.function.Function;
  * - La clave secreta se obtiene del archivo de configuración (application.properties o .yml)
  *   mediante la propiedad `jwt.secret`.
  * - El algoritmo de firma utilizado es HMAC-SHA256 (HS256).
+ *
+ * Verificación:
+ * - La clave y el parser se construyen una sola vez al arrancar (el parser es inmutable y thread-safe).
+ * - {@link #verify(String)} valida firma y expiración una única vez por request y devuelve los claims.
+ * - Los tokens ya verificados se guardan en una caché acotada ({@code jwt.cache.maxEntries}) indexada por el
+ *   SHA-256 del token, hasta su expiración: un request repetido con el mismo token no vuelve a calcular el HMAC
+ *   ni a parsear el JSON. Solo entran tokens con firma válida, así que un token alterado nunca coincide.
+ *
+ * Claims propios de cada token:
+ * - {@code jti}: identificador, para poder revocarlo (ver TokenRevocationService).
+ * - {@code roles}: autoridades del usuario, para armar la autenticación sin consultar la base
+ *   (modo {@code app.auth.statelessTokens}).
+ * - {@code ver}: versión de credenciales del usuario; un cambio de contraseña invalida los tokens anteriores.
  */
 @Service //indica que es un servicio gestionado por spring
 public class JwtService {
@@ -40,6 +67,36 @@ public class JwtService {
     @Value("${jwt.secret}")
     private String secretKey;      // Spring la rellena al arrancar
 
+    // Claim con las autoridades del usuario (por ejemplo ROLE_ADMIN)
+    public static final String ROLES_CLAIM = "roles";
+
+    // Versión de credenciales vigente de cada usuario, embebida en los tokens
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    // Vida del token de acceso en milisegundos (corta: se renueva con un refresh token)
+    @Value("${jwt.expiration:900000}")
+    private long expirationMs = 900000;
+
+    // Máximo de tokens verificados en caché (0 = sin caché)
+    @Value("${jwt.cache.maxEntries:10000}")
+    private int cacheMaxEntries = 10000;
+
+    // Clave y parser construidos una vez a partir de secretKey
+    private Key signInKey;
+    private JwtParser parser;
+
+    // Tokens verificados: SHA-256 del token -> claims (hasta su expiración, en epoch millis)
+    private BoundedTtlCache<String, Claims> verified;
+
+    @PostConstruct
+    void init() {
+        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
+        signInKey = Keys.hmacShaKeyFor(keyBytes);
+        parser = Jwts.parserBuilder().setSigningKey(signInKey).build();
+        verified = new BoundedTtlCache<>(cacheMaxEntries);
+    }
+
     /**
      * Extrae el nombre de usuario (subject) del token JWT.
      * @param token token JWT.
@@ -65,8 +122,9 @@ public class JwtService {
      * Pasos:
      * 1. Añade los claims (datos extra opcionales).
      * 2. Define el subject (nombre de usuario).
-     * 3. Define fecha de emisión y expiración (24 horas desde la emisión).
-     * 4. Firma el token con la clave secreta y el algoritmo HS256.
+     * 3. Añade identificador (jti), roles y versión de credenciales del usuario.
+     * 4. Define fecha de emisión y expiración ({@code jwt.expiration} desde la emisión, 15 minutos por defecto).
+     * 5. Firma el token con la clave secreta y el algoritmo HS256.
      *
      * @param extractClaims claims adicionales a incluir en el token.
      * @param userDetails detalles del usuario autenticado.
@@ -76,12 +134,18 @@ public class JwtService {
             Map<String, Object> extractClaims,
             UserDetails userDetails
     ){
+        Map<String, Object> claims = new HashMap<>(extractClaims);
+        claims.put(ROLES_CLAIM, userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toList()));
+        claims.put(TokenRevocationService.VERSION_CLAIM, tokenRevocationService.currentVersion(userDetails.getUsername()));
         return Jwts
                 .builder()
-                .setClaims(extractClaims)
+                .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 24))
+                .setExpiration(new Date(System.currentTimeMillis() + expirationMs))
                 .signWith(getSignInKey(), SignatureAlgorithm.HS256)
                 .compact();
     }
@@ -104,18 +168,88 @@ public class JwtService {
      * @return true si el token pertenece al usuario y no ha expirado.
      */
     public boolean isTokenValid(String token, UserDetails userDetails){
-        final String username =  extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        return isTokenValid(verify(token), userDetails);
     }
 
-     //Comprueba si un token ha expirado
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    /**
+     * Valida claims ya verificados con {@link #verify(String)} contra un usuario, sin volver a parsear el token.
+     * @param claims claims del token.
+     * @param userDetails detalles del usuario.
+     * @return true si el token pertenece al usuario y no ha expirado.
+     */
+    public boolean isTokenValid(Claims claims, UserDetails userDetails){
+        final String username = claims.getSubject();
+        return username != null && username.equals(userDetails.getUsername()) && !isTokenExpired(claims);
     }
 
-    //Obtiene la fecha de expiración de un token
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    /**
+     * Arma el usuario autenticado solo a partir de claims verificados (sin consultar la base).
+     * @param claims claims del token.
+     * @return usuario sin contraseña con las autoridades del token, o null si el token no trae roles
+     *         (emitido antes de incluirlos).
+     */
+    public UserDetails toUserDetails(Claims claims) {
+        Object roles = claims.get(ROLES_CLAIM);
+        if (!(roles instanceof List<?> list) || claims.getSubject() == null) {
+            return null;
+        }
+        List<SimpleGrantedAuthority> authorities = list.stream()
+                .map(r -> new SimpleGrantedAuthority(String.valueOf(r)))
+                .collect(Collectors.toList());
+        return new org.springframework.security.core.userdetails.User(claims.getSubject(), "", authorities);
+    }
+
+    //Comprueba si un token ha expirado
+    private boolean isTokenExpired(Claims claims) {
+        Date expiration = claims.getExpiration();
+        return expiration != null && expiration.before(new Date());
+    }
+
+    /**
+     * Verifica firma y expiración del token y devuelve sus claims (desde la caché si ya se verificó antes).
+     * Los claims devueltos se comparten entre requests: no deben modificarse.
+     * @param token token JWT.
+     * @return claims del token.
+     * @throws io.jsonwebtoken.JwtException si el token es inválido, está mal formado o expiró.
+     */
+    public Claims verify(String token) {
+        if (cacheMaxEntries <= 0) {
+            return parser.parseClaimsJws(token).getBody();
+        }
+        String key = hash(token);
+        Claims cached = verified.get(key, System.currentTimeMillis());
+        if (cached != null) {
+            return cached;
+        }
+        Claims claims = parser.parseClaimsJws(token).getBody(); // lanza ExpiredJwtException si venció
+        Date expiration = claims.getExpiration();
+        if (expiration != null) {
+            verified.put(key, claims, expiration.getTime());
+        }
+        return claims;
+    }
+
+    /** Saca un token de la caché de verificados (la próxima verificación vuelve a calcular la firma). */
+    public void forget(String token) {
+        verified.remove(hash(token));
+    }
+
+    /**
+     * Métricas de la caché de tokens verificados.
+     * @return entries, maxEntries, hits, misses, evictions, invalidations y hitRatio (ver BoundedTtlCache)
+     */
+    public Map<String, Object> cacheStats() {
+        return verified.stats();
+    }
+
+    //SHA-256 del token en Base64: la caché no guarda el token en claro
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
     }
 
     /**
@@ -135,22 +269,15 @@ public class JwtService {
      * @return objeto Claims con toda la información del token.
      */
     public Claims extractAllClaims(String token){
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey()) // Define la clave de verificación
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return verify(token);
     }
 
     /**
      * Obtiene la clave secreta usada para firmar/verificar tokens.
-     * La clave se decodifica desde Base64 y se transforma en un objeto Key.
+     * La clave se decodifica desde Base64 una sola vez al arrancar (ver {@link #init()}).
      * @return clave de firma HMAC-SHA256.
      */
     private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signInKey;
     }
-
 }
@@ -1,6 +1,7 @@
 package com.gym.gym_management.configuration;
 
 
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.boot.autoconfigure.security.servlet.PathRequest;
 import org.springframework.context.annotation.Bean;
@@ -57,6 +58,10 @@ public class SecurityConfiguration {
 
                 // Reglas de autorización
                 .authorizeHttpRequests(auth -> auth
+                        // Despachos ASYNC (fin de streams SSE y descargas asíncronas): la request original ya
+                        // fue autorizada con su JWT, que el filtro no vuelve a leer en el despacho asíncrono.
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // Recursos estáticos
                         .requestMatchers(PathRequest.toStaticResources().atCommonLocations()).permitAll()
                         .requestMatchers("/", "/index.html", "/favicon.ico",
@@ -73,6 +78,7 @@ public class SecurityConfiguration {
 
                         // Auth pública
                         .requestMatchers(HttpMethod.POST, "/auth/login").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/auth/refresh", "/auth/logout").permitAll()
 
                         // API de recuperación de contraseña (pública)
                         .requestMatchers(HttpMethod.POST, "/api/password/request-reset").permitAll()
@@ -83,6 +89,7 @@ public class SecurityConfiguration {
                         .requestMatchers("/api/clients/**").hasRole("ADMIN")
                         .requestMatchers("/api/payments/**").hasRole("ADMIN")
                         .requestMatchers("/api/reports/**").hasRole("ADMIN")
+                        .requestMatchers("/api/maintenance/**").hasRole("ADMIN")
                         .requestMatchers("/clients/**").hasRole("ADMIN")
                         .requestMatchers("/payments/**").hasRole("ADMIN")
                         .requestMatchers("/reports/**").hasRole("ADMIN")
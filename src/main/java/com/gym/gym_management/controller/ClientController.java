@@ -3,12 +3,15 @@ package com.gym.gym_management.controller;
 import com.gym.gym_management.controller.dto.ClientDTO;
 import com.gym.gym_management.model.PaymentState;
 import com.gym.gym_management.service.ClientService;
+import com.gym.gym_management.service.DataVersionService;
+import com.gym.gym_management.service.DataVersionService.Table;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import java.time.LocalDate;
@@ -38,13 +41,22 @@ public class ClientController {
     @Autowired
     private ClientService clientService;
 
-    // Listar o filtrar clientes
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    // Listar o filtrar clientes (responde 304 si If-None-Match coincide con la versión de clientes y pagos)
     @GetMapping
     public ResponseEntity<List<ClientDTO>> find(
             @RequestParam(value = "q", required = false) String q,
             @RequestParam(value = "active", required = false) String activeParam,
-            @RequestParam(value = "payment", required = false) String paymentParam
+            @RequestParam(value = "payment", required = false) String paymentParam,
+            WebRequest request
     ) {
+        return ConditionalResponses.withEtag(request, dataVersionService.etag(Table.CLIENTS, Table.PAYMENTS),
+                () -> ResponseEntity.ok(findClients(q, activeParam, paymentParam)));
+    }
+
+    private List<ClientDTO> findClients(String q, String activeParam, String paymentParam) {
         log.debug("[GET /clients] q={}, activeParam='{}', paymentParam='{}'", q, activeParam, paymentParam);
         Boolean active = null;
         if (activeParam != null && !activeParam.isBlank()) {
@@ -75,11 +87,11 @@ public class ClientController {
         if (q != null || active != null || paymentState != null) {
             List<ClientDTO> out = clientService.search(q, active, paymentState);
             log.debug("[GET /clients] filtros aplicados -> {} resultados", out.size());
-            return ResponseEntity.ok(out);
+            return out;
         }
         List<ClientDTO> all = clientService.findAll();
         log.debug("[GET /clients] sin filtros -> {} resultados", all.size());
-        return ResponseEntity.ok(all);
+        return all;
     }
 
     // Crear cliente
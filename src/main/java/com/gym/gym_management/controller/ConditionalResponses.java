@@ -0,0 +1,58 @@
+package com.gym.gym_management.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * GET condicionales con ETag para listados y reportes.
+ * <p>
+ * La ETag se calcula antes de ejecutar el handler (con {@code DataVersionService}, sin consultar la base). Si
+ * coincide con {@code If-None-Match} se responde 304 sin ejecutar consultas ni serializar el cuerpo; si no,
+ * se ejecuta el handler y la respuesta exitosa lleva la ETag y {@code Cache-Control: no-cache, private}
+ * (el cliente puede guardarla pero debe revalidarla en cada uso). Una respuesta marcada por el handler como
+ * {@code no-store} (por ejemplo, un resumen parcial) se devuelve sin ETag.
+ */
+final class ConditionalResponses {
+
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private ConditionalResponses() {}
+
+    static <T> ResponseEntity<T> withEtag(WebRequest request, String etag, Supplier<ResponseEntity<T>> handler) {
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+        }
+        ResponseEntity<T> response = handler.get();
+        String cacheControl = response.getHeaders().getCacheControl();
+        if (!response.getStatusCode().is2xxSuccessful() || (cacheControl != null && cacheControl.contains("no-store"))) {
+            return response;
+        }
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .eTag(etag)
+                .cacheControl(REVALIDATE)
+                .body(response.getBody());
+    }
+
+    /** Compara contra la lista de {@code If-None-Match} (acepta "*" y ETags débiles "W/"). */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String c = candidate.trim();
+            if (c.startsWith("W/")) {
+                c = c.substring(2);
+            }
+            if (c.equals("*") || c.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,46 +1,133 @@
 package com.gym.gym_management.controller;
 
+import com.gym.gym_management.configuration.JwtService;
 import com.gym.gym_management.controller.dto.ActivityDto;
+import com.gym.gym_management.controller.dto.ActivityFeedDTO;
 import com.gym.gym_management.controller.dto.DashboardStatsDto;
+import com.gym.gym_management.controller.dto.DashboardSummaryDto;
+import com.gym.gym_management.model.ActivityEvent;
 import com.gym.gym_management.service.ActivityService;
-import com.gym.gym_management.service.ClientService;
-import com.gym.gym_management.service.PaymentService;
+import com.gym.gym_management.service.DashboardCounters;
+import com.gym.gym_management.service.DashboardStream;
+import com.gym.gym_management.service.DashboardSummaryService;
+import com.gym.gym_management.service.DataVersionService;
+import com.gym.gym_management.service.DataVersionService.Table;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/dashboard")
 @PreAuthorize("hasRole('ADMIN')")
 public class DashboardController {
 
-    private final ClientService clientService;
-    private final PaymentService paymentService;
     private final ActivityService activityService;
+    private final DashboardCounters dashboardCounters;
+    private final DashboardStream dashboardStream;
+    private final DashboardSummaryService dashboardSummaryService;
+    private final DataVersionService dataVersionService;
+    private final JwtService jwtService;
 
-    public DashboardController(ClientService clientService, PaymentService paymentService, ActivityService activityService) {
-        this.clientService = clientService;
-        this.paymentService = paymentService;
+    public DashboardController(ActivityService activityService, DashboardCounters dashboardCounters,
+                               DashboardStream dashboardStream, DashboardSummaryService dashboardSummaryService,
+                               DataVersionService dataVersionService, JwtService jwtService) {
         this.activityService = activityService;
+        this.dashboardCounters = dashboardCounters;
+        this.dashboardStream = dashboardStream;
+        this.dashboardSummaryService = dashboardSummaryService;
+        this.dataVersionService = dataVersionService;
+        this.jwtService = jwtService;
     }
 
-    @GetMapping("/stats")
-    public ResponseEntity<DashboardStatsDto> getDashboardStats() {
-        long activeClients = clientService.countActiveClients();
-        long expiredPayments = paymentService.countExpiredPayments();
+    /**
+     * Resumen del dashboard en una sola llamada: contadores, actividades, próximos vencimientos y vencidos.
+     * Las secciones se calculan en paralelo; si alguna no termina a tiempo vuelve en null y {@code partial=true}.
+     * Ejemplo: GET /api/dashboard/summary?activities=6&days=7&reportSize=10
+     * Un resumen parcial se devuelve sin ETag para que el cliente no lo reutilice.
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<DashboardSummaryDto> getSummary(@RequestParam(defaultValue = "6") int activities,
+                                                          @RequestParam(defaultValue = "7") int days,
+                                                          @RequestParam(defaultValue = "10") int reportSize,
+                                                          WebRequest request) {
+        return ConditionalResponses.withEtag(request,
+                dataVersionService.etag(Table.CLIENTS, Table.PAYMENTS, Table.NOTIFICATIONS), () -> {
+                    DashboardSummaryDto summary = dashboardSummaryService.getSummary(activities, days, reportSize);
+                    return summary.isPartial()
+                            ? ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(summary)
+                            : ResponseEntity.ok(summary);
+                });
+    }
 
-        DashboardStatsDto stats = new DashboardStatsDto(activeClients, expiredPayments);
-        return ResponseEntity.ok(stats);
+    // Contadores en memoria mantenidos por eventos (ver DashboardCounters): no consulta la base en cada sondeo
+    @GetMapping("/stats")
+    public ResponseEntity<DashboardStatsDto> getDashboardStats(WebRequest request) {
+        return ConditionalResponses.withEtag(request, dataVersionService.etag(Table.CLIENTS, Table.PAYMENTS),
+                () -> ResponseEntity.ok(dashboardCounters.snapshot()));
     }
 
     @GetMapping("/activities")
-    public ResponseEntity<List<ActivityDto>> getRecentActivities(@RequestParam(defaultValue = "10") int limit) {
-        List<ActivityDto> activities = activityService.getRecentActivities(limit);
-        return ResponseEntity.ok(activities);
+    public ResponseEntity<List<ActivityDto>> getRecentActivities(@RequestParam(defaultValue = "10") int limit,
+                                                                 WebRequest request) {
+        return ConditionalResponses.withEtag(request, dataVersionService.etag(Table.CLIENTS, Table.PAYMENTS),
+                () -> ResponseEntity.ok(activityService.getRecentActivities(limit)));
+    }
+
+    /**
+     * Feed de actividad paginado por cursor.
+     * Ejemplo: GET /api/dashboard/activities/feed?size=20&types=payment,payment-voided
+     * La página siguiente se pide con {@code before = nextCursor} de la respuesta anterior.
+     */
+    @GetMapping("/activities/feed")
+    public ResponseEntity<ActivityFeedDTO> getActivityFeed(@RequestParam(required = false) Long before,
+                                                           @RequestParam(defaultValue = "20") int size,
+                                                           @RequestParam(required = false) String types,
+                                                           WebRequest request) {
+        Set<ActivityEvent.Type> typeFilter = (types == null || types.isBlank()) ? null
+                : Arrays.stream(types.split(","))
+                        .filter(t -> !t.isBlank())
+                        .map(ActivityEvent.Type::parse)
+                        .collect(Collectors.toSet());
+        return ConditionalResponses.withEtag(request, dataVersionService.etag(Table.CLIENTS, Table.PAYMENTS),
+                () -> ResponseEntity.ok(activityService.getFeed(before, size, typeFilter)));
+    }
+
+    /**
+     * Stream en vivo (Server-Sent Events) con los eventos {@code stats}, {@code activities} (al conectar)
+     * y {@code activity} (cada actividad nueva). Ver DashboardStream.
+     * La conexión se cierra cuando vence el token con el que se abrió; con el máximo de conexiones
+     * alcanzado responde 503.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(HttpServletRequest request) {
+        return dashboardStream.subscribe(tokenExpiration(request));
+    }
+
+    // Expiración del token del request (ya verificado por el filtro JWT; la verificación sale de la caché)
+    private Date tokenExpiration(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        try {
+            return jwtService.verify(authHeader.substring(7)).getExpiration();
+        } catch (JwtException | IllegalArgumentException ex) {
+            return null;
+        }
     }
 }
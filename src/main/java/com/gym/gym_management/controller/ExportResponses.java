@@ -0,0 +1,68 @@
+package com.gym.gym_management.controller;
+
+import com.gym.gym_management.service.PaymentExportService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Arma las respuestas de descarga en streaming compartidas por las exportaciones de pagos y reportes.
+ * <p>
+ * El cuerpo se escribe desde un {@link StreamingResponseBody} (hilo asíncrono de MVC), así que el hilo del
+ * request queda libre mientras se exporta. Con {@code gzip=true} la salida se comprime al vuelo y se descarga
+ * como {@code .gz}.
+ */
+final class ExportResponses {
+
+    private ExportResponses() {}
+
+    /** Escritura del contenido exportado sobre el flujo de salida (ya comprimido si corresponde). */
+    @FunctionalInterface
+    interface ExportWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Interpreta el parámetro {@code format} (csv por defecto).
+     * @throws IllegalArgumentException si el formato no es csv ni ndjson
+     */
+    static PaymentExportService.Format parseFormat(String format) {
+        if (format == null || format.isBlank()) return PaymentExportService.Format.CSV;
+        try {
+            return PaymentExportService.Format.valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Formato no soportado: " + format);
+        }
+    }
+
+    static ResponseEntity<StreamingResponseBody> stream(String baseName, PaymentExportService.Format format,
+                                                        boolean gzip, ExportWriter writer) {
+        String extension = format == PaymentExportService.Format.CSV ? ".csv" : ".ndjson";
+        String fileName = baseName + "-" + LocalDate.now() + extension + (gzip ? ".gz" : "");
+        MediaType contentType = gzip
+                ? MediaType.parseMediaType("application/gzip")
+                : (format == PaymentExportService.Format.CSV
+                    ? MediaType.parseMediaType("text/csv;charset=UTF-8")
+                    : MediaType.parseMediaType("application/x-ndjson"));
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream gz = new GZIPOutputStream(out, 64 * 1024);
+                writer.writeTo(gz);
+                gz.finish();
+            } else {
+                writer.writeTo(out);
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .contentType(contentType)
+                .body(body);
+    }
+}
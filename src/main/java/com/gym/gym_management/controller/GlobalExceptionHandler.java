@@ -1,6 +1,10 @@
 package com.gym.gym_management.controller;
 
+import com.gym.gym_management.service.DashboardStreamFullException;
+import com.gym.gym_management.service.InvalidRefreshTokenException;
+import com.gym.gym_management.service.PasswordHashingBusyException;
 import com.gym.gym_management.service.RateLimitExceededException;
+import com.gym.gym_management.service.RefreshTokenConflictException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -40,4 +44,28 @@ public class GlobalExceptionHandler {
     public ResponseEntity<String> handleRateLimit(RateLimitExceededException ex) {
         return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(ex.getMessage());
     }
+
+    @ExceptionHandler(InvalidRefreshTokenException.class)
+    public ResponseEntity<String> handleInvalidRefreshToken(InvalidRefreshTokenException ex) {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(RefreshTokenConflictException.class)
+    public ResponseEntity<String> handleRefreshTokenConflict(RefreshTokenConflictException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<String> handlePasswordHashingBusy(PasswordHashingBusyException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "2")
+                .body(ex.getMessage());
+    }
+
+    @ExceptionHandler(DashboardStreamFullException.class)
+    public ResponseEntity<String> handleDashboardStreamFull(DashboardStreamFullException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "30")
+                .body(ex.getMessage());
+    }
 }
@@ -0,0 +1,192 @@
+package com.gym.gym_management.controller;
+
+import com.gym.gym_management.configuration.BoundedPasswordEncoder;
+import com.gym.gym_management.configuration.CachedUserDetailsService;
+import com.gym.gym_management.configuration.JwtService;
+import com.gym.gym_management.controller.dto.DailySnapshotDTO;
+import com.gym.gym_management.model.ExpirationRun;
+import com.gym.gym_management.service.DailySnapshotService;
+import com.gym.gym_management.service.DashboardStream;
+import com.gym.gym_management.service.ExpirationRunService;
+import com.gym.gym_management.service.MembershipStatusService;
+import com.gym.gym_management.service.ReportCache;
+import com.gym.gym_management.service.RevenueRollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controlador REST con comandos de mantenimiento de datos derivados.
+ * <p>
+ * Expone operaciones de reparación (por ejemplo, reconstruir el estado de membresía materializado
+ * si se cargaron pagos por fuera de la aplicación). Solo accesible por usuarios con rol ADMIN.
+ */
+@RestController
+@RequestMapping("/api/maintenance")
+@PreAuthorize("hasRole('ADMIN')")
+public class MaintenanceController {
+
+    private final MembershipStatusService membershipStatusService;
+    private final ExpirationRunService expirationRunService;
+    private final RevenueRollupService revenueRollupService;
+    private final ReportCache reportCache;
+    private final DashboardStream dashboardStream;
+    private final DailySnapshotService dailySnapshotService;
+    private final JwtService jwtService;
+    private final CachedUserDetailsService userDetailsService;
+    private final BoundedPasswordEncoder passwordEncoder;
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param membershipStatusService servicio del estado de membresía materializado
+     * @param expirationRunService expiración de pagos por lotes
+     * @param revenueRollupService rollups de recaudación
+     * @param reportCache caché de reportes
+     * @param dashboardStream stream en vivo del dashboard
+     * @param dailySnapshotService fotos diarias de indicadores
+     * @param jwtService verificación de tokens JWT
+     * @param userDetailsService caché de usuarios del filtro JWT
+     */
+    @Autowired
+    public MaintenanceController(MembershipStatusService membershipStatusService,
+                                 ExpirationRunService expirationRunService,
+                                 RevenueRollupService revenueRollupService,
+                                 ReportCache reportCache,
+                                 DashboardStream dashboardStream,
+                                 DailySnapshotService dailySnapshotService,
+                                 JwtService jwtService,
+                                 CachedUserDetailsService userDetailsService,
+                                 BoundedPasswordEncoder passwordEncoder) {
+        this.membershipStatusService = membershipStatusService;
+        this.expirationRunService = expirationRunService;
+        this.revenueRollupService = revenueRollupService;
+        this.reportCache = reportCache;
+        this.dashboardStream = dashboardStream;
+        this.dailySnapshotService = dailySnapshotService;
+        this.jwtService = jwtService;
+        this.userDetailsService = userDetailsService;
+        this.passwordEncoder = passwordEncoder;
+    }
+
+    /**
+     * Reconstruye la tabla client_membership_status completa a partir de los pagos.
+     *
+     * @return cantidad de clientes procesados
+     */
+    @PostMapping("/membership-status/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildMembershipStatus() {
+        int clients = membershipStatusService.rebuild();
+        return ResponseEntity.ok(Map.of("clients", clients));
+    }
+
+    /**
+     * Reconstruye los rollups de recaudación diaria y mensual a partir de los pagos.
+     *
+     * @return cantidad de filas diarias generadas
+     */
+    @PostMapping("/revenue-rollups/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildRevenueRollups() {
+        int days = revenueRollupService.rebuild();
+        return ResponseEntity.ok(Map.of("dailyRows", days));
+    }
+
+    /**
+     * Métricas de la caché de reportes (aciertos, fallos, cálculos coalescidos, tiempo medio de carga).
+     *
+     * @return métricas acumuladas desde el arranque
+     */
+    @GetMapping("/report-cache")
+    public ResponseEntity<Map<String, Object>> getReportCacheStats() {
+        return ResponseEntity.ok(reportCache.stats());
+    }
+
+    /**
+     * Vacía la caché de reportes (por ejemplo, tras cargar datos directamente en la base).
+     *
+     * @return métricas luego de vaciar
+     */
+    @PostMapping("/report-cache/invalidate")
+    public ResponseEntity<Map<String, Object>> invalidateReportCache() {
+        reportCache.invalidateAll();
+        return ResponseEntity.ok(reportCache.stats());
+    }
+
+    /**
+     * Captura (o reemplaza) la foto de indicadores del día actual, por ejemplo si el job nocturno no corrió.
+     *
+     * @return foto guardada
+     */
+    @PostMapping("/daily-snapshots/capture")
+    public ResponseEntity<DailySnapshotDTO> captureDailySnapshot() {
+        return ResponseEntity.ok(dailySnapshotService.capture());
+    }
+
+    /**
+     * Métricas del stream SSE del dashboard (conexiones abiertas, envíos y consumidores lentos desconectados).
+     *
+     * @return métricas acumuladas desde el arranque
+     */
+    @GetMapping("/dashboard-stream")
+    public ResponseEntity<Map<String, Object>> getDashboardStreamStats() {
+        return ResponseEntity.ok(dashboardStream.stats());
+    }
+
+    /**
+     * Métricas de la caché de tokens JWT verificados (aciertos evitan recalcular la firma).
+     *
+     * @return métricas acumuladas desde el arranque
+     */
+    @GetMapping("/jwt-cache")
+    public ResponseEntity<Map<String, Object>> getJwtCacheStats() {
+        return ResponseEntity.ok(jwtService.cacheStats());
+    }
+
+    /**
+     * Métricas de la caché de usuarios del filtro JWT (aciertos evitan consultar la base en cada request).
+     *
+     * @return métricas acumuladas desde el arranque
+     */
+    @GetMapping("/user-cache")
+    public ResponseEntity<Map<String, Object>> getUserCacheStats() {
+        return ResponseEntity.ok(userDetailsService.stats());
+    }
+
+    /**
+     * Métricas del pool de hashing de contraseñas (profundidad de cola, rechazos y latencias de espera y de BCrypt).
+     *
+     * @return métricas acumuladas desde el arranque
+     */
+    @GetMapping("/password-hashing")
+    public ResponseEntity<Map<String, Object>> getPasswordHashingStats() {
+        return ResponseEntity.ok(passwordEncoder.stats());
+    }
+
+    /**
+     * Últimas corridas del job de expiración por lotes (filas, lotes, duración, checkpoint y estado).
+     *
+     * @return corridas más recientes primero
+     */
+    @GetMapping("/expiration-runs")
+    public ResponseEntity<List<ExpirationRun>> getExpirationRuns() {
+        return ResponseEntity.ok(expirationRunService.recentRuns());
+    }
+
+    /**
+     * Ejecuta la expiración por lotes en el momento (retoma una corrida pendiente si la hay).
+     * Responde 409 si ya hay una corrida en curso.
+     *
+     * @return la corrida ejecutada
+     */
+    @PostMapping("/expiration-runs")
+    public ResponseEntity<ExpirationRun> runExpiration() {
+        return ResponseEntity.ok(expirationRunService.runChunked());
+    }
+}
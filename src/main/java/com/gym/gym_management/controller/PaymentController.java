@@ -1,7 +1,13 @@
 package com.gym.gym_management.controller;
 
 import com.gym.gym_management.controller.dto.PaymentDTO;
+import com.gym.gym_management.controller.dto.PaymentImportResultDTO;
+import com.gym.gym_management.controller.dto.PaymentSliceDTO;
 import com.gym.gym_management.model.PaymentState;
+import com.gym.gym_management.service.DataVersionService;
+import com.gym.gym_management.service.DataVersionService.Table;
+import com.gym.gym_management.service.PaymentExportService;
+import com.gym.gym_management.service.PaymentImportService;
 import com.gym.gym_management.service.PaymentService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,7 +20,11 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.text.Normalizer;
 import java.time.LocalDate;
 import java.util.Locale;
@@ -29,7 +39,9 @@ import org.slf4j.LoggerFactory;
  * Expone endpoints administrativos (rol ADMIN) para:
  * <ul>
  *     <li>Registrar nuevos pagos aplicando reglas del dominio.</li>
- *     <li>Listar pagos con filtros (cliente, fechas, estado) y paginación.</li>
+ *     <li>Importar pagos históricos en forma masiva (CSV / NDJSON) con reporte de errores por fila.</li>
+ *     <li>Exportar pagos filtrados en streaming (CSV / NDJSON, opcionalmente gzip).</li>
+ *     <li>Listar pagos con filtros (cliente, fechas, estado) y paginación (offset o cursor keyset).</li>
  *     <li>Anular pagos (void) manteniendo trazabilidad.</li>
  *     <li>Consultar un pago puntual.</li>
  *     <li>Consultar el estado dinámico de un período (sin crear registros). Estados disponibles: UP_TO_DATE, EXPIRED, VOIDED.</li>
@@ -46,6 +58,15 @@ public class PaymentController {
     @Autowired
     private PaymentService paymentService;
 
+    @Autowired
+    private PaymentImportService paymentImportService;
+
+    @Autowired
+    private PaymentExportService paymentExportService;
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
     /**
      * Registra un nuevo pago asociado a un cliente.
      * @param request datos del pago (cliente, monto, período, método).
@@ -67,6 +88,42 @@ public class PaymentController {
         }
     }
 
+    /**
+     * Importa pagos en forma masiva leyendo el cuerpo del request en streaming.
+     * <p>
+     * El formato se toma del parámetro {@code format} (csv | ndjson) o, si no viene, del Content-Type
+     * ({@code application/x-ndjson} o {@code application/json} => NDJSON; cualquier otro => CSV).
+     * Las filas inválidas no cortan la importación: se informan en el resultado con su número de línea.
+     * @param format formato explícito (opcional)
+     * @param contentType Content-Type del request
+     * @param body contenido del archivo
+     * @return 200 + resumen de importación, o 400 si la cabecera / formato son inválidos
+     */
+    @PostMapping("/import")
+    public ResponseEntity<?> importPayments(
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = "Content-Type", required = false) String contentType,
+            InputStream body) throws IOException {
+        PaymentImportService.Format parsedFormat;
+        if (format != null && !format.isBlank()) {
+            try {
+                parsedFormat = PaymentImportService.Format.valueOf(format.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body("Formato no soportado: " + format);
+            }
+        } else {
+            String ct = contentType == null ? "" : contentType.toLowerCase(Locale.ROOT);
+            parsedFormat = ct.contains("json") ? PaymentImportService.Format.NDJSON : PaymentImportService.Format.CSV;
+        }
+        try {
+            PaymentImportResultDTO result = paymentImportService.importPayments(body, parsedFormat);
+            log.debug("[POST /api/payments/import] format={}, rows={}, imported={}, rejected={}", parsedFormat, result.getTotalRows(), result.getImported(), result.getRejected());
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     /**
      * Lista pagos aplicando filtros opcionales.
      * Estados aceptados: UP_TO_DATE, EXPIRED, VOIDED.
@@ -74,7 +131,11 @@ public class PaymentController {
      * @param from fecha mínima de paymentDate.
      * @param to fecha máxima de paymentDate.
      * @param state estado textual (UP_TO_DATE | EXPIRED | VOIDED).
+     * @param after cursor opaco devuelto en {@code nextCursor}; activa el modo cursor (vacío = primera página).
+     * @param withTotal si es false activa el modo cursor sin total (evita el COUNT de cada página).
      * @param pageable parámetros de paginación.
+     * @return {@code Page} en modo offset (por defecto) o {@link PaymentSliceDTO} en modo cursor;
+     *         304 si {@code If-None-Match} coincide con la versión actual de clientes y pagos.
      */
     @GetMapping
     public ResponseEntity<?> getPayments(
@@ -83,8 +144,17 @@ public class PaymentController {
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
             @RequestParam(required = false) String state,
             @RequestParam(required = false, name = "q") String queryText,
-            @PageableDefault(sort = "paymentDate", direction = Sort.Direction.DESC) Pageable pageable
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "true") boolean withTotal,
+            @PageableDefault(sort = "paymentDate", direction = Sort.Direction.DESC) Pageable pageable,
+            WebRequest request
     ) {
+        return ConditionalResponses.withEtag(request, dataVersionService.etag(Table.CLIENTS, Table.PAYMENTS),
+                () -> listPayments(clientId, from, to, state, queryText, after, withTotal, pageable));
+    }
+
+    private ResponseEntity<Object> listPayments(Long clientId, LocalDate from, LocalDate to, String state, String queryText,
+                                                String after, boolean withTotal, Pageable pageable) {
         if (from != null && to != null && from.isAfter(to)) {
             return ResponseEntity.badRequest().body("El parámetro 'from' no puede ser posterior a 'to'");
         }
@@ -93,11 +163,44 @@ public class PaymentController {
         if (state != null) {
             log.debug("[GET /api/payments] parsedState={}", parsedState);
         }
+        if (after != null || !withTotal) {
+            // Modo cursor (keyset): orden fijo paymentDate DESC, id DESC y sin COUNT
+            PaymentSliceDTO slice = paymentService.findPaymentsAfter(clientId, queryText, from, to, parsedState, after, pageable.getPageSize());
+            log.debug("[GET /api/payments] cursor mode pageContentSize={}, hasNext={}", slice.getContent().size(), slice.isHasNext());
+            return ResponseEntity.ok(slice);
+        }
         Page<PaymentDTO> page = paymentService.findPayments(clientId, queryText, from, to, parsedState, pageable);
         log.debug("[GET /api/payments] result elements={}, pageContentSize={}", page.getTotalElements(), page.getContent().size());
         return ResponseEntity.ok(page);
     }
 
+    /**
+     * Exporta en streaming los pagos que cumplen los mismos filtros que el listado.
+     * Las filas se escriben a medida que se leen de la base (memoria constante sin importar el rango).
+     * @param format csv (por defecto) o ndjson
+     * @param gzip si es true comprime la salida (descarga .gz)
+     * @return archivo adjunto en streaming, o 400 si los parámetros son inválidos
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportPayments(
+            @RequestParam(required = false) Long clientId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String state,
+            @RequestParam(required = false, name = "q") String queryText,
+            @RequestParam(required = false) String format,
+            @RequestParam(defaultValue = "false") boolean gzip
+    ) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("El parámetro 'from' no puede ser posterior a 'to'");
+        }
+        // Los errores de validación se lanzan antes de empezar el streaming (GlobalExceptionHandler -> 400)
+        PaymentExportService.Format parsedFormat = ExportResponses.parseFormat(format);
+        PaymentState parsedState = mapFlexibleState(state);
+        return ExportResponses.stream("pagos", parsedFormat, gzip,
+                out -> paymentExportService.exportPayments(clientId, queryText, from, to, parsedState, parsedFormat, out));
+    }
+
     /**
      * Anula un pago existente marcándolo como VOIDED.
      * @param id identificador del pago.
@@ -1,16 +1,41 @@
 package com.gym.gym_management.controller;
 
 import com.gym.gym_management.controller.dto.ClientDTO;
+import com.gym.gym_management.controller.dto.DailySnapshotDTO;
 import com.gym.gym_management.controller.dto.OverdueClientDTO;
 import com.gym.gym_management.controller.dto.ExpiringClientDTO;
+import com.gym.gym_management.controller.dto.ReportJobDTO;
+import com.gym.gym_management.controller.dto.ReportJobRequest;
+import com.gym.gym_management.controller.dto.RevenueBucketDTO;
+import com.gym.gym_management.service.DailySnapshotService;
+import com.gym.gym_management.service.DataVersionService;
+import com.gym.gym_management.service.DataVersionService.Table;
+import com.gym.gym_management.service.PaymentExportService;
+import com.gym.gym_management.service.ReportCache;
+import com.gym.gym_management.service.ReportJob;
+import com.gym.gym_management.service.ReportJobService;
 import com.gym.gym_management.service.ReportService;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.net.URI;
+import java.security.Principal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/reports")
@@ -20,20 +45,62 @@ public class ReportController {
     @Autowired
     private ReportService reportService;
 
+    @Autowired
+    private PaymentExportService paymentExportService;
+
+    @Autowired
+    private ReportCache reportCache;
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Autowired
+    private DailySnapshotService dailySnapshotService;
+
+    @Autowired
+    private ReportJobService reportJobService;
+
     /**
-     * Obtiene lista de clientes con pagos por vencer en los próximos 7 días
+     * Obtiene la página de clientes con pagos por vencer en los próximos {@code days} días (por defecto 7).
+     * Parámetros de página: page y size (por defecto 50); el orden es por vencimiento más próximo.
+     * Responde 304 si {@code If-None-Match} coincide con la versión actual de los datos.
      */
     @GetMapping("/expiring")
-    public ResponseEntity<List<ExpiringClientDTO>> getExpiringPayments() {
-        return ResponseEntity.ok(reportService.getClientsWithPaymentsExpiringSoon());
+    public ResponseEntity<Page<ExpiringClientDTO>> getExpiringPayments(
+            @RequestParam(defaultValue = "7") int days,
+            @PageableDefault(size = 50) Pageable pageable,
+            WebRequest request) {
+        String key = ReportCache.key("expiring", days, pageable.getPageNumber(), pageable.getPageSize());
+        return ConditionalResponses.withEtag(request,
+                dataVersionService.etag(Table.CLIENTS, Table.PAYMENTS, Table.NOTIFICATIONS),
+                () -> ResponseEntity.ok(reportCache.get(key,
+                        () -> reportService.getClientsWithPaymentsExpiringSoon(days, pageable))));
     }
 
     /**
-     * Obtiene lista de clientes con último pago válido vencido, incluyendo fecha de expiración.
+     * Obtiene la página de clientes con último pago válido vencido, incluyendo fecha de expiración y días de atraso.
+     * {@code direction=desc} (por defecto) ordena de mayor a menor atraso; {@code asc} al revés.
+     * Parámetros de página: page y size (por defecto 50).
+     * Responde 304 si {@code If-None-Match} coincide con la versión actual de los datos.
      */
     @GetMapping("/overdue")
-    public ResponseEntity<List<OverdueClientDTO>> getOverduePayments() {
-        return ResponseEntity.ok(reportService.getClientsWithOverduePayments());
+    public ResponseEntity<Page<OverdueClientDTO>> getOverduePayments(
+            @RequestParam(defaultValue = "desc") String direction,
+            @PageableDefault(size = 50) Pageable pageable,
+            WebRequest request) {
+        boolean mostOverdueFirst;
+        if ("desc".equalsIgnoreCase(direction)) {
+            mostOverdueFirst = true;
+        } else if ("asc".equalsIgnoreCase(direction)) {
+            mostOverdueFirst = false;
+        } else {
+            throw new IllegalArgumentException("direction debe ser asc o desc");
+        }
+        String key = ReportCache.key("overdue", mostOverdueFirst, pageable.getPageNumber(), pageable.getPageSize());
+        return ConditionalResponses.withEtag(request,
+                dataVersionService.etag(Table.CLIENTS, Table.PAYMENTS, Table.NOTIFICATIONS),
+                () -> ResponseEntity.ok(reportCache.get(key,
+                        () -> reportService.getClientsWithOverduePayments(mostOverdueFirst, pageable))));
     }
 
     /**
@@ -41,8 +108,112 @@ public class ReportController {
      */
     @GetMapping("/cashflow")
     public ResponseEntity<Double> getCashflow(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            WebRequest request) {
+        return ConditionalResponses.withEtag(request, dataVersionService.etag(Table.PAYMENTS),
+                () -> ResponseEntity.ok(reportService.calculateCashflow(from, to)));
+    }
+
+    /**
+     * Serie de recaudación para gráficos de tendencia, leída de los rollups diarios/mensuales.
+     * bucket: day (por defecto), week o month. byMethod=true desglosa cada intervalo por método de pago.
+     */
+    @GetMapping("/revenue")
+    public ResponseEntity<List<RevenueBucketDTO>> getRevenue(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "day") String bucket,
+            @RequestParam(defaultValue = "false") boolean byMethod,
+            WebRequest request) {
+        return ConditionalResponses.withEtag(request, dataVersionService.etag(Table.PAYMENTS),
+                () -> ResponseEntity.ok(reportService.getRevenueSeries(from, to, bucket, byMethod)));
+    }
+
+    /**
+     * Serie histórica diaria (activos, pausados, al día, vencidos, altas y recaudación por método) leída de las
+     * fotos diarias; un rango de hasta dos años.
+     */
+    @GetMapping("/daily-snapshots")
+    public ResponseEntity<List<DailySnapshotDTO>> getDailySnapshots(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
-        return ResponseEntity.ok(reportService.calculateCashflow(from, to));
+        return ResponseEntity.ok(dailySnapshotService.series(from, to));
+    }
+
+    /**
+     * Exporta en streaming el flujo de caja diario por método de pago (pagos no anulados).
+     * Acepta los mismos filtros que el listado de pagos; from/to son obligatorios como en /cashflow.
+     * Formato csv (por defecto) o ndjson; gzip opcional.
+     */
+    @GetMapping("/cashflow/export")
+    public ResponseEntity<StreamingResponseBody> exportCashflow(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long clientId,
+            @RequestParam(required = false, name = "q") String queryText,
+            @RequestParam(required = false) String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("El parámetro 'from' no puede ser posterior a 'to'");
+        }
+        // Los errores de validación se lanzan antes de empezar el streaming (GlobalExceptionHandler -> 400)
+        PaymentExportService.Format parsedFormat = ExportResponses.parseFormat(format);
+        return ExportResponses.stream("flujo-de-caja", parsedFormat, gzip,
+                out -> paymentExportService.exportCashflow(clientId, queryText, from, to, parsedFormat, out));
+    }
+
+    /**
+     * Encola un reporte pesado (pagos, flujo de caja o lista completa de vencidos) para generarlo fuera del
+     * request. Responde 202 con el trabajo; el avance se consulta en /jobs/{id} y el resultado se descarga
+     * de /jobs/{id}/download. 409 si la cola está llena o el usuario ya tiene demasiados reportes en curso.
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<?> submitJob(@Valid @RequestBody ReportJobRequest request, Principal principal) {
+        ReportJob job;
+        try {
+            job = reportJobService.submit(request, ExportResponses.parseFormat(request.getFormat()),
+                    principal != null ? principal.getName() : null);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(URI.create("/api/reports/jobs/" + job.getId()))
+                .body(new ReportJobDTO(job));
+    }
+
+    /** Reportes asíncronos vigentes (en cola, en ejecución o con resultado disponible), más recientes primero. */
+    @GetMapping("/jobs")
+    public ResponseEntity<List<ReportJobDTO>> listJobs() {
+        return ResponseEntity.ok(reportJobService.list().stream().map(ReportJobDTO::new).collect(Collectors.toList()));
+    }
+
+    /** Estado y avance de un reporte asíncrono. */
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<ReportJobDTO> getJob(@PathVariable String id) {
+        return ResponseEntity.ok(new ReportJobDTO(reportJobService.get(id)));
+    }
+
+    /** Descarga el resultado de un reporte terminado (409 si todavía no está listo). */
+    @GetMapping("/jobs/{id}/download")
+    public ResponseEntity<?> downloadJob(@PathVariable String id) {
+        ReportJob job;
+        try {
+            job = reportJobService.getResult(id);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+        Resource body = new FileSystemResource(job.getFile());
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + job.getFileName() + "\"")
+                .contentType(MediaType.parseMediaType(job.getContentType()))
+                .body(body);
+    }
+
+    /** Cancela un reporte en cola o en ejecución, o descarta el resultado de uno terminado. */
+    @DeleteMapping("/jobs/{id}")
+    public ResponseEntity<Void> cancelJob(@PathVariable String id) {
+        reportJobService.cancel(id);
+        return ResponseEntity.noContent().build();
     }
 }
@@ -3,6 +3,7 @@ package com.gym.gym_management.controller.dto;
 import java.time.LocalDateTime;
 
 public class ActivityDto {
+    private final Long id; // id del evento en el feed (cursor); null en actividades no persistidas
     private final String type;
     private final String title;
     private final String description;
@@ -10,6 +11,11 @@ public class ActivityDto {
     private final Long relatedId;
 
     public ActivityDto(String type, String title, String description, LocalDateTime timestamp, Long relatedId) {
+        this(null, type, title, description, timestamp, relatedId);
+    }
+
+    public ActivityDto(Long id, String type, String title, String description, LocalDateTime timestamp, Long relatedId) {
+        this.id = id;
         this.type = type;
         this.title = title;
         this.description = description;
@@ -17,6 +23,10 @@ public class ActivityDto {
         this.relatedId = relatedId;
     }
 
+    public Long getId() {
+        return id;
+    }
+
     public String getType() {
         return type;
     }
@@ -0,0 +1,40 @@
+package com.gym.gym_management.controller.dto;
+
+import java.util.List;
+
+/**
+ * Respuesta del feed de actividad en modo cursor (keyset), igual que {@link PaymentSliceDTO}.
+ * <ul>
+ *   <li>content: eventos de la página, más recientes primero.</li>
+ *   <li>size: tamaño de página solicitado.</li>
+ *   <li>hasNext: indica si hay eventos más antiguos.</li>
+ *   <li>nextCursor: valor para el parámetro {@code before} de la siguiente llamada (null si no hay más).</li>
+ * </ul>
+ */
+public class ActivityFeedDTO {
+    private List<ActivityDto> content;
+    private int size;
+    private boolean hasNext;
+    private Long nextCursor;
+
+    public ActivityFeedDTO() {}
+
+    public ActivityFeedDTO(List<ActivityDto> content, int size, boolean hasNext, Long nextCursor) {
+        this.content = content;
+        this.size = size;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<ActivityDto> getContent() { return content; }
+    public void setContent(List<ActivityDto> content) { this.content = content; }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+
+    public boolean isHasNext() { return hasNext; }
+    public void setHasNext(boolean hasNext) { this.hasNext = hasNext; }
+
+    public Long getNextCursor() { return nextCursor; }
+    public void setNextCursor(Long nextCursor) { this.nextCursor = nextCursor; }
+}
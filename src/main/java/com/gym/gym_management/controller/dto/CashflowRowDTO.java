@@ -0,0 +1,43 @@
+package com.gym.gym_management.controller.dto;
+
+import com.gym.gym_management.model.PaymentMethod;
+
+import java.time.LocalDate;
+
+/**
+ * Fila de la exportación de flujo de caja: total cobrado en un día con un método de pago.
+ * <ul>
+ *   <li>date: fecha de pago.</li>
+ *   <li>method: método de pago.</li>
+ *   <li>payments: cantidad de pagos no anulados.</li>
+ *   <li>total: suma de montos.</li>
+ * </ul>
+ */
+public class CashflowRowDTO {
+    private LocalDate date;
+    private PaymentMethod method;
+    private long payments;
+    private double total;
+
+    public CashflowRowDTO() {}
+
+    /** Constructor de proyección (Criteria {@code construct}) para la consulta agrupada. */
+    public CashflowRowDTO(LocalDate date, PaymentMethod method, Long payments, Double total) {
+        this.date = date;
+        this.method = method;
+        this.payments = payments != null ? payments : 0L;
+        this.total = total != null ? total : 0.0;
+    }
+
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+
+    public PaymentMethod getMethod() { return method; }
+    public void setMethod(PaymentMethod method) { this.method = method; }
+
+    public long getPayments() { return payments; }
+    public void setPayments(long payments) { this.payments = payments; }
+
+    public double getTotal() { return total; }
+    public void setTotal(double total) { this.total = total; }
+}
@@ -0,0 +1,58 @@
+package com.gym.gym_management.controller.dto;
+
+import com.gym.gym_management.model.DailySnapshot;
+import com.gym.gym_management.model.PaymentMethod;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Punto de la serie histórica diaria (GET /api/reports/daily-snapshots).
+ * <ul>
+ *   <li>date: día de la foto.</li>
+ *   <li>activeClients / pausedClients: clientes activos y, de ellos, con pausa vigente.</li>
+ *   <li>upToDateClients / expiredClients: clientes activos con y sin membresía vigente ese día.</li>
+ *   <li>newMembers: altas con fecha de inicio ese día.</li>
+ *   <li>payments / revenueTotal: pagos no anulados del día y su total.</li>
+ *   <li>revenueByMethod: total del día por método de pago.</li>
+ * </ul>
+ */
+public class DailySnapshotDTO {
+    private final LocalDate date;
+    private final long activeClients;
+    private final long pausedClients;
+    private final long upToDateClients;
+    private final long expiredClients;
+    private final long newMembers;
+    private final long payments;
+    private final double revenueTotal;
+    private final Map<String, Double> revenueByMethod;
+
+    public DailySnapshotDTO(DailySnapshot s) {
+        this.date = s.getSnapshotDate();
+        this.activeClients = s.getActiveClients();
+        this.pausedClients = s.getPausedClients();
+        this.upToDateClients = s.getUpToDateClients();
+        this.expiredClients = s.getExpiredClients();
+        this.newMembers = s.getNewMembers();
+        this.payments = s.getPayments();
+        this.revenueTotal = s.getRevenueTotal();
+        this.revenueByMethod = new LinkedHashMap<>();
+        revenueByMethod.put(PaymentMethod.CASH.name(), s.getRevenueCash());
+        revenueByMethod.put(PaymentMethod.DEBIT.name(), s.getRevenueDebit());
+        revenueByMethod.put(PaymentMethod.CREDIT.name(), s.getRevenueCredit());
+        revenueByMethod.put(PaymentMethod.TRANSFER.name(), s.getRevenueTransfer());
+        revenueByMethod.put(PaymentMethod.OTHER.name(), s.getRevenueOther());
+    }
+
+    public LocalDate getDate() { return date; }
+    public long getActiveClients() { return activeClients; }
+    public long getPausedClients() { return pausedClients; }
+    public long getUpToDateClients() { return upToDateClients; }
+    public long getExpiredClients() { return expiredClients; }
+    public long getNewMembers() { return newMembers; }
+    public long getPayments() { return payments; }
+    public double getRevenueTotal() { return revenueTotal; }
+    public Map<String, Double> getRevenueByMethod() { return revenueByMethod; }
+}
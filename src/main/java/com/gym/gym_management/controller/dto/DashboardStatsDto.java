@@ -3,10 +3,19 @@ package com.gym.gym_management.controller.dto;
 public class DashboardStatsDto {
     private final long activeClients;
     private final long expiredPayments;
+    private final long expiredMemberships;
+    private final long expiringThisWeek;
+    private final double revenueThisMonth;
+    private final long newMembersThisWeek;
 
-    public DashboardStatsDto(long activeClients, long expiredPayments) {
+    public DashboardStatsDto(long activeClients, long expiredPayments, long expiredMemberships,
+                             long expiringThisWeek, double revenueThisMonth, long newMembersThisWeek) {
         this.activeClients = activeClients;
         this.expiredPayments = expiredPayments;
+        this.expiredMemberships = expiredMemberships;
+        this.expiringThisWeek = expiringThisWeek;
+        this.revenueThisMonth = revenueThisMonth;
+        this.newMembersThisWeek = newMembersThisWeek;
     }
 
     public long getActiveClients() {
@@ -16,4 +25,24 @@ public class DashboardStatsDto {
     public long getExpiredPayments() {
         return expiredPayments;
     }
+
+    // Clientes activos con membresía vencida (incluye los que nunca pagaron)
+    public long getExpiredMemberships() {
+        return expiredMemberships;
+    }
+
+    // Clientes activos cuya membresía vence en los próximos 7 días
+    public long getExpiringThisWeek() {
+        return expiringThisWeek;
+    }
+
+    // Recaudación del mes en curso (pagos no anulados hasta hoy)
+    public double getRevenueThisMonth() {
+        return revenueThisMonth;
+    }
+
+    // Altas con fecha de inicio desde el lunes de esta semana
+    public long getNewMembersThisWeek() {
+        return newMembersThisWeek;
+    }
 }
@@ -0,0 +1,70 @@
+package com.gym.gym_management.controller.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Respuesta agregada del dashboard (GET /api/dashboard/summary).
+ * <ul>
+ *   <li>stats: contadores del dashboard.</li>
+ *   <li>activities: últimas actividades.</li>
+ *   <li>expiring / expiringTotal: primera página de próximos vencimientos y total de socios por vencer.</li>
+ *   <li>overdue / overdueTotal: primera página de vencidos (mayor atraso primero) y total.</li>
+ *   <li>partial: true si alguna sección no se pudo calcular a tiempo; esas secciones quedan en null.</li>
+ *   <li>failedSections: sección → motivo ("timeout", "busy" o "error").</li>
+ * </ul>
+ */
+public class DashboardSummaryDto {
+    private final DashboardStatsDto stats;
+    private final List<ActivityDto> activities;
+    private final List<ExpiringClientDTO> expiring;
+    private final Long expiringTotal;
+    private final List<OverdueClientDTO> overdue;
+    private final Long overdueTotal;
+    private final Map<String, String> failedSections;
+
+    public DashboardSummaryDto(DashboardStatsDto stats, List<ActivityDto> activities,
+                               List<ExpiringClientDTO> expiring, Long expiringTotal,
+                               List<OverdueClientDTO> overdue, Long overdueTotal,
+                               Map<String, String> failedSections) {
+        this.stats = stats;
+        this.activities = activities;
+        this.expiring = expiring;
+        this.expiringTotal = expiringTotal;
+        this.overdue = overdue;
+        this.overdueTotal = overdueTotal;
+        this.failedSections = failedSections;
+    }
+
+    public DashboardStatsDto getStats() {
+        return stats;
+    }
+
+    public List<ActivityDto> getActivities() {
+        return activities;
+    }
+
+    public List<ExpiringClientDTO> getExpiring() {
+        return expiring;
+    }
+
+    public Long getExpiringTotal() {
+        return expiringTotal;
+    }
+
+    public List<OverdueClientDTO> getOverdue() {
+        return overdue;
+    }
+
+    public Long getOverdueTotal() {
+        return overdueTotal;
+    }
+
+    public boolean isPartial() {
+        return !failedSections.isEmpty();
+    }
+
+    public Map<String, String> getFailedSections() {
+        return failedSections;
+    }
+}
@@ -3,7 +3,8 @@ package com.gym.gym_management.controller.dto;
 import java.time.LocalDate;
 
 /**
- * Representa un cliente cuyo último pago válido vence en los próximos 7 días.
+ * Representa un cliente cuyo último pago válido vence dentro del horizonte consultado
+ * (parámetro {@code days} de /api/reports/expiring, por defecto 7 días).
  * Incluye información mínima, la fecha de expiración y si se le envió recordatorio.
  */
 public class ExpiringClientDTO {
@@ -13,6 +13,7 @@ public class OverdueClientDTO {
     private String email;
     private boolean active;
     private LocalDate expirationDate; // fecha de vencimiento del último pago válido
+    private long daysOverdue; // días transcurridos desde el vencimiento
     private boolean reminderSent; // indica si se envió recordatorio de vencimiento
 
     public Long getId() { return id; }
@@ -33,6 +34,9 @@ public class OverdueClientDTO {
     public LocalDate getExpirationDate() { return expirationDate; }
     public void setExpirationDate(LocalDate expirationDate) { this.expirationDate = expirationDate; }
 
+    public long getDaysOverdue() { return daysOverdue; }
+    public void setDaysOverdue(long daysOverdue) { this.daysOverdue = daysOverdue; }
+
     public boolean isReminderSent() { return reminderSent; }
     public void setReminderSent(boolean reminderSent) { this.reminderSent = reminderSent; }
 }
@@ -65,6 +65,34 @@ public class PaymentDTO {
     private Long voidedBy;
     private String voidReason;
 
+    public PaymentDTO() {}
+
+    /**
+     * Constructor de proyección usado por el modelo de lectura de pagos (Criteria {@code construct}).
+     * Recibe las columnas ya resueltas en SQL, incluido el estado efectivo.
+     */
+    public PaymentDTO(Long id, Long clientId, String clientFirstName, String clientLastName, String clientEmail,
+                      Double amount, PaymentMethod method, Integer month, Integer year,
+                      LocalDate paymentDate, LocalDate expirationDate, Integer durationDays,
+                      PaymentState state, Boolean voided, Long voidedBy, String voidReason) {
+        this.id = id;
+        this.clientId = clientId;
+        this.clientFirstName = clientFirstName;
+        this.clientLastName = clientLastName;
+        this.clientEmail = clientEmail;
+        this.amount = amount;
+        this.method = method;
+        this.month = month;
+        this.year = year;
+        this.paymentDate = paymentDate;
+        this.expirationDate = expirationDate;
+        this.durationDays = durationDays;
+        this.state = state;
+        this.voided = Boolean.TRUE.equals(voided);
+        this.voidedBy = voidedBy;
+        this.voidReason = voidReason;
+    }
+
     // Getters y setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
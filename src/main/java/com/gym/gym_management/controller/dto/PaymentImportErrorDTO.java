@@ -0,0 +1,26 @@
+package com.gym.gym_management.controller.dto;
+
+/**
+ * Error de una fila rechazada durante la importación masiva de pagos.
+ * <ul>
+ *   <li>line: número de línea del archivo (la cabecera CSV cuenta como línea 1).</li>
+ *   <li>message: motivo del rechazo (mismos mensajes que el alta individual de pagos).</li>
+ * </ul>
+ */
+public class PaymentImportErrorDTO {
+    private long line;
+    private String message;
+
+    public PaymentImportErrorDTO() {}
+
+    public PaymentImportErrorDTO(long line, String message) {
+        this.line = line;
+        this.message = message;
+    }
+
+    public long getLine() { return line; }
+    public void setLine(long line) { this.line = line; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+}
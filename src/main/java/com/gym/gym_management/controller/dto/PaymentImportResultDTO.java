@@ -0,0 +1,55 @@
+package com.gym.gym_management.controller.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de la importación masiva de pagos ({@code POST /api/payments/import}).
+ * <ul>
+ *   <li>totalRows: filas de datos leídas (sin contar cabecera ni líneas en blanco).</li>
+ *   <li>imported: pagos insertados.</li>
+ *   <li>rejected: filas rechazadas.</li>
+ *   <li>errors: detalle por fila rechazada (se corta en {@link #MAX_REPORTED_ERRORS}).</li>
+ *   <li>errorsTruncated: true si hubo más rechazos que los detallados en errors.</li>
+ * </ul>
+ */
+public class PaymentImportResultDTO {
+
+    /** Máximo de errores detallados en la respuesta (evita respuestas gigantes con archivos mal formados). */
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private long totalRows;
+    private long imported;
+    private long rejected;
+    private List<PaymentImportErrorDTO> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+
+    /**
+     * Registra una fila rechazada.
+     * @param line número de línea del archivo
+     * @param message motivo
+     */
+    public void reject(long line, String message) {
+        rejected++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new PaymentImportErrorDTO(line, message));
+        } else {
+            errorsTruncated = true;
+        }
+    }
+
+    public long getTotalRows() { return totalRows; }
+    public void setTotalRows(long totalRows) { this.totalRows = totalRows; }
+
+    public long getImported() { return imported; }
+    public void setImported(long imported) { this.imported = imported; }
+
+    public long getRejected() { return rejected; }
+    public void setRejected(long rejected) { this.rejected = rejected; }
+
+    public List<PaymentImportErrorDTO> getErrors() { return errors; }
+    public void setErrors(List<PaymentImportErrorDTO> errors) { this.errors = errors; }
+
+    public boolean isErrorsTruncated() { return errorsTruncated; }
+    public void setErrorsTruncated(boolean errorsTruncated) { this.errorsTruncated = errorsTruncated; }
+}
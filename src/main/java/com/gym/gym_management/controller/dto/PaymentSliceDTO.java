@@ -0,0 +1,44 @@
+package com.gym.gym_management.controller.dto;
+
+import java.util.List;
+
+/**
+ * Respuesta del listado de pagos en modo cursor (keyset).
+ * <p>
+ * A diferencia de {@code Page}, no incluye total de elementos ni de páginas:
+ * evita el {@code COUNT} adicional en cada request. Para avanzar se envía
+ * {@code nextCursor} en el parámetro {@code after} de la siguiente llamada.
+ * <ul>
+ *   <li>content: pagos de la página actual.</li>
+ *   <li>size: tamaño de página solicitado.</li>
+ *   <li>hasNext: indica si existen más pagos luego de esta página.</li>
+ *   <li>nextCursor: token opaco para pedir la página siguiente (null si no hay más).</li>
+ * </ul>
+ */
+public class PaymentSliceDTO {
+    private List<PaymentDTO> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+
+    public PaymentSliceDTO() {}
+
+    public PaymentSliceDTO(List<PaymentDTO> content, int size, boolean hasNext, String nextCursor) {
+        this.content = content;
+        this.size = size;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<PaymentDTO> getContent() { return content; }
+    public void setContent(List<PaymentDTO> content) { this.content = content; }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+
+    public boolean isHasNext() { return hasNext; }
+    public void setHasNext(boolean hasNext) { this.hasNext = hasNext; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
@@ -0,0 +1,60 @@
+package com.gym.gym_management.controller.dto;
+
+import com.gym.gym_management.service.ReportJob;
+
+import java.time.LocalDateTime;
+
+/**
+ * Estado de un reporte asíncrono para consultar su avance.
+ * {@code downloadUrl} solo viene cuando el resultado está listo; {@code percent} es null mientras no se conoce
+ * el total de filas.
+ */
+public class ReportJobDTO {
+    private final String id;
+    private final String type;
+    private final String status;
+    private final String requestedBy;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime startedAt;
+    private final LocalDateTime finishedAt;
+    private final LocalDateTime expiresAt;
+    private final long rowsWritten;
+    private final Long rowsTotal;
+    private final Integer percent;
+    private final String error;
+    private final String fileName;
+    private final String downloadUrl;
+
+    public ReportJobDTO(ReportJob job) {
+        this.id = job.getId();
+        this.type = job.getType().name();
+        this.status = job.getStatus().name();
+        this.requestedBy = job.getRequestedBy();
+        this.createdAt = job.getCreatedAt();
+        this.startedAt = job.getStartedAt();
+        this.finishedAt = job.getFinishedAt();
+        this.expiresAt = job.getExpiresAt();
+        this.rowsWritten = job.getRowsWritten();
+        this.rowsTotal = job.getRowsTotal();
+        this.percent = job.getPercent();
+        this.error = job.getError();
+        this.fileName = job.getFileName();
+        this.downloadUrl = job.getStatus() == ReportJob.Status.DONE
+                ? "/api/reports/jobs/" + job.getId() + "/download" : null;
+    }
+
+    public String getId() { return id; }
+    public String getType() { return type; }
+    public String getStatus() { return status; }
+    public String getRequestedBy() { return requestedBy; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public long getRowsWritten() { return rowsWritten; }
+    public Long getRowsTotal() { return rowsTotal; }
+    public Integer getPercent() { return percent; }
+    public String getError() { return error; }
+    public String getFileName() { return fileName; }
+    public String getDownloadUrl() { return downloadUrl; }
+}
@@ -0,0 +1,53 @@
+package com.gym.gym_management.controller.dto;
+
+import com.gym.gym_management.model.PaymentState;
+import com.gym.gym_management.service.ReportJob;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDate;
+
+/**
+ * Pedido de un reporte asíncrono (POST /api/reports/jobs).
+ * <ul>
+ *   <li>type: PAYMENTS, CASHFLOW u OVERDUE.</li>
+ *   <li>from / to: rango de fechas (obligatorio para CASHFLOW, opcional para PAYMENTS).</li>
+ *   <li>clientId, q, state: mismos filtros que el listado de pagos (solo PAYMENTS y CASHFLOW).</li>
+ *   <li>format: csv (por defecto) o ndjson; gzip comprime el resultado.</li>
+ * </ul>
+ */
+public class ReportJobRequest {
+    @NotNull(message = "El tipo de reporte es obligatorio")
+    private ReportJob.Type type;
+
+    private LocalDate from;
+    private LocalDate to;
+    private Long clientId;
+    private String q;
+    private PaymentState state;
+    private String format;
+    private boolean gzip;
+
+    public ReportJob.Type getType() { return type; }
+    public void setType(ReportJob.Type type) { this.type = type; }
+
+    public LocalDate getFrom() { return from; }
+    public void setFrom(LocalDate from) { this.from = from; }
+
+    public LocalDate getTo() { return to; }
+    public void setTo(LocalDate to) { this.to = to; }
+
+    public Long getClientId() { return clientId; }
+    public void setClientId(Long clientId) { this.clientId = clientId; }
+
+    public String getQ() { return q; }
+    public void setQ(String q) { this.q = q; }
+
+    public PaymentState getState() { return state; }
+    public void setState(PaymentState state) { this.state = state; }
+
+    public String getFormat() { return format; }
+    public void setFormat(String format) { this.format = format; }
+
+    public boolean isGzip() { return gzip; }
+    public void setGzip(boolean gzip) { this.gzip = gzip; }
+}
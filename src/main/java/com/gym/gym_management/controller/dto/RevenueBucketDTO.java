@@ -0,0 +1,42 @@
+package com.gym.gym_management.controller.dto;
+
+import com.gym.gym_management.model.PaymentMethod;
+
+import java.time.LocalDate;
+
+/**
+ * Punto de la serie de recaudación (GET /api/reports/revenue).
+ * <ul>
+ *   <li>bucketStart: primer día del intervalo (día, lunes de la semana o primer día del mes).</li>
+ *   <li>method: método de pago; null cuando la serie no se desglosa por método.</li>
+ *   <li>payments: cantidad de pagos no anulados.</li>
+ *   <li>total: suma de montos.</li>
+ * </ul>
+ */
+public class RevenueBucketDTO {
+    private LocalDate bucketStart;
+    private PaymentMethod method;
+    private long payments;
+    private double total;
+
+    public RevenueBucketDTO() {}
+
+    public RevenueBucketDTO(LocalDate bucketStart, PaymentMethod method, long payments, double total) {
+        this.bucketStart = bucketStart;
+        this.method = method;
+        this.payments = payments;
+        this.total = total;
+    }
+
+    public LocalDate getBucketStart() { return bucketStart; }
+    public void setBucketStart(LocalDate bucketStart) { this.bucketStart = bucketStart; }
+
+    public PaymentMethod getMethod() { return method; }
+    public void setMethod(PaymentMethod method) { this.method = method; }
+
+    public long getPayments() { return payments; }
+    public void setPayments(long payments) { this.payments = payments; }
+
+    public double getTotal() { return total; }
+    public void setTotal(double total) { this.total = total; }
+}
@@ -0,0 +1,41 @@
+package com.gym.gym_management.job;
+
+import com.gym.gym_management.controller.dto.DailySnapshotDTO;
+import com.gym.gym_management.service.DailySnapshotService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Job programado que guarda la foto diaria de indicadores ({@code daily_snapshots}).
+ * <p>
+ * Corre al cierre del día (23:55), antes de que {@link PaymentExpirationJob} procese el día siguiente, así la
+ * foto refleja el estado con que terminó el día. Volver a ejecutarlo el mismo día reemplaza la fila.
+ */
+@Component
+public class DailySnapshotJob {
+    private final DailySnapshotService dailySnapshotService;
+    private final boolean enabled;
+
+    /**
+     * @param dailySnapshotService servicio de fotos diarias
+     * @param enabled flag configurable (app.dailySnapshot.enabled) para activar/desactivar sin tocar código
+     */
+    public DailySnapshotJob(DailySnapshotService dailySnapshotService,
+                            @Value("${app.dailySnapshot.enabled:true}") boolean enabled) {
+        this.dailySnapshotService = dailySnapshotService;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Captura la foto del día a las 23:55.
+     * Cron: segundo minuto hora díaMes mes díaSemana
+     */
+    @Scheduled(cron = "0 55 23 * * *")
+    public void run() {
+        if (!enabled) return;
+        DailySnapshotDTO snapshot = dailySnapshotService.capture();
+        System.out.println("[DailySnapshotJob] Foto del " + snapshot.getDate() + ": " + snapshot.getActiveClients()
+                + " activos, " + snapshot.getExpiredClients() + " vencidos, $" + snapshot.getRevenueTotal());
+    }
+}
@@ -1,5 +1,7 @@
 package com.gym.gym_management.job;
 
+import com.gym.gym_management.model.ExpirationRun;
+import com.gym.gym_management.service.ExpirationRunService;
 import com.gym.gym_management.service.PaymentService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -15,21 +17,33 @@ import org.springframework.stereotype.Component;
  *   <li>Integraciones futuras (control de acceso físico según estado).</li>
  *   <li>Evitar condiciones de carrera dispersas (la transición se centraliza aquí).</li>
  * </ul>
+ * En la misma transacción marca EXPIRED las membresías vencidas de {@code client_membership_status}.
  * El método del servicio es idempotente: ejecutarlo varias veces el mismo día no genera efectos extra.
+ * <p>
+ * Con {@code app.expirationJob.chunked=true} (por defecto) usa el modo por lotes de {@link ExpirationRunService}:
+ * transacciones cortas de {@code app.expirationJob.batchSize} filas con checkpoint reanudable.
  */
 @Component
 public class PaymentExpirationJob {
     private final PaymentService paymentService;
+    private final ExpirationRunService expirationRunService;
     private final boolean enabled;
+    private final boolean chunked;
 
     /**
      * @param paymentService servicio de pagos
+     * @param expirationRunService expiración por lotes con checkpoint
      * @param enabled flag configurable (app.expirationJob.enabled) para activar/desactivar sin tocar código
+     * @param chunked flag configurable (app.expirationJob.chunked) para elegir lotes o un único bulk update
      */
     public PaymentExpirationJob(PaymentService paymentService,
-                                @Value("${app.expirationJob.enabled:true}") boolean enabled) {
+                                ExpirationRunService expirationRunService,
+                                @Value("${app.expirationJob.enabled:true}") boolean enabled,
+                                @Value("${app.expirationJob.chunked:true}") boolean chunked) {
         this.paymentService = paymentService;
+        this.expirationRunService = expirationRunService;
         this.enabled = enabled;
+        this.chunked = chunked;
     }
 
     /**
@@ -39,6 +53,12 @@ public class PaymentExpirationJob {
     @Scheduled(cron = "0 0 2 * * *") //0 0 2 * * * A los 2 am
     public void run() {
         if (!enabled) return;
+        if (chunked) {
+            ExpirationRun result = expirationRunService.runChunked();
+            System.out.println("[PaymentExpirationJob] Corrida " + result.getId() + ": " + result.getRowsUpdated()
+                    + " pagos EXPIRED en " + result.getBatches() + " lotes (" + result.getDurationMs() + " ms)");
+            return;
+        }
         int updated = paymentService.expireOverduePayments();
         if (updated > 0) {
             System.out.println("[PaymentExpirationJob] Pagos marcados como EXPIRED: " + updated);
@@ -4,9 +4,11 @@ import com.gym.gym_management.model.NotificationLog;
 import com.gym.gym_management.model.Payment;
 import com.gym.gym_management.repository.INotificationLogRepository;
 import com.gym.gym_management.repository.IPaymentRepository;
+import com.gym.gym_management.service.DataChangedEvent;
 import com.gym.gym_management.service.EmailService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -27,6 +29,7 @@ public class PaymentReminderJob {
     private final IPaymentRepository paymentRepository;
     private final INotificationLogRepository notificationLogRepository;
     private final EmailService emailService;
+    private final ApplicationEventPublisher eventPublisher;
     private final boolean enabled;
     private final int daysBefore;
     private final boolean logEnabled;
@@ -36,12 +39,14 @@ public class PaymentReminderJob {
     public PaymentReminderJob(IPaymentRepository paymentRepository,
                                INotificationLogRepository notificationLogRepository,
                                EmailService emailService,
+                               ApplicationEventPublisher eventPublisher,
                                @Value("${app.reminder.enabled:true}") boolean enabled,
                                @Value("${app.reminder.daysBefore:3}") int daysBefore,
                                @Value("${app.reminder.log:false}") boolean logEnabled) {
         this.paymentRepository = paymentRepository;
         this.notificationLogRepository = notificationLogRepository;
         this.emailService = emailService;
+        this.eventPublisher = eventPublisher;
         this.enabled = enabled;
         this.daysBefore = daysBefore;
         this.logEnabled = logEnabled;
@@ -58,6 +63,7 @@ public class PaymentReminderJob {
             System.out.println("[PaymentReminderJob] target=" + target + " pagosEncontrados=" + payments.size());
         }
 
+        int logged = 0;
         for (Payment p : payments) {
             if (!p.getClient().isActive()) continue;
             String email = p.getClient().getEmail();
@@ -91,11 +97,16 @@ public class PaymentReminderJob {
             );
 
             notificationLogRepository.save(notificationLog);
+            logged++;
 
             if (logEnabled) {
                 System.out.println("[PaymentReminderJob] enviado a=" + email + " vence=" + p.getExpirationDate() + " status=" + status);
             }
         }
+        if (logged > 0) {
+            // Los reportes muestran si se envió recordatorio: invalida cachés y ETags al confirmar
+            eventPublisher.publishEvent(DataChangedEvent.bulk(DataChangedEvent.Kind.REMINDERS_SENT, logged));
+        }
     }
 
     private String buildName(Payment p) {
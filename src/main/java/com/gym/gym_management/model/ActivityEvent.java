@@ -0,0 +1,114 @@
+package com.gym.gym_management.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento del feed de actividad del dashboard (tabla de solo inserción).
+ *
+ * Características principales:
+ * - Se escribe como efecto de las operaciones de clientes y pagos, en la misma transacción.
+ * - Guarda título y descripción ya armados (con el nombre del cliente al momento del evento),
+ *   así leer el feed no requiere JOIN con clients ni payments.
+ * - El id (IDENTITY) es creciente: el feed se pagina por clave con {@code id < cursor ORDER BY id DESC},
+ *   usando la clave primaria o el índice (type, id) cuando se filtra por tipo.
+ */
+@Entity
+@Table(name = "activity_events", indexes = {
+        @Index(name = "idx_activity_events_type_id", columnList = "type, id")
+})
+public class ActivityEvent {
+
+    /** Tipos de evento; {@link #getCode()} es el valor expuesto en la API (y usado por el frontend). */
+    public enum Type {
+        NEW_CLIENT("new-client"),
+        CLIENT_ACTIVATED("client-activated"),
+        CLIENT_DEACTIVATED("client-deactivated"),
+        CLIENT_PAUSED("client-paused"),
+        CLIENT_RESUMED("client-resumed"),
+        PAYMENT("payment"),
+        PAYMENT_VOIDED("payment-voided"),
+        PAYMENTS_IMPORTED("payments-imported");
+
+        private final String code;
+
+        Type(String code) {
+            this.code = code;
+        }
+
+        public String getCode() { return code; }
+
+        /**
+         * Interpreta un tipo por código ("new-client") o por nombre ("NEW_CLIENT").
+         * @throws IllegalArgumentException si no corresponde a ningún tipo
+         */
+        public static Type parse(String value) {
+            String v = value.trim();
+            for (Type t : values()) {
+                if (t.code.equalsIgnoreCase(v) || t.name().equalsIgnoreCase(v)) return t;
+            }
+            throw new IllegalArgumentException("Tipo de actividad inválido: " + value);
+        }
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private Type type;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+
+    @Column(name = "client_id")
+    private Long clientId;
+
+    @Column(name = "payment_id")
+    private Long paymentId;
+
+    @Column(nullable = false, length = 255)
+    private String title;
+
+    @Column(length = 500)
+    private String description;
+
+    @PrePersist
+    protected void onCreate() {
+        if (occurredAt == null) occurredAt = LocalDateTime.now();
+    }
+
+    // Constructor vacío requerido por JPA
+    public ActivityEvent() {}
+
+    public ActivityEvent(Type type, Long clientId, Long paymentId, String title, String description) {
+        this.type = type;
+        this.clientId = clientId;
+        this.paymentId = paymentId;
+        this.title = title;
+        this.description = description;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Type getType() { return type; }
+    public void setType(Type type) { this.type = type; }
+
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+    public void setOccurredAt(LocalDateTime occurredAt) { this.occurredAt = occurredAt; }
+
+    public Long getClientId() { return clientId; }
+    public void setClientId(Long clientId) { this.clientId = clientId; }
+
+    public Long getPaymentId() { return paymentId; }
+    public void setPaymentId(Long paymentId) { this.paymentId = paymentId; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+}
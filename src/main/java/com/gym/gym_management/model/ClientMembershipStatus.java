@@ -0,0 +1,110 @@
+package com.gym.gym_management.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Estado de membresía materializado por cliente (una fila por cliente).
+ *
+ * Características principales:
+ * - La clave primaria es el id del cliente (no se genera).
+ * - Guarda el último pago válido (no anulado) con mayor expirationDate y esa fecha de expiración.
+ * - El estado es UP_TO_DATE o EXPIRED (sin pagos válidos => EXPIRED con expirationDate null).
+ *
+ * Se mantiene en la misma transacción que las escrituras que lo afectan (registro/anulación de pagos,
+ * alta/pausa/reanudación de clientes y job de expiración), de modo que "¿este socio está al día?"
+ * sea una búsqueda por clave o por índice en lugar de recalcular MAX(expirationDate) sobre payments.
+ * Si se desincroniza (por ejemplo por inserciones directas en la base), se reconstruye completo desde
+ * POST /api/maintenance/membership-status/rebuild.
+ */
+@Entity
+@Table(name = "client_membership_status", indexes = {
+        // Reportes de vencidos / por vencer y job de expiración filtran por fecha
+        @Index(name = "idx_cms_expiration_date", columnList = "expiration_date"),
+        @Index(name = "idx_cms_state", columnList = "state")
+})
+public class ClientMembershipStatus implements Persistable<Long> {
+
+    /** Id del cliente (misma clave que clients.id). */
+    @Id
+    @Column(name = "client_id")
+    private Long clientId;
+
+    /** Último pago válido del cliente (null si no tiene pagos válidos). */
+    @Column(name = "last_payment_id")
+    private Long lastPaymentId;
+
+    /** Fecha de expiración efectiva de la membresía (null si no tiene pagos válidos). */
+    @Column(name = "expiration_date")
+    private LocalDate expirationDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "state", length = 20, nullable = false)
+    private PaymentState state;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    /**
+     * El id es asignado (no generado): sin este flag Spring Data haría merge (SELECT + INSERT)
+     * en cada alta. Las filas leídas o ya persistidas dejan de ser nuevas.
+     */
+    @Transient
+    private boolean isNew = true;
+
+    // Constructor vacío requerido por JPA
+    public ClientMembershipStatus() {}
+
+    public ClientMembershipStatus(Long clientId) {
+        this.clientId = clientId;
+        this.state = PaymentState.EXPIRED;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void touch() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PostLoad
+    @PostPersist
+    protected void markNotNew() {
+        isNew = false;
+    }
+
+    @Override
+    public Long getId() { return clientId; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    /**
+     * Aplica el último pago válido conocido y recalcula el estado contra la fecha indicada.
+     * @param paymentId id del último pago válido o null si no hay
+     * @param expiration expiración de ese pago o null si no hay
+     * @param today fecha de referencia
+     */
+    public void apply(Long paymentId, LocalDate expiration, LocalDate today) {
+        this.lastPaymentId = paymentId;
+        this.expirationDate = expiration;
+        this.state = (expiration == null || expiration.isBefore(today)) ? PaymentState.EXPIRED : PaymentState.UP_TO_DATE;
+    }
+
+    public Long getClientId() { return clientId; }
+    public void setClientId(Long clientId) { this.clientId = clientId; }
+
+    public Long getLastPaymentId() { return lastPaymentId; }
+    public void setLastPaymentId(Long lastPaymentId) { this.lastPaymentId = lastPaymentId; }
+
+    public LocalDate getExpirationDate() { return expirationDate; }
+    public void setExpirationDate(LocalDate expirationDate) { this.expirationDate = expirationDate; }
+
+    public PaymentState getState() { return state; }
+    public void setState(PaymentState state) { this.state = state; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
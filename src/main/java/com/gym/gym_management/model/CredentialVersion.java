@@ -0,0 +1,51 @@
+package com.gym.gym_management.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Versión de credenciales de un usuario, embebida en sus tokens JWT (claim {@code ver}).
+ *
+ * Características principales:
+ * - Solo tienen fila los usuarios que alguna vez cambiaron o recuperaron su contraseña; sin fila la versión es 0.
+ * - Cada cambio de contraseña incrementa la versión: los tokens emitidos con una versión anterior dejan de
+ *   ser válidos sin necesidad de registrarlos uno por uno.
+ */
+@Entity
+@Table(name = "credential_versions")
+public class CredentialVersion {
+
+    @Id
+    @Column(name = "email")
+    private String email;
+
+    @Column(name = "version", nullable = false)
+    private int version;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public CredentialVersion() {}
+
+    public CredentialVersion(String email) {
+        this.email = email;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    /** Incrementa la versión. */
+    public int bump() {
+        version++;
+        updatedAt = LocalDateTime.now();
+        return version;
+    }
+
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,131 @@
+package com.gym.gym_management.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Foto diaria de los indicadores del gimnasio, para series históricas.
+ *
+ * Características principales:
+ * - Una fila por día ({@code snapshot_date} es la clave), escrita por {@code DailySnapshotJob} al cierre del día.
+ * - Guarda el estado de ese momento (activos, pausados, al día, vencidos), que no se puede reconstruir después
+ *   porque clients y client_membership_status solo tienen el estado actual.
+ * - La recaudación del día se copia del rollup diario desglosada por método de pago.
+ * - Volver a capturar un día reemplaza su fila (idempotente).
+ *
+ * Las series de tendencia leen un rango por clave de esta tabla: su costo depende de la cantidad de días.
+ */
+@Entity
+@Table(name = "daily_snapshots")
+public class DailySnapshot {
+
+    @Id
+    @Column(name = "snapshot_date")
+    private LocalDate snapshotDate;
+
+    @Column(name = "active_clients", nullable = false)
+    private long activeClients;
+
+    @Column(name = "paused_clients", nullable = false)
+    private long pausedClients;
+
+    /** Clientes activos con membresía vigente (expiración igual o posterior al día). */
+    @Column(name = "up_to_date_clients", nullable = false)
+    private long upToDateClients;
+
+    /** Clientes activos sin membresía vigente (incluye los que nunca pagaron). */
+    @Column(name = "expired_clients", nullable = false)
+    private long expiredClients;
+
+    /** Altas con fecha de inicio en el día. */
+    @Column(name = "new_members", nullable = false)
+    private long newMembers;
+
+    @Column(name = "payments", nullable = false)
+    private long payments;
+
+    @Column(name = "revenue_total", nullable = false)
+    private double revenueTotal;
+
+    @Column(name = "revenue_cash", nullable = false)
+    private double revenueCash;
+
+    @Column(name = "revenue_debit", nullable = false)
+    private double revenueDebit;
+
+    @Column(name = "revenue_credit", nullable = false)
+    private double revenueCredit;
+
+    @Column(name = "revenue_transfer", nullable = false)
+    private double revenueTransfer;
+
+    @Column(name = "revenue_other", nullable = false)
+    private double revenueOther;
+
+    @Column(name = "captured_at", nullable = false)
+    private LocalDateTime capturedAt;
+
+    // Constructor vacío requerido por JPA
+    public DailySnapshot() {}
+
+    public DailySnapshot(LocalDate snapshotDate) {
+        this.snapshotDate = snapshotDate;
+    }
+
+    /** Suma la recaudación de un método al total y a su columna. */
+    public void addRevenue(PaymentMethod method, long count, double total) {
+        payments += count;
+        revenueTotal += total;
+        switch (method) {
+            case CASH -> revenueCash += total;
+            case DEBIT -> revenueDebit += total;
+            case CREDIT -> revenueCredit += total;
+            case TRANSFER -> revenueTransfer += total;
+            case OTHER -> revenueOther += total;
+        }
+    }
+
+    public LocalDate getSnapshotDate() { return snapshotDate; }
+    public void setSnapshotDate(LocalDate snapshotDate) { this.snapshotDate = snapshotDate; }
+
+    public long getActiveClients() { return activeClients; }
+    public void setActiveClients(long activeClients) { this.activeClients = activeClients; }
+
+    public long getPausedClients() { return pausedClients; }
+    public void setPausedClients(long pausedClients) { this.pausedClients = pausedClients; }
+
+    public long getUpToDateClients() { return upToDateClients; }
+    public void setUpToDateClients(long upToDateClients) { this.upToDateClients = upToDateClients; }
+
+    public long getExpiredClients() { return expiredClients; }
+    public void setExpiredClients(long expiredClients) { this.expiredClients = expiredClients; }
+
+    public long getNewMembers() { return newMembers; }
+    public void setNewMembers(long newMembers) { this.newMembers = newMembers; }
+
+    public long getPayments() { return payments; }
+    public void setPayments(long payments) { this.payments = payments; }
+
+    public double getRevenueTotal() { return revenueTotal; }
+    public void setRevenueTotal(double revenueTotal) { this.revenueTotal = revenueTotal; }
+
+    public double getRevenueCash() { return revenueCash; }
+    public void setRevenueCash(double revenueCash) { this.revenueCash = revenueCash; }
+
+    public double getRevenueDebit() { return revenueDebit; }
+    public void setRevenueDebit(double revenueDebit) { this.revenueDebit = revenueDebit; }
+
+    public double getRevenueCredit() { return revenueCredit; }
+    public void setRevenueCredit(double revenueCredit) { this.revenueCredit = revenueCredit; }
+
+    public double getRevenueTransfer() { return revenueTransfer; }
+    public void setRevenueTransfer(double revenueTransfer) { this.revenueTransfer = revenueTransfer; }
+
+    public double getRevenueOther() { return revenueOther; }
+    public void setRevenueOther(double revenueOther) { this.revenueOther = revenueOther; }
+
+    public LocalDateTime getCapturedAt() { return capturedAt; }
+    public void setCapturedAt(LocalDateTime capturedAt) { this.capturedAt = capturedAt; }
+}
@@ -0,0 +1,128 @@
+package com.gym.gym_management.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Registro de una corrida del job de expiración por lotes.
+ *
+ * Características principales:
+ * - {@code cutoffDate} es la fecha de corte de la corrida (se expiran pagos con expirationDate anterior a ella).
+ *   Una corrida reanudada conserva su fecha de corte original.
+ * - {@code lastPaymentId} es el checkpoint: id del último pago procesado. Se actualiza en la misma transacción
+ *   que cada lote, así que una corrida interrumpida (caída del proceso) continúa desde el siguiente id.
+ * - Guarda estadísticas (filas, lotes, duración) consultables desde GET /api/maintenance/expiration-runs.
+ * - Una corrida que falla se reintenta en las siguientes ejecuciones; tras {@code app.expirationJob.maxAttempts}
+ *   intentos queda ABANDONED y ya no se retoma, para que el job siga con fechas de corte nuevas.
+ */
+@Entity
+@Table(name = "expiration_runs", indexes = {
+        @Index(name = "idx_expiration_runs_status", columnList = "status")
+})
+public class ExpirationRun {
+
+    /** Estado de la corrida. ABANDONED es terminal: falló en todos sus intentos y no se vuelve a retomar. */
+    public enum Status { RUNNING, COMPLETED, FAILED, ABANDONED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "cutoff_date", nullable = false)
+    private LocalDate cutoffDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20, nullable = false)
+    private Status status;
+
+    @Column(name = "batch_size", nullable = false)
+    private int batchSize;
+
+    /** Id del último pago procesado (0 al comenzar). */
+    @Column(name = "last_payment_id", nullable = false)
+    private long lastPaymentId;
+
+    @Column(name = "rows_updated", nullable = false)
+    private long rowsUpdated;
+
+    @Column(name = "batches", nullable = false)
+    private int batches;
+
+    /** Veces que la corrida se retomó desde el checkpoint. */
+    @Column(name = "resumes", nullable = false)
+    private int resumes;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    /** Tiempo acumulado de los lotes (no incluye el tiempo en que el proceso estuvo caído). */
+    @Column(name = "duration_ms", nullable = false)
+    private long durationMs;
+
+    @Column(name = "error_message", length = 500)
+    private String errorMessage;
+
+    // Constructor vacío requerido por JPA
+    public ExpirationRun() {}
+
+    public ExpirationRun(LocalDate cutoffDate, int batchSize) {
+        this.cutoffDate = cutoffDate;
+        this.batchSize = batchSize;
+        this.status = Status.RUNNING;
+        this.startedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Registra un lote aplicado y avanza el checkpoint.
+     * @param lastId id del último pago del lote
+     * @param updated filas actualizadas en el lote
+     * @param elapsedMs duración del lote
+     */
+    public void recordBatch(long lastId, int updated, long elapsedMs) {
+        this.lastPaymentId = lastId;
+        this.rowsUpdated += updated;
+        this.batches++;
+        this.durationMs += elapsedMs;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public LocalDate getCutoffDate() { return cutoffDate; }
+    public void setCutoffDate(LocalDate cutoffDate) { this.cutoffDate = cutoffDate; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public int getBatchSize() { return batchSize; }
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+    public long getLastPaymentId() { return lastPaymentId; }
+    public void setLastPaymentId(long lastPaymentId) { this.lastPaymentId = lastPaymentId; }
+
+    public long getRowsUpdated() { return rowsUpdated; }
+    public void setRowsUpdated(long rowsUpdated) { this.rowsUpdated = rowsUpdated; }
+
+    public int getBatches() { return batches; }
+    public void setBatches(int batches) { this.batches = batches; }
+
+    public int getResumes() { return resumes; }
+    public void setResumes(int resumes) { this.resumes = resumes; }
+
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+
+    public long getDurationMs() { return durationMs; }
+    public void setDurationMs(long durationMs) { this.durationMs = durationMs; }
+
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+}
@@ -20,7 +20,14 @@ import java.time.LocalDateTime;
  * - "Recordatorios Automáticos de Pago": el campo expirationDate puede usarse para enviar notificaciones antes y después del vencimiento:contentReference[oaicite:1]{index=1}.
  */
 @Entity
-@Table(name = "payments")
+// La unicidad (cliente, mes, año) de pagos no anulados es un índice único parcial definido en schema.sql
+// (ux_payments_client_period_valid): JPA no permite declarar índices con WHERE.
+@Table(name = "payments", indexes = {
+        // Soporta el listado en modo cursor (ORDER BY payment_date DESC, id DESC + predicado keyset)
+        @Index(name = "idx_payments_payment_date_id", columnList = "payment_date, id"),
+        // Filtro por estado persistido y carga de la agenda de vencimientos (estado + rango de expiración)
+        @Index(name = "idx_payments_state_expiration", columnList = "payment_state, expiration_date")
+})
 public class Payment {
 
     /**
@@ -0,0 +1,80 @@
+package com.gym.gym_management.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Rollup de recaudación diaria por método de pago (pagos no anulados).
+ *
+ * Características principales:
+ * - Una fila por (día de pago, método) con la cantidad de pagos y el total cobrado.
+ * - Se mantiene en forma incremental en la misma transacción que el alta, la anulación y la importación de pagos
+ *   (upsert con suma/resta en {@code RevenueRollupRepository}); Hibernate solo la usa para crear la tabla.
+ * - Se reconstruye completa desde payments con POST /api/maintenance/revenue-rollups/rebuild.
+ *
+ * Los reportes de flujo de caja y las series por día/semana leen esta tabla: su costo depende de la cantidad
+ * de días del rango, no de la cantidad de pagos.
+ */
+@Entity
+@Table(name = "revenue_daily")
+@IdClass(RevenueDaily.Key.class)
+public class RevenueDaily {
+
+    @Id
+    @Column(name = "revenue_date")
+    private LocalDate revenueDate;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "method", length = 20)
+    private PaymentMethod method;
+
+    @Column(name = "payments", nullable = false)
+    private long payments;
+
+    @Column(name = "total", nullable = false)
+    private double total;
+
+    // Constructor vacío requerido por JPA
+    public RevenueDaily() {}
+
+    public LocalDate getRevenueDate() { return revenueDate; }
+    public void setRevenueDate(LocalDate revenueDate) { this.revenueDate = revenueDate; }
+
+    public PaymentMethod getMethod() { return method; }
+    public void setMethod(PaymentMethod method) { this.method = method; }
+
+    public long getPayments() { return payments; }
+    public void setPayments(long payments) { this.payments = payments; }
+
+    public double getTotal() { return total; }
+    public void setTotal(double total) { this.total = total; }
+
+    /** Clave compuesta (día, método). */
+    public static class Key implements Serializable {
+        private LocalDate revenueDate;
+        private PaymentMethod method;
+
+        public Key() {}
+
+        public Key(LocalDate revenueDate, PaymentMethod method) {
+            this.revenueDate = revenueDate;
+            this.method = method;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(revenueDate, key.revenueDate) && method == key.method;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(revenueDate, method);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.gym.gym_management.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Rollup de recaudación mensual por método de pago (pagos no anulados).
+ *
+ * Igual que {@link RevenueDaily} pero con una fila por (primer día del mes, método): los rangos de varios años
+ * se resuelven sumando a lo sumo doce filas por año y método.
+ */
+@Entity
+@Table(name = "revenue_monthly")
+@IdClass(RevenueMonthly.Key.class)
+public class RevenueMonthly {
+
+    /** Primer día del mes de pago. */
+    @Id
+    @Column(name = "month_start")
+    private LocalDate monthStart;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "method", length = 20)
+    private PaymentMethod method;
+
+    @Column(name = "payments", nullable = false)
+    private long payments;
+
+    @Column(name = "total", nullable = false)
+    private double total;
+
+    // Constructor vacío requerido por JPA
+    public RevenueMonthly() {}
+
+    public LocalDate getMonthStart() { return monthStart; }
+    public void setMonthStart(LocalDate monthStart) { this.monthStart = monthStart; }
+
+    public PaymentMethod getMethod() { return method; }
+    public void setMethod(PaymentMethod method) { this.method = method; }
+
+    public long getPayments() { return payments; }
+    public void setPayments(long payments) { this.payments = payments; }
+
+    public double getTotal() { return total; }
+    public void setTotal(double total) { this.total = total; }
+
+    /** Clave compuesta (mes, método). */
+    public static class Key implements Serializable {
+        private LocalDate monthStart;
+        private PaymentMethod method;
+
+        public Key() {}
+
+        public Key(LocalDate monthStart, PaymentMethod method) {
+            this.monthStart = monthStart;
+            this.method = method;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(monthStart, key.monthStart) && method == key.method;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(monthStart, method);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.gym.gym_management.repository;
+
+/**
+ * Proyección mínima (id, activo) para validar muchos clientes en una sola consulta sin hidratar entidades.
+ */
+public interface ClientActiveView {
+    Long getId();
+    Boolean getActive();
+}
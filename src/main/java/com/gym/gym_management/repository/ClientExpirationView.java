@@ -0,0 +1,13 @@
+package com.gym.gym_management.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Proyección (cliente, último pago válido, su fecha de expiración) usada para reconstruir
+ * el estado de membresía de muchos clientes en una sola consulta.
+ */
+public interface ClientExpirationView {
+    Long getClientId();
+    Long getPaymentId();
+    LocalDate getExpirationDate();
+}
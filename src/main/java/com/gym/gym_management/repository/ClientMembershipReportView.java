@@ -0,0 +1,9 @@
+package com.gym.gym_management.repository;
+
+/**
+ * Fila de los reportes de membresía: datos del cliente, último pago válido, expiración y si ya se envió
+ * un recordatorio para ese pago (resuelto en la misma consulta con EXISTS sobre notification_logs).
+ */
+public interface ClientMembershipReportView extends ClientMembershipView {
+    Boolean getReminderSent();
+}
@@ -0,0 +1,17 @@
+package com.gym.gym_management.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Proyección de reportes: datos básicos del cliente junto a su estado de membresía materializado
+ * (último pago válido y su fecha de expiración), resuelta con un único JOIN clients + client_membership_status.
+ */
+public interface ClientMembershipView {
+    Long getClientId();
+    String getFirstName();
+    String getLastName();
+    String getEmail();
+    Boolean getActive();
+    Long getLastPaymentId();
+    LocalDate getExpirationDate();
+}
@@ -0,0 +1,26 @@
+package com.gym.gym_management.repository;
+
+import com.gym.gym_management.model.ActivityEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repositorio del feed de actividad. Las lecturas son rangos por clave ({@code id < cursor}) en orden descendente,
+ * sin COUNT: el {@link Pageable} solo limita la cantidad de filas.
+ */
+@Repository
+public interface IActivityEventRepository extends JpaRepository<ActivityEvent, Long> {
+
+    /** Eventos anteriores al cursor, más recientes primero (recorre la clave primaria). */
+    List<ActivityEvent> findByIdLessThanOrderByIdDesc(Long before, Pageable limit);
+
+    /** Eventos posteriores al cursor, más antiguos primero (recorre la clave primaria hacia adelante). */
+    List<ActivityEvent> findByIdGreaterThanOrderByIdAsc(Long after, Pageable limit);
+
+    /** Eventos de los tipos indicados anteriores al cursor, más recientes primero (índice (type, id)). */
+    List<ActivityEvent> findByTypeInAndIdLessThanOrderByIdDesc(Collection<ActivityEvent.Type> types, Long before, Pageable limit);
+}
@@ -0,0 +1,84 @@
+package com.gym.gym_management.repository;
+
+import com.gym.gym_management.model.ClientMembershipStatus;
+import com.gym.gym_management.model.PaymentState;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repositorio del estado de membresía materializado por cliente.
+ * Las consultas de reportes hacen JOIN por clave primaria con clients y filtran por el índice de expiration_date.
+ */
+@Repository
+public interface IClientMembershipStatusRepository extends JpaRepository<ClientMembershipStatus, Long> {
+
+    /**
+     * Marca como EXPIRED las membresías UP_TO_DATE cuya expiración ya pasó (misma regla que el bulk de pagos).
+     * @return filas actualizadas
+     */
+    @Modifying
+    @Query("UPDATE ClientMembershipStatus s SET s.state = :expired, s.updatedAt = :now " +
+           "WHERE s.state = :upToDate AND s.expirationDate < :today")
+    int bulkExpire(@Param("today") LocalDate today,
+                   @Param("now") LocalDateTime now,
+                   @Param("upToDate") PaymentState upToDate,
+                   @Param("expired") PaymentState expired);
+
+    /**
+     * Clientes activos cuya membresía venció antes de {@code today} (excluye clientes sin pagos válidos), con el
+     * indicador de recordatorio enviado para su último pago válido. Igual que el reporte de próximos vencimientos:
+     * una consulta más el COUNT de la página, independientemente de la cantidad de socios.
+     * El orden lo define el {@link Pageable} sobre los alias {@code expirationDate} y {@code clientId}.
+     */
+    @Query(value = "SELECT c.id AS clientId, c.firstName AS firstName, c.lastName AS lastName, c.email AS email, " +
+           "c.isActive AS active, s.lastPaymentId AS lastPaymentId, s.expirationDate AS expirationDate, " +
+           "CASE WHEN EXISTS (SELECT 1 FROM NotificationLog n WHERE n.paymentId = s.lastPaymentId AND n.status = 'SENT') " +
+           "THEN true ELSE false END AS reminderSent " +
+           "FROM ClientMembershipStatus s JOIN Client c ON c.id = s.clientId " +
+           "WHERE c.isActive = true AND s.expirationDate < :today",
+           countQuery = "SELECT COUNT(s) FROM ClientMembershipStatus s JOIN Client c ON c.id = s.clientId " +
+           "WHERE c.isActive = true AND s.expirationDate < :today")
+    Page<ClientMembershipReportView> findActiveOverdue(@Param("today") LocalDate today, Pageable pageable);
+
+    /**
+     * Clientes activos cuya membresía vence entre {@code from} y {@code to} (ambos inclusive), con el indicador
+     * de recordatorio enviado para su último pago válido. Una sola consulta (más el COUNT de la página):
+     * join por clave con clients y EXISTS sobre notification_logs. Orden fijo: vencimiento más próximo primero.
+     */
+    @Query(value = "SELECT c.id AS clientId, c.firstName AS firstName, c.lastName AS lastName, c.email AS email, " +
+           "c.isActive AS active, s.lastPaymentId AS lastPaymentId, s.expirationDate AS expirationDate, " +
+           "CASE WHEN EXISTS (SELECT 1 FROM NotificationLog n WHERE n.paymentId = s.lastPaymentId AND n.status = 'SENT') " +
+           "THEN true ELSE false END AS reminderSent " +
+           "FROM ClientMembershipStatus s JOIN Client c ON c.id = s.clientId " +
+           "WHERE c.isActive = true AND s.expirationDate BETWEEN :from AND :to " +
+           "ORDER BY s.expirationDate ASC, c.id ASC",
+           countQuery = "SELECT COUNT(s) FROM ClientMembershipStatus s JOIN Client c ON c.id = s.clientId " +
+           "WHERE c.isActive = true AND s.expirationDate BETWEEN :from AND :to")
+    Page<ClientMembershipReportView> findActiveExpiringBetween(@Param("from") LocalDate from,
+                                                               @Param("to") LocalDate to,
+                                                               Pageable pageable);
+
+    /** Cantidad de clientes activos cuya membresía vence entre {@code from} y {@code to} (ambos inclusive). */
+    @Query("SELECT COUNT(s) FROM ClientMembershipStatus s JOIN Client c ON c.id = s.clientId " +
+           "WHERE c.isActive = true AND s.expirationDate BETWEEN :from AND :to")
+    long countActiveExpiringBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /** Cantidad de clientes activos con membresía vigente en la fecha de referencia (expiración igual o posterior). */
+    @Query("SELECT COUNT(s) FROM ClientMembershipStatus s JOIN Client c ON c.id = s.clientId " +
+           "WHERE c.isActive = true AND s.expirationDate >= :today")
+    long countActiveUpToDate(@Param("today") LocalDate today);
+
+    /** Cantidad de clientes activos con membresía vencida según la fecha de referencia (incluye clientes sin pagos). */
+    @Query("SELECT COUNT(c) FROM Client c WHERE c.isActive = true AND NOT EXISTS (" +
+           "SELECT 1 FROM ClientMembershipStatus s WHERE s.clientId = c.id AND s.expirationDate >= :today)")
+    long countActiveWithExpiredMembership(@Param("today") LocalDate today);
+}
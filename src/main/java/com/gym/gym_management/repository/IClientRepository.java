@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
 import java.time.LocalDate;
 
@@ -28,19 +29,54 @@ public interface IClientRepository extends JpaRepository<Client, Long> {
             "AND ( :active IS NULL OR c.isActive = :active )")
     List<Client> search(@Param("q") String q, @Param("active") Boolean active);
 
+    /**
+     * Igual que {@link #search(String, Boolean)} pero devolviendo solo clientes con membresía al día
+     * (su estado materializado tiene expirationDate >= today). El filtro se resuelve en SQL con una búsqueda
+     * por clave primaria en client_membership_status, sin agregar sobre payments.
+     */
+    @Query("SELECT c FROM Client c WHERE ( :q IS NULL OR (" +
+            "LOWER(c.firstName) LIKE CONCAT('%', LOWER(:q), '%') OR " +
+            "LOWER(c.lastName)  LIKE CONCAT('%', LOWER(:q), '%') OR " +
+            "LOWER(c.email)     LIKE CONCAT('%', LOWER(:q), '%') ) ) " +
+            "AND ( :active IS NULL OR c.isActive = :active ) " +
+            "AND EXISTS (SELECT 1 FROM ClientMembershipStatus s WHERE s.clientId = c.id AND s.expirationDate >= :today)")
+    List<Client> searchWithValidPayment(@Param("q") String q, @Param("active") Boolean active, @Param("today") LocalDate today);
+
+    /**
+     * Igual que {@link #search(String, Boolean)} pero devolviendo solo clientes con membresía vencida
+     * (su estado materializado no tiene expirationDate >= today; incluye clientes sin pagos).
+     */
+    @Query("SELECT c FROM Client c WHERE ( :q IS NULL OR (" +
+            "LOWER(c.firstName) LIKE CONCAT('%', LOWER(:q), '%') OR " +
+            "LOWER(c.lastName)  LIKE CONCAT('%', LOWER(:q), '%') OR " +
+            "LOWER(c.email)     LIKE CONCAT('%', LOWER(:q), '%') ) ) " +
+            "AND ( :active IS NULL OR c.isActive = :active ) " +
+            "AND NOT EXISTS (SELECT 1 FROM ClientMembershipStatus s WHERE s.clientId = c.id AND s.expirationDate >= :today)")
+    List<Client> searchWithoutValidPayment(@Param("q") String q, @Param("active") Boolean active, @Param("today") LocalDate today);
+
     @Query("SELECT c FROM Client c WHERE c.isActive = :active")
     List<Client> findByActive(@Param("active") boolean active);
 
     long countByIsActiveTrue();
 
-    List<Client> findByStartDateAfterOrderByStartDateDesc(LocalDate date);
+    /** Altas con fecha de inicio en el rango (ambos inclusive), para el contador de nuevos socios. */
+    long countByStartDateBetween(LocalDate from, LocalDate to);
 
-    @Query("SELECT c FROM Client c WHERE c.isActive = true AND EXISTS (" +
-           " SELECT 1 FROM Payment p WHERE p.client = c AND p.voided = false AND p.expirationDate = (" +
-           "   SELECT MAX(p2.expirationDate) FROM Payment p2 WHERE p2.client = c AND p2.voided = false" +
-           " ) AND p.expirationDate < :today" +
-           ")")
-    List<Client> findActiveClientsWithLastPaymentExpired(@Param("today") LocalDate today);
+    /** Clientes activos con una pausa que incluye la fecha (pausa sin fin = vigente). */
+    @Query("SELECT COUNT(c) FROM Client c WHERE c.isActive = true AND c.pausedFrom <= :day " +
+           "AND (c.pausedTo IS NULL OR c.pausedTo >= :day)")
+    long countPausedOn(@Param("day") LocalDate day);
+
+    /**
+     * Existencia y estado activo de un conjunto de clientes en una sola consulta (importación masiva de pagos).
+     * Los ids inexistentes no aparecen en el resultado.
+     */
+    @Query("SELECT c.id AS id, c.isActive AS active FROM Client c WHERE c.id IN :ids")
+    List<ClientActiveView> findActiveFlagsByIds(@Param("ids") Collection<Long> ids);
+
+    /** Ids de todos los clientes en orden (para procesos por lotes sin hidratar entidades). */
+    @Query("SELECT c.id FROM Client c ORDER BY c.id")
+    List<Long> findAllIds();
 
     @Query("SELECT c FROM Client c WHERE c.isActive = true AND NOT EXISTS (" +
            " SELECT 1 FROM Payment p WHERE p.client = c AND p.voided = false AND p.expirationDate >= :today" +
@@ -0,0 +1,12 @@
+package com.gym.gym_management.repository;
+
+import com.gym.gym_management.model.CredentialVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositorio de versiones de credenciales (una fila por usuario que cambió su contraseña).
+ */
+@Repository
+public interface ICredentialVersionRepository extends JpaRepository<CredentialVersion, String> {
+}
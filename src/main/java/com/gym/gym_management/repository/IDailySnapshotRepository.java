@@ -0,0 +1,17 @@
+package com.gym.gym_management.repository;
+
+import com.gym.gym_management.model.DailySnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repositorio de fotos diarias. Las series son un rango por clave primaria (snapshot_date).
+ */
+@Repository
+public interface IDailySnapshotRepository extends JpaRepository<DailySnapshot, LocalDate> {
+
+    List<DailySnapshot> findBySnapshotDateBetweenOrderBySnapshotDateAsc(LocalDate from, LocalDate to);
+}
@@ -0,0 +1,22 @@
+package com.gym.gym_management.repository;
+
+import com.gym.gym_management.model.ExpirationRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repositorio de corridas del job de expiración por lotes.
+ */
+@Repository
+public interface IExpirationRunRepository extends JpaRepository<ExpirationRun, Long> {
+
+    /** Corrida sin terminar más antigua (RUNNING tras una caída o FAILED) a retomar desde su checkpoint. */
+    Optional<ExpirationRun> findFirstByStatusInOrderByIdAsc(Collection<ExpirationRun.Status> statuses);
+
+    /** Últimas corridas, más recientes primero. */
+    List<ExpirationRun> findTop50ByOrderByIdDesc();
+}
@@ -11,6 +11,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,6 +27,8 @@ import java.util.Optional;
  *   <li>Soporte de Specifications ({@link JpaSpecificationExecutor})
  *   para filtrado dinámico avanzado
  *   (usado actualmente en el servicio al buscar por fechas / estado).</li>
+ *   <li>Modelo de lectura proyectado a DTO ({@link PaymentReadRepository}) para los listados,
+ *   sin hidratar entidades.</li>
  * </ul>
  * <p>
  * Uso de Page / Pageable:<br>
@@ -42,7 +45,7 @@ import java.util.Optional;
  * grandes volúmenes históricos de pagos.
  */
 @Repository
-public interface IPaymentRepository extends JpaRepository<Payment, Long>, JpaSpecificationExecutor<Payment> {
+public interface IPaymentRepository extends JpaRepository<Payment, Long>, JpaSpecificationExecutor<Payment>, PaymentReadRepository {
 
     /**
      * Obtiene todos los pagos de un cliente (sin filtrar por estado o período).
@@ -71,14 +74,6 @@ public interface IPaymentRepository extends JpaRepository<Payment, Long>, JpaSpe
      */
     List<Payment> findByExpirationDateBeforeAndPaymentState(LocalDate date, PaymentState paymentState);
 
-    /**
-     * Pagos realizados en un rango de fechas (inclusive) y no anulados.
-     * Útil para reportes de caja / ingresos acotados.
-     * @param from fecha mínima inclusive
-     * @param to fecha máxima inclusive
-     */
-    List<Payment> findByPaymentDateBetweenAndVoidedFalse(LocalDate from, LocalDate to);
-
     /**
      * Consulta JPQL con filtros opcionales
      * (cliente, rango de fechas por paymentDate y estado persistido).
@@ -106,12 +101,6 @@ public interface IPaymentRepository extends JpaRepository<Payment, Long>, JpaSpe
             Pageable pageable
     );
 
-    /**
-     * Verifica existencia de un pago válido (no anulado) para un cliente y período (mes/año)
-     * evitando duplicados.
-     */
-    boolean existsByClient_IdAndMonthAndYearAndVoidedFalse(Long clientId, Integer month, Integer year);
-
     /**
      * Obtiene un pago específico (si existe y no está anulado) para un cliente y período.
      * Se usa para reflejar el estado persistido real (UP_TO_DATE, EXPIRED, VOIDED)
@@ -125,6 +114,29 @@ public interface IPaymentRepository extends JpaRepository<Payment, Long>, JpaSpe
      */
     Payment findTopByClient_IdAndVoidedFalseOrderByExpirationDateDesc(Long clientId);
 
+    /**
+     * Último pago válido (no anulado, con la máxima fecha de expiración) para un conjunto de clientes, en una sola consulta.
+     * Equivale a {@link #findTopByClient_IdAndVoidedFalseOrderByExpirationDateDesc(Long)} aplicado a todos los ids
+     * a la vez. Los clientes sin pagos válidos no aparecen en el resultado; si dos pagos empatan en expiración
+     * el cliente aparece más de una vez (quien consume se queda con el de mayor id).
+     * Lo usa la reconstrucción del estado de membresía materializado.
+     * @param clientIds ids de clientes (no vacío)
+     * @return filas (cliente, pago, expiración)
+     */
+    @Query("SELECT p.client.id AS clientId, p.id AS paymentId, p.expirationDate AS expirationDate FROM Payment p " +
+           "WHERE p.voided = false AND p.client.id IN :clientIds AND p.expirationDate = (" +
+           "  SELECT MAX(p2.expirationDate) FROM Payment p2 WHERE p2.client = p.client AND p2.voided = false)")
+    List<ClientExpirationView> findLastValidPaymentsByClientIds(@Param("clientIds") Collection<Long> clientIds);
+
+    /**
+     * Períodos (cliente, mes, año) que ya tienen un pago válido, para un lote de clientes y años.
+     * Permite verificar duplicados de toda una tanda de importación con una sola consulta.
+     */
+    @Query("SELECT p.client.id AS clientId, p.month AS month, p.year AS year FROM Payment p " +
+           "WHERE p.voided = false AND p.client.id IN :clientIds AND p.year IN :years")
+    List<PaymentPeriodView> findValidPeriods(@Param("clientIds") Collection<Long> clientIds,
+                                             @Param("years") Collection<Integer> years);
+
     /**
      * Último pago efectivo (ordenando por expirationDate si existe o paymentDate como fallback).
      * JPQL con ORDER BY COALESCE para soportar pagos sin expirationDate explícita (ej: inicial antes de persistir lógica completa).
@@ -166,4 +178,41 @@ public interface IPaymentRepository extends JpaRepository<Payment, Long>, JpaSpe
     int bulkExpire(@Param("today") LocalDate today,
                    @Param("upToDate") PaymentState upToDate,
                    @Param("expired") PaymentState expired);
+
+    /**
+     * Pagos UP_TO_DATE no anulados que vencen entre {@code from} y {@code to} (inclusive), para cargar la agenda
+     * del {@code ExpirationScheduler}. Usa el índice (payment_state, expiration_date).
+     */
+    @Query("SELECT p.client.id AS clientId, p.id AS paymentId, p.expirationDate AS expirationDate FROM Payment p " +
+           "WHERE p.paymentState = :upToDate AND p.voided = false AND p.expirationDate BETWEEN :from AND :to")
+    List<ClientExpirationView> findPendingExpirations(@Param("from") LocalDate from,
+                                                      @Param("to") LocalDate to,
+                                                      @Param("upToDate") PaymentState upToDate);
+
+    /**
+     * Siguiente lote de ids de pagos a expirar (modo por lotes), en orden de id a partir del checkpoint.
+     * El tamaño del lote lo define el {@link Pageable} (usar {@code PageRequest.ofSize(n)}).
+     * @param today fecha de corte
+     * @param afterId checkpoint: se devuelven ids mayores a este
+     * @param upToDate estado origen esperado
+     */
+    @Query("SELECT p.id FROM Payment p WHERE p.paymentState = :upToDate AND p.voided = false " +
+           "AND p.expirationDate < :today AND p.id > :afterId ORDER BY p.id")
+    List<Long> findExpirableIdsAfter(@Param("today") LocalDate today,
+                                     @Param("afterId") long afterId,
+                                     @Param("upToDate") PaymentState upToDate,
+                                     Pageable pageable);
+
+    /**
+     * Expira un lote de pagos por id. Repite las condiciones de {@link #bulkExpire} para no pisar un pago
+     * anulado entre la lectura del lote y la actualización.
+     * @return cantidad de filas afectadas
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Payment p SET p.paymentState = :expired WHERE p.id IN :ids " +
+           "AND p.paymentState = :upToDate AND p.voided = false AND p.expirationDate < :today")
+    int expireByIds(@Param("ids") Collection<Long> ids,
+                    @Param("today") LocalDate today,
+                    @Param("upToDate") PaymentState upToDate,
+                    @Param("expired") PaymentState expired);
 }
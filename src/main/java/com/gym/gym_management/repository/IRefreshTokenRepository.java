@@ -0,0 +1,53 @@
+package com.gym.gym_management.repository;
+
+import com.gym.gym_management.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Repositorio de refresh tokens (solo se consulta en login, refresh y logout, nunca en cada request).
+ */
+@Repository
+public interface IRefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    /**
+     * Marca el token como usado solo si sigue vigente. Es atómico: de dos rotaciones concurrentes
+     * del mismo token solo una actualiza la fila.
+     * @return 1 si se marcó, 0 si ya estaba usado o revocado
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.usedAt = :now WHERE t.id = :id AND t.usedAt IS NULL AND t.revokedAt IS NULL")
+    int markUsed(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    /**
+     * Revoca los tokens todavía vigentes de una familia (un mismo inicio de sesión).
+     * @return filas revocadas
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revokedAt = :now WHERE t.familyId = :familyId AND t.revokedAt IS NULL")
+    int revokeFamily(@Param("familyId") String familyId, @Param("now") LocalDateTime now);
+
+    /**
+     * Revoca todos los tokens vigentes de un usuario (por ejemplo, al cambiar su contraseña).
+     * @return filas revocadas
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revokedAt = :now WHERE t.email = :email AND t.revokedAt IS NULL")
+    int revokeAllForUser(@Param("email") String email, @Param("now") LocalDateTime now);
+
+    /**
+     * Borra los tokens ya expirados.
+     * @return filas borradas
+     */
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
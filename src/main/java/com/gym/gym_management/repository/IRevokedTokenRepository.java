@@ -0,0 +1,25 @@
+package com.gym.gym_management.repository;
+
+import com.gym.gym_management.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repositorio de tokens revocados.
+ */
+@Repository
+public interface IRevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    /**
+     * Borra los tokens revocados que ya expiraron (ya no hace falta recordarlos).
+     * @return filas borradas
+     */
+    @Modifying
+    @Query("DELETE FROM RevokedToken t WHERE t.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
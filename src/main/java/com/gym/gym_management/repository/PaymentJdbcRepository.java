@@ -0,0 +1,89 @@
+package com.gym.gym_management.repository;
+
+import com.gym.gym_management.model.Payment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Escrituras de pagos con JDBC (sin pasar por el contexto de persistencia de JPA).
+ * <p>
+ * Registro individual: {@link #insertIfPeriodFree} es un único INSERT cuya unicidad del período la garantiza el
+ * índice parcial {@code ux_payments_client_period_valid} (schema.sql), no una consulta previa. Auditoría, estado
+ * de membresía, rollups y feed de actividad los escriben sus servicios en la misma transacción.
+ * <p>
+ * Para cargas de miles de filas, {@code save()} por entidad implica un INSERT + lectura de la clave generada
+ * por fila y mantener todas las entidades en memoria. Aquí se envían lotes con {@code batchUpdate}:
+ * un único round-trip por lote. No se usa {@code reWriteBatchedInserts=true}: el driver devolvería
+ * {@code SUCCESS_NO_INFO} en lugar de la cantidad por fila y no se podrían informar los períodos duplicados.
+ */
+@Repository
+public class PaymentJdbcRepository {
+
+    /** Filas por lote JDBC. */
+    static final int BATCH_SIZE = 500;
+
+    /**
+     * Alta de pagos (PostgreSQL): si ya hay uno válido para (cliente, mes, año) el índice único parcial produce
+     * el conflicto y {@code DO NOTHING} descarta la fila (0 filas afectadas), también ante escrituras concurrentes.
+     */
+    private static final String INSERT_SQL =
+            "INSERT INTO payments (client_id, amount, method, period_month, period_year, payment_date, " +
+            "expiration_date, duration_days, payment_state, voided) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, false) " +
+            "ON CONFLICT (client_id, period_month, period_year) WHERE NOT voided DO NOTHING";
+
+    private static final String INSERT_IF_PERIOD_FREE_SQL = INSERT_SQL + " RETURNING id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PaymentJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Registra un pago si el cliente no tiene otro pago válido para el mismo período. La existencia y el estado
+     * del cliente los valida el llamador.
+     * @param payment pago con cliente (solo se usa su id), fechas y estado ya calculados
+     * @return id generado, o vacío si el período ya estaba pagado
+     */
+    public Optional<Long> insertIfPeriodFree(Payment payment) {
+        List<Long> ids = jdbcTemplate.query(INSERT_IF_PERIOD_FREE_SQL, ps -> bind(ps, payment),
+                (rs, rowNum) -> rs.getLong("id"));
+        return ids.stream().findFirst();
+    }
+
+    /**
+     * Inserta los pagos en lotes de {@link #BATCH_SIZE}. Los pagos deben traer el cliente (solo se usa su id),
+     * fechas y estado ya calculados. No asigna los ids generados a las instancias.
+     * @param payments pagos a insertar
+     * @return filas afectadas por pago, en el mismo orden de la lista: 0 si el período ya tenía un pago válido
+     */
+    public int[] batchInsert(List<Payment> payments) {
+        if (payments.isEmpty()) return new int[0];
+        int[][] perBatch = jdbcTemplate.batchUpdate(INSERT_SQL, payments, BATCH_SIZE, PaymentJdbcRepository::bind);
+        return Arrays.stream(perBatch).flatMapToInt(Arrays::stream).toArray();
+    }
+
+    private static void bind(PreparedStatement ps, Payment p) throws SQLException {
+        ps.setLong(1, p.getClient().getId());
+        ps.setDouble(2, p.getAmount());
+        ps.setString(3, p.getMethod().name());
+        ps.setInt(4, p.getMonth());
+        ps.setInt(5, p.getYear());
+        ps.setDate(6, Date.valueOf(p.getPaymentDate()));
+        ps.setDate(7, Date.valueOf(p.getExpirationDate()));
+        if (p.getDurationDays() != null) {
+            ps.setInt(8, p.getDurationDays());
+        } else {
+            ps.setNull(8, Types.INTEGER);
+        }
+        ps.setString(9, p.getState().name());
+    }
+}
@@ -0,0 +1,10 @@
+package com.gym.gym_management.repository;
+
+/**
+ * Proyección (cliente, mes, año) de un pago válido, usada para detectar períodos duplicados por lotes.
+ */
+public interface PaymentPeriodView {
+    Long getClientId();
+    Integer getMonth();
+    Integer getYear();
+}
@@ -0,0 +1,65 @@
+package com.gym.gym_management.repository;
+
+import com.gym.gym_management.controller.dto.CashflowRowDTO;
+import com.gym.gym_management.controller.dto.PaymentDTO;
+import com.gym.gym_management.model.Payment;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Fragmento de repositorio con el modelo de lectura de pagos para listados.
+ * <p>
+ * A diferencia de {@code findAll(spec, pageable)}, estas consultas no hidratan entidades {@link Payment}:
+ * seleccionan directamente en {@link PaymentDTO} mediante una expresión constructora. Esto evita:
+ * <ul>
+ *   <li>Registrar cada fila en el contexto de persistencia (y su snapshot para dirty checking).</li>
+ *   <li>El fetch join de Client + DISTINCT (las columnas del cliente se leen con un join simple).</li>
+ * </ul>
+ * El estado se lee tal como está persistido: el {@code ExpirationScheduler} lo pasa a EXPIRED al vencer,
+ * así que no hace falta corregirlo por fecha al leer.
+ * Los filtros se reciben como {@link Specification} para reutilizar los mismos predicados del servicio.
+ */
+public interface PaymentReadRepository {
+
+    /**
+     * Listado paginado (offset) proyectado a DTO, con COUNT para los metadatos de la página.
+     * @param spec predicados de filtrado (sin fetch joins)
+     * @param pageable paginación y orden
+     * @return página de DTOs
+     */
+    Page<PaymentDTO> findPaymentViews(Specification<Payment> spec, Pageable pageable);
+
+    /**
+     * Listado acotado proyectado a DTO sin COUNT (usado por el modo cursor).
+     * @param spec predicados de filtrado (sin fetch joins)
+     * @param sort orden a aplicar
+     * @param limit máximo de filas a devolver
+     * @return lista de DTOs
+     */
+    List<PaymentDTO> findPaymentViews(Specification<Payment> spec, Sort sort, int limit);
+
+    /**
+     * Recorrido completo proyectado a DTO con un cursor de solo avance (exportaciones).
+     * Las filas se leen de a {@code fetchSize} desde la base: la memoria no depende del tamaño del rango.
+     * Debe consumirse dentro de una transacción (PostgreSQL solo usa cursor con autocommit desactivado)
+     * y cerrarse al terminar (try-with-resources).
+     * @param spec predicados de filtrado (sin fetch joins)
+     * @param sort orden a aplicar
+     * @param fetchSize filas por ida a la base
+     * @return stream perezoso de DTOs
+     */
+    Stream<PaymentDTO> streamPaymentViews(Specification<Payment> spec, Sort sort, int fetchSize);
+
+    /**
+     * Totales diarios por método de pago (cantidad y monto) para los pagos que cumplen el filtro, en streaming.
+     * @param spec predicados de filtrado (sin fetch joins)
+     * @param fetchSize filas por ida a la base
+     * @return stream perezoso ordenado por fecha y método
+     */
+    Stream<CashflowRowDTO> streamDailyCashflow(Specification<Payment> spec, int fetchSize);
+}
@@ -0,0 +1,132 @@
+package com.gym.gym_management.repository;
+
+import com.gym.gym_management.controller.dto.CashflowRowDTO;
+import com.gym.gym_management.controller.dto.PaymentDTO;
+import com.gym.gym_management.model.Payment;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CompoundSelection;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Implementación con Criteria API del fragmento {@link PaymentReadRepository}.
+ * Spring Data la detecta por convención de nombre (sufijo Impl) y la combina con {@link IPaymentRepository}.
+ */
+class PaymentReadRepositoryImpl implements PaymentReadRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<PaymentDTO> findPaymentViews(Specification<Payment> spec, Pageable pageable) {
+        TypedQuery<PaymentDTO> query = createViewQuery(spec, pageable.getSort());
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        List<PaymentDTO> content = query.getResultList();
+        // Si la página viene incompleta no hace falta el COUNT (PageableExecutionUtils lo omite)
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(spec));
+    }
+
+    @Override
+    public List<PaymentDTO> findPaymentViews(Specification<Payment> spec, Sort sort, int limit) {
+        return createViewQuery(spec, sort)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Stream<PaymentDTO> streamPaymentViews(Specification<Payment> spec, Sort sort, int fetchSize) {
+        return createViewQuery(spec, sort)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    @Override
+    public Stream<CashflowRowDTO> streamDailyCashflow(Specification<Payment> spec, int fetchSize) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CashflowRowDTO> cq = cb.createQuery(CashflowRowDTO.class);
+        Root<Payment> root = cq.from(Payment.class);
+        Path<LocalDate> date = root.get("paymentDate");
+        Path<Object> method = root.get("method");
+        cq.select(cb.construct(CashflowRowDTO.class, date, method, cb.count(root), cb.sum(root.<Double>get("amount"))));
+        applySpec(spec, root, cq, cb);
+        cq.groupBy(date, method);
+        cq.orderBy(cb.asc(date), cb.asc(method));
+        return entityManager.createQuery(cq)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+
+    private TypedQuery<PaymentDTO> createViewQuery(Specification<Payment> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PaymentDTO> cq = cb.createQuery(PaymentDTO.class);
+        Root<Payment> root = cq.from(Payment.class);
+        cq.select(viewSelection(root, cb));
+        applySpec(spec, root, cq, cb);
+        if (sort != null && sort.isSorted()) {
+            cq.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+        return entityManager.createQuery(cq);
+    }
+
+    private long count(Specification<Payment> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        Root<Payment> root = cq.from(Payment.class);
+        cq.select(cb.count(root));
+        applySpec(spec, root, cq, cb);
+        return entityManager.createQuery(cq).getSingleResult();
+    }
+
+    private void applySpec(Specification<Payment> spec, Root<Payment> root, CriteriaQuery<?> cq, CriteriaBuilder cb) {
+        if (spec == null) return;
+        Predicate predicate = spec.toPredicate(root, cq, cb);
+        if (predicate != null) {
+            cq.where(predicate);
+        }
+    }
+
+    /**
+     * Columnas del DTO en el orden del constructor de proyección de {@link PaymentDTO}.
+     * El estado es el persistido (lo mantiene al día el ExpirationScheduler).
+     */
+    private CompoundSelection<PaymentDTO> viewSelection(Root<Payment> root, CriteriaBuilder cb) {
+        Path<Object> client = root.get("client");
+        return cb.construct(PaymentDTO.class,
+                root.get("id"),
+                client.get("id"),
+                client.get("firstName"),
+                client.get("lastName"),
+                client.get("email"),
+                root.get("amount"),
+                root.get("method"),
+                root.get("month"),
+                root.get("year"),
+                root.get("paymentDate"),
+                root.get("expirationDate"),
+                root.get("durationDays"),
+                root.get("paymentState"),
+                root.get("voided"),
+                root.get("voidedBy"),
+                root.get("voidReason"));
+    }
+}
@@ -0,0 +1,166 @@
+package com.gym.gym_management.repository;
+
+import com.gym.gym_management.controller.dto.RevenueBucketDTO;
+import com.gym.gym_management.model.Payment;
+import com.gym.gym_management.model.PaymentMethod;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Acceso JDBC a los rollups de recaudación ({@code revenue_daily} y {@code revenue_monthly}).
+ * <p>
+ * Las escrituras son upserts que suman (o restan) deltas sobre la fila (fecha, método), de modo que dos altas
+ * concurrentes del mismo día no se pisan. Aquí están el alta individual y la anulación ({@link #apply}),
+ * la importación por lotes, la reconstrucción y las lecturas.
+ */
+@Repository
+public class RevenueRollupRepository {
+
+    private static final String UPSERT_DAILY_SQL =
+            "INSERT INTO revenue_daily (revenue_date, method, payments, total) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (revenue_date, method) DO UPDATE " +
+            "SET payments = revenue_daily.payments + EXCLUDED.payments, total = revenue_daily.total + EXCLUDED.total";
+
+    private static final String UPSERT_MONTHLY_SQL =
+            "INSERT INTO revenue_monthly (month_start, method, payments, total) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (month_start, method) DO UPDATE " +
+            "SET payments = revenue_monthly.payments + EXCLUDED.payments, total = revenue_monthly.total + EXCLUDED.total";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RevenueRollupRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Aplica un delta a la fila diaria y mensual del día/método. Con deltas negativos (anulación) elimina las
+     * filas que quedan sin pagos.
+     * @param date fecha de pago
+     * @param method método de pago
+     * @param payments delta de cantidad (+1 alta, -1 anulación)
+     * @param total delta de monto
+     */
+    public void apply(LocalDate date, PaymentMethod method, long payments, double total) {
+        LocalDate month = date.withDayOfMonth(1);
+        jdbcTemplate.update(UPSERT_DAILY_SQL, Date.valueOf(date), method.name(), payments, total);
+        jdbcTemplate.update(UPSERT_MONTHLY_SQL, Date.valueOf(month), method.name(), payments, total);
+        if (payments < 0) {
+            jdbcTemplate.update("DELETE FROM revenue_daily WHERE revenue_date = ? AND method = ? AND payments <= 0",
+                    Date.valueOf(date), method.name());
+            jdbcTemplate.update("DELETE FROM revenue_monthly WHERE month_start = ? AND method = ? AND payments <= 0",
+                    Date.valueOf(month), method.name());
+        }
+    }
+
+    /**
+     * Suma un lote de pagos nuevos (importación): agrega en memoria por (día, método) y (mes, método) y envía
+     * un batch de upserts por tabla.
+     * @param payments pagos insertados (no anulados)
+     */
+    public void applyAll(List<Payment> payments) {
+        if (payments.isEmpty()) return;
+        Map<String, Object[]> daily = new LinkedHashMap<>();
+        Map<String, Object[]> monthly = new LinkedHashMap<>();
+        for (Payment p : payments) {
+            accumulate(daily, p.getPaymentDate(), p.getMethod(), p.getAmount());
+            accumulate(monthly, p.getPaymentDate().withDayOfMonth(1), p.getMethod(), p.getAmount());
+        }
+        jdbcTemplate.batchUpdate(UPSERT_DAILY_SQL, new ArrayList<>(daily.values()));
+        jdbcTemplate.batchUpdate(UPSERT_MONTHLY_SQL, new ArrayList<>(monthly.values()));
+    }
+
+    /**
+     * Reconstruye ambos rollups desde payments (una agregación por tabla).
+     * @return filas diarias generadas
+     */
+    public int rebuild() {
+        jdbcTemplate.update("DELETE FROM revenue_daily");
+        jdbcTemplate.update("DELETE FROM revenue_monthly");
+        int days = jdbcTemplate.update(
+                "INSERT INTO revenue_daily (revenue_date, method, payments, total) " +
+                "SELECT payment_date, method, COUNT(*), SUM(amount) FROM payments WHERE voided = false " +
+                "GROUP BY payment_date, method");
+        jdbcTemplate.update(
+                "INSERT INTO revenue_monthly (month_start, method, payments, total) " +
+                "SELECT CAST(date_trunc('month', revenue_date) AS date), method, SUM(payments), SUM(total) " +
+                "FROM revenue_daily GROUP BY 1, 2");
+        return days;
+    }
+
+    /** true si el rollup diario no tiene filas pero hay pagos válidos (base cargada por fuera de la aplicación). */
+    public boolean needsRebuild() {
+        Boolean result = jdbcTemplate.queryForObject(
+                "SELECT NOT EXISTS (SELECT 1 FROM revenue_daily) AND EXISTS (SELECT 1 FROM payments WHERE voided = false)",
+                Boolean.class);
+        return Boolean.TRUE.equals(result);
+    }
+
+    /** Total cobrado entre dos fechas (inclusive) según el rollup diario. */
+    public double sumDaily(LocalDate from, LocalDate to) {
+        Double total = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(total), 0) FROM revenue_daily WHERE revenue_date BETWEEN ? AND ?",
+                Double.class, Date.valueOf(from), Date.valueOf(to));
+        return total != null ? total : 0.0;
+    }
+
+    /** Total cobrado en los meses completos entre dos primeros-de-mes (inclusive) según el rollup mensual. */
+    public double sumMonthly(LocalDate fromMonth, LocalDate toMonth) {
+        Double total = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(total), 0) FROM revenue_monthly WHERE month_start BETWEEN ? AND ?",
+                Double.class, Date.valueOf(fromMonth), Date.valueOf(toMonth));
+        return total != null ? total : 0.0;
+    }
+
+    /**
+     * Serie desde el rollup diario, agrupada por día ({@code truncUnit} null) o por la unidad de
+     * {@code date_trunc} indicada ("week", "month").
+     * @param truncUnit unidad fija del enum de intervalos (no proviene del request)
+     * @param from fecha mínima inclusive
+     * @param to fecha máxima inclusive
+     * @param byMethod si true agrupa también por método
+     */
+    public List<RevenueBucketDTO> dailySeries(String truncUnit, LocalDate from, LocalDate to, boolean byMethod) {
+        String bucket = truncUnit == null ? "revenue_date" : "CAST(date_trunc('" + truncUnit + "', revenue_date) AS date)";
+        return series("revenue_daily", bucket, "revenue_date", from, to, byMethod);
+    }
+
+    /**
+     * Serie mensual desde el rollup mensual (meses completos).
+     * @param fromMonth primer día del primer mes
+     * @param toMonth primer día del último mes
+     * @param byMethod si true agrupa también por método
+     */
+    public List<RevenueBucketDTO> monthlySeries(LocalDate fromMonth, LocalDate toMonth, boolean byMethod) {
+        return series("revenue_monthly", "month_start", "month_start", fromMonth, toMonth, byMethod);
+    }
+
+    private List<RevenueBucketDTO> series(String table, String bucket, String dateColumn,
+                                          LocalDate from, LocalDate to, boolean byMethod) {
+        String sql = "SELECT " + bucket + " AS bucket_start, " + (byMethod ? "method" : "NULL") + " AS method, " +
+                "SUM(payments) AS payments, SUM(total) AS total FROM " + table +
+                " WHERE " + dateColumn + " BETWEEN ? AND ? GROUP BY 1" + (byMethod ? ", 2" : "") +
+                " ORDER BY 1" + (byMethod ? ", 2" : "");
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+            String method = rs.getString("method");
+            return new RevenueBucketDTO(
+                    rs.getDate("bucket_start").toLocalDate(),
+                    method != null ? PaymentMethod.valueOf(method) : null,
+                    rs.getLong("payments"),
+                    rs.getDouble("total"));
+        }, Date.valueOf(from), Date.valueOf(to));
+    }
+
+    private void accumulate(Map<String, Object[]> rows, LocalDate date, PaymentMethod method, double amount) {
+        Object[] row = rows.computeIfAbsent(date + "|" + method,
+                k -> new Object[]{Date.valueOf(date), method.name(), 0L, 0.0});
+        row[2] = (Long) row[2] + 1;
+        row[3] = (Double) row[3] + amount;
+    }
+}
@@ -1,96 +1,156 @@
 package com.gym.gym_management.service;
 
 import com.gym.gym_management.controller.dto.ActivityDto;
+import com.gym.gym_management.controller.dto.ActivityFeedDTO;
+import com.gym.gym_management.model.ActivityEvent;
 import com.gym.gym_management.model.Client;
 import com.gym.gym_management.model.Payment;
-import com.gym.gym_management.repository.IClientRepository;
-import com.gym.gym_management.repository.IPaymentRepository;
+import com.gym.gym_management.repository.IActivityEventRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+/**
+ * Feed de actividad del dashboard sobre la tabla de solo inserción {@code activity_events}.
+ * <p>
+ * Escritura: los servicios de clientes y pagos registran el evento en su propia transacción (propagación
+ * REQUIRED), igual que la auditoría.
+ * <p>
+ * Lectura: un único rango por clave ({@code id < before ORDER BY id DESC LIMIT size + 1}), opcionalmente
+ * filtrado por tipo, sin combinar consultas ni cargar clientes o pagos.
+ */
 @Service
 public class ActivityService {
 
-    @Autowired
-    private IClientRepository clientRepository;
+    /** Tamaño máximo de página del feed. */
+    public static final int MAX_FEED_SIZE = 100;
 
     @Autowired
-    private IPaymentRepository paymentRepository;
-
+    private IActivityEventRepository activityEventRepository;
+
+    /**
+     * Últimas actividades (primera página del feed sin filtros).
+     * @param limit cantidad máxima (1..{@link #MAX_FEED_SIZE})
+     * @return actividades más recientes primero
+     */
+    @Transactional(readOnly = true)
     public List<ActivityDto> getRecentActivities(int limit) {
-        List<ActivityDto> activities = new ArrayList<>();
+        return getFeed(null, limit, null).getContent();
+    }
 
-        // Obtener clientes recientes (últimos 7 días)
-        LocalDate sevenDaysAgo = LocalDate.now().minusDays(7);
-        List<Client> recentClients = clientRepository.findByStartDateAfterOrderByStartDateDesc(sevenDaysAgo);
+    /**
+     * Página del feed por cursor.
+     * @param before id del último evento de la página anterior (null = primera página)
+     * @param size tamaño de página (se acota a 1..{@link #MAX_FEED_SIZE})
+     * @param types tipos a incluir (null o vacío = todos)
+     * @return eventos más recientes primero, con indicador y cursor de página siguiente
+     */
+    @Transactional(readOnly = true)
+    public ActivityFeedDTO getFeed(Long before, int size, Set<ActivityEvent.Type> types) {
+        int pageSize = Math.max(1, Math.min(size, MAX_FEED_SIZE));
+        long cursor = before != null ? before : Long.MAX_VALUE;
+        PageRequest limit = PageRequest.ofSize(pageSize + 1);
+        List<ActivityEvent> rows = (types == null || types.isEmpty())
+                ? activityEventRepository.findByIdLessThanOrderByIdDesc(cursor, limit)
+                : activityEventRepository.findByTypeInAndIdLessThanOrderByIdDesc(types, cursor, limit);
+        boolean hasNext = rows.size() > pageSize;
+        List<ActivityEvent> page = hasNext ? rows.subList(0, pageSize) : rows;
+        List<ActivityDto> content = page.stream().map(this::toDto).collect(Collectors.toList());
+        Long nextCursor = hasNext ? page.get(page.size() - 1).getId() : null;
+        return new ActivityFeedDTO(content, pageSize, hasNext, nextCursor);
+    }
 
-        for (Client client : recentClients.stream().limit(5).collect(Collectors.toList())) {
-            String clientName = String.format("%s %s",
-                client.getFirstName() != null ? client.getFirstName() : "",
-                client.getLastName() != null ? client.getLastName() : "").trim();
+    /**
+     * Eventos posteriores a un id, más antiguos primero (lo usa el stream del dashboard para enviar solo lo nuevo).
+     * @param after id del último evento ya enviado
+     * @param limit cantidad máxima (se acota a 1..{@link #MAX_FEED_SIZE})
+     * @return eventos nuevos en orden de inserción
+     */
+    @Transactional(readOnly = true)
+    public List<ActivityDto> getActivitiesAfter(long after, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_FEED_SIZE));
+        return activityEventRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.ofSize(pageSize))
+                .stream().map(this::toDto).collect(Collectors.toList());
+    }
 
-            activities.add(new ActivityDto(
-                "new-client",
-                String.format("Nuevo cliente registrado: %s", clientName),
-                String.format("Cliente registrado con email: %s", client.getEmail()),
-                client.getStartDate().atStartOfDay(),
-                client.getId()
-            ));
-        }
-
-        // Obtener pagos recientes (últimos 7 días)
-        LocalDate paymentSevenDaysAgo = LocalDate.now().minusDays(7);
-        List<Payment> recentPayments = paymentRepository.findByPaymentDateAfterAndVoidedFalseOrderByPaymentDateDesc(paymentSevenDaysAgo);
-
-        for (Payment payment : recentPayments.stream().limit(5).collect(Collectors.toList())) {
-            Client client = payment.getClient();
-            String clientName = String.format("%s %s",
-                client.getFirstName() != null ? client.getFirstName() : "",
-                client.getLastName() != null ? client.getLastName() : "").trim();
+    // ===================== Registro de eventos =====================
+
+    @Transactional
+    public void recordNewClient(Client client) {
+        record(ActivityEvent.Type.NEW_CLIENT, client, null,
+                String.format("Nuevo cliente registrado: %s", fullName(client)),
+                String.format("Cliente registrado con email: %s", client.getEmail()));
+    }
+
+    @Transactional
+    public void recordClientActivated(Client client) {
+        record(ActivityEvent.Type.CLIENT_ACTIVATED, client, null,
+                String.format("Cliente reactivado: %s", fullName(client)), null);
+    }
+
+    @Transactional
+    public void recordClientDeactivated(Client client) {
+        record(ActivityEvent.Type.CLIENT_DEACTIVATED, client, null,
+                String.format("Cliente dado de baja: %s", fullName(client)), null);
+    }
 
-            activities.add(new ActivityDto(
-                "payment",
-                String.format("Pago recibido: $%.2f de %s", payment.getAmount(), clientName),
-                String.format("Pago por método: %s", payment.getMethod().toString()),
-                payment.getPaymentDate().atStartOfDay(),
-                payment.getId()
-            ));
-        }
-
-        // Obtener clientes con membresías próximas a vencer (próximos 3 días)
-        LocalDate threeDaysFromNow = LocalDate.now().plusDays(3);
-        List<Payment> expiringPayments = paymentRepository.findByExpirationDateBetweenAndVoidedFalseOrderByExpirationDateAsc(
-            LocalDate.now(), threeDaysFromNow);
-
-        for (Payment payment : expiringPayments.stream().limit(3).collect(Collectors.toList())) {
-            Client client = payment.getClient();
-            String clientName = String.format("%s %s",
+    @Transactional
+    public void recordClientPaused(Client client) {
+        record(ActivityEvent.Type.CLIENT_PAUSED, client, null,
+                String.format("Membresía pausada: %s", fullName(client)),
+                String.format("Del %s al %s%s", client.getPausedFrom(), client.getPausedTo(),
+                        client.getPauseReason() != null ? " (" + client.getPauseReason() + ")" : ""));
+    }
+
+    @Transactional
+    public void recordClientResumed(Client client) {
+        record(ActivityEvent.Type.CLIENT_RESUMED, client, null,
+                String.format("Membresía reanudada: %s", fullName(client)), null);
+    }
+
+    @Transactional
+    public void recordPaymentReceived(Payment payment) {
+        record(ActivityEvent.Type.PAYMENT, payment.getClient(), payment.getId(),
+                String.format("Pago recibido: $%.2f de %s", payment.getAmount(), fullName(payment.getClient())),
+                String.format("Pago por método: %s", payment.getMethod()));
+    }
+
+    @Transactional
+    public void recordPaymentVoided(Payment payment, String reason) {
+        Client client = payment.getClient();
+        record(ActivityEvent.Type.PAYMENT_VOIDED, client, payment.getId(),
+                String.format("Pago anulado: $%.2f de %s", payment.getAmount(), fullName(client)),
+                reason != null ? String.format("Motivo: %s", reason) : null);
+    }
+
+    @Transactional
+    public void recordPaymentsImported(long imported, long rejected) {
+        activityEventRepository.save(new ActivityEvent(ActivityEvent.Type.PAYMENTS_IMPORTED, null, null,
+                String.format("Importación de pagos: %d registrados", imported),
+                String.format("%d filas rechazadas", rejected)));
+    }
+
+    private void record(ActivityEvent.Type type, Client client, Long paymentId, String title, String description) {
+        activityEventRepository.save(new ActivityEvent(type, client.getId(), paymentId, truncate(title, 255), truncate(description, 500)));
+    }
+
+    private ActivityDto toDto(ActivityEvent e) {
+        Long relatedId = e.getPaymentId() != null ? e.getPaymentId() : e.getClientId();
+        return new ActivityDto(e.getId(), e.getType().getCode(), e.getTitle(), e.getDescription(), e.getOccurredAt(), relatedId);
+    }
+
+    private static String fullName(Client client) {
+        return String.format("%s %s",
                 client.getFirstName() != null ? client.getFirstName() : "",
                 client.getLastName() != null ? client.getLastName() : "").trim();
+    }
 
-            activities.add(new ActivityDto(
-                "expiring",
-                String.format("Membresía por vencer: %s", clientName),
-                String.format("Vence el %s", payment.getExpirationDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy"))),
-                payment.getExpirationDate().atStartOfDay(),
-                client.getId()
-            ));
-        }
-
-        // Ordenar por fecha descendente y limitar
-        return activities.stream()
-            .sorted(Comparator.comparing(ActivityDto::getTimestamp).reversed())
-            .limit(limit)
-            .collect(Collectors.toList());
+    private static String truncate(String value, int max) {
+        return value == null || value.length() <= max ? value : value.substring(0, max);
     }
 }
@@ -48,6 +48,11 @@ public class AuditService {
                 String.format("anulado: %s", reason));
     }
 
+    public void logPaymentImport(long imported, long rejected) {
+        createLog("IMPORT_PAYMENTS", "Payment", null, null,
+                String.format("importados: %d, rechazados: %d", imported, rejected));
+    }
+
     private void createLog(String action, String entity, Long entityId, String oldValues, String newValues) {
         AuditLog log = new AuditLog();
         log.setAction(action);
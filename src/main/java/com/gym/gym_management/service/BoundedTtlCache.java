@@ -0,0 +1,234 @@
+package com.gym.gym_management.service;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché en memoria acotada, con expiración por entrada, compartida por las cachés de la aplicación
+ * (ReportCache, tokens verificados de JwtService y usuarios de CachedUserDetailsService).
+ * <p>
+ * Características:
+ * <ul>
+ *     <li><b>Expiración</b>: cada entrada guarda su vencimiento en la unidad de reloj que use quien la llama
+ *     ({@code System.nanoTime()} o milisegundos), siempre la misma para {@code now} y {@code expiresAt}.
+ *     {@link #NEVER} marca una entrada sin vencimiento (por ejemplo, un cálculo en curso).</li>
+ *     <li><b>Tamaño acotado</b>: al superar {@code maxEntries} se descartan las que vencen antes (las vencidas
+ *     quedan primero). Las entradas se mantienen además ordenadas por vencimiento, así cada descarte cuesta
+ *     O(log n) en lugar de recorrer toda la caché.</li>
+ *     <li><b>Métricas</b>: aciertos, fallos, descartes e invalidaciones ({@link #stats()}).</li>
+ * </ul>
+ * Con {@code maxEntries <= 0} no guarda nada (cada lectura es un fallo).
+ *
+ * @param <K> tipo de la clave
+ * @param <V> tipo del valor
+ */
+public class BoundedTtlCache<K, V> {
+
+    /** Vencimiento de una entrada que no expira hasta que se le asigne uno ({@link #expireAt}). */
+    public static final long NEVER = Long.MAX_VALUE;
+
+    private final int maxEntries;
+
+    private final ConcurrentHashMap<K, Node<K, V>> entries = new ConcurrentHashMap<>();
+
+    /** Mismas entradas ordenadas por vencimiento (y orden de alta para desempatar). */
+    private final ConcurrentSkipListSet<Node<K, V>> byExpiration = new ConcurrentSkipListSet<>(
+            Comparator.<Node<K, V>>comparingLong(n -> n.expiresAt).thenComparingLong(n -> n.seq));
+
+    private final AtomicLong seq = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public BoundedTtlCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Devuelve el valor vigente de la clave y cuenta un acierto o un fallo. Una entrada vencida se descarta.
+     * @param key clave
+     * @param now instante actual
+     * @return valor, o null si no está o venció
+     */
+    public V get(K key, long now) {
+        Node<K, V> node = entries.get(key);
+        if (node != null) {
+            if (!node.isExpired(now)) {
+                hits.increment();
+                return node.value;
+            }
+            removeNode(node);
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Devuelve el valor vigente de la clave (acierto) o, si no hay, guarda {@code value} (fallo).
+     * La comprobación y el alta son atómicas: entre hilos concurrentes con la misma clave solo uno guarda su valor.
+     * @param key clave
+     * @param value valor a guardar si no hay uno vigente
+     * @param expiresAt vencimiento del valor nuevo
+     * @param now instante actual
+     * @return el valor vigente, o {@code value} si se guardó
+     */
+    public V getOrPut(K key, V value, long expiresAt, long now) {
+        Node<K, V> current = entries.get(key);
+        if (current != null && !current.isExpired(now)) {
+            hits.increment();
+            return current.value;
+        }
+        if (maxEntries <= 0) {
+            misses.increment();
+            return value;
+        }
+        Node<K, V> mine = new Node<>(key, value, expiresAt, seq.incrementAndGet());
+        Node<K, V> winner = entries.compute(key, (k, cur) -> {
+            if (cur != null && !cur.isExpired(now)) {
+                return cur;
+            }
+            if (cur != null) {
+                byExpiration.remove(cur);
+            }
+            byExpiration.add(mine);
+            return mine;
+        });
+        if (winner != mine) {
+            hits.increment();
+            return winner.value;
+        }
+        misses.increment();
+        evictIfNeeded();
+        return value;
+    }
+
+    /**
+     * Guarda (o reemplaza) el valor de la clave.
+     * @param key clave
+     * @param value valor
+     * @param expiresAt vencimiento
+     */
+    public void put(K key, V value, long expiresAt) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        Node<K, V> node = new Node<>(key, value, expiresAt, seq.incrementAndGet());
+        entries.compute(key, (k, cur) -> {
+            if (cur != null) {
+                byExpiration.remove(cur);
+            }
+            byExpiration.add(node);
+            return node;
+        });
+        evictIfNeeded();
+    }
+
+    /**
+     * Asigna un nuevo vencimiento a la entrada si la clave sigue asociada a {@code value}.
+     * @return false si la entrada ya no está (invalidada o descartada)
+     */
+    public boolean expireAt(K key, V value, long expiresAt) {
+        Node<K, V> node = new Node<>(key, value, expiresAt, seq.incrementAndGet());
+        Node<K, V> result = entries.computeIfPresent(key, (k, cur) -> {
+            if (cur.value != value) {
+                return cur;
+            }
+            byExpiration.remove(cur);
+            byExpiration.add(node);
+            return node;
+        });
+        return result == node;
+    }
+
+    /** Saca la entrada si la clave sigue asociada a {@code value} (no cuenta como invalidación). */
+    public boolean remove(K key, V value) {
+        Node<K, V> node = entries.get(key);
+        return node != null && node.value == value && removeNode(node);
+    }
+
+    /** Saca la entrada de la clave (no cuenta como invalidación). */
+    public void remove(K key) {
+        Node<K, V> node = entries.remove(key);
+        if (node != null) {
+            byExpiration.remove(node);
+        }
+    }
+
+    /** Invalida la entrada de la clave (si la hay) y la cuenta en las métricas. */
+    public void invalidate(K key) {
+        invalidations.increment();
+        if (key != null) {
+            remove(key);
+        }
+    }
+
+    /** Vacía la caché y lo cuenta como una invalidación. */
+    public void invalidateAll() {
+        invalidations.increment();
+        entries.values().forEach(this::removeNode);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Métricas acumuladas desde el arranque.
+     * @return entries, maxEntries, hits, misses, evictions, invalidations y hitRatio
+     */
+    public Map<String, Object> stats() {
+        long h = hits.sum();
+        long m = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("evictions", evictions.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("hitRatio", h + m == 0 ? 0.0 : (double) h / (h + m));
+        return stats;
+    }
+
+    /** Descarta las entradas que vencen antes hasta volver al máximo. */
+    private void evictIfNeeded() {
+        while (entries.size() > maxEntries) {
+            Node<K, V> first = byExpiration.pollFirst();
+            if (first == null) break;
+            if (entries.remove(first.key, first)) evictions.increment();
+        }
+    }
+
+    private boolean removeNode(Node<K, V> node) {
+        if (entries.remove(node.key, node)) {
+            byExpiration.remove(node);
+            return true;
+        }
+        return false;
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        final long expiresAt;
+        final long seq;
+
+        Node(K key, V value, long expiresAt, long seq) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.seq = seq;
+        }
+
+        boolean isExpired(long now) {
+            return expiresAt != NEVER && now - expiresAt >= 0;
+        }
+    }
+}
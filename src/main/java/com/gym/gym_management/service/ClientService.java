@@ -5,8 +5,10 @@ import com.gym.gym_management.model.Client;
 import com.gym.gym_management.model.PaymentState;
 import com.gym.gym_management.repository.IClientRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
@@ -25,6 +27,15 @@ public class ClientService {
     @Autowired
     private AuditService auditService;
 
+    @Autowired
+    private MembershipStatusService membershipStatusService;
+
+    @Autowired
+    private ActivityService activityService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // Listado simple sin filtros
     public List<ClientDTO> findAll() {
         return clientRepository.findAll().stream()
@@ -32,26 +43,25 @@ public class ClientService {
             .collect(Collectors.toList());
     }
 
-    // Búsqueda con filtros opcionales
+    /**
+     * Búsqueda con filtros opcionales.
+     * <p>
+     * El filtro por estado de membresía se resuelve en la misma consulta SQL (EXISTS / NOT EXISTS sobre el estado
+     * materializado en client_membership_status) en lugar de derivar el estado cliente por cliente después de cargarlos.
+     * Solo UP_TO_DATE / EXPIRED tienen sentido como estado de membresía: VOIDED no coincide con ningún cliente.
+     */
     public List<ClientDTO> search(String q, Boolean active, PaymentState paymentState) {
         String text = (q == null || q.isBlank()) ? null : q.trim();
         List<Client> base;
-        if (text == null && active != null) {
+        if (paymentState != null) {
+            base = searchByMembershipState(text, active, paymentState);
+        } else if (text == null && active != null) {
             base = clientRepository.findByActive(active);
         } else if (text != null || active != null) { // si hay texto o active (aunque sea null+texto)
             base = clientRepository.search(text, active);
         } else {
             base = clientRepository.findAll();
         }
-        if (paymentState != null) {
-            // Filtrado por estado de membresía derivado: solo tiene sentido para UP_TO_DATE / EXPIRED.
-            base = base.stream()
-                    .filter(c -> {
-                        PaymentState derived = paymentService.deriveCurrentMembershipState(c.getId());
-                        return derived == paymentState; // coincide exactamente
-                    })
-                    .collect(Collectors.toList());
-        }
         return base.stream().map(this::toDTO).collect(Collectors.toList());
     }
 
@@ -61,6 +71,7 @@ public class ClientService {
             .orElseThrow(() -> new IllegalArgumentException("Cliente no encontrado"));
     }
 
+    @Transactional
     public ClientDTO create(ClientDTO dto) {
         // Validación de email único
         if (dto.getEmail() != null && clientRepository.existsByEmail(dto.getEmail())) {
@@ -70,6 +81,9 @@ public class ClientService {
         client.setActive(true);
         Client saved = clientRepository.save(client);
         auditService.logClientCreation(saved);
+        membershipStatusService.initialize(saved.getId());
+        activityService.recordNewClient(saved);
+        eventPublisher.publishEvent(DataChangedEvent.client(DataChangedEvent.Kind.CLIENT_CREATED, saved.getId(), saved.getStartDate()));
         return toDTO(saved);
     }
 
@@ -86,6 +100,7 @@ public class ClientService {
         updateClientFromDTO(client, dto);
         Client updated = clientRepository.save(client);
         auditService.logClientUpdate(original, updated);
+        eventPublisher.publishEvent(DataChangedEvent.client(DataChangedEvent.Kind.CLIENT_CHANGED, id, updated.getStartDate()));
         return toDTO(updated);
     }
 
@@ -94,19 +109,29 @@ public class ClientService {
         Client client = clientRepository.findById(id)
             .orElseThrow(() -> new IllegalArgumentException("Cliente no encontrado"));
 
+        boolean wasActive = client.isActive();
         client.setActive(false);
         clientRepository.save(client);
         auditService.logClientDeactivation(client);
+        if (wasActive) activityService.recordClientDeactivated(client);
+        eventPublisher.publishEvent(DataChangedEvent.client(
+            wasActive ? DataChangedEvent.Kind.CLIENT_DEACTIVATED : DataChangedEvent.Kind.CLIENT_CHANGED, id, client.getStartDate()));
     }
 
     public void activate(Long id) {
         Client client = clientRepository.findById(id)
             .orElseThrow(() -> new IllegalArgumentException("Cliente no encontrado"));
+        boolean wasActive = client.isActive();
         client.setActive(true);
         clientRepository.save(client);
         // TODO: agregar log de auditoría específico si se requiere
+        if (!wasActive) activityService.recordClientActivated(client);
+        eventPublisher.publishEvent(DataChangedEvent.client(
+            wasActive ? DataChangedEvent.Kind.CLIENT_CHANGED : DataChangedEvent.Kind.CLIENT_ACTIVATED, id, client.getStartDate()));
     }
 
+    // Pausa y reanudación recalculan el estado de membresía materializado en la misma transacción
+    @Transactional
     public ClientDTO pause(Long id, LocalDate from, LocalDate to, String reason) {
         Client client = clientRepository.findById(id)
             .orElseThrow(() -> new IllegalArgumentException("Cliente no encontrado"));
@@ -116,9 +141,13 @@ public class ClientService {
         client.setPauseReason(reason);
         Client updated = clientRepository.save(client);
         auditService.logClientPause(updated);
+        activityService.recordClientPaused(updated);
+        membershipStatusService.refresh(id);
+        eventPublisher.publishEvent(DataChangedEvent.client(DataChangedEvent.Kind.CLIENT_CHANGED, id, updated.getStartDate()));
         return toDTO(updated);
     }
 
+    @Transactional
     public ClientDTO resume(Long id) {
         Client client = clientRepository.findById(id)
             .orElseThrow(() -> new IllegalArgumentException("Cliente no encontrado"));
@@ -128,6 +157,9 @@ public class ClientService {
         client.setPauseReason(null);
         Client updated = clientRepository.save(client);
         auditService.logClientResume(updated);
+        activityService.recordClientResumed(updated);
+        membershipStatusService.refresh(id);
+        eventPublisher.publishEvent(DataChangedEvent.client(DataChangedEvent.Kind.CLIENT_CHANGED, id, updated.getStartDate()));
         return toDTO(updated);
     }
 
@@ -137,6 +169,17 @@ public class ClientService {
     }
 
     // Métodos auxiliares
+    private List<Client> searchByMembershipState(String text, Boolean active, PaymentState paymentState) {
+        LocalDate today = LocalDate.now();
+        if (paymentState == PaymentState.UP_TO_DATE) {
+            return clientRepository.searchWithValidPayment(text, active, today);
+        }
+        if (paymentState == PaymentState.EXPIRED) {
+            return clientRepository.searchWithoutValidPayment(text, active, today);
+        }
+        return List.of(); // el estado derivado nunca es VOIDED
+    }
+
     private ClientDTO toDTO(Client client) {
         ClientDTO dto = new ClientDTO();
         dto.setId(client.getId());
@@ -0,0 +1,90 @@
+package com.gym.gym_management.service;
+
+import com.gym.gym_management.controller.dto.DailySnapshotDTO;
+import com.gym.gym_management.controller.dto.RevenueBucketDTO;
+import com.gym.gym_management.model.DailySnapshot;
+import com.gym.gym_management.repository.IClientMembershipStatusRepository;
+import com.gym.gym_management.repository.IClientRepository;
+import com.gym.gym_management.repository.IDailySnapshotRepository;
+import com.gym.gym_management.repository.RevenueRollupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Fotos diarias de indicadores ({@code daily_snapshots}) y su lectura como serie histórica.
+ * <p>
+ * La captura cuesta unos pocos COUNT por índice sobre el estado actual (clients y client_membership_status) más
+ * la lectura del rollup de recaudación del día; la serie es un rango por clave. Así un gráfico de un trimestre
+ * lee ~90 filas en lugar de reconstruir el estado de cada día desde los pagos.
+ * <p>
+ * Los indicadores de estado (activos, pausados, al día, vencidos) solo son exactos para el día en que se
+ * capturan (no se pueden reconstruir para un día pasado), por eso {@link #capture()} siempre captura hoy.
+ */
+@Service
+public class DailySnapshotService {
+
+    /** Cantidad máxima de días de una serie (dos años). */
+    public static final int MAX_SERIES_DAYS = 731;
+
+    @Autowired
+    private IDailySnapshotRepository snapshotRepository;
+
+    @Autowired
+    private IClientRepository clientRepository;
+
+    @Autowired
+    private IClientMembershipStatusRepository membershipStatusRepository;
+
+    @Autowired
+    private RevenueRollupRepository rollupRepository;
+
+    /**
+     * Captura (o reemplaza) la foto del día actual.
+     * @return foto guardada
+     */
+    @Transactional
+    public DailySnapshotDTO capture() {
+        LocalDate day = LocalDate.now();
+        DailySnapshot snapshot = new DailySnapshot(day);
+        snapshot.setActiveClients(clientRepository.countByIsActiveTrue());
+        snapshot.setPausedClients(clientRepository.countPausedOn(day));
+        snapshot.setUpToDateClients(membershipStatusRepository.countActiveUpToDate(day));
+        snapshot.setExpiredClients(membershipStatusRepository.countActiveWithExpiredMembership(day));
+        snapshot.setNewMembers(clientRepository.countByStartDateBetween(day, day));
+        for (RevenueBucketDTO row : rollupRepository.dailySeries(null, day, day, true)) {
+            snapshot.addRevenue(row.getMethod(), row.getPayments(), row.getTotal());
+        }
+        snapshot.setCapturedAt(LocalDateTime.now());
+        return new DailySnapshotDTO(snapshotRepository.save(snapshot));
+    }
+
+    /**
+     * Serie diaria entre dos fechas (inclusive). Los días sin foto no aparecen.
+     * @param from fecha mínima inclusive
+     * @param to fecha máxima inclusive
+     * @return fotos ordenadas por fecha
+     * @throws IllegalArgumentException si el rango es inválido o supera {@link #MAX_SERIES_DAYS}
+     */
+    @Transactional(readOnly = true)
+    public List<DailySnapshotDTO> series(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Las fechas from y to son obligatorias");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("El parámetro 'from' no puede ser posterior a 'to'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_SERIES_DAYS) {
+            throw new IllegalArgumentException("El rango no puede superar " + MAX_SERIES_DAYS + " días");
+        }
+        return snapshotRepository.findBySnapshotDateBetweenOrderBySnapshotDateAsc(from, to).stream()
+                .map(DailySnapshotDTO::new)
+                .collect(Collectors.toList());
+    }
+}
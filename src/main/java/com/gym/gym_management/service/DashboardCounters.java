@@ -0,0 +1,180 @@
+package com.gym.gym_management.service;
+
+import com.gym.gym_management.controller.dto.DashboardStatsDto;
+import com.gym.gym_management.model.PaymentState;
+import com.gym.gym_management.repository.IClientMembershipStatusRepository;
+import com.gym.gym_management.repository.IClientRepository;
+import com.gym.gym_management.repository.IPaymentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores del dashboard mantenidos en memoria: leerlos no consulta la base.
+ * <p>
+ * Funcionamiento:
+ * <ul>
+ *     <li><b>Siembra</b>: al arrancar se cargan desde la base ({@link #reconcile()}).</li>
+ *     <li><b>Deltas</b>: cada {@link DataChangedEvent} confirmado ajusta los contadores que puede calcular con los
+ *     datos del evento (clientes activos, pagos vencidos, recaudación del mes, altas de la semana).</li>
+ *     <li><b>Contadores por fecha</b>: membresías vencidas y por vencer dependen de la fecha de expiración de cada
+ *     socio, que el evento no trae; un cambio los marca pendientes y se recalculan con dos COUNT por índice
+ *     sobre {@code client_membership_status} en la siguiente lectura.</li>
+ *     <li><b>Reconciliación</b>: cada {@code app.dashboardCounters.reconcileMs} (y al cambiar el día, o tras una
+ *     importación o reconstrucción) se vuelven a contar todos desde la base, corrigiendo cualquier deriva (por
+ *     ejemplo, un delta aplicado mientras se reconciliaba o cambios hechos fuera de la aplicación).</li>
+ * </ul>
+ * "Por vencer" usa el mismo horizonte que el reporte de próximos vencimientos por defecto (hoy a hoy + 7 días);
+ * "nuevos socios" cuenta altas con fecha de inicio desde el lunes de la semana actual.
+ */
+@Service
+public class DashboardCounters {
+
+    /** Horizonte del contador de membresías por vencer (igual al reporte /api/reports/expiring por defecto). */
+    static final int EXPIRING_DAYS = 7;
+
+    @Autowired
+    private IClientRepository clientRepository;
+
+    @Autowired
+    private IPaymentRepository paymentRepository;
+
+    @Autowired
+    private IClientMembershipStatusRepository membershipStatusRepository;
+
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
+    private final LongAdder activeClients = new LongAdder();
+    private final LongAdder expiredPayments = new LongAdder();
+    private final LongAdder newMembersThisWeek = new LongAdder();
+    /** Recaudación del mes en centésimos, para acumular deltas sin error de redondeo. */
+    private final LongAdder revenueThisMonthCents = new LongAdder();
+
+    private volatile long expiredMemberships;
+    private volatile long expiringThisWeek;
+
+    /** Día al que corresponden los contadores; al cambiar el día se reconcilia (cambia semana/mes y vencimientos). */
+    private volatile LocalDate countersDate;
+
+    /** Hay que volver a contar todo (arranque, importación, reconstrucción de datos derivados). */
+    private final AtomicBoolean fullReconcilePending = new AtomicBoolean(true);
+
+    /** Hay que recalcular los contadores que dependen de la expiración de cada socio. */
+    private final AtomicBoolean membershipCountsPending = new AtomicBoolean(false);
+
+    /** Siembra los contadores al terminar el arranque. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        reconcile();
+    }
+
+    /** Reconciliación periódica contra la base. */
+    @Scheduled(fixedDelayString = "${app.dashboardCounters.reconcileMs:300000}",
+               initialDelayString = "${app.dashboardCounters.reconcileMs:300000}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    /**
+     * Vuelve a contar todo desde la base (COUNT por índice y sumas sobre los rollups de recaudación).
+     */
+    public synchronized void reconcile() {
+        fullReconcilePending.set(false);
+        membershipCountsPending.set(false);
+        LocalDate today = LocalDate.now();
+        set(activeClients, clientRepository.countByIsActiveTrue());
+        set(expiredPayments, paymentRepository.countByPaymentStateAndVoidedFalse(PaymentState.EXPIRED));
+        set(newMembersThisWeek, clientRepository.countByStartDateBetween(weekStart(today), today));
+        Double revenue = revenueRollupService.cashflow(today.withDayOfMonth(1), today);
+        set(revenueThisMonthCents, toCents(revenue));
+        refreshMembershipCounts(today);
+        countersDate = today;
+    }
+
+    /**
+     * Contadores actuales. Solo consulta la base si hay un recálculo pendiente (cambio de día, importación o
+     * cambios que afectan los vencimientos).
+     * @return estadísticas del dashboard
+     */
+    public DashboardStatsDto snapshot() {
+        LocalDate today = LocalDate.now();
+        if (fullReconcilePending.get() || !today.equals(countersDate)) {
+            reconcile();
+        } else if (membershipCountsPending.compareAndSet(true, false)) {
+            refreshMembershipCounts(today);
+        }
+        return new DashboardStatsDto(activeClients.sum(), expiredPayments.sum(), expiredMemberships,
+                expiringThisWeek, revenueThisMonthCents.sum() / 100.0, newMembersThisWeek.sum());
+    }
+
+    /**
+     * Aplica el delta de un cambio confirmado.
+     * @param event cambio publicado por el servicio de escritura
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDataChanged(DataChangedEvent event) {
+        LocalDate today = countersDate;
+        if (today == null) {
+            return; // aún sin sembrar: la siembra ya incluye el cambio
+        }
+        switch (event.getKind()) {
+            case PAYMENT_REGISTERED -> {
+                if (event.getState() == PaymentState.EXPIRED) expiredPayments.increment();
+                if (inMonth(event.getDate(), today)) revenueThisMonthCents.add(toCents(event.getAmount()));
+            }
+            case PAYMENT_VOIDED -> {
+                if (event.getState() == PaymentState.EXPIRED) expiredPayments.decrement();
+                if (inMonth(event.getDate(), today)) revenueThisMonthCents.add(-toCents(event.getAmount()));
+            }
+            case PAYMENTS_EXPIRED -> expiredPayments.add(event.getCount());
+            case CLIENT_CREATED -> {
+                activeClients.increment();
+                if (inWeek(event.getDate(), today)) newMembersThisWeek.increment();
+            }
+            case CLIENT_ACTIVATED -> activeClients.increment();
+            case CLIENT_DEACTIVATED -> activeClients.decrement();
+            case CLIENT_CHANGED -> { /* solo afecta vencimientos (pausa) o la fecha de alta: ver reconciliación */ }
+            case PAYMENTS_IMPORTED, DERIVED_REBUILT -> fullReconcilePending.set(true);
+            case REMINDERS_SENT -> {
+                return; // no afecta ningún contador
+            }
+        }
+        membershipCountsPending.set(true);
+    }
+
+    private void refreshMembershipCounts(LocalDate today) {
+        expiredMemberships = membershipStatusRepository.countActiveWithExpiredMembership(today);
+        expiringThisWeek = membershipStatusRepository.countActiveExpiringBetween(today, today.plusDays(EXPIRING_DAYS));
+    }
+
+    private static LocalDate weekStart(LocalDate today) {
+        return today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    private static boolean inWeek(LocalDate date, LocalDate today) {
+        return date != null && !date.isBefore(weekStart(today)) && !date.isAfter(today);
+    }
+
+    private static boolean inMonth(LocalDate date, LocalDate today) {
+        return date != null && !date.isBefore(today.withDayOfMonth(1)) && !date.isAfter(today);
+    }
+
+    private static long toCents(Double amount) {
+        return amount == null ? 0 : Math.round(amount * 100);
+    }
+
+    private static void set(LongAdder adder, long value) {
+        adder.reset();
+        adder.add(value);
+    }
+}
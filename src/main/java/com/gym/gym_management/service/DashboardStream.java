@@ -0,0 +1,348 @@
+package com.gym.gym_management.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gym.gym_management.controller.dto.ActivityDto;
+import com.gym.gym_management.controller.dto.DashboardStatsDto;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stream en vivo del dashboard (Server-Sent Events) para GET /api/dashboard/stream.
+ * <p>
+ * Funcionamiento:
+ * <ul>
+ *     <li><b>Al conectar</b>: se envían los contadores actuales ({@code stats}) y las últimas actividades
+ *     ({@code activities}).</li>
+ *     <li><b>Cambios</b>: cada {@link DataChangedEvent} confirmado marca el stream como pendiente. Cada
+ *     {@code app.dashboardStream.flushMs} se arma <b>una sola vez</b> para todas las conexiones lo nuevo:
+ *     los contadores de {@link DashboardCounters} (en memoria) si cambiaron, y las actividades insertadas desde
+ *     el último envío (un rango por clave sobre {@code activity_events}). La carga sobre la base no depende
+ *     de la cantidad de pantallas conectadas, y una ráfaga de cambios (por ejemplo, una importación) se agrupa
+ *     en un solo envío.</li>
+ *     <li><b>Commits fuera de orden</b>: los ids se asignan al insertar, no al confirmar, así que una actividad
+ *     con id menor puede confirmarse después de que se envió una mayor. Por eso el rango se relee desde
+ *     {@code app.dashboardStream.activityOverlap} ids antes del último enviado y se descartan los ids ya
+ *     enviados: una actividad que se confirma tarde se envía en el siguiente ciclo.</li>
+ *     <li><b>Buffer acotado</b>: cada conexión tiene una cola de {@code app.dashboardStream.queueCapacity}
+ *     eventos ya serializados; un pool chico de hilos la vacía hacia el socket.</li>
+ *     <li><b>Heartbeat</b>: cada {@code app.dashboardStream.heartbeatMs} se envía un comentario SSE para
+ *     mantener viva la conexión a través de proxies y detectar clientes desconectados.</li>
+ *     <li><b>Consumidores lentos</b>: si la cola de una conexión se llena, o un envío queda bloqueado más de
+ *     {@code app.dashboardStream.stallMs}, la conexión se cierra; el cliente reconecta y recibe el estado
+ *     completo.</li>
+ * </ul>
+ * Las actividades llevan su {@code id}: un cliente que reconecta puede recibir repetida alguna ya mostrada y
+ * descartarla por id.
+ */
+@Service
+public class DashboardStream {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardStream.class);
+
+    /** Actividades enviadas al conectar. */
+    static final int INITIAL_ACTIVITIES = 6;
+
+    @Autowired
+    private DashboardCounters dashboardCounters;
+
+    @Autowired
+    private ActivityService activityService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.dashboardStream.maxConnections:50}")
+    private int maxConnections = 50;
+
+    @Value("${app.dashboardStream.queueCapacity:100}")
+    private int queueCapacity = 100;
+
+    @Value("${app.dashboardStream.timeoutMs:1800000}")
+    private long timeoutMs = 1_800_000L;
+
+    @Value("${app.dashboardStream.stallMs:30000}")
+    private long stallMs = 30_000L;
+
+    /** Ids releídos antes del último enviado para alcanzar actividades confirmadas fuera de orden. */
+    @Value("${app.dashboardStream.activityOverlap:50}")
+    private int activityOverlap = 50;
+
+    @Value("${app.dashboardStream.senderThreads:2}")
+    private int senderThreads = 2;
+
+    /** Hilos que vacían las colas hacia los sockets (un envío lento no frena el armado de eventos). */
+    private Executor sender;
+
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+
+    /** Hubo cambios desde el último envío. */
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+
+    /** Último estado de contadores enviado (para no repetirlo si no cambió). */
+    private volatile DashboardStatsDto lastStats;
+
+    /** Id de la última actividad enviada; null = se toma al próximo envío. */
+    private volatile Long lastActivityId;
+
+    /** Ids ya enviados dentro de la ventana de relectura (para no repetirlos). */
+    private final NavigableSet<Long> sentActivityIds = new ConcurrentSkipListSet<>();
+
+    private final LongAdder evictedSlow = new LongAdder();
+    private final LongAdder broadcasts = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        if (sender == null) {
+            AtomicInteger n = new AtomicInteger();
+            sender = Executors.newFixedThreadPool(senderThreads, r -> {
+                Thread t = new Thread(r, "dashboard-stream-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        connections.forEach(c -> close(c, null));
+        if (sender instanceof ExecutorService es) {
+            es.shutdownNow();
+        }
+    }
+
+    /**
+     * Abre una conexión SSE y encola el estado inicial.
+     * <p>
+     * La autenticación se valida una sola vez, al conectar: para que la conexión no siga recibiendo datos con un
+     * token ya vencido, el timeout se limita a lo que le queda de vida al token (y a {@code timeoutMs}). Al
+     * cerrarse, el cliente renueva el token y reconecta.
+     * @param tokenExpiration expiración ({@code exp}) del token del request; null = solo {@code timeoutMs}
+     * @return emisor a devolver desde el controlador
+     * @throws DashboardStreamFullException si se alcanzó el máximo de conexiones
+     */
+    public SseEmitter subscribe(Date tokenExpiration) {
+        if (connections.size() >= maxConnections) {
+            throw new DashboardStreamFullException("Se alcanzó el máximo de conexiones al stream del dashboard (" + maxConnections + ")");
+        }
+        long timeout = timeoutMs;
+        if (tokenExpiration != null) {
+            timeout = Math.max(1L, Math.min(timeout, tokenExpiration.getTime() - System.currentTimeMillis()));
+        }
+        SseEmitter emitter = new SseEmitter(timeout);
+        Connection conn = new Connection(emitter, queueCapacity);
+        emitter.onCompletion(() -> connections.remove(conn));
+        emitter.onTimeout(() -> close(conn, null));
+        emitter.onError(e -> close(conn, null));
+        connections.add(conn);
+
+        List<ActivityDto> recent = activityService.getRecentActivities(INITIAL_ACTIVITIES);
+        if (lastActivityId == null) {
+            lastActivityId = recent.isEmpty() || recent.get(0).getId() == null ? 0L : recent.get(0).getId();
+            recent.stream().map(ActivityDto::getId).filter(id -> id != null).forEach(sentActivityIds::add);
+        }
+        enqueue(conn, event("stats", dashboardCounters.snapshot()));
+        enqueue(conn, event("activities", recent));
+        return emitter;
+    }
+
+    /** Marca el stream como pendiente de envío tras un cambio confirmado. */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDataChanged(DataChangedEvent event) {
+        dirty.set(true);
+    }
+
+    /**
+     * Arma los eventos de los cambios acumulados y los encola en todas las conexiones.
+     * Sin conexiones no consulta nada (la próxima conexión recibe el estado completo).
+     */
+    @Scheduled(fixedDelayString = "${app.dashboardStream.flushMs:1000}")
+    public synchronized void flush() {
+        if (connections.isEmpty()) {
+            dirty.set(false);
+            lastActivityId = null;
+            sentActivityIds.clear();
+            lastStats = null;
+            return;
+        }
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+        DashboardStatsDto stats = dashboardCounters.snapshot();
+        if (!sameStats(stats, lastStats)) {
+            lastStats = stats;
+            broadcast(event("stats", stats));
+        }
+        Long last = lastActivityId;
+        if (last != null) {
+            // La ventana debe ser menor que una página para que cada ciclo avance
+            int overlap = Math.max(0, Math.min(activityOverlap, ActivityService.MAX_FEED_SIZE - 1));
+            long from = Math.max(0L, last - overlap);
+            List<ActivityDto> read = activityService.getActivitiesAfter(from, ActivityService.MAX_FEED_SIZE);
+            long max = last;
+            for (ActivityDto a : read) {
+                if (sentActivityIds.add(a.getId())) {
+                    broadcast(event("activity", a));
+                }
+                max = Math.max(max, a.getId());
+            }
+            lastActivityId = max;
+            sentActivityIds.headSet(max - overlap, true).clear();
+            if (read.size() == ActivityService.MAX_FEED_SIZE) {
+                dirty.set(true); // quedan más: se envían en el próximo ciclo
+            }
+        }
+    }
+
+    /** Comentario SSE periódico y cierre de conexiones con envíos bloqueados. */
+    @Scheduled(fixedDelayString = "${app.dashboardStream.heartbeatMs:15000}")
+    public void heartbeat() {
+        long now = System.nanoTime();
+        Set<ResponseBodyEmitter.DataWithMediaType> ping = SseEmitter.event().comment("ping").build();
+        for (Connection c : connections) {
+            long started = c.sendingSince;
+            if (started != 0 && now - started > TimeUnit.MILLISECONDS.toNanos(stallMs)) {
+                evictedSlow.increment();
+                close(c, "envío bloqueado");
+            } else {
+                enqueue(c, ping);
+            }
+        }
+    }
+
+    /** Métricas del stream. */
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("connections", connections.size());
+        out.put("maxConnections", maxConnections);
+        out.put("queueCapacity", queueCapacity);
+        out.put("broadcasts", broadcasts.sum());
+        out.put("evictedSlowConsumers", evictedSlow.sum());
+        return out;
+    }
+
+    int connectionCount() {
+        return connections.size();
+    }
+
+    private void broadcast(Set<ResponseBodyEmitter.DataWithMediaType> event) {
+        broadcasts.increment();
+        for (Connection c : connections) {
+            enqueue(c, event);
+        }
+    }
+
+    private void enqueue(Connection c, Set<ResponseBodyEmitter.DataWithMediaType> event) {
+        if (c.closed) {
+            return;
+        }
+        if (!c.queue.offer(event)) {
+            evictedSlow.increment();
+            close(c, "cola llena");
+            return;
+        }
+        scheduleDrain(c);
+    }
+
+    private void scheduleDrain(Connection c) {
+        if (c.draining.compareAndSet(false, true)) {
+            sender.execute(() -> drain(c));
+        }
+    }
+
+    private void drain(Connection c) {
+        try {
+            Set<ResponseBodyEmitter.DataWithMediaType> next;
+            while (!c.closed && (next = c.queue.poll()) != null) {
+                c.sendingSince = System.nanoTime();
+                c.emitter.send(next);
+                c.sendingSince = 0;
+            }
+        } catch (IOException | IllegalStateException e) {
+            close(c, null); // cliente desconectado
+        } finally {
+            c.sendingSince = 0;
+            c.draining.set(false);
+        }
+        if (!c.closed && !c.queue.isEmpty()) {
+            scheduleDrain(c);
+        }
+    }
+
+    private void close(Connection c, String reason) {
+        c.closed = true;
+        c.queue.clear();
+        if (connections.remove(c) && reason != null) {
+            log.info("Conexión al stream del dashboard cerrada: {}", reason);
+        }
+        try {
+            c.emitter.complete();
+        } catch (IllegalStateException ignored) {
+            // ya completado
+        }
+    }
+
+    /** Serializa una sola vez; el mismo evento se comparte entre todas las conexiones. */
+    private Set<ResponseBodyEmitter.DataWithMediaType> event(String name, Object data) {
+        try {
+            return SseEmitter.event().name(name)
+                    .data(objectMapper.writeValueAsString(data), MediaType.APPLICATION_JSON)
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el evento " + name, e);
+        }
+    }
+
+    private static boolean sameStats(DashboardStatsDto a, DashboardStatsDto b) {
+        return b != null
+                && a.getActiveClients() == b.getActiveClients()
+                && a.getExpiredPayments() == b.getExpiredPayments()
+                && a.getExpiredMemberships() == b.getExpiredMemberships()
+                && a.getExpiringThisWeek() == b.getExpiringThisWeek()
+                && a.getRevenueThisMonth() == b.getRevenueThisMonth()
+                && a.getNewMembersThisWeek() == b.getNewMembersThisWeek();
+    }
+
+    /** Conexión SSE con su cola acotada de eventos pendientes. */
+    private static final class Connection {
+        final SseEmitter emitter;
+        final ArrayBlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> queue;
+        final AtomicBoolean draining = new AtomicBoolean(false);
+        volatile boolean closed;
+        /** Inicio del envío en curso (System.nanoTime), 0 si no hay envío. */
+        volatile long sendingSince;
+
+        Connection(SseEmitter emitter, int capacity) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+}
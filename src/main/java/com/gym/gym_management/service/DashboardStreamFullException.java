@@ -0,0 +1,14 @@
+package com.gym.gym_management.service;
+
+/**
+ * Excepción lanzada cuando el stream del dashboard ya tiene el máximo de conexiones abiertas
+ * ({@code app.dashboardStream.maxConnections}).
+ * <p>
+ * Se maneja globalmente devolviendo HTTP 503 (Service Unavailable) con {@code Retry-After}: la pantalla
+ * reintenta más tarde (o sigue con el sondeo de /api/dashboard/stats) en lugar de recibir un error 500.
+ */
+public class DashboardStreamFullException extends RuntimeException {
+    public DashboardStreamFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,187 @@
+package com.gym.gym_management.service;
+
+import com.gym.gym_management.controller.dto.ActivityDto;
+import com.gym.gym_management.controller.dto.DashboardStatsDto;
+import com.gym.gym_management.controller.dto.DashboardSummaryDto;
+import com.gym.gym_management.controller.dto.ExpiringClientDTO;
+import com.gym.gym_management.controller.dto.OverdueClientDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Arma el resumen del dashboard (contadores, actividades, próximos vencimientos y vencidos) en una sola llamada.
+ * <p>
+ * Las secciones son independientes: se calculan en paralelo sobre un pool acotado
+ * ({@code app.dashboardSummary.threads} hilos y una cola de {@code app.dashboardSummary.queueCapacity} tareas),
+ * cada una en su propio hilo y con su propia conexión a la base. Todas comparten un plazo de
+ * {@code app.dashboardSummary.sectionTimeoutMs} desde el inicio del pedido: una sección que no termina a tiempo,
+ * falla o no entra en el pool se devuelve en null y se informa en {@code failedSections}, sin hacer fallar
+ * el resto de la respuesta.
+ * <p>
+ * Cortar la espera no detiene la consulta: {@code CompletableFuture.cancel} no interrumpe el hilo y una
+ * consulta JDBC bloqueada tampoco respondería a una interrupción. Por eso las secciones que leen la base corren
+ * en una transacción de solo lectura con timeout igual al plazo restante (redondeado a segundos): la base aborta
+ * la consulta y el hilo y la conexión vuelven al pool en lugar de quedar ocupados por una respuesta ya descartada.
+ * <p>
+ * Los reportes pasan por {@link ReportCache} con las mismas claves que /api/reports, así el resumen y los
+ * reportes comparten resultados.
+ */
+@Service
+public class DashboardSummaryService {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardSummaryService.class);
+
+    /** Tamaño máximo de la primera página de cada reporte (protege contra pedidos desmedidos). */
+    public static final int MAX_REPORT_SIZE = 200;
+
+    @Autowired
+    private DashboardCounters dashboardCounters;
+
+    @Autowired
+    private ActivityService activityService;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private ReportCache reportCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.dashboardSummary.threads:4}")
+    private int threads = 4;
+
+    @Value("${app.dashboardSummary.queueCapacity:32}")
+    private int queueCapacity = 32;
+
+    @Value("${app.dashboardSummary.sectionTimeoutMs:2000}")
+    private long sectionTimeoutMs = 2000L;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void init() {
+        if (executor == null) {
+            AtomicInteger n = new AtomicInteger();
+            executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    r -> {
+                        Thread t = new Thread(r, "dashboard-summary-" + n.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    },
+                    new ThreadPoolExecutor.AbortPolicy());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Calcula el resumen del dashboard.
+     * @param activityLimit cantidad de actividades recientes
+     * @param expiringDays horizonte de próximos vencimientos (igual que /api/reports/expiring)
+     * @param reportSize filas de la primera página de cada reporte (como máximo {@link #MAX_REPORT_SIZE})
+     * @return resumen, posiblemente parcial
+     * @throws IllegalArgumentException si el horizonte o el tamaño de página están fuera de rango
+     */
+    public DashboardSummaryDto getSummary(int activityLimit, int expiringDays, int reportSize) {
+        if (expiringDays < 1 || expiringDays > ReportService.MAX_EXPIRING_DAYS) {
+            throw new IllegalArgumentException("El parámetro days debe estar entre 1 y " + ReportService.MAX_EXPIRING_DAYS);
+        }
+        if (reportSize < 1) {
+            throw new IllegalArgumentException("El parámetro reportSize debe ser mayor a 0");
+        }
+        int size = Math.min(reportSize, MAX_REPORT_SIZE);
+        PageRequest page = PageRequest.of(0, size);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sectionTimeoutMs);
+        Map<String, String> failed = new LinkedHashMap<>();
+
+        CompletableFuture<DashboardStatsDto> stats = submit("stats", failed, dashboardCounters::snapshot);
+        CompletableFuture<List<ActivityDto>> activities = submit("activities", failed,
+                () -> withQueryTimeout(deadline, () -> activityService.getRecentActivities(activityLimit)));
+        CompletableFuture<Page<ExpiringClientDTO>> expiring = submit("expiring", failed,
+                () -> reportCache.get(ReportCache.key("expiring", expiringDays, 0, size),
+                        () -> withQueryTimeout(deadline,
+                                () -> reportService.getClientsWithPaymentsExpiringSoon(expiringDays, page))));
+        CompletableFuture<Page<OverdueClientDTO>> overdue = submit("overdue", failed,
+                () -> reportCache.get(ReportCache.key("overdue", true, 0, size),
+                        () -> withQueryTimeout(deadline,
+                                () -> reportService.getClientsWithOverduePayments(true, page))));
+
+        DashboardStatsDto statsValue = await("stats", stats, deadline, failed);
+        List<ActivityDto> activitiesValue = await("activities", activities, deadline, failed);
+        Page<ExpiringClientDTO> expiringValue = await("expiring", expiring, deadline, failed);
+        Page<OverdueClientDTO> overdueValue = await("overdue", overdue, deadline, failed);
+
+        return new DashboardSummaryDto(statsValue, activitiesValue,
+                expiringValue != null ? expiringValue.getContent() : null,
+                expiringValue != null ? expiringValue.getTotalElements() : null,
+                overdueValue != null ? overdueValue.getContent() : null,
+                overdueValue != null ? overdueValue.getTotalElements() : null,
+                failed);
+    }
+
+    // Las consultas de la sección heredan el timeout de la transacción (Statement.setQueryTimeout)
+    private <T> T withQueryTimeout(long deadline, Supplier<T> query) {
+        long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        tx.setTimeout((int) Math.max(1L, (remainingMs + 999) / 1000));
+        return tx.execute(status -> query.get());
+    }
+
+    private <T> CompletableFuture<T> submit(String section, Map<String, String> failed, Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            failed.put(section, "busy");
+            return null;
+        }
+    }
+
+    private <T> T await(String section, CompletableFuture<T> future, long deadline, Map<String, String> failed) {
+        if (future == null) {
+            return null;
+        }
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            failed.put(section, "timeout");
+        } catch (ExecutionException e) {
+            log.warn("Falló la sección '{}' del resumen del dashboard", section, e.getCause());
+            failed.put(section, "error");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failed.put(section, "timeout");
+        }
+        return null;
+    }
+}
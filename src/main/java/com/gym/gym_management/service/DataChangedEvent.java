@@ -0,0 +1,96 @@
+package com.gym.gym_management.service;
+
+import com.gym.gym_management.model.PaymentState;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Evento de dominio publicado por los servicios de escritura cuando cambian pagos, clientes o recordatorios.
+ * <p>
+ * Se publica con {@link org.springframework.context.ApplicationEventPublisher} dentro de la transacción de la
+ * escritura; los consumidores que derivan datos de lectura ({@link ReportCache}, {@link DashboardCounters}) lo
+ * escuchan con {@code @TransactionalEventListener} para reaccionar solo cuando el cambio quedó confirmado.
+ * <p>
+ * Además del tipo lleva lo necesario para aplicar deltas sin volver a consultar la base: monto y fecha del pago
+ * con su estado (al registrarlo o antes de anularlo), o la fecha de alta del cliente.
+ */
+public class DataChangedEvent {
+
+    /** Tipo de cambio. */
+    public enum Kind {
+        PAYMENT_REGISTERED,
+        PAYMENT_VOIDED,
+        PAYMENTS_EXPIRED,
+        PAYMENTS_IMPORTED,
+        CLIENT_CREATED,
+        CLIENT_ACTIVATED,
+        CLIENT_DEACTIVATED,
+        /** Edición, pausa o reanudación (no cambia si el cliente está activo). */
+        CLIENT_CHANGED,
+        /** Reconstrucción de datos derivados (estado de membresía, rollups de recaudación). */
+        DERIVED_REBUILT,
+        /** Recordatorios de vencimiento registrados en notification_log. */
+        REMINDERS_SENT
+    }
+
+    private final Kind kind;
+    private final Long clientId;
+    private final Long paymentId;
+    private final long count;
+    private final Double amount;
+    private final LocalDate date;
+    private final PaymentState state;
+    private final LocalDateTime occurredAt;
+
+    public DataChangedEvent(Kind kind, Long clientId, Long paymentId, long count,
+                            Double amount, LocalDate date, PaymentState state) {
+        this.kind = kind;
+        this.clientId = clientId;
+        this.paymentId = paymentId;
+        this.count = count;
+        this.amount = amount;
+        this.date = date;
+        this.state = state;
+        this.occurredAt = LocalDateTime.now();
+    }
+
+    /** Alta de un pago con el estado con que se persistió. */
+    public static DataChangedEvent paymentRegistered(Long clientId, Long paymentId, Double amount,
+                                                     LocalDate paymentDate, PaymentState state) {
+        return new DataChangedEvent(Kind.PAYMENT_REGISTERED, clientId, paymentId, 1, amount, paymentDate, state);
+    }
+
+    /** Anulación de un pago con el estado que tenía antes de anularse. */
+    public static DataChangedEvent paymentVoided(Long clientId, Long paymentId, Double amount,
+                                                 LocalDate paymentDate, PaymentState previousState) {
+        return new DataChangedEvent(Kind.PAYMENT_VOIDED, clientId, paymentId, 1, amount, paymentDate, previousState);
+    }
+
+    /** Cambio sobre un cliente; {@code startDate} es su fecha de alta. */
+    public static DataChangedEvent client(Kind kind, Long clientId, LocalDate startDate) {
+        return new DataChangedEvent(kind, clientId, null, 1, null, startDate, null);
+    }
+
+    /** Cambio masivo (expiración, importación o reconstrucción) con la cantidad de filas afectadas. */
+    public static DataChangedEvent bulk(Kind kind, long count) {
+        return new DataChangedEvent(kind, null, null, count, null, null, null);
+    }
+
+    public Kind getKind() { return kind; }
+    public Long getClientId() { return clientId; }
+    public Long getPaymentId() { return paymentId; }
+    public long getCount() { return count; }
+    /** Monto del pago (solo eventos de pago individuales). */
+    public Double getAmount() { return amount; }
+    /** Fecha del pago o fecha de alta del cliente, según el tipo. */
+    public LocalDate getDate() { return date; }
+    /** Estado del pago al registrarlo o antes de anularlo. */
+    public PaymentState getState() { return state; }
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+
+    @Override
+    public String toString() {
+        return "DataChangedEvent{" + kind + ", clientId=" + clientId + ", paymentId=" + paymentId + ", count=" + count + "}";
+    }
+}
@@ -0,0 +1,85 @@
+package com.gym.gym_management.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versiones de datos por tabla, usadas para armar ETags sin consultar la base.
+ * <p>
+ * Cada {@link DataChangedEvent} confirmado incrementa el contador de las tablas que toca (pagos, clientes,
+ * recordatorios). Una ETag combina:
+ * <ul>
+ *     <li>el <b>epoch</b> del proceso (instante de arranque), para que un reinicio o otra instancia no repitan
+ *     ETags con datos distintos;</li>
+ *     <li>la <b>fecha del día</b>, porque los reportes dependen de hoy (vencidos, por vencer, semana y mes);</li>
+ *     <li>la versión de cada tabla de la que depende el recurso.</li>
+ * </ul>
+ * Como el contador sube después del commit y la ETag se arma antes de consultar, una respuesta nunca lleva una
+ * versión más nueva que sus datos. Los cambios hechos por fuera de la aplicación no se detectan (igual que en
+ * {@link ReportCache}); las reconstrucciones de mantenimiento incrementan todas las tablas.
+ */
+@Service
+public class DataVersionService {
+
+    /** Tablas (o grupos de tablas) con versión propia. */
+    public enum Table {
+        CLIENTS,
+        PAYMENTS,
+        /** notification_log: indicador de recordatorio enviado en los reportes. */
+        NOTIFICATIONS
+    }
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final Map<Table, AtomicLong> versions = new EnumMap<>(Table.class);
+
+    public DataVersionService() {
+        for (Table t : Table.values()) {
+            versions.put(t, new AtomicLong());
+        }
+    }
+
+    /** Versión actual de una tabla. */
+    public long version(Table table) {
+        return versions.get(table).get();
+    }
+
+    /** Incrementa la versión de las tablas indicadas. */
+    public void bump(Table... tables) {
+        for (Table t : tables) {
+            versions.get(t).incrementAndGet();
+        }
+    }
+
+    /**
+     * ETag (entre comillas, lista para el header) de un recurso que depende de las tablas indicadas y del día.
+     * @param tables tablas que lee el recurso
+     * @return ETag fuerte
+     */
+    public String etag(Table... tables) {
+        StringBuilder sb = new StringBuilder("\"").append(epoch).append('-').append(LocalDate.now());
+        for (Table t : tables) {
+            sb.append('-').append(Character.toLowerCase(t.name().charAt(0))).append(version(t));
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Incrementa las versiones afectadas por un cambio confirmado.
+     * @param event cambio publicado por el servicio de escritura
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDataChanged(DataChangedEvent event) {
+        switch (event.getKind()) {
+            case PAYMENT_REGISTERED, PAYMENT_VOIDED, PAYMENTS_EXPIRED, PAYMENTS_IMPORTED -> bump(Table.PAYMENTS);
+            case CLIENT_CREATED, CLIENT_ACTIVATED, CLIENT_DEACTIVATED, CLIENT_CHANGED -> bump(Table.CLIENTS);
+            case REMINDERS_SENT -> bump(Table.NOTIFICATIONS);
+            case DERIVED_REBUILT -> bump(Table.values());
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.gym.gym_management.service;
+
+import com.gym.gym_management.model.ExpirationRun;
+import com.gym.gym_management.model.PaymentState;
+import com.gym.gym_management.repository.IExpirationRunRepository;
+import com.gym.gym_management.repository.IPaymentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Expiración de pagos por lotes con checkpoint (alternativa a {@link PaymentService#expireOverduePayments()}
+ * para tablas grandes).
+ * <p>
+ * El bulk update único bloquea todas las filas vencidas a la vez y genera el WAL en una sola ráfaga. Aquí se
+ * expiran lotes de {@code app.expirationJob.batchSize} pagos en orden de id, cada uno en su propia transacción
+ * corta, y el checkpoint ({@link ExpirationRun#getLastPaymentId()}) se guarda en la misma transacción del lote.
+ * <p>
+ * Reanudación: si el proceso se cae a mitad de una corrida, queda en RUNNING; si falla, en FAILED. La siguiente
+ * ejecución retoma esa corrida desde el checkpoint con su fecha de corte original y, si esa fecha ya quedó atrás,
+ * a continuación inicia una corrida nueva para hoy. Cada reanudación cuenta como un intento: si una corrida falla
+ * {@code app.expirationJob.maxAttempts} veces (por ejemplo, por una fila que viola una restricción) queda ABANDONED
+ * y deja de retomarse, así un error persistente no impide procesar las fechas de corte siguientes.
+ * <p>
+ * Al terminar los pagos se marcan EXPIRED las membresías de {@code client_membership_status} con un único
+ * UPDATE: esa tabla tiene una fila por cliente, no crece con el historial.
+ */
+@Service
+public class ExpirationRunService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpirationRunService.class);
+
+    private static final EnumSet<ExpirationRun.Status> UNFINISHED =
+            EnumSet.of(ExpirationRun.Status.RUNNING, ExpirationRun.Status.FAILED);
+
+    @Autowired
+    private IPaymentRepository paymentRepository;
+
+    @Autowired
+    private IExpirationRunRepository runRepository;
+
+    @Autowired
+    private MembershipStatusService membershipStatusService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.expirationJob.batchSize:1000}")
+    private int batchSize;
+
+    @Value("${app.expirationJob.maxAttempts:3}")
+    private int maxAttempts = 3;
+
+    /** Evita dos corridas simultáneas en la misma instancia (job programado y disparo manual). */
+    private final AtomicBoolean inProgress = new AtomicBoolean(false);
+
+    /**
+     * Ejecuta (o retoma) la expiración por lotes.
+     * @return la corrida de hoy con sus estadísticas
+     * @throws IllegalStateException si ya hay una corrida en curso en esta instancia
+     */
+    public ExpirationRun runChunked() {
+        if (!inProgress.compareAndSet(false, true)) {
+            throw new IllegalStateException("Ya hay una corrida de expiración en curso");
+        }
+        try {
+            LocalDate today = LocalDate.now();
+            ExpirationRun pending = runRepository.findFirstByStatusInOrderByIdAsc(UNFINISHED).orElse(null);
+            if (pending != null) {
+                ExpirationRun resumed = execute(resume(pending));
+                if (!resumed.getCutoffDate().isBefore(today)) {
+                    return resumed;
+                }
+            }
+            ExpirationRun run = transactionTemplate.execute(s -> runRepository.save(new ExpirationRun(today, batchSize)));
+            return execute(run);
+        } finally {
+            inProgress.set(false);
+        }
+    }
+
+    /**
+     * Últimas corridas registradas (más recientes primero).
+     * @return hasta 50 corridas
+     */
+    public List<ExpirationRun> recentRuns() {
+        return runRepository.findTop50ByOrderByIdDesc();
+    }
+
+    private ExpirationRun resume(ExpirationRun run) {
+        run.setStatus(ExpirationRun.Status.RUNNING);
+        run.setResumes(run.getResumes() + 1);
+        run.setErrorMessage(null);
+        return transactionTemplate.execute(s -> runRepository.save(run));
+    }
+
+    private ExpirationRun execute(ExpirationRun run) {
+        Long runId = run.getId();
+        LocalDate cutoff = run.getCutoffDate();
+        try {
+            boolean more = true;
+            while (more) {
+                more = Boolean.TRUE.equals(transactionTemplate.execute(s -> applyBatch(runId, cutoff)));
+            }
+            transactionTemplate.executeWithoutResult(s -> membershipStatusService.expireOverdue(cutoff));
+            ExpirationRun done = finish(runId, ExpirationRun.Status.COMPLETED, null);
+            eventPublisher.publishEvent(DataChangedEvent.bulk(DataChangedEvent.Kind.PAYMENTS_EXPIRED,
+                    (int) Math.min(Integer.MAX_VALUE, done.getRowsUpdated())));
+            return done;
+        } catch (RuntimeException e) {
+            // El primer intento más cada reanudación
+            int attempts = run.getResumes() + 1;
+            if (attempts >= maxAttempts) {
+                log.error("Corrida de expiración {} (corte {}) abandonada tras {} intentos", runId, cutoff, attempts, e);
+                finish(runId, ExpirationRun.Status.ABANDONED, e.getMessage());
+            } else {
+                log.warn("Corrida de expiración {} (corte {}) falló en el intento {} de {}: {}",
+                        runId, cutoff, attempts, maxAttempts, e.getMessage());
+                finish(runId, ExpirationRun.Status.FAILED, e.getMessage());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Un lote: lee los siguientes ids desde el checkpoint, los expira y avanza el checkpoint (misma transacción).
+     * @return true si se procesó un lote, false si no quedan pagos por expirar
+     */
+    private boolean applyBatch(Long runId, LocalDate cutoff) {
+        long start = System.currentTimeMillis();
+        ExpirationRun run = runRepository.findById(runId).orElseThrow();
+        List<Long> ids = paymentRepository.findExpirableIdsAfter(cutoff, run.getLastPaymentId(),
+                PaymentState.UP_TO_DATE, PageRequest.ofSize(run.getBatchSize()));
+        if (ids.isEmpty()) {
+            return false;
+        }
+        int updated = paymentRepository.expireByIds(ids, cutoff, PaymentState.UP_TO_DATE, PaymentState.EXPIRED);
+        run.recordBatch(ids.get(ids.size() - 1), updated, System.currentTimeMillis() - start);
+        runRepository.save(run);
+        return true;
+    }
+
+    private ExpirationRun finish(Long runId, ExpirationRun.Status status, String error) {
+        return transactionTemplate.execute(s -> {
+            ExpirationRun run = runRepository.findById(runId).orElseThrow();
+            run.setStatus(status);
+            run.setFinishedAt(LocalDateTime.now());
+            run.setErrorMessage(error != null && error.length() > 500 ? error.substring(0, 500) : error);
+            return runRepository.save(run);
+        });
+    }
+}
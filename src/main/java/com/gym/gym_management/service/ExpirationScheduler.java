@@ -0,0 +1,287 @@
+package com.gym.gym_management.service;
+
+import com.gym.gym_management.model.PaymentState;
+import com.gym.gym_management.repository.ClientExpirationView;
+import com.gym.gym_management.repository.IPaymentRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Planificador en memoria de vencimientos de pagos.
+ * <p>
+ * Mantiene una agenda {@code expirationDate -> ids de pagos UP_TO_DATE} para los próximos
+ * {@code app.expirationScheduler.horizonDays} días. Un pago vence cuando su expirationDate queda en el pasado,
+ * es decir a la medianoche siguiente: a esa hora un hilo dedicado pasa a EXPIRED los pagos de la agenda en lotes
+ * de {@code app.expirationScheduler.batchSize} (una transacción corta por lote) y actualiza las membresías.
+ * <p>
+ * Mantenimiento de la agenda:
+ * <ul>
+ *     <li>Al arrancar: se expira lo atrasado (corrida por lotes de {@link ExpirationRunService}) y se carga el horizonte.</li>
+ *     <li>{@link PaymentService#registerPayment} agrega el pago; {@link PaymentService#voidPayment} lo quita.</li>
+ *     <li>Cada medianoche se extiende el horizonte un día; la importación masiva recarga la agenda completa.</li>
+ *     <li>La base se lee fuera del lock para no frenar los registros de pagos. Las altas y bajas que llegan
+ *     mientras tanto se anotan y se vuelven a aplicar sobre lo leído, así no se pierden al reemplazar la agenda.</li>
+ * </ul>
+ * Con esto {@code payment_state} persistido es confiable y las lecturas filtran por igualdad de estado, sin
+ * comparar fechas. El job nocturno {@code PaymentExpirationJob} queda como reconciliación por si algún cambio no
+ * pasó por la agenda (por ejemplo, una anulación cuya transacción se revirtió). Expirar por id repite las
+ * condiciones del bulk update, así que un pago anulado o inexistente en la agenda no se modifica.
+ */
+@Service
+public class ExpirationScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpirationScheduler.class);
+
+    @Autowired
+    private IPaymentRepository paymentRepository;
+
+    @Autowired
+    private ExpirationRunService expirationRunService;
+
+    @Autowired
+    private MembershipStatusService membershipStatusService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.expirationScheduler.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.expirationScheduler.horizonDays:40}")
+    private int horizonDays;
+
+    @Value("${app.expirationScheduler.batchSize:200}")
+    private int batchSize;
+
+    /** Agenda: expirationDate -> pagos que vencen al terminar ese día. Acceso sincronizado sobre {@code this}. */
+    private final NavigableMap<LocalDate, Set<Long>> agenda = new TreeMap<>();
+
+    /** Índice inverso para quitar un pago sin conocer su fecha. */
+    private final Map<Long, LocalDate> tracked = new HashMap<>();
+
+    /** Último día cargado en la agenda (inclusive). Pagos que vencen después se cargan al extender el horizonte. */
+    private LocalDate loadedUntil;
+
+    /** Lecturas de la base en curso (recarga o extensión del horizonte). */
+    private int loadsInProgress;
+
+    /** Últimas altas y bajas por pago (null = baja) ocurridas durante una lectura; vacío si no hay lecturas en curso. */
+    private final Map<Long, LocalDate> changesDuringLoad = new HashMap<>();
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "expiration-scheduler");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Al arrancar: pone al día los pagos atrasados, carga la agenda y programa el próximo vencimiento.
+     * Corre en el hilo del planificador para no demorar el inicio de la aplicación.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) return;
+        executor.execute(() -> {
+            try {
+                expirationRunService.runChunked();
+            } catch (IllegalStateException e) {
+                // Ya hay una corrida en curso (job nocturno): la agenda igual se carga
+            }
+            reload();
+            scheduleNextTick();
+        });
+    }
+
+    /**
+     * Registra un pago recién creado. Si vence fuera del horizonte cargado se tomará al extenderlo.
+     * @param paymentId id del pago
+     * @param expirationDate fecha de expiración
+     */
+    public synchronized void track(Long paymentId, LocalDate expirationDate) {
+        if (!enabled) return;
+        recordChange(paymentId, expirationDate);
+        if (loadedUntil == null || expirationDate.isAfter(loadedUntil)) return;
+        remove(paymentId);
+        add(paymentId, expirationDate);
+    }
+
+    /**
+     * Quita un pago de la agenda (anulación).
+     * @param paymentId id del pago
+     */
+    public synchronized void untrack(Long paymentId) {
+        recordChange(paymentId, null);
+        remove(paymentId);
+    }
+
+    /**
+     * Recarga la agenda completa desde la base (arranque e importaciones masivas).
+     */
+    public void reload() {
+        if (!enabled) return;
+        LocalDate today = LocalDate.now();
+        LocalDate until = today.plusDays(horizonDays);
+        beginLoad();
+        try {
+            List<ClientExpirationView> rows = paymentRepository.findPendingExpirations(today, until, PaymentState.UP_TO_DATE);
+            synchronized (this) {
+                agenda.clear();
+                tracked.clear();
+                loadedUntil = until;
+                addAll(rows);
+                replayChanges();
+            }
+        } finally {
+            endLoad();
+        }
+    }
+
+    /**
+     * Cantidad de pagos en la agenda.
+     * @return pagos pendientes de vencer dentro del horizonte
+     */
+    public synchronized int trackedCount() {
+        return tracked.size();
+    }
+
+    /**
+     * Vence los pagos de la agenda cuya fecha ya pasó y extiende el horizonte. Lo invoca el hilo del planificador
+     * a cada medianoche; visibilidad de paquete para tests.
+     * @return pagos marcados EXPIRED
+     */
+    int expireDue() {
+        LocalDate today = LocalDate.now();
+        List<Long> due = new ArrayList<>();
+        synchronized (this) {
+            NavigableMap<LocalDate, Set<Long>> past = agenda.headMap(today, false);
+            for (Set<Long> ids : past.values()) {
+                for (Long id : ids) {
+                    due.add(id);
+                    tracked.remove(id);
+                }
+            }
+            past.clear();
+        }
+        int updated = 0;
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<Long> batch = due.subList(from, Math.min(from + batchSize, due.size()));
+            Integer n = transactionTemplate.execute(s ->
+                    paymentRepository.expireByIds(batch, today, PaymentState.UP_TO_DATE, PaymentState.EXPIRED));
+            updated += n != null ? n : 0;
+        }
+        transactionTemplate.executeWithoutResult(s -> membershipStatusService.expireOverdue(today));
+        eventPublisher.publishEvent(DataChangedEvent.bulk(DataChangedEvent.Kind.PAYMENTS_EXPIRED, updated));
+        extendHorizon(today.plusDays(horizonDays));
+        return updated;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void extendHorizon(LocalDate until) {
+        LocalDate from;
+        synchronized (this) {
+            if (loadedUntil == null || !until.isAfter(loadedUntil)) return;
+            from = loadedUntil.plusDays(1);
+            loadsInProgress++;
+        }
+        try {
+            List<ClientExpirationView> rows = paymentRepository.findPendingExpirations(from, until, PaymentState.UP_TO_DATE);
+            synchronized (this) {
+                addAll(rows);
+                if (until.isAfter(loadedUntil)) loadedUntil = until;
+                replayChanges();
+            }
+        } finally {
+            endLoad();
+        }
+    }
+
+    private synchronized void beginLoad() {
+        loadsInProgress++;
+    }
+
+    private synchronized void endLoad() {
+        if (--loadsInProgress == 0) changesDuringLoad.clear();
+    }
+
+    private void recordChange(Long paymentId, LocalDate expirationDate) {
+        if (loadsInProgress > 0) changesDuringLoad.put(paymentId, expirationDate);
+    }
+
+    /** Aplica sobre lo leído las altas y bajas llegadas durante la lectura (la última de cada pago). */
+    private void replayChanges() {
+        changesDuringLoad.forEach((id, date) -> {
+            remove(id);
+            if (date != null && !date.isAfter(loadedUntil)) add(id, date);
+        });
+    }
+
+    private void addAll(List<ClientExpirationView> rows) {
+        for (ClientExpirationView row : rows) {
+            remove(row.getPaymentId());
+            add(row.getPaymentId(), row.getExpirationDate());
+        }
+    }
+
+    private void add(Long paymentId, LocalDate expirationDate) {
+        agenda.computeIfAbsent(expirationDate, d -> new HashSet<>()).add(paymentId);
+        tracked.put(paymentId, expirationDate);
+    }
+
+    private void remove(Long paymentId) {
+        LocalDate date = tracked.remove(paymentId);
+        if (date == null) return;
+        Set<Long> ids = agenda.get(date);
+        if (ids != null) {
+            ids.remove(paymentId);
+            if (ids.isEmpty()) agenda.remove(date);
+        }
+    }
+
+    /** Programa la próxima ejecución a la medianoche siguiente (momento en que vencen los pagos de hoy). */
+    private void scheduleNextTick() {
+        LocalDateTime now = LocalDateTime.now();
+        long delayMs = Duration.between(now, now.toLocalDate().plusDays(1).atStartOfDay()).toMillis() + 1000;
+        executor.schedule(() -> {
+            try {
+                int updated = expireDue();
+                if (updated > 0) {
+                    logger.info("Pagos marcados como EXPIRED: {}", updated);
+                }
+            } catch (RuntimeException e) {
+                logger.error("Error al expirar pagos (se reintenta en el próximo ciclo)", e);
+            } finally {
+                scheduleNextTick();
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+}
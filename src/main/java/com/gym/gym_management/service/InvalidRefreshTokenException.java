@@ -0,0 +1,12 @@
+package com.gym.gym_management.service;
+
+/**
+ * Excepción lanzada cuando un refresh token no existe, expiró, fue revocado o ya se había usado.
+ * <p>
+ * Se maneja globalmente devolviendo HTTP 401 (Unauthorized): el cliente debe volver a iniciar sesión.
+ */
+public class InvalidRefreshTokenException extends RuntimeException {
+    public InvalidRefreshTokenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,229 @@
+package com.gym.gym_management.service;
+
+import com.gym.gym_management.model.ClientMembershipStatus;
+import com.gym.gym_management.model.Payment;
+import com.gym.gym_management.model.PaymentState;
+import com.gym.gym_management.repository.ClientExpirationView;
+import com.gym.gym_management.repository.IClientMembershipStatusRepository;
+import com.gym.gym_management.repository.IClientRepository;
+import com.gym.gym_management.repository.IPaymentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mantiene la tabla {@code client_membership_status}: una fila por cliente con su último pago válido,
+ * la fecha de expiración efectiva y el estado (UP_TO_DATE / EXPIRED).
+ * <p>
+ * Responsabilidades:
+ * <ul>
+ *     <li><b>Mantenimiento en escritura</b>: los servicios de pagos y clientes invocan estos métodos dentro de su
+ *     propia transacción (propagación REQUIRED), por lo que la fila queda consistente con el pago o cliente escrito.</li>
+ *     <li><b>Expiración diaria</b>: el job marca EXPIRED las membresías vencidas junto con los pagos.</li>
+ *     <li><b>Lecturas</b>: estado de uno o varios clientes por clave primaria, sin agregaciones sobre payments.</li>
+ *     <li><b>Reparación</b>: {@link #rebuild()} recalcula la tabla completa desde payments por lotes.</li>
+ * </ul>
+ * El estado de lectura se deriva siempre de {@code expirationDate} contra hoy, así una membresía que vence
+ * entre la medianoche y la corrida del job ya se informa como EXPIRED.
+ */
+@Service
+public class MembershipStatusService {
+
+    private static final Logger log = LoggerFactory.getLogger(MembershipStatusService.class);
+
+    /** Cantidad de clientes procesados por consulta durante la reconstrucción. */
+    static final int REBUILD_CHUNK_SIZE = 500;
+
+    @Autowired
+    private IClientMembershipStatusRepository statusRepository;
+
+    @Autowired
+    private IPaymentRepository paymentRepository;
+
+    @Autowired
+    private IClientRepository clientRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Crea la fila de un cliente recién dado de alta (sin pagos => EXPIRED).
+     * @param clientId id del cliente
+     */
+    @Transactional
+    public void initialize(Long clientId) {
+        if (statusRepository.existsById(clientId)) return;
+        statusRepository.save(new ClientMembershipStatus(clientId));
+    }
+
+    /**
+     * Actualiza la fila tras registrar un pago. Solo cambia si el nuevo pago extiende (o iguala) la expiración
+     * vigente, por lo que no hace falta consultar payments.
+     * @param payment pago recién persistido (con id, cliente y expirationDate)
+     */
+    @Transactional
+    public void onPaymentRegistered(Payment payment) {
+        Long clientId = payment.getClient().getId();
+        ClientMembershipStatus status = statusRepository.findById(clientId)
+                .orElseGet(() -> new ClientMembershipStatus(clientId));
+        LocalDate current = status.getExpirationDate();
+        if (current == null || !payment.getExpirationDate().isBefore(current)) {
+            status.apply(payment.getId(), payment.getExpirationDate(), LocalDate.now());
+            statusRepository.save(status);
+        }
+    }
+
+    /**
+     * Actualiza la fila tras anular un pago. Si el pago anulado era el que definía la membresía se recalcula
+     * desde el siguiente pago válido; en otro caso la fila no cambia.
+     * @param payment pago anulado
+     */
+    @Transactional
+    public void onPaymentVoided(Payment payment) {
+        Long clientId = payment.getClient().getId();
+        ClientMembershipStatus status = statusRepository.findById(clientId).orElse(null);
+        if (status == null || payment.getId().equals(status.getLastPaymentId())) {
+            refresh(clientId);
+        }
+    }
+
+    /**
+     * Recalcula la fila de un cliente a partir de su último pago válido.
+     * @param clientId id del cliente
+     */
+    @Transactional
+    public void refresh(Long clientId) {
+        ClientMembershipStatus status = statusRepository.findById(clientId)
+                .orElseGet(() -> new ClientMembershipStatus(clientId));
+        Payment last = paymentRepository.findTopByClient_IdAndVoidedFalseOrderByExpirationDateDesc(clientId);
+        status.apply(last != null ? last.getId() : null, last != null ? last.getExpirationDate() : null, LocalDate.now());
+        statusRepository.save(status);
+    }
+
+    /**
+     * Versión por lotes de {@link #refresh(Long)} (importación masiva): una consulta de últimos pagos válidos
+     * y una lectura de filas existentes para todo el conjunto.
+     * @param clientIds ids de clientes afectados
+     */
+    @Transactional
+    public void refreshAll(Collection<Long> clientIds) {
+        if (clientIds == null || clientIds.isEmpty()) return;
+        LocalDate today = LocalDate.now();
+        Map<Long, ClientExpirationView> lastByClient = lastValidPayments(clientIds);
+        Map<Long, ClientMembershipStatus> existing = new HashMap<>();
+        for (ClientMembershipStatus s : statusRepository.findAllById(clientIds)) {
+            existing.put(s.getClientId(), s);
+        }
+        List<ClientMembershipStatus> rows = new ArrayList<>(clientIds.size());
+        for (Long clientId : clientIds) {
+            ClientMembershipStatus status = existing.getOrDefault(clientId, new ClientMembershipStatus(clientId));
+            ClientExpirationView last = lastByClient.get(clientId);
+            status.apply(last != null ? last.getPaymentId() : null, last != null ? last.getExpirationDate() : null, today);
+            rows.add(status);
+        }
+        statusRepository.saveAll(rows);
+    }
+
+    /**
+     * Marca EXPIRED las membresías UP_TO_DATE con expiración anterior a {@code today}. Idempotente.
+     * @param today fecha de referencia
+     * @return filas actualizadas
+     */
+    @Transactional
+    public int expireOverdue(LocalDate today) {
+        return statusRepository.bulkExpire(today, LocalDateTime.now(), PaymentState.UP_TO_DATE, PaymentState.EXPIRED);
+    }
+
+    /**
+     * Reconstruye la tabla completa desde payments (comando de reparación).
+     * Procesa los clientes por lotes de {@link #REBUILD_CHUNK_SIZE}: una consulta de últimos pagos por lote.
+     * @return cantidad de filas escritas (una por cliente)
+     */
+    @Transactional
+    public int rebuild() {
+        statusRepository.deleteAllInBatch();
+        LocalDate today = LocalDate.now();
+        List<Long> clientIds = clientRepository.findAllIds();
+        for (int from = 0; from < clientIds.size(); from += REBUILD_CHUNK_SIZE) {
+            List<Long> chunk = clientIds.subList(from, Math.min(from + REBUILD_CHUNK_SIZE, clientIds.size()));
+            Map<Long, ClientExpirationView> lastByClient = lastValidPayments(chunk);
+            List<ClientMembershipStatus> rows = new ArrayList<>(chunk.size());
+            for (Long clientId : chunk) {
+                ClientMembershipStatus status = new ClientMembershipStatus(clientId);
+                ClientExpirationView last = lastByClient.get(clientId);
+                if (last != null) {
+                    status.apply(last.getPaymentId(), last.getExpirationDate(), today);
+                }
+                rows.add(status);
+            }
+            statusRepository.saveAll(rows);
+            statusRepository.flush();
+        }
+        eventPublisher.publishEvent(DataChangedEvent.bulk(DataChangedEvent.Kind.DERIVED_REBUILT, clientIds.size()));
+        return clientIds.size();
+    }
+
+    /**
+     * Al arrancar, reconstruye la tabla si no tiene una fila por cliente (por ejemplo, base nueva cargada con
+     * data.sql, que inserta pagos sin pasar por los servicios).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildIfOutOfSync() {
+        long clients = clientRepository.count();
+        if (statusRepository.count() != clients) {
+            int rows = rebuild();
+            log.info("Estado de membresía reconstruido para {} clientes", rows);
+        }
+    }
+
+    /**
+     * Estado actual de la membresía de un cliente (lectura por clave primaria).
+     * Sin fila o sin pagos válidos => EXPIRED.
+     * @param clientId id de cliente
+     * @return UP_TO_DATE o EXPIRED
+     */
+    @Transactional(readOnly = true)
+    public PaymentState currentState(Long clientId) {
+        LocalDate today = LocalDate.now();
+        return statusRepository.findById(clientId)
+                .map(s -> stateOf(s, today))
+                .orElse(PaymentState.EXPIRED);
+    }
+
+    /**
+     * Cantidad de clientes activos con membresía vencida (incluye clientes sin pagos válidos).
+     * @return cantidad
+     */
+    @Transactional(readOnly = true)
+    public long countActiveWithExpiredMembership() {
+        return statusRepository.countActiveWithExpiredMembership(LocalDate.now());
+    }
+
+    private Map<Long, ClientExpirationView> lastValidPayments(Collection<Long> clientIds) {
+        Map<Long, ClientExpirationView> lastByClient = new HashMap<>();
+        for (ClientExpirationView row : paymentRepository.findLastValidPaymentsByClientIds(clientIds)) {
+            // Empate en expiración: se queda el pago más reciente (mayor id)
+            lastByClient.merge(row.getClientId(), row, (a, b) -> a.getPaymentId() >= b.getPaymentId() ? a : b);
+        }
+        return lastByClient;
+    }
+
+    private PaymentState stateOf(ClientMembershipStatus status, LocalDate today) {
+        LocalDate exp = status.getExpirationDate();
+        return (exp == null || exp.isBefore(today)) ? PaymentState.EXPIRED : PaymentState.UP_TO_DATE;
+    }
+}
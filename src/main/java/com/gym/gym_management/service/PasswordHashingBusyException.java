@@ -0,0 +1,13 @@
+package com.gym.gym_management.service;
+
+/**
+ * Excepción lanzada cuando el pool de hashing de contraseñas está saturado (cola llena o espera agotada).
+ * <p>
+ * Se maneja globalmente devolviendo HTTP 503 (Service Unavailable) con {@code Retry-After}: ante una ola de
+ * logins se rechaza rápido en lugar de ocupar los hilos del servidor que atienden el resto de las pantallas.
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
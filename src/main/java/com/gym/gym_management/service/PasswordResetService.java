@@ -3,6 +3,7 @@ package com.gym.gym_management.service;
 import com.gym.gym_management.model.User;
 import com.gym.gym_management.repository.IUserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -28,6 +29,7 @@ public class PasswordResetService {
     private final IUserRepository userRepository;
     private final EmailService emailService;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
 
     // Almacena tokens de recuperación con timestamp de expiración (en una implementación real debería estar en base de datos)
     private final Map<String, PasswordResetToken> resetTokens = new HashMap<>();
@@ -37,10 +39,12 @@ public class PasswordResetService {
     @Autowired
     public PasswordResetService(IUserRepository userRepository,
                                 EmailService emailService,
-                                PasswordEncoder passwordEncoder) {
+                                PasswordEncoder passwordEncoder,
+                                ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.emailService = emailService;
         this.passwordEncoder = passwordEncoder;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -117,6 +121,8 @@ public class PasswordResetService {
         User user = userOpt.get();
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserCredentialsChangedEvent(user.getEmail(),
+                UserCredentialsChangedEvent.Reason.PASSWORD_CHANGED));
 
         // Invalidar el token después de usarlo
         resetTokens.remove(token);
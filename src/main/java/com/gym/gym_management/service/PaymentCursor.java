@@ -0,0 +1,62 @@
+package com.gym.gym_management.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Cursor opaco para la paginación por clave (keyset) del listado de pagos.
+ * <p>
+ * Representa la posición del último pago devuelto en una página, usando el par
+ * (paymentDate, id) que coincide con el orden del listado (paymentDate DESC, id DESC).
+ * Se expone al cliente codificado en Base64 URL-safe para que no dependa de su formato interno.
+ * <p>
+ * Ventaja frente a OFFSET: la página siguiente se obtiene con un predicado
+ * {@code (paymentDate, id) < (cursorDate, cursorId)} que usa el índice, por lo que
+ * pedir la página 1 o la página 10.000 cuesta lo mismo.
+ */
+public final class PaymentCursor {
+
+    private final LocalDate paymentDate;
+    private final Long id;
+
+    private PaymentCursor(LocalDate paymentDate, Long id) {
+        this.paymentDate = paymentDate;
+        this.id = id;
+    }
+
+    /**
+     * Codifica la posición de un pago como token opaco.
+     * @param paymentDate fecha de pago del último elemento de la página
+     * @param id id del último elemento de la página (desempate)
+     * @return token Base64 URL-safe sin padding
+     */
+    public static String encode(LocalDate paymentDate, Long id) {
+        String raw = paymentDate + "," + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un token recibido en el parámetro {@code after}.
+     * @param token token opaco generado por {@link #encode(LocalDate, Long)}
+     * @return cursor con fecha e id
+     * @throws IllegalArgumentException si el token fue alterado o no tiene el formato esperado
+     */
+    public static PaymentCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(",");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Cursor de paginación inválido");
+            }
+            return new PaymentCursor(LocalDate.parse(parts[0]), Long.valueOf(parts[1]));
+        } catch (DateTimeParseException | IllegalArgumentException ex) { // NumberFormatException es IllegalArgumentException
+            throw new IllegalArgumentException("Cursor de paginación inválido");
+        }
+    }
+
+    public LocalDate getPaymentDate() { return paymentDate; }
+
+    public Long getId() { return id; }
+}
@@ -0,0 +1,245 @@
+package com.gym.gym_management.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gym.gym_management.controller.dto.CashflowRowDTO;
+import com.gym.gym_management.controller.dto.OverdueClientDTO;
+import com.gym.gym_management.controller.dto.PaymentDTO;
+import com.gym.gym_management.model.Payment;
+import com.gym.gym_management.model.PaymentState;
+import com.gym.gym_management.repository.IPaymentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Exportación en streaming de pagos y flujo de caja (CSV o NDJSON).
+ * <p>
+ * Las filas se leen con un cursor de solo avance (fetch size configurable con {@code app.export.fetchSize})
+ * proyectadas a DTO y se escriben directamente en la respuesta: ni la lista completa ni las entidades quedan en
+ * memoria, así que exportar un año entero cuesta lo mismo en heap que exportar un día.
+ * <p>
+ * Los métodos son transaccionales de solo lectura porque PostgreSQL solo respeta el fetch size (cursor del lado
+ * del servidor) con autocommit desactivado. Se invocan desde el hilo del {@code StreamingResponseBody}, fuera del
+ * hilo del request, por lo que la transacción se abre ahí mismo.
+ * <p>
+ * Las variantes con {@link Progress} las usan los trabajos de reportes ({@link ReportJobService}) para informar
+ * el avance y cortar una exportación cancelada.
+ */
+@Service
+public class PaymentExportService {
+
+    /** Formatos de salida soportados. */
+    public enum Format { CSV, NDJSON }
+
+    /** Orden cronológico estable para exportaciones. */
+    private static final Sort EXPORT_SORT = Sort.by(Sort.Order.asc("paymentDate"), Sort.Order.asc("id"));
+
+    private static final String PAYMENTS_CSV_HEADER =
+            "id,clientId,clientFirstName,clientLastName,clientEmail,amount,method,month,year," +
+            "paymentDate,expirationDate,durationDays,state,voided,voidReason";
+
+    private static final String CASHFLOW_CSV_HEADER = "date,method,payments,total";
+
+    private static final String OVERDUE_CSV_HEADER =
+            "id,firstName,lastName,email,active,expirationDate,daysOverdue,reminderSent";
+
+    /** Cada cuántas filas se informa el avance. */
+    private static final int PROGRESS_EVERY = 500;
+
+    /** Avance de una exportación: total esperado (si se conoce) y filas escritas. */
+    public interface Progress {
+        Progress NONE = written -> {};
+
+        default void total(long rows) {}
+
+        /**
+         * Filas escritas hasta el momento.
+         * @throws java.util.concurrent.CancellationException para cortar la exportación
+         */
+        void written(long rows);
+    }
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private IPaymentRepository paymentRepository;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.export.fetchSize:1000}")
+    private int fetchSize;
+
+    /**
+     * Escribe los pagos que cumplen los mismos filtros que {@link PaymentService#findPayments}.
+     * @param clientId id del cliente (opcional)
+     * @param queryText texto de búsqueda por nombre, apellido o email (opcional)
+     * @param from fecha mínima inclusive (opcional)
+     * @param to fecha máxima inclusive (opcional)
+     * @param state estado (opcional)
+     * @param format formato de salida
+     * @param out destino (no se cierra)
+     * @return cantidad de filas escritas
+     */
+    @Transactional(readOnly = true)
+    public long exportPayments(Long clientId, String queryText, LocalDate from, LocalDate to, PaymentState state,
+                               Format format, OutputStream out) throws IOException {
+        return exportPayments(clientId, queryText, from, to, state, format, out, Progress.NONE);
+    }
+
+    /** Igual que {@link #exportPayments(Long, String, LocalDate, LocalDate, PaymentState, Format, OutputStream)} informando el avance. */
+    @Transactional(readOnly = true)
+    public long exportPayments(Long clientId, String queryText, LocalDate from, LocalDate to, PaymentState state,
+                               Format format, OutputStream out, Progress progress) throws IOException {
+        Specification<Payment> spec = paymentService.buildFilterSpec(clientId, queryText, from, to, state);
+        try (Stream<PaymentDTO> rows = paymentRepository.streamPaymentViews(spec, EXPORT_SORT, fetchSize)) {
+            return write(rows.iterator(), format, PAYMENTS_CSV_HEADER, this::toCsv, out, progress);
+        }
+    }
+
+    /**
+     * Escribe el flujo de caja diario por método de pago (pagos no anulados) con los mismos filtros del listado.
+     * @param clientId id del cliente (opcional)
+     * @param queryText texto de búsqueda (opcional)
+     * @param from fecha mínima inclusive
+     * @param to fecha máxima inclusive
+     * @param format formato de salida
+     * @param out destino (no se cierra)
+     * @return cantidad de filas escritas
+     */
+    @Transactional(readOnly = true)
+    public long exportCashflow(Long clientId, String queryText, LocalDate from, LocalDate to,
+                               Format format, OutputStream out) throws IOException {
+        return exportCashflow(clientId, queryText, from, to, format, out, Progress.NONE);
+    }
+
+    /** Igual que {@link #exportCashflow(Long, String, LocalDate, LocalDate, Format, OutputStream)} informando el avance. */
+    @Transactional(readOnly = true)
+    public long exportCashflow(Long clientId, String queryText, LocalDate from, LocalDate to,
+                               Format format, OutputStream out, Progress progress) throws IOException {
+        Specification<Payment> spec = paymentService.buildFilterSpec(clientId, queryText, from, to, null)
+                .and((root, query, cb) -> cb.isFalse(root.get("voided")));
+        try (Stream<CashflowRowDTO> rows = paymentRepository.streamDailyCashflow(spec, fetchSize)) {
+            return write(rows.iterator(), format, CASHFLOW_CSV_HEADER, this::toCsv, out, progress);
+        }
+    }
+
+    /**
+     * Escribe la lista completa de clientes con su último pago válido vencido (mismo contenido que
+     * /api/reports/overdue, mayor atraso primero). Se recorre por páginas de {@code app.export.fetchSize} dentro
+     * de una transacción REPEATABLE READ, así todas las páginas ven la misma foto de los datos.
+     * @param format formato de salida
+     * @param out destino (no se cierra)
+     * @param progress avance (el total se informa con la primera página)
+     * @return cantidad de filas escritas
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public long exportOverdue(Format format, OutputStream out, Progress progress) throws IOException {
+        Page<OverdueClientDTO> first = reportService.getClientsWithOverduePayments(true, PageRequest.of(0, fetchSize));
+        progress.total(first.getTotalElements());
+        Iterator<OverdueClientDTO> rows = new Iterator<>() {
+            private Page<OverdueClientDTO> page = first;
+            private Iterator<OverdueClientDTO> current = first.iterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && page.hasNext()) {
+                    page = reportService.getClientsWithOverduePayments(true, page.nextPageable());
+                    current = page.iterator();
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public OverdueClientDTO next() {
+                hasNext();
+                return current.next();
+            }
+        };
+        return write(rows, format, OVERDUE_CSV_HEADER, this::toCsv, out, progress);
+    }
+
+    private <T> long write(Iterator<T> it, Format format, String csvHeader, CsvLine<T> csv, OutputStream out,
+                           Progress progress) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        long count = 0;
+        if (format == Format.CSV) {
+            writer.write(csvHeader);
+            writer.write('\n');
+        }
+        while (it.hasNext()) {
+            T row = it.next();
+            writer.write(format == Format.CSV ? csv.toLine(row) : objectMapper.writeValueAsString(row));
+            writer.write('\n');
+            if (++count % PROGRESS_EVERY == 0) {
+                progress.written(count);
+            }
+        }
+        writer.flush();
+        progress.written(count);
+        return count;
+    }
+
+    private String toCsv(PaymentDTO p) {
+        return String.join(",",
+                str(p.getId()), str(p.getClientId()), escape(p.getClientFirstName()), escape(p.getClientLastName()),
+                escape(p.getClientEmail()), str(p.getAmount()), str(p.getMethod()), str(p.getMonth()), str(p.getYear()),
+                str(p.getPaymentDate()), str(p.getExpirationDate()), str(p.getDurationDays()), str(p.getState()),
+                String.valueOf(p.isVoided()), escape(p.getVoidReason()));
+    }
+
+    private String toCsv(CashflowRowDTO r) {
+        return String.join(",", str(r.getDate()), str(r.getMethod()), String.valueOf(r.getPayments()), String.valueOf(r.getTotal()));
+    }
+
+    private String toCsv(OverdueClientDTO c) {
+        return String.join(",", str(c.getId()), escape(c.getFirstName()), escape(c.getLastName()), escape(c.getEmail()),
+                String.valueOf(c.isActive()), str(c.getExpirationDate()), String.valueOf(c.getDaysOverdue()),
+                String.valueOf(c.isReminderSent()));
+    }
+
+    private static String str(Object value) {
+        return value == null ? "" : value.toString();
+    }
+
+    /**
+     * Escapa texto libre según RFC 4180 (comillas si contiene coma, comillas o saltos de línea).
+     * Además neutraliza la inyección de fórmulas: un valor que empieza con {@code = + - @}, tabulación o retorno
+     * de carro se prefija con {@code '} para que la planilla lo muestre como texto y no lo evalúe.
+     */
+    private static String escape(String value) {
+        if (value == null) return "";
+        if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+
+    @FunctionalInterface
+    private interface CsvLine<T> {
+        String toLine(T row);
+    }
+}
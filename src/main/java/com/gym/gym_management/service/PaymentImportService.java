@@ -0,0 +1,354 @@
+package com.gym.gym_management.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gym.gym_management.controller.dto.PaymentDTO;
+import com.gym.gym_management.controller.dto.PaymentImportResultDTO;
+import com.gym.gym_management.model.Client;
+import com.gym.gym_management.model.Payment;
+import com.gym.gym_management.model.PaymentMethod;
+import com.gym.gym_management.model.PaymentState;
+import com.gym.gym_management.repository.ClientActiveView;
+import com.gym.gym_management.repository.IClientRepository;
+import com.gym.gym_management.repository.IPaymentRepository;
+import com.gym.gym_management.repository.PaymentJdbcRepository;
+import com.gym.gym_management.repository.PaymentPeriodView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Importación masiva de pagos históricos (migración de sucursales) desde CSV o NDJSON.
+ * <p>
+ * Flujo:
+ * <ol>
+ *   <li>Lee el archivo en streaming, línea por línea, sin cargarlo completo en memoria.</li>
+ *   <li>Acumula tandas de {@link #CHUNK_SIZE} filas; cada tanda se procesa en su propia transacción.</li>
+ *   <li>Valida cada fila con las mismas reglas que el alta individual ({@code validateRegisterInput},
+ *   fecha no futura, cálculo de expiración).</li>
+ *   <li>Resuelve existencia/estado de clientes y períodos ya pagados con una consulta por tanda (no por fila).</li>
+ *   <li>Inserta los pagos válidos con lotes JDBC y actualiza el estado de membresía de los clientes afectados.
+ *   Las filas que el índice único descarta (período cargado en paralelo) se informan como duplicadas.</li>
+ *   <li>Registra una única entrada de auditoría para toda la importación.</li>
+ * </ol>
+ * Las tandas ya confirmadas no se revierten si una tanda posterior falla por un error de base de datos:
+ * reimportar el mismo archivo es seguro porque los períodos ya cargados se rechazan como duplicados.
+ */
+@Service
+public class PaymentImportService {
+
+    /** Filas por tanda (una transacción, dos consultas de validación y un lote de inserción por tanda). */
+    static final int CHUNK_SIZE = 1000;
+
+    /** Formatos de entrada soportados. */
+    public enum Format { CSV, NDJSON }
+
+    private static final String DUPLICATE_MESSAGE = "Ya existe un pago válido para ese período";
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private IClientRepository clientRepository;
+
+    @Autowired
+    private IPaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentJdbcRepository paymentJdbcRepository;
+
+    @Autowired
+    private MembershipStatusService membershipStatusService;
+
+    @Autowired
+    private AuditService auditService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ExpirationScheduler expirationScheduler;
+
+    @Autowired
+    private ActivityService activityService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
+    /**
+     * Importa pagos desde un flujo de entrada.
+     * <p>
+     * CSV: primera línea con cabecera; columnas obligatorias {@code clientId, amount, method, month, year} y
+     * opcionales {@code paymentDate} (ISO yyyy-MM-dd) y {@code durationDays}, en cualquier orden.
+     * NDJSON: un objeto JSON por línea con los mismos nombres de campo que {@link PaymentDTO}.
+     * @param in contenido del archivo (UTF-8)
+     * @param format formato de entrada
+     * @return resumen con errores por fila
+     * @throws IllegalArgumentException si la cabecera CSV es inválida o el archivo está vacío
+     * @throws IOException si falla la lectura del flujo
+     */
+    public PaymentImportResultDTO importPayments(InputStream in, Format format) throws IOException {
+        PaymentImportResultDTO result = new PaymentImportResultDTO();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Map<String, Integer> header = null;
+        List<ImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) continue;
+            if (format == Format.CSV && header == null) {
+                header = parseHeader(line);
+                continue;
+            }
+            result.setTotalRows(result.getTotalRows() + 1);
+            try {
+                PaymentDTO dto = format == Format.CSV ? parseCsvRow(line, header) : parseJsonRow(line);
+                chunk.add(new ImportRow(lineNumber, dto));
+            } catch (IllegalArgumentException ex) {
+                result.reject(lineNumber, ex.getMessage());
+            }
+            if (chunk.size() == CHUNK_SIZE) {
+                processChunk(chunk, result);
+                chunk.clear();
+            }
+        }
+        if (format == Format.CSV && header == null) {
+            throw new IllegalArgumentException("El archivo está vacío");
+        }
+        if (!chunk.isEmpty()) {
+            processChunk(chunk, result);
+        }
+        auditService.logPaymentImport(result.getImported(), result.getRejected());
+        if (result.getImported() > 0) {
+            activityService.recordPaymentsImported(result.getImported(), result.getRejected());
+            // Los ids generados por el INSERT por lotes no se conocen: se recarga la agenda de vencimientos
+            expirationScheduler.reload();
+            eventPublisher.publishEvent(DataChangedEvent.bulk(DataChangedEvent.Kind.PAYMENTS_IMPORTED, result.getImported()));
+        }
+        return result;
+    }
+
+    // ===================== Procesamiento por tandas =====================
+
+    private void processChunk(List<ImportRow> chunk, PaymentImportResultDTO result) {
+        Integer inserted = transactionTemplate.execute(status -> insertValidRows(chunk, result));
+        result.setImported(result.getImported() + (inserted != null ? inserted : 0));
+    }
+
+    /**
+     * Valida una tanda y la inserta. Se ejecuta dentro de la transacción de la tanda.
+     * @return cantidad de pagos insertados
+     */
+    private int insertValidRows(List<ImportRow> chunk, PaymentImportResultDTO result) {
+        LocalDate today = LocalDate.now();
+        List<ImportRow> valid = new ArrayList<>(chunk.size());
+        Set<Long> clientIds = new HashSet<>();
+        Set<Integer> years = new HashSet<>();
+        for (ImportRow row : chunk) {
+            try {
+                validateAndNormalize(row, today);
+                valid.add(row);
+                clientIds.add(row.dto.getClientId());
+                years.add(row.dto.getYear());
+            } catch (IllegalArgumentException ex) {
+                result.reject(row.line, ex.getMessage());
+            }
+        }
+        if (valid.isEmpty()) return 0;
+
+        Map<Long, Boolean> activeByClient = new HashMap<>();
+        for (ClientActiveView c : clientRepository.findActiveFlagsByIds(clientIds)) {
+            activeByClient.put(c.getId(), Boolean.TRUE.equals(c.getActive()));
+        }
+        Set<String> takenPeriods = new HashSet<>();
+        for (PaymentPeriodView p : paymentRepository.findValidPeriods(clientIds, years)) {
+            takenPeriods.add(periodKey(p.getClientId(), p.getMonth(), p.getYear()));
+        }
+
+        List<Payment> toInsert = new ArrayList<>(valid.size());
+        List<Long> toInsertLines = new ArrayList<>(valid.size());
+        for (ImportRow row : valid) {
+            PaymentDTO dto = row.dto;
+            Boolean active = activeByClient.get(dto.getClientId());
+            if (active == null) {
+                result.reject(row.line, "Cliente no encontrado");
+            } else if (!active) {
+                result.reject(row.line, "El cliente está inactivo");
+            } else if (!takenPeriods.add(periodKey(dto.getClientId(), dto.getMonth(), dto.getYear()))) {
+                // add() devuelve false si el período ya existía en la base o más arriba en el archivo
+                result.reject(row.line, DUPLICATE_MESSAGE);
+            } else {
+                toInsert.add(toPayment(dto, today));
+                toInsertLines.add(row.line);
+            }
+        }
+        int[] counts = paymentJdbcRepository.batchInsert(toInsert);
+        List<Payment> inserted = new ArrayList<>(toInsert.size());
+        Set<Long> affectedClients = new LinkedHashSet<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                // El índice único descartó la fila: otro alta confirmó el período después de la consulta de la tanda
+                result.reject(toInsertLines.get(i), DUPLICATE_MESSAGE);
+            } else {
+                Payment payment = toInsert.get(i);
+                inserted.add(payment);
+                affectedClients.add(payment.getClient().getId());
+            }
+        }
+        membershipStatusService.refreshAll(affectedClients);
+        revenueRollupService.onPaymentsImported(inserted);
+        return inserted.size();
+    }
+
+    /** Mismas reglas que el alta individual: entrada válida, fecha de pago no futura y expiración calculable. */
+    private void validateAndNormalize(ImportRow row, LocalDate today) {
+        PaymentDTO dto = row.dto;
+        if (dto.getClientId() == null) {
+            throw new IllegalArgumentException("El ID del cliente es obligatorio");
+        }
+        paymentService.validateRegisterInput(dto);
+        LocalDate payDate = dto.getPaymentDate() != null ? dto.getPaymentDate() : today;
+        if (payDate.isAfter(today)) {
+            throw new IllegalArgumentException("La fecha de pago no puede ser futura");
+        }
+        dto.setPaymentDate(payDate);
+        dto.setExpirationDate(paymentService.computeExpiration(payDate, dto.getDurationDays()));
+    }
+
+    private Payment toPayment(PaymentDTO dto, LocalDate today) {
+        Client client = new Client();
+        client.setId(dto.getClientId());
+        Payment payment = new Payment();
+        payment.setClient(client);
+        payment.setAmount(dto.getAmount());
+        payment.setMethod(dto.getMethod());
+        payment.setMonth(dto.getMonth());
+        payment.setYear(dto.getYear());
+        payment.setPaymentDate(dto.getPaymentDate());
+        payment.setExpirationDate(dto.getExpirationDate());
+        payment.setDurationDays(dto.getDurationDays());
+        // Los pagos históricos ya vencidos se guardan EXPIRED directamente (lo mismo que haría el job)
+        payment.setState(dto.getExpirationDate().isBefore(today) ? PaymentState.EXPIRED : PaymentState.UP_TO_DATE);
+        return payment;
+    }
+
+    private static String periodKey(Long clientId, Integer month, Integer year) {
+        return clientId + ":" + month + ":" + year;
+    }
+
+    // ===================== Parsing =====================
+
+    private Map<String, Integer> parseHeader(String line) {
+        String[] cols = splitCsv(line.replace("\uFEFF", "")); // BOM de archivos exportados desde Excel
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < cols.length; i++) {
+            header.put(cols[i].toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("clientid", "amount", "method", "month", "year")) {
+            if (!header.containsKey(required)) {
+                throw new IllegalArgumentException("Falta la columna obligatoria '" + required + "' en la cabecera CSV");
+            }
+        }
+        return header;
+    }
+
+    private PaymentDTO parseCsvRow(String line, Map<String, Integer> header) {
+        String[] cols = splitCsv(line);
+        PaymentDTO dto = new PaymentDTO();
+        String clientId = column(cols, header, "clientid");
+        String amount = column(cols, header, "amount");
+        String method = column(cols, header, "method");
+        String month = column(cols, header, "month");
+        String year = column(cols, header, "year");
+        String paymentDate = column(cols, header, "paymentdate");
+        String durationDays = column(cols, header, "durationdays");
+        try {
+            dto.setClientId(clientId != null ? Long.valueOf(clientId) : null);
+            dto.setAmount(amount != null ? Double.valueOf(amount) : null);
+            dto.setMonth(month != null ? Integer.valueOf(month) : null);
+            dto.setYear(year != null ? Integer.valueOf(year) : null);
+            dto.setDurationDays(durationDays != null ? Integer.valueOf(durationDays) : null);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Valor numérico inválido");
+        }
+        if (method != null) {
+            try {
+                dto.setMethod(PaymentMethod.valueOf(method.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Método de pago inválido: " + method);
+            }
+        }
+        if (paymentDate != null) {
+            try {
+                dto.setPaymentDate(LocalDate.parse(paymentDate));
+            } catch (DateTimeParseException ex) {
+                throw new IllegalArgumentException("Fecha de pago inválida: " + paymentDate);
+            }
+        }
+        return dto;
+    }
+
+    private PaymentDTO parseJsonRow(String line) {
+        try {
+            return objectMapper.readValue(line, PaymentDTO.class);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("JSON inválido");
+        }
+    }
+
+    /** Valor de una columna (null si la columna no existe en la cabecera o viene vacía). */
+    private static String column(String[] cols, Map<String, Integer> header, String name) {
+        Integer idx = header.get(name);
+        if (idx == null || idx >= cols.length) return null;
+        String value = cols[idx];
+        return value.isEmpty() ? null : value;
+    }
+
+    /** Separa por coma y quita espacios y comillas envolventes (los campos del formato no contienen comas). */
+    private static String[] splitCsv(String line) {
+        String[] parts = line.split(",", -1);
+        for (int i = 0; i < parts.length; i++) {
+            String p = parts[i].trim();
+            if (p.length() >= 2 && p.startsWith("\"") && p.endsWith("\"")) {
+                p = p.substring(1, p.length() - 1).trim();
+            }
+            parts[i] = p;
+        }
+        return parts;
+    }
+
+    /** Fila leída del archivo con su número de línea (para el reporte de errores). */
+    private static final class ImportRow {
+        private final long line;
+        private final PaymentDTO dto;
+
+        private ImportRow(long line, PaymentDTO dto) {
+            this.line = line;
+            this.dto = dto;
+        }
+    }
+}
@@ -1,14 +1,17 @@
 package com.gym.gym_management.service;
 
 import com.gym.gym_management.controller.dto.PaymentDTO;
+import com.gym.gym_management.controller.dto.PaymentSliceDTO;
 import com.gym.gym_management.model.*;
 import com.gym.gym_management.repository.IPaymentRepository;
 import com.gym.gym_management.repository.IClientRepository;
 import com.gym.gym_management.repository.IUserRepository;
-import jakarta.persistence.criteria.JoinType;
+import com.gym.gym_management.repository.PaymentJdbcRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -28,9 +31,9 @@ import java.util.Optional;
  * <ul>
  *     <li><b>Registro de pagos</b>: con validaciones de negocio e idempotencia (cliente + mes + año únicos mientras no esté anulado).</li>
  *     <li><b>Cálculo de vencimiento</b>: mensual por defecto o personalizado por días (durationDays).</li>
- *     <li><b>Persistencia de estado</b>: se guardan estados {@code UP_TO_DATE}, {@code EXPIRED}, {@code VOIDED}. El estado EXPIRED se materializa mediante un job diario (bulk update) apenas la fecha de expiración queda en el pasado.</li>
+ *     <li><b>Persistencia de estado</b>: se guardan estados {@code UP_TO_DATE}, {@code EXPIRED}, {@code VOIDED}. El estado EXPIRED lo materializa {@link ExpirationScheduler} a la medianoche en que la fecha de expiración queda en el pasado (el job diario reconcilia); las lecturas usan el estado persistido sin corregirlo por fecha.</li>
  *     <li><b>Anulación (void)</b>: marca lógica que preserva trazabilidad y evita borrar registros históricos.</li>
- *     <li><b>Consultas filtradas</b>: soporte de paginado y filtros por cliente, fechas y estado.</li>
+ *     <li><b>Consultas filtradas</b>: soporte de paginado (offset o cursor keyset) y filtros por cliente, fechas y estado.</li>
  *     <li><b>Recordatorios</b>: obtención de pagos próximos a vencer (para disparar emails).</li>
  *     <li><b>Expiración masiva</b>: transición automática UP_TO_DATE -> EXPIRED cuando expiran (job llama {@link #expireOverduePayments()}).</li>
  * </ul>
@@ -43,6 +46,12 @@ import java.util.Optional;
 @Service
 public class PaymentService {
 
+    /** Tamaño máximo de página permitido en modo cursor (protege contra pedidos desmedidos). */
+    public static final int MAX_KEYSET_PAGE_SIZE = 200;
+
+    /** Orden total del modo cursor: debe coincidir con el predicado keyset (paymentDate, id). */
+    private static final Sort KEYSET_SORT = Sort.by(Sort.Order.desc("paymentDate"), Sort.Order.desc("id"));
+
     @Autowired
     private IPaymentRepository paymentRepository;
 
@@ -55,33 +64,50 @@ public class PaymentService {
     @Autowired
     private AuditService auditService;
 
+    @Autowired
+    private MembershipStatusService membershipStatusService;
+
+    @Autowired
+    private PaymentJdbcRepository paymentJdbcRepository;
+
+    @Autowired
+    private ExpirationScheduler expirationScheduler;
+
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
+    @Autowired
+    private ActivityService activityService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Registra un nuevo pago validando reglas de negocio e impidiendo duplicados para el mismo período.
      * Flujo:
      * <ol>
      *   <li>Validar monto, método, mes y año.</li>
      *   <li>Verificar existencia y estado (activo) del cliente.</li>
-     *   <li>Verificar idempotencia (no existe otro pago no anulado para cliente+mes+año).</li>
      *   <li>Normalizar fecha de pago (por defecto hoy) y validar que no sea futura.</li>
      *   <li>Calcular fecha de expiración (mensual o por días personalizados).</li>
-     *   <li>Persistir con estado {@code UP_TO_DATE}.</li>
-     *   <li>Auditar creación.</li>
+     *   <li>Persistir con {@link PaymentJdbcRepository#insertIfPeriodFree}. La idempotencia (un pago no anulado por
+     *   cliente+mes+año) la garantiza el índice único parcial de la base, también ante envíos concurrentes.</li>
+     *   <li>Auditar, actualizar el estado de membresía, registrar el evento en el feed de actividad y sumar el
+     *   pago a los rollups de recaudación (misma transacción).</li>
      * </ol>
      * @param dto datos del pago (cliente, monto, método, período, duración opcional)
      * @return pago creado en formato DTO
      * @throws IllegalArgumentException datos inválidos (monto <= 0, fecha futura, cliente inexistente, mes/año fuera de rango)
      * @throws IllegalStateException reglas de negocio incumplidas (cliente inactivo, pago duplicado)
      */
+    @Transactional
     public PaymentDTO registerPayment(PaymentDTO dto) {
         validateRegisterInput(dto);
-        var client = clientRepository.findById(dto.getClientId())
+        Client client = clientRepository.findById(dto.getClientId())
                 .orElseThrow(() -> new IllegalArgumentException("Cliente no encontrado"));
         if (!client.isActive()) {
             throw new IllegalStateException("El cliente está inactivo");
         }
-        if (paymentRepository.existsByClient_IdAndMonthAndYearAndVoidedFalse(dto.getClientId(), dto.getMonth(), dto.getYear())) {
-            throw new IllegalStateException("Ya existe un pago válido para ese período");
-        }
         LocalDate payDate = dto.getPaymentDate() != null ? dto.getPaymentDate() : LocalDate.now();
         if (dto.getPaymentDate() != null && payDate.isAfter(LocalDate.now())) {
             throw new IllegalArgumentException("La fecha de pago no puede ser futura");
@@ -89,16 +115,24 @@ public class PaymentService {
         LocalDate expiration = computeExpiration(payDate, dto.getDurationDays());
         Payment payment = fromDTO(dto);
         payment.setClient(client);
-        payment.setState(PaymentState.UP_TO_DATE);
+        // Un pago cargado con fecha pasada puede nacer vencido: se persiste EXPIRED (las lecturas confían en el estado)
+        PaymentState state = expiration.isBefore(LocalDate.now()) ? PaymentState.EXPIRED : PaymentState.UP_TO_DATE;
+        payment.setState(state);
         payment.setPaymentDate(payDate);
         payment.setExpirationDate(expiration);
         payment.setDurationDays(dto.getDurationDays());
-        Payment saved = paymentRepository.save(payment);
-        auditService.logPaymentCreation(saved);
-        PaymentDTO out = toDTO(saved);
-        out.setExpirationDate(expiration);
-        out.setState(PaymentState.UP_TO_DATE);
-        return out;
+        Long id = paymentJdbcRepository.insertIfPeriodFree(payment)
+                .orElseThrow(() -> new IllegalStateException("Ya existe un pago válido para ese período"));
+        payment.setId(id);
+        auditService.logPaymentCreation(payment);
+        membershipStatusService.onPaymentRegistered(payment);
+        activityService.recordPaymentReceived(payment);
+        revenueRollupService.onPaymentRegistered(payment);
+        if (state == PaymentState.UP_TO_DATE) {
+            expirationScheduler.track(id, expiration);
+        }
+        eventPublisher.publishEvent(DataChangedEvent.paymentRegistered(client.getId(), id, payment.getAmount(), payDate, state));
+        return toDTO(payment);
     }
 
     /**
@@ -118,7 +152,8 @@ public class PaymentService {
      *   <li>Si viene from agrega predicate: paymentDate >= :from.</li>
      *   <li>Si viene to agrega predicate: paymentDate <= :to.</li>
      *   <li>Si viene state agrega predicate: paymentState = :state.</li>
-     *   <li>Ejecuta findAll(spec, pageable) y mapea a DTO.</li>
+     *   <li>Ejecuta la proyección {@code findPaymentViews(spec, pageable)}: selecciona directo en PaymentDTO
+     *   (sin hidratar entidades ni fetch join) con el estado persistido.</li>
      * </ol>
      * @param clientId id del cliente (opcional)
      * @param queryText texto de búsqueda para nombre, apellido o email del cliente (opcional)
@@ -128,55 +163,58 @@ public class PaymentService {
      * @param pageable paginación y orden
      * @return página de pagos en formato DTO
      */
+    @Transactional(readOnly = true)
     public Page<PaymentDTO> findPayments(Long clientId, String queryText, LocalDate from, LocalDate to, PaymentState state, Pageable pageable) {
-        Specification<Payment> spec = Specification.where((root, query, cb) -> {
-            // fetch join para evitar N+1 cuando luego accedemos a client.* en toDTO
-            root.fetch("client", JoinType.LEFT);
-            query.distinct(true);
-            return cb.conjunction();
-        });
-        if (clientId != null) {
-            spec = spec.and((root, query, cb) -> cb.equal(root.get("client").get("id"), clientId));
-        }
-        if (queryText != null && !queryText.isBlank()) {
-            String pattern = "%" + queryText.trim().toLowerCase() + "%";
-            spec = spec.and((root, query, cb) -> {
-                var client = root.get("client");
-                return cb.or(
-                        cb.like(cb.lower(client.get("firstName")), pattern),
-                        cb.like(cb.lower(client.get("lastName")), pattern),
-                        cb.like(cb.lower(client.get("email")), pattern)
-                );
-            });
-        }
-        if (from != null) {
-            spec = spec.and((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("paymentDate"), from));
-        }
-        if (to != null) {
-            spec = spec.and((root, query, cb) -> cb.lessThanOrEqualTo(root.get("paymentDate"), to));
+        Specification<Payment> spec = buildFilterSpec(clientId, queryText, from, to, state);
+        return paymentRepository.findPaymentViews(spec, pageable);
+    }
+
+    /**
+     * Recupera pagos en modo cursor (keyset) aplicando los mismos filtros que {@link #findPayments}.
+     * <p>
+     * En lugar de OFFSET + COUNT, usa el par (paymentDate, id) del último elemento de la página anterior:
+     * <ol>
+     *   <li>Si viene {@code after}, se decodifica y se agrega el predicado
+     *   {@code paymentDate < d OR (paymentDate = d AND id < id)}.</li>
+     *   <li>Se ordena siempre por paymentDate DESC, id DESC (orden total y estable, usa el índice (payment_date, id)).</li>
+     *   <li>Se piden {@code size + 1} filas: si llega la fila extra existe página siguiente (sin COUNT).</li>
+     *   <li>Se genera {@code nextCursor} a partir del último elemento devuelto.</li>
+     * </ol>
+     * Así una página profunda cuesta lo mismo que la primera.
+     * @param clientId id del cliente (opcional)
+     * @param queryText texto de búsqueda para nombre, apellido o email del cliente (opcional)
+     * @param from fecha mínima inclusive (opcional)
+     * @param to fecha máxima inclusive (opcional)
+     * @param state estado (opcional)
+     * @param after cursor opaco recibido de la página anterior; null o vacío = primera página
+     * @param size tamaño de página (1..MAX_KEYSET_PAGE_SIZE)
+     * @return porción de pagos con indicador de página siguiente y su cursor
+     * @throws IllegalArgumentException si el cursor es inválido
+     */
+    @Transactional(readOnly = true)
+    public PaymentSliceDTO findPaymentsAfter(Long clientId, String queryText, LocalDate from, LocalDate to,
+                                             PaymentState state, String after, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_KEYSET_PAGE_SIZE));
+        Specification<Payment> spec = buildFilterSpec(clientId, queryText, from, to, state);
+        if (after != null && !after.isBlank()) {
+            PaymentCursor cursor = PaymentCursor.decode(after.trim());
+            spec = spec.and((root, query, cb) -> cb.or(
+                    cb.lessThan(root.get("paymentDate"), cursor.getPaymentDate()),
+                    cb.and(
+                            cb.equal(root.get("paymentDate"), cursor.getPaymentDate()),
+                            cb.lessThan(root.get("id"), cursor.getId())
+                    )
+            ));
         }
-        if (state != null) {
-            LocalDate today = LocalDate.now();
-            if (state == PaymentState.EXPIRED) {
-                spec = spec.and((root, query, cb) -> cb.or(
-                        cb.equal(root.get("paymentState"), PaymentState.EXPIRED),
-                        cb.and(
-                                cb.equal(root.get("paymentState"), PaymentState.UP_TO_DATE),
-                                cb.lessThan(root.get("expirationDate"), today)
-                        )
-                ));
-            } else if (state == PaymentState.UP_TO_DATE) {
-                spec = spec.and((root, query, cb) -> cb.and(
-                        cb.equal(root.get("paymentState"), PaymentState.UP_TO_DATE),
-                        cb.greaterThanOrEqualTo(root.get("expirationDate"), today)
-                ));
-            } else if (state == PaymentState.VOIDED) {
-                spec = spec.and((root, query, cb) -> cb.equal(root.get("paymentState"), PaymentState.VOIDED));
-            } else {
-                spec = spec.and((root, query, cb) -> cb.equal(root.get("paymentState"), state));
-            }
+        List<PaymentDTO> rows = paymentRepository.findPaymentViews(spec, KEYSET_SORT, pageSize + 1);
+        boolean hasNext = rows.size() > pageSize;
+        List<PaymentDTO> content = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            PaymentDTO last = content.get(content.size() - 1);
+            nextCursor = PaymentCursor.encode(last.getPaymentDate(), last.getId());
         }
-        return paymentRepository.findAll(spec, pageable).map(this::toDTO);
+        return new PaymentSliceDTO(content, pageSize, hasNext, nextCursor);
     }
 
     /**
@@ -190,12 +228,14 @@ public class PaymentService {
 
     /**
      * Anula (void) un pago vigente agregando trazabilidad (usuario administrador y motivo) y cambiando su estado a VOIDED.
+     * Si era el pago que definía la membresía del cliente, el estado materializado se recalcula en la misma transacción.
      * @param id id del pago
      * @param reason motivo textual provisto por el usuario
      * @return DTO actualizado
      * @throws IllegalArgumentException si no existe
      * @throws IllegalStateException si ya estaba anulado
      */
+    @Transactional
     public PaymentDTO voidPayment(Long id, String reason) {
         Payment payment = paymentRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Pago no encontrado"));
@@ -208,6 +248,7 @@ public class PaymentService {
             String email = auth.getName();
             adminId = userRepository.findByEmail(email).map(User::getId).orElse(null);
         }
+        PaymentState previousState = payment.getState();
         payment.setVoided(true);
         payment.setState(PaymentState.VOIDED);
         payment.setVoidedAt(LocalDateTime.now());
@@ -216,6 +257,12 @@ public class PaymentService {
 
         Payment saved = paymentRepository.save(payment);
         auditService.logPaymentVoid(saved, reason);
+        activityService.recordPaymentVoided(saved, reason);
+        membershipStatusService.onPaymentVoided(saved);
+        expirationScheduler.untrack(saved.getId());
+        revenueRollupService.onPaymentVoided(saved);
+        eventPublisher.publishEvent(DataChangedEvent.paymentVoided(saved.getClient().getId(), saved.getId(),
+                saved.getAmount(), saved.getPaymentDate(), previousState));
         return toDTO(saved);
     }
 
@@ -253,13 +300,18 @@ public class PaymentService {
     /**
      * Marca en lote como EXPIRED todos los pagos UP_TO_DATE vencidos (expirationDate < hoy, voided = false).
      * Idempotente: ejecutarlo varias veces en el mismo día luego de la primera actualización devolverá 0.
+     * En la misma transacción marca EXPIRED las membresías materializadas que vencieron.
      * <p>
      * Justificación: persiste el estado para reportes, integraciones (ej. control de acceso físico) y consultas eficientes por índice.
      * @return número de filas actualizadas
      */
     @Transactional
     public int expireOverduePayments() {
-        return paymentRepository.bulkExpire(LocalDate.now(), PaymentState.UP_TO_DATE, PaymentState.EXPIRED);
+        LocalDate today = LocalDate.now();
+        int updated = paymentRepository.bulkExpire(today, PaymentState.UP_TO_DATE, PaymentState.EXPIRED);
+        membershipStatusService.expireOverdue(today);
+        eventPublisher.publishEvent(DataChangedEvent.bulk(DataChangedEvent.Kind.PAYMENTS_EXPIRED, updated));
+        return updated;
     }
 
     /**
@@ -313,28 +365,56 @@ public class PaymentService {
      *   <li>Si el último pago (expirationDate) es anterior a hoy -> EXPIRED.</li>
      *   <li>Si la fecha de expiración es hoy o futura -> UP_TO_DATE.</li>
      * </ul>
-     * Pagos VOIDED no participan porque el repositorio busca voided=false.
+     * Se lee del estado materializado ({@link MembershipStatusService}): una búsqueda por clave primaria
+     * en lugar de ordenar los pagos del cliente.
      * @param clientId id de cliente
      * @return estado derivado (UP_TO_DATE o EXPIRED)
      * @throws IllegalArgumentException si clientId es null
      */
     public PaymentState deriveCurrentMembershipState(Long clientId) {
         if (clientId == null) throw new IllegalArgumentException("clientId es obligatorio");
-        Payment last = paymentRepository.findTopByClient_IdAndVoidedFalseOrderByExpirationDateDesc(clientId);
-        LocalDate today = LocalDate.now();
-        if (last == null) {
-            return PaymentState.EXPIRED; // sin pagos se asume vencido
-        }
-        LocalDate exp = last.getExpirationDate();
-        if (exp != null && exp.isBefore(today)) {
-            return PaymentState.EXPIRED;
-        }
-        return PaymentState.UP_TO_DATE;
+        return membershipStatusService.currentState(clientId);
     }
 
     // ===================== Métodos internos de apoyo =====================
 
-    private void validateRegisterInput(PaymentDTO dto) {
+    /**
+     * Compone los predicados de filtrado del listado de pagos (compartidos por el modo paginado, el modo cursor
+     * y las exportaciones). Un filtro null no agrega predicado. No agrega fetch joins: la proyección a DTO lee las
+     * columnas del cliente con un join simple.
+     */
+    Specification<Payment> buildFilterSpec(Long clientId, String queryText, LocalDate from, LocalDate to,
+                                           PaymentState state) {
+        Specification<Payment> spec = Specification.where(null);
+        if (clientId != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("client").get("id"), clientId));
+        }
+        if (queryText != null && !queryText.isBlank()) {
+            String pattern = "%" + queryText.trim().toLowerCase() + "%";
+            spec = spec.and((root, query, cb) -> {
+                var client = root.get("client");
+                return cb.or(
+                        cb.like(cb.lower(client.get("firstName")), pattern),
+                        cb.like(cb.lower(client.get("lastName")), pattern),
+                        cb.like(cb.lower(client.get("email")), pattern)
+                );
+            });
+        }
+        if (from != null) {
+            spec = spec.and((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("paymentDate"), from));
+        }
+        if (to != null) {
+            spec = spec.and((root, query, cb) -> cb.lessThanOrEqualTo(root.get("paymentDate"), to));
+        }
+        if (state != null) {
+            // El estado persistido es confiable (ExpirationScheduler): igualdad simple, apta para índice
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("paymentState"), state));
+        }
+        return spec;
+    }
+
+    // Visibilidad de paquete: la importación masiva aplica exactamente las mismas reglas
+    void validateRegisterInput(PaymentDTO dto) {
         if (dto.getAmount() == null || dto.getAmount() <= 0) {
             throw new IllegalArgumentException("El monto debe ser mayor a 0");
         }
@@ -349,7 +429,7 @@ public class PaymentService {
         }
     }
 
-    private LocalDate computeExpiration(LocalDate paymentDate, Integer durationDays) {
+    LocalDate computeExpiration(LocalDate paymentDate, Integer durationDays) {
         if (durationDays != null) {
             if (durationDays < 1) throw new IllegalArgumentException("La duración debe ser al menos 1 día");
             return paymentDate.plusDays(durationDays);
@@ -371,13 +451,7 @@ public class PaymentService {
         dto.setPaymentDate(payment.getPaymentDate());
         dto.setExpirationDate(payment.getExpirationDate());
         dto.setDurationDays(payment.getDurationDays());
-        // Estado efectivo: si está marcado VOIDED se respeta; si está UP_TO_DATE pero expirationDate < hoy => EXPIRED lógico
-        PaymentState persisted = payment.getState();
-        PaymentState effective = persisted;
-        if (persisted == PaymentState.UP_TO_DATE && payment.getExpirationDate() != null && payment.getExpirationDate().isBefore(LocalDate.now())) {
-            effective = PaymentState.EXPIRED;
-        }
-        dto.setState(effective);
+        dto.setState(payment.getState());
         dto.setVoided(payment.isVoided());
         dto.setVoidedBy(payment.getVoidedBy());
         dto.setVoidReason(payment.getVoidReason());
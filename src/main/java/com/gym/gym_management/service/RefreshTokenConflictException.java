@@ -0,0 +1,14 @@
+package com.gym.gym_management.service;
+
+/**
+ * Excepción lanzada cuando un refresh token se acaba de usar en otra rotación (por ejemplo, otra pestaña que
+ * renovó al mismo tiempo). No revoca la sesión.
+ * <p>
+ * Se maneja globalmente devolviendo HTTP 409 (Conflict): el cliente debe tomar el token que guardó la otra
+ * rotación en lugar de volver a iniciar sesión.
+ */
+public class RefreshTokenConflictException extends RuntimeException {
+    public RefreshTokenConflictException(String message) {
+        super(message);
+    }
+}
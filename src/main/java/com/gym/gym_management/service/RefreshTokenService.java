@@ -0,0 +1,161 @@
+package com.gym.gym_management.service;
+
+import com.gym.gym_management.model.RefreshToken;
+import com.gym.gym_management.repository.IRefreshTokenRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Refresh tokens opacos y rotativos para renovar los tokens de acceso de corta duración.
+ * <p>
+ * Funcionamiento:
+ * <ul>
+ *     <li>Al iniciar sesión se emite un token aleatorio (256 bits) y se guarda solo su SHA-256, con una nueva
+ *     familia.</li>
+ *     <li>Cada uso ({@code POST /auth/refresh}) lo marca como usado y emite otro de la misma familia.</li>
+ *     <li>Si se presenta un token ya usado (reutilización: alguien más tiene una copia) se revoca la familia
+ *     completa y ambos, el legítimo y el robado, deben volver a iniciar sesión. No hay ventana de gracia: un
+ *     atacante que presente la copia justo después del uso legítimo también cierra la sesión.</li>
+ *     <li>Única excepción: si dos rotaciones del mismo token llegan a la vez y otra lo marca como usado entre la
+ *     lectura y el UPDATE condicional, la que pierde recibe un conflicto sin revocar nada. Las pestañas del
+ *     navegador serializan la renovación (Web Locks) para no presentar un token que otra ya usó.</li>
+ *     <li>Cerrar sesión revoca la familia; un cambio o recuperación de contraseña revoca todos los del usuario.</li>
+ * </ul>
+ * La base solo se consulta en login, refresh y logout: los requests comunes se validan con el token de acceso.
+ */
+@Service
+public class RefreshTokenService {
+
+    @Autowired
+    private IRefreshTokenRepository refreshTokenRepository;
+
+    // Vida de un refresh token (y por lo tanto de una sesión sin actividad)
+    @Value("${jwt.refreshTokenDays:7}")
+    private long ttlDays = 7;
+
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Emite el primer refresh token de una sesión nueva.
+     * @param email usuario autenticado
+     * @return token en claro (solo se entrega al cliente, no se guarda)
+     */
+    @Transactional
+    public String issue(String email) {
+        return issue(email, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Usa un refresh token: lo marca como usado y emite el siguiente de la misma familia.
+     * Las revocaciones por reutilización se confirman aunque se lance la excepción.
+     * @param rawToken token recibido del cliente
+     * @return usuario dueño del token y el nuevo refresh token
+     * @throws InvalidRefreshTokenException si no existe, expiró, fue revocado o ya se había usado
+     * @throws RefreshTokenConflictException si una rotación concurrente del mismo token lo marcó primero
+     */
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public Rotation rotate(String rawToken) {
+        RefreshToken current = find(rawToken);
+        LocalDateTime now = LocalDateTime.now();
+        if (current.getRevokedAt() != null) {
+            throw new InvalidRefreshTokenException("Refresh token revocado");
+        }
+        if (current.getUsedAt() != null) {
+            refreshTokenRepository.revokeFamily(current.getFamilyId(), now);
+            throw new InvalidRefreshTokenException("Refresh token reutilizado: se cerró la sesión");
+        }
+        if (current.getExpiresAt().isBefore(now)) {
+            throw new InvalidRefreshTokenException("Refresh token expirado");
+        }
+        // Otra rotación concurrente del mismo token lo marcó primero: conflicto, no reutilización
+        if (refreshTokenRepository.markUsed(current.getId(), now) == 0) {
+            throw new RefreshTokenConflictException("El refresh token ya se renovó en otra pestaña");
+        }
+        return new Rotation(current.getEmail(), issue(current.getEmail(), current.getFamilyId()));
+    }
+
+    /**
+     * Revoca la sesión a la que pertenece el token (cierre de sesión). Un token desconocido se ignora.
+     * @param rawToken token recibido del cliente
+     */
+    @Transactional
+    public void revoke(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            return;
+        }
+        refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .ifPresent(t -> refreshTokenRepository.revokeFamily(t.getFamilyId(), LocalDateTime.now()));
+    }
+
+    /**
+     * Ante un cambio o recuperación de contraseña cierra todas las sesiones del usuario.
+     * Se ejecuta en el momento de publicarse, junto con el cambio.
+     */
+    @EventListener
+    @Transactional
+    public void onCredentialsChanged(UserCredentialsChangedEvent event) {
+        if (event.getReason() == UserCredentialsChangedEvent.Reason.PASSWORD_CHANGED) {
+            refreshTokenRepository.revokeAllForUser(event.getEmail(), LocalDateTime.now());
+        }
+    }
+
+    /** Borra los refresh tokens expirados (usados, revocados o no). */
+    @Scheduled(fixedDelayString = "${jwt.refreshTokenPurgeMs:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        refreshTokenRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    private String issue(String email, String familyId) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String raw = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        refreshTokenRepository.save(new RefreshToken(hash(raw), email, familyId, LocalDateTime.now().plusDays(ttlDays)));
+        return raw;
+    }
+
+    private RefreshToken find(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            throw new InvalidRefreshTokenException("Refresh token requerido");
+        }
+        return refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .orElseThrow(() -> new InvalidRefreshTokenException("Refresh token inválido"));
+    }
+
+    //SHA-256 en hexadecimal: en la base nunca queda el token en claro
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /** Resultado de una rotación: usuario dueño del token y el refresh token nuevo. */
+    public static final class Rotation {
+        private final String email;
+        private final String refreshToken;
+
+        Rotation(String email, String refreshToken) {
+            this.email = email;
+            this.refreshToken = refreshToken;
+        }
+
+        public String getEmail() { return email; }
+        public String getRefreshToken() { return refreshToken; }
+    }
+}
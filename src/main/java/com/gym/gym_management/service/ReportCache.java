@@ -0,0 +1,136 @@
+package com.gym.gym_management.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Caché en memoria de resultados de reportes (próximos vencimientos, vencidos, estadísticas del dashboard).
+ * <p>
+ * Características:
+ * <ul>
+ *     <li><b>Clave</b>: nombre del reporte más sus parámetros ({@link #key(String, Object...)}).</li>
+ *     <li><b>Expiración</b>: cada entrada vive {@code app.reportCache.ttlSeconds} desde que terminó de calcularse.</li>
+ *     <li><b>Tamaño acotado</b>: al superar {@code app.reportCache.maxEntries} se descartan primero las vencidas y
+ *     luego las más antiguas (ver {@link BoundedTtlCache}).</li>
+ *     <li><b>Single-flight</b>: pedidos concurrentes de la misma clave comparten un único cálculo; el resto espera
+ *     su resultado en lugar de repetir las consultas. Si el cálculo falla, la excepción se propaga a todos y la
+ *     entrada no queda en caché.</li>
+ *     <li><b>Invalidación</b>: cualquier {@link DataChangedEvent} vacía la caché después del commit de la
+ *     transacción que lo publicó (o en el momento si se publicó fuera de una transacción). Un cálculo en curso
+ *     al invalidar entrega su resultado a quienes ya lo esperaban, pero no queda visible para pedidos nuevos.</li>
+ * </ul>
+ * Las métricas (aciertos, fallos, cálculos coalescidos, tiempo de carga) se exponen en
+ * GET /api/maintenance/report-cache.
+ */
+@Service
+public class ReportCache {
+
+    private final long ttlNanos;
+
+    /** Cálculos por clave; vencen ({@link BoundedTtlCache#NEVER} mientras se calculan) según {@code System.nanoTime()}. */
+    private final BoundedTtlCache<String, CompletableFuture<Object>> entries;
+
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+
+    public ReportCache(@Value("${app.reportCache.ttlSeconds:60}") long ttlSeconds,
+                       @Value("${app.reportCache.maxEntries:500}") int maxEntries) {
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.entries = new BoundedTtlCache<>(maxEntries);
+    }
+
+    /**
+     * Arma la clave de un reporte con sus parámetros (los null se representan como "-").
+     * @param report nombre del reporte
+     * @param params parámetros que determinan el resultado
+     * @return clave estable
+     */
+    public static String key(String report, Object... params) {
+        StringBuilder sb = new StringBuilder(report);
+        for (Object p : params) {
+            sb.append('|').append(p == null ? "-" : p);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Devuelve el valor en caché o lo calcula con {@code loader} (una sola vez por clave entre hilos concurrentes).
+     * @param key clave del reporte (ver {@link #key(String, Object...)})
+     * @param loader cálculo del reporte
+     * @return resultado del reporte
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Supplier<T> loader) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> current = entries.getOrPut(key, mine, BoundedTtlCache.NEVER, System.nanoTime());
+        if (current != mine) {
+            return (T) await(current);
+        }
+
+        long start = System.nanoTime();
+        try {
+            T value = loader.get();
+            entries.expireAt(key, mine, System.nanoTime() + ttlNanos);
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            loadFailures.increment();
+            entries.remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loadNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Invalida toda la caché tras un cambio confirmado de pagos o clientes.
+     * @param event cambio publicado por el servicio de escritura
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDataChanged(DataChangedEvent event) {
+        invalidateAll();
+    }
+
+    /** Vacía la caché. */
+    public void invalidateAll() {
+        entries.invalidateAll();
+    }
+
+    /**
+     * Métricas acumuladas desde el arranque.
+     * @return las de {@link BoundedTtlCache#stats()} más coalesced, loadFailures y avgLoadMs
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = entries.stats();
+        long m = (Long) stats.get("misses");
+        stats.put("coalesced", coalesced.sum());
+        stats.put("loadFailures", loadFailures.sum());
+        stats.put("avgLoadMs", m == 0 ? 0.0 : loadNanos.sum() / 1_000_000.0 / m);
+        return stats;
+    }
+
+    /** Acierto: devuelve el valor ya calculado o espera el cálculo en curso de otro hilo. */
+    private Object await(CompletableFuture<Object> value) {
+        if (!value.isDone()) {
+            coalesced.increment();
+        }
+        try {
+            return value.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+}
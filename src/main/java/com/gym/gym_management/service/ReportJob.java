@@ -0,0 +1,88 @@
+package com.gym.gym_management.service;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Estado en memoria de un trabajo de reporte asíncrono (ver {@link ReportJobService}).
+ * Los campos que cambian mientras corre son volátiles: los lee el hilo del request que consulta el avance.
+ */
+public class ReportJob {
+
+    /** Reportes que se pueden pedir como trabajo. */
+    public enum Type { PAYMENTS, CASHFLOW, OVERDUE }
+
+    public enum Status { QUEUED, RUNNING, DONE, FAILED, CANCELLED }
+
+    private final String id = UUID.randomUUID().toString();
+    private final Type type;
+    private final String requestedBy;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private final String fileName;
+    private final String contentType;
+
+    private volatile Status status = Status.QUEUED;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile LocalDateTime expiresAt;
+    private volatile long rowsWritten;
+    private volatile Long rowsTotal;
+    private volatile String error;
+    private volatile Path file;
+    private volatile boolean cancelRequested;
+
+    ReportJob(Type type, String requestedBy, String fileName, String contentType) {
+        this.type = type;
+        this.requestedBy = requestedBy;
+        this.fileName = fileName;
+        this.contentType = contentType;
+    }
+
+    /** true si ya no va a cambiar de estado. */
+    public boolean isFinished() {
+        return status == Status.DONE || status == Status.FAILED || status == Status.CANCELLED;
+    }
+
+    /** Porcentaje de avance (0..100) o null si no se conoce el total. */
+    public Integer getPercent() {
+        if (status == Status.DONE) return 100;
+        Long total = rowsTotal;
+        if (total == null || total == 0) return null;
+        return (int) Math.min(99, rowsWritten * 100 / total);
+    }
+
+    public String getId() { return id; }
+    public Type getType() { return type; }
+    public String getRequestedBy() { return requestedBy; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public String getFileName() { return fileName; }
+    public String getContentType() { return contentType; }
+
+    public Status getStatus() { return status; }
+    void setStatus(Status status) { this.status = status; }
+
+    public LocalDateTime getStartedAt() { return startedAt; }
+    void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+
+    public long getRowsWritten() { return rowsWritten; }
+    void setRowsWritten(long rowsWritten) { this.rowsWritten = rowsWritten; }
+
+    public Long getRowsTotal() { return rowsTotal; }
+    void setRowsTotal(Long rowsTotal) { this.rowsTotal = rowsTotal; }
+
+    public String getError() { return error; }
+    void setError(String error) { this.error = error; }
+
+    public Path getFile() { return file; }
+    void setFile(Path file) { this.file = file; }
+
+    boolean isCancelRequested() { return cancelRequested; }
+    void setCancelRequested(boolean cancelRequested) { this.cancelRequested = cancelRequested; }
+}
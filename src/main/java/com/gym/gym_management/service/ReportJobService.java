@@ -0,0 +1,358 @@
+package com.gym.gym_management.service;
+
+import com.gym.gym_management.controller.dto.ReportJobRequest;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Trabajos de reportes asíncronos: exportaciones pesadas (pagos, flujo de caja de varios años, lista completa
+ * de vencidos) que se encolan, corren fuera de los hilos de Tomcat y dejan el resultado en un archivo temporal
+ * para descargar.
+ * <p>
+ * Límites:
+ * <ul>
+ *     <li>{@code app.reportJobs.threads} trabajos en ejecución a la vez (cada uno ocupa una conexión a la base
+ *     mientras corre, así que este valor acota lo que los reportes le quitan al resto de la aplicación).</li>
+ *     <li>{@code app.reportJobs.perTypeLimit} trabajos del mismo tipo en ejecución; el resto espera en la cola
+ *     aunque haya hilos libres, así un tipo de reporte no acapara el pool.</li>
+ *     <li>{@code app.reportJobs.maxQueued} trabajos en espera y {@code app.reportJobs.maxActivePerUser} trabajos
+ *     sin terminar por usuario; por encima se rechaza el pedido (409).</li>
+ * </ul>
+ * El avance (filas escritas y, si se conoce, el total) se informa mientras corre. El resultado se conserva
+ * {@code app.reportJobs.ttlMinutes} minutos desde que termina y luego se borra junto con el trabajo.
+ * El estado vive en memoria: un reinicio descarta los trabajos y sus archivos.
+ */
+@Service
+public class ReportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportJobService.class);
+
+    @Autowired
+    private PaymentExportService paymentExportService;
+
+    @Value("${app.reportJobs.threads:2}")
+    private int threads = 2;
+
+    @Value("${app.reportJobs.perTypeLimit:1}")
+    private int perTypeLimit = 1;
+
+    @Value("${app.reportJobs.maxQueued:20}")
+    private int maxQueued = 20;
+
+    @Value("${app.reportJobs.maxActivePerUser:3}")
+    private int maxActivePerUser = 3;
+
+    @Value("${app.reportJobs.ttlMinutes:60}")
+    private long ttlMinutes = 60;
+
+    /** Directorio de resultados; vacío = un directorio temporal propio. */
+    @Value("${app.reportJobs.dir:}")
+    private String dir = "";
+
+    private Executor executor;
+
+    private Path directory;
+
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+
+    /** Trabajos en espera, en orden de llegada (protegido por el monitor del servicio). */
+    private final Deque<Pending> pending = new ArrayDeque<>();
+
+    private final Map<ReportJob.Type, Integer> runningByType = new EnumMap<>(ReportJob.Type.class);
+
+    private int running;
+
+    @PostConstruct
+    void init() {
+        if (executor == null) {
+            AtomicInteger n = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, "report-job-" + n.incrementAndGet());
+                t.setDaemon(true);
+                t.setPriority(Thread.MIN_PRIORITY);
+                return t;
+            });
+        }
+        if (directory == null) {
+            try {
+                directory = dir.isBlank()
+                        ? Files.createTempDirectory("gym-report-jobs")
+                        : Files.createDirectories(Path.of(dir));
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo crear el directorio de reportes", e);
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor instanceof ExecutorService es) {
+            es.shutdownNow();
+        }
+        jobs.values().forEach(this::deleteFile);
+    }
+
+    /**
+     * Encola un reporte.
+     * @param request tipo y filtros del reporte
+     * @param format formato de salida
+     * @param requestedBy usuario que lo pide
+     * @return trabajo creado (en cola o ya en ejecución)
+     * @throws IllegalArgumentException si faltan parámetros o son inválidos
+     * @throws IllegalStateException si la cola está llena o el usuario tiene demasiados trabajos sin terminar
+     */
+    public ReportJob submit(ReportJobRequest request, PaymentExportService.Format format, String requestedBy) {
+        ReportJob.Type type = request.getType();
+        if (type == null) {
+            throw new IllegalArgumentException("El tipo de reporte es obligatorio");
+        }
+        LocalDate from = request.getFrom();
+        LocalDate to = request.getTo();
+        if (type == ReportJob.Type.CASHFLOW && (from == null || to == null)) {
+            throw new IllegalArgumentException("El flujo de caja requiere 'from' y 'to'");
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("El parámetro 'from' no puede ser posterior a 'to'");
+        }
+        ExportTask task = switch (type) {
+            case PAYMENTS -> (out, progress) -> paymentExportService.exportPayments(request.getClientId(),
+                    request.getQ(), from, to, request.getState(), format, out, progress);
+            case CASHFLOW -> (out, progress) -> paymentExportService.exportCashflow(request.getClientId(),
+                    request.getQ(), from, to, format, out, progress);
+            case OVERDUE -> (out, progress) -> paymentExportService.exportOverdue(format, out, progress);
+        };
+        boolean gzip = request.isGzip();
+        String extension = (format == PaymentExportService.Format.CSV ? ".csv" : ".ndjson") + (gzip ? ".gz" : "");
+        String contentType = gzip ? "application/gzip"
+                : (format == PaymentExportService.Format.CSV ? "text/csv;charset=UTF-8" : "application/x-ndjson");
+        ReportJob job = new ReportJob(type, requestedBy,
+                baseName(type) + "-" + LocalDate.now() + extension, contentType);
+
+        synchronized (this) {
+            if (pending.size() >= maxQueued) {
+                throw new IllegalStateException("Hay demasiados reportes en cola, intente más tarde");
+            }
+            long active = jobs.values().stream()
+                    .filter(j -> !j.isFinished() && requestedBy != null && requestedBy.equals(j.getRequestedBy()))
+                    .count();
+            if (active >= maxActivePerUser) {
+                throw new IllegalStateException("Ya tiene " + active + " reportes en curso; espere a que terminen");
+            }
+            jobs.put(job.getId(), job);
+            pending.addLast(new Pending(job, task, gzip, extension));
+            dispatch();
+        }
+        return job;
+    }
+
+    /**
+     * @throws IllegalArgumentException si el trabajo no existe o ya expiró
+     */
+    public ReportJob get(String id) {
+        ReportJob job = jobs.get(id);
+        if (job == null) {
+            throw new IllegalArgumentException("Trabajo de reporte no encontrado");
+        }
+        return job;
+    }
+
+    /** Trabajos vigentes, más recientes primero. */
+    public List<ReportJob> list() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing(ReportJob::getCreatedAt).reversed())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Trabajo terminado listo para descargar.
+     * @throws IllegalArgumentException si no existe
+     * @throws IllegalStateException si todavía no terminó o no terminó bien
+     */
+    public ReportJob getResult(String id) {
+        ReportJob job = get(id);
+        if (job.getStatus() != ReportJob.Status.DONE || job.getFile() == null) {
+            throw new IllegalStateException("El reporte no está disponible (estado: " + job.getStatus() + ")");
+        }
+        return job;
+    }
+
+    /**
+     * Cancela un trabajo en cola o en ejecución (se corta en la próxima tanda de filas), o descarta el resultado
+     * de uno terminado.
+     * @throws IllegalArgumentException si no existe
+     */
+    public void cancel(String id) {
+        ReportJob job = get(id);
+        synchronized (this) {
+            if (pending.removeIf(p -> p.job == job)) {
+                finish(job, ReportJob.Status.CANCELLED, null);
+                return;
+            }
+        }
+        if (job.isFinished()) {
+            jobs.remove(id);
+            deleteFile(job);
+        } else {
+            job.setCancelRequested(true);
+        }
+    }
+
+    /** Borra los trabajos terminados cuyo resultado venció. */
+    @Scheduled(fixedDelayString = "${app.reportJobs.purgeMs:60000}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        for (ReportJob job : jobs.values()) {
+            if (job.isFinished() && job.getExpiresAt() != null && job.getExpiresAt().isBefore(now)) {
+                jobs.remove(job.getId());
+                deleteFile(job);
+            }
+        }
+    }
+
+    /** Pasa a ejecución los trabajos en espera que entran en los límites globales y por tipo. */
+    private synchronized void dispatch() {
+        Iterator<Pending> it = pending.iterator();
+        while (running < threads && it.hasNext()) {
+            Pending next = it.next();
+            ReportJob.Type type = next.job.getType();
+            if (runningByType.getOrDefault(type, 0) >= perTypeLimit) {
+                continue;
+            }
+            it.remove();
+            running++;
+            runningByType.merge(type, 1, Integer::sum);
+            next.job.setStatus(ReportJob.Status.RUNNING);
+            next.job.setStartedAt(LocalDateTime.now());
+            executor.execute(() -> run(next));
+        }
+    }
+
+    private void run(Pending p) {
+        ReportJob job = p.job;
+        try {
+            Path file = Files.createTempFile(directory, job.getId(), p.extension);
+            job.setFile(file);
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024)) {
+                if (p.gzip) {
+                    GZIPOutputStream gz = new GZIPOutputStream(out, 64 * 1024);
+                    p.task.writeTo(gz, progress(job));
+                    gz.finish();
+                } else {
+                    p.task.writeTo(out, progress(job));
+                }
+            }
+            finish(job, ReportJob.Status.DONE, null);
+        } catch (CancellationException e) {
+            finish(job, ReportJob.Status.CANCELLED, null);
+        } catch (Exception e) {
+            log.warn("Falló el trabajo de reporte {} ({})", job.getId(), job.getType(), e);
+            finish(job, ReportJob.Status.FAILED, "No se pudo generar el reporte");
+        } finally {
+            synchronized (this) {
+                running--;
+                runningByType.merge(job.getType(), -1, Integer::sum);
+                dispatch();
+            }
+        }
+    }
+
+    private PaymentExportService.Progress progress(ReportJob job) {
+        return new PaymentExportService.Progress() {
+            @Override
+            public void total(long rows) {
+                job.setRowsTotal(rows);
+            }
+
+            @Override
+            public void written(long rows) {
+                job.setRowsWritten(rows);
+                if (job.isCancelRequested() || Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException();
+                }
+            }
+        };
+    }
+
+    private void finish(ReportJob job, ReportJob.Status status, String error) {
+        if (status != ReportJob.Status.DONE) {
+            deleteFile(job);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        job.setError(error);
+        job.setFinishedAt(now);
+        job.setExpiresAt(now.plusMinutes(ttlMinutes));
+        job.setStatus(status);
+    }
+
+    private void deleteFile(ReportJob job) {
+        Path file = job.getFile();
+        if (file == null) {
+            return;
+        }
+        job.setFile(null);
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("No se pudo borrar el resultado del reporte {}", file, e);
+        }
+    }
+
+    private static String baseName(ReportJob.Type type) {
+        return switch (type) {
+            case PAYMENTS -> "pagos";
+            case CASHFLOW -> "flujo-de-caja";
+            case OVERDUE -> "vencidos";
+        };
+    }
+
+    /** Escritura del reporte sobre el archivo de resultado. */
+    @FunctionalInterface
+    private interface ExportTask {
+        long writeTo(OutputStream out, PaymentExportService.Progress progress) throws IOException;
+    }
+
+    /** Trabajo en espera con lo necesario para ejecutarlo. */
+    private static final class Pending {
+        final ReportJob job;
+        final ExportTask task;
+        final boolean gzip;
+        final String extension;
+
+        Pending(ReportJob job, ExportTask task, boolean gzip, String extension) {
+            this.job = job;
+            this.task = task;
+            this.gzip = gzip;
+            this.extension = extension;
+        }
+    }
+}
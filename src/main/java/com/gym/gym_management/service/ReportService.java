@@ -1,198 +1,106 @@
 package com.gym.gym_management.service;
 
-import com.gym.gym_management.controller.dto.ClientDTO;
 import com.gym.gym_management.controller.dto.OverdueClientDTO;
 import com.gym.gym_management.controller.dto.ExpiringClientDTO;
-import com.gym.gym_management.model.Client;
-import com.gym.gym_management.model.NotificationLog;
-import com.gym.gym_management.model.Payment;
-import com.gym.gym_management.repository.INotificationLogRepository;
-import com.gym.gym_management.repository.IPaymentRepository;
-import com.gym.gym_management.repository.IClientRepository;
+import com.gym.gym_management.controller.dto.RevenueBucketDTO;
+import com.gym.gym_management.repository.IClientMembershipStatusRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import java.time.LocalDate;
-import java.util.Comparator;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 @Service
 public class ReportService {
 
     @Autowired
-    private IPaymentRepository paymentRepository;
+    private RevenueRollupService revenueRollupService;
 
     @Autowired
-    private IClientRepository clientRepository;
+    private IClientMembershipStatusRepository membershipStatusRepository;
 
-    @Autowired
-    private INotificationLogRepository notificationLogRepository;
+    /** Horizonte máximo (en días) aceptado por el reporte de próximos vencimientos. */
+    public static final int MAX_EXPIRING_DAYS = 90;
 
     /**
-     * Obtiene clientes con pagos por vencer en los próximos 7 días (no vencidos).
+     * Obtiene clientes con pagos por vencer en los próximos {@code days} días (no vencidos), paginado.
      * Devuelve además la fecha de expiración del último pago válido (no anulado)
      * y si se les envió recordatorio.
+     * <p>
+     * Una sola consulta sobre el estado de membresía materializado (índice de expiration_date) con el indicador
+     * de recordatorio resuelto por EXISTS en SQL, más el COUNT de la página.
+     * @param days horizonte en días desde hoy (1..{@link #MAX_EXPIRING_DAYS})
+     * @param pageable página y tamaño (el orden es fijo: vencimiento más próximo primero)
+     * @throws IllegalArgumentException si el horizonte está fuera de rango
      */
-    public List<ExpiringClientDTO> getClientsWithPaymentsExpiringSoon() {
-        LocalDate today = LocalDate.now();
-        LocalDate sevenDaysFromNow = today.plusDays(7);
-
-        // Obtener clientes próximos a vencer
-        List<ExpiringClientDTO> expiringClients = clientRepository.findAllActive().stream()
-            .map(client -> {
-                Payment lastValid = client.getPayments().stream()
-                    .filter(p -> !p.isVoided() && p.getExpirationDate() != null)
-                    .max(Comparator.comparing(Payment::getExpirationDate))
-                    .orElse(null);
-                if (lastValid == null) return null;
-                LocalDate exp = lastValid.getExpirationDate();
-                boolean notExpired = !exp.isBefore(today); // exp >= today
-                boolean within7 = exp.isBefore(sevenDaysFromNow) || exp.isEqual(sevenDaysFromNow);
-                if (notExpired && within7) {
-                    ExpiringClientDTO dto = new ExpiringClientDTO();
-                    dto.setId(client.getId());
-                    dto.setFirstName(client.getFirstName());
-                    dto.setLastName(client.getLastName());
-                    dto.setEmail(client.getEmail());
-                    dto.setActive(client.isActive());
-                    dto.setExpirationDate(exp);
-                    dto.setReminderSent(false); // Se establecerá después
-                    return dto;
-                }
-                return null;
-            })
-            .filter(dto -> dto != null)
-            .collect(Collectors.toList());
-
-        // Obtener información de notificaciones para estos clientes
-        if (!expiringClients.isEmpty()) {
-            List<Long> paymentIds = expiringClients.stream()
-                .map(dto -> getLastValidPaymentId(dto.getId()))
-                .filter(id -> id != null)
-                .collect(Collectors.toList());
-
-            if (!paymentIds.isEmpty()) {
-                List<NotificationLog> sentNotifications = notificationLogRepository
-                    .findSentNotificationsByPaymentIds(paymentIds);
-
-                Map<Long, Boolean> notificationMap = sentNotifications.stream()
-                    .collect(Collectors.toMap(
-                        NotificationLog::getPaymentId,
-                        nl -> true,
-                        (existing, replacement) -> existing
-                    ));
-
-                // Actualizar DTOs con información de notificaciones
-                expiringClients.forEach(dto -> {
-                    Long paymentId = getLastValidPaymentId(dto.getId());
-                    if (paymentId != null) {
-                        dto.setReminderSent(notificationMap.getOrDefault(paymentId, false));
-                    }
-                });
-            }
+    public Page<ExpiringClientDTO> getClientsWithPaymentsExpiringSoon(int days, Pageable pageable) {
+        if (days < 1 || days > MAX_EXPIRING_DAYS) {
+            throw new IllegalArgumentException("El parámetro days debe estar entre 1 y " + MAX_EXPIRING_DAYS);
         }
-
-        return expiringClients;
+        LocalDate today = LocalDate.now();
+        Pageable page = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+
+        return membershipStatusRepository.findActiveExpiringBetween(today, today.plusDays(days), page)
+            .map(row -> {
+                ExpiringClientDTO dto = new ExpiringClientDTO();
+                dto.setId(row.getClientId());
+                dto.setFirstName(row.getFirstName());
+                dto.setLastName(row.getLastName());
+                dto.setEmail(row.getEmail());
+                dto.setActive(Boolean.TRUE.equals(row.getActive()));
+                dto.setExpirationDate(row.getExpirationDate());
+                dto.setReminderSent(Boolean.TRUE.equals(row.getReminderSent()));
+                return dto;
+            });
     }
 
     /**
-     * Obtiene clientes activos cuya última membresía (último pago válido no anulado) ya venció.
-     * Devuelve además la fecha de expiración de ese último pago y si se les envió recordatorio.
+     * Obtiene clientes activos cuya última membresía (último pago válido no anulado) ya venció, paginado.
+     * Devuelve además la fecha de expiración de ese último pago, los días de atraso y si se les envió recordatorio.
+     * <p>
+     * Cantidad fija de sentencias (la página y su COUNT) sin importar cuántos socios haya: el estado materializado
+     * aporta el último pago válido y el recordatorio se resuelve por EXISTS en la misma consulta.
+     * @param mostOverdueFirst true para ordenar de mayor a menor atraso (expiración más antigua primero)
+     * @param pageable página y tamaño (el orden de {@code pageable} se ignora)
      */
-    public List<OverdueClientDTO> getClientsWithOverduePayments() {
+    public Page<OverdueClientDTO> getClientsWithOverduePayments(boolean mostOverdueFirst, Pageable pageable) {
         LocalDate today = LocalDate.now();
-        // Opción principal: una sola consulta evita N+1 para determinar candidatos
-        List<Client> candidates = clientRepository.findActiveClientsWithLastPaymentExpired(today);
-        if (candidates == null || candidates.isEmpty()) {
-            // Fallback: calcular por cliente con el último pago válido
-            candidates = clientRepository.findAllActive().stream()
-                .filter(c -> {
-                    Payment last = paymentRepository.findTopByClient_IdAndVoidedFalseOrderByExpirationDateDesc(c.getId());
-                    return last != null && last.getExpirationDate() != null && last.getExpirationDate().isBefore(today);
-                })
-                .collect(Collectors.toList());
-        }
-
-        // Para cada cliente candidato obtenemos el último pago para exponer su expirationDate
-        List<OverdueClientDTO> overdueClients = candidates.stream()
-            .map(c -> {
-                Payment lastPayment = paymentRepository.findTopByClient_IdAndVoidedFalseOrderByExpirationDateDesc(c.getId());
-                return toOverdueDTO(c, lastPayment);
-            })
-            .filter(dto -> dto.getExpirationDate() != null && dto.getExpirationDate().isBefore(today))
-            .collect(Collectors.toList());
-
-        // Obtener información de notificaciones para estos clientes
-        if (!overdueClients.isEmpty()) {
-            List<Long> paymentIds = overdueClients.stream()
-                .map(dto -> getLastValidPaymentId(dto.getId()))
-                .filter(id -> id != null)
-                .collect(Collectors.toList());
-
-            if (!paymentIds.isEmpty()) {
-                List<NotificationLog> sentNotifications = notificationLogRepository
-                    .findSentNotificationsByPaymentIds(paymentIds);
-
-                Map<Long, Boolean> notificationMap = sentNotifications.stream()
-                    .collect(Collectors.toMap(
-                        NotificationLog::getPaymentId,
-                        nl -> true,
-                        (existing, replacement) -> existing
-                    ));
-
-                // Actualizar DTOs con información de notificaciones
-                overdueClients.forEach(dto -> {
-                    Long paymentId = getLastValidPaymentId(dto.getId());
-                    if (paymentId != null) {
-                        dto.setReminderSent(notificationMap.getOrDefault(paymentId, false));
-                    }
-                });
-            }
-        }
-
-        return overdueClients;
+        // Más días de atraso = expiración más antigua; el id desempata para que la paginación sea estable
+        Sort sort = Sort.by(mostOverdueFirst ? Sort.Direction.ASC : Sort.Direction.DESC, "expirationDate")
+            .and(Sort.by(Sort.Direction.ASC, "clientId"));
+        Pageable page = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
+
+        return membershipStatusRepository.findActiveOverdue(today, page)
+            .map(row -> {
+                OverdueClientDTO dto = new OverdueClientDTO();
+                dto.setId(row.getClientId());
+                dto.setFirstName(row.getFirstName());
+                dto.setLastName(row.getLastName());
+                dto.setEmail(row.getEmail());
+                dto.setActive(Boolean.TRUE.equals(row.getActive()));
+                dto.setExpirationDate(row.getExpirationDate());
+                dto.setDaysOverdue(ChronoUnit.DAYS.between(row.getExpirationDate(), today));
+                dto.setReminderSent(Boolean.TRUE.equals(row.getReminderSent()));
+                return dto;
+            });
     }
 
     /**
-     * Obtiene el ID del último pago válido de un cliente.
-     *
-     * @param clientId ID del cliente
-     * @return ID del último pago válido o null si no existe
+     * Calcula el flujo de caja entre dos fechas desde los rollups de recaudación
+     * (meses completos del rollup mensual y días sueltos del diario), sin leer pagos.
      */
-    private Long getLastValidPaymentId(Long clientId) {
-        Payment lastPayment = paymentRepository.findTopByClient_IdAndVoidedFalseOrderByExpirationDateDesc(clientId);
-        return lastPayment != null ? lastPayment.getId() : null;
+    public Double calculateCashflow(LocalDate from, LocalDate to) {
+        return revenueRollupService.cashflow(from, to);
     }
 
     /**
-     * Calcula el flujo de caja entre dos fechas
+     * Serie de recaudación por día, semana o mes, opcionalmente desglosada por método de pago.
      */
-    public Double calculateCashflow(LocalDate from, LocalDate to) {
-        return paymentRepository.findByPaymentDateBetweenAndVoidedFalse(from, to).stream()
-            .mapToDouble(Payment::getAmount)
-            .sum();
-    }
-
-    private ClientDTO toClientDTO(Client client) {
-        ClientDTO dto = new ClientDTO();
-        dto.setId(client.getId());
-        dto.setFirstName(client.getFirstName());
-        dto.setLastName(client.getLastName());
-        dto.setEmail(client.getEmail());
-        dto.setActive(client.isActive());
-        return dto;
-    }
-
-    private OverdueClientDTO toOverdueDTO(Client client, Payment last) {
-        OverdueClientDTO dto = new OverdueClientDTO();
-        dto.setId(client.getId());
-        dto.setFirstName(client.getFirstName());
-        dto.setLastName(client.getLastName());
-        dto.setEmail(client.getEmail());
-        dto.setActive(client.isActive());
-        dto.setExpirationDate(last != null ? last.getExpirationDate() : null);
-        dto.setReminderSent(false); // Se establecerá después en el método principal
-        return dto;
+    public List<RevenueBucketDTO> getRevenueSeries(LocalDate from, LocalDate to, String bucket, boolean byMethod) {
+        return revenueRollupService.series(RevenueRollupService.Bucket.parse(bucket), from, to, byMethod);
     }
 }
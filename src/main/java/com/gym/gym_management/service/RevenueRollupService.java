@@ -0,0 +1,169 @@
+package com.gym.gym_management.service;
+
+import com.gym.gym_management.controller.dto.RevenueBucketDTO;
+import com.gym.gym_management.model.Payment;
+import com.gym.gym_management.repository.RevenueRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Rollups de recaudación diaria y mensual por método de pago.
+ * <p>
+ * Responsabilidades:
+ * <ul>
+ *     <li><b>Mantenimiento incremental</b>: el alta individual suma, la anulación resta y la importación suma por
+ *     lotes, siempre en la transacción de la escritura del pago.</li>
+ *     <li><b>Lecturas</b>: flujo de caja de un rango y series por día, semana o mes (opcionalmente por método).
+ *     El costo es proporcional a la cantidad de intervalos, no a la de pagos.</li>
+ *     <li><b>Reparación</b>: {@link #rebuild()} recalcula ambas tablas desde payments.</li>
+ * </ul>
+ */
+@Service
+public class RevenueRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(RevenueRollupService.class);
+
+    /** Intervalos de la serie de recaudación. */
+    public enum Bucket {
+        DAY(null), WEEK("week"), MONTH("month");
+
+        private final String truncUnit;
+
+        Bucket(String truncUnit) {
+            this.truncUnit = truncUnit;
+        }
+
+        /**
+         * Interpreta el parámetro del endpoint (day, week, month; sin distinguir mayúsculas).
+         * @throws IllegalArgumentException si el valor no es válido
+         */
+        public static Bucket parse(String value) {
+            if (value == null || value.isBlank()) return DAY;
+            try {
+                return Bucket.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Intervalo inválido (use day, week o month)");
+            }
+        }
+    }
+
+    @Autowired
+    private RevenueRollupRepository rollupRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Suma un pago recién registrado a los rollups.
+     * @param payment pago registrado (monto, método y fecha de pago)
+     */
+    @Transactional
+    public void onPaymentRegistered(Payment payment) {
+        rollupRepository.apply(payment.getPaymentDate(), payment.getMethod(), 1, payment.getAmount());
+    }
+
+    /**
+     * Resta un pago anulado de los rollups.
+     * @param payment pago anulado (monto, método y fecha de pago)
+     */
+    @Transactional
+    public void onPaymentVoided(Payment payment) {
+        rollupRepository.apply(payment.getPaymentDate(), payment.getMethod(), -1, -payment.getAmount());
+    }
+
+    /**
+     * Suma un lote de pagos importados.
+     * @param payments pagos insertados
+     */
+    @Transactional
+    public void onPaymentsImported(List<Payment> payments) {
+        rollupRepository.applyAll(payments);
+    }
+
+    /**
+     * Reconstruye los rollups desde payments (comando de reparación).
+     * @return filas diarias generadas
+     */
+    @Transactional
+    public int rebuild() {
+        int days = rollupRepository.rebuild();
+        eventPublisher.publishEvent(DataChangedEvent.bulk(DataChangedEvent.Kind.DERIVED_REBUILT, days));
+        return days;
+    }
+
+    /**
+     * Al arrancar, reconstruye los rollups si están vacíos pero hay pagos (por ejemplo, base cargada con data.sql).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildIfEmpty() {
+        if (rollupRepository.needsRebuild()) {
+            int days = rebuild();
+            log.info("Rollups de recaudación reconstruidos: {} filas diarias", days);
+        }
+    }
+
+    /**
+     * Total cobrado entre dos fechas (inclusive). Los meses completos del rango se leen del rollup mensual
+     * y los días sueltos de los extremos del rollup diario.
+     * @param from fecha mínima inclusive
+     * @param to fecha máxima inclusive
+     * @return total cobrado (pagos no anulados)
+     * @throws IllegalArgumentException si falta alguna fecha o from es posterior a to
+     */
+    @Transactional(readOnly = true)
+    public double cashflow(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        LocalDate firstFullMonth = from.getDayOfMonth() == 1 ? from : from.withDayOfMonth(1).plusMonths(1);
+        LocalDate lastFullMonthEnd = to.equals(to.withDayOfMonth(to.lengthOfMonth())) ? to : to.withDayOfMonth(1).minusDays(1);
+        if (firstFullMonth.isAfter(lastFullMonthEnd)) {
+            return rollupRepository.sumDaily(from, to);
+        }
+        double total = rollupRepository.sumMonthly(firstFullMonth, lastFullMonthEnd.withDayOfMonth(1));
+        if (from.isBefore(firstFullMonth)) {
+            total += rollupRepository.sumDaily(from, firstFullMonth.minusDays(1));
+        }
+        if (to.isAfter(lastFullMonthEnd)) {
+            total += rollupRepository.sumDaily(lastFullMonthEnd.plusDays(1), to);
+        }
+        return total;
+    }
+
+    /**
+     * Serie de recaudación por intervalos. Las semanas comienzan el lunes (ISO); el primer y el último intervalo
+     * pueden ser parciales si el rango no está alineado.
+     * @param bucket intervalo (día, semana o mes)
+     * @param from fecha mínima inclusive
+     * @param to fecha máxima inclusive
+     * @param byMethod si true desglosa cada intervalo por método de pago
+     * @return puntos de la serie ordenados por intervalo (y método); los intervalos sin pagos no aparecen
+     */
+    @Transactional(readOnly = true)
+    public List<RevenueBucketDTO> series(Bucket bucket, LocalDate from, LocalDate to, boolean byMethod) {
+        validateRange(from, to);
+        boolean wholeMonths = from.getDayOfMonth() == 1 && to.getDayOfMonth() == to.lengthOfMonth();
+        if (bucket == Bucket.MONTH && wholeMonths) {
+            return rollupRepository.monthlySeries(from, to.withDayOfMonth(1), byMethod);
+        }
+        return rollupRepository.dailySeries(bucket.truncUnit, from, to, byMethod);
+    }
+
+    private void validateRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Las fechas desde y hasta son obligatorias");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("La fecha desde no puede ser posterior a la fecha hasta");
+        }
+    }
+}
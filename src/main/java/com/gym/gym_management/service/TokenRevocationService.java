@@ -0,0 +1,155 @@
+package com.gym.gym_management.service;
+
+import com.gym.gym_management.model.CredentialVersion;
+import com.gym.gym_management.model.RevokedToken;
+import com.gym.gym_management.repository.ICredentialVersionRepository;
+import com.gym.gym_management.repository.IRevokedTokenRepository;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revocación de tokens JWT sin consultar la base en cada request.
+ * <p>
+ * Dos mecanismos, ambos en memoria y persistidos en tablas chicas que se cargan al arrancar:
+ * <ul>
+ *     <li><b>Tokens revocados</b> ({@code revoked_tokens}): identificador ({@code jti}) de tokens invalidados
+ *     antes de expirar, por ejemplo al cerrar sesión. Se olvidan cuando el token expira.</li>
+ *     <li><b>Versión de credenciales</b> ({@code credential_versions}): cada token lleva la versión vigente del
+ *     usuario al emitirse (claim {@code ver}); un cambio o recuperación de contraseña la incrementa y así
+ *     invalida de una vez todos los tokens anteriores del usuario.</li>
+ * </ul>
+ * Cada {@code app.auth.revocationRefreshMs} se borran las filas de tokens ya expirados y se vuelven a leer las
+ * tablas (por si otra instancia registró revocaciones).
+ */
+@Service
+public class TokenRevocationService {
+
+    /** Claim con la versión de credenciales del usuario. */
+    public static final String VERSION_CLAIM = "ver";
+
+    @Autowired
+    private IRevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private ICredentialVersionRepository credentialVersionRepository;
+
+    /** jti -> expiración del token (epoch millis). */
+    private final ConcurrentHashMap<String, Long> revoked = new ConcurrentHashMap<>();
+
+    /** email -> versión de credenciales (solo usuarios con versión mayor a 0). */
+    private final ConcurrentHashMap<String, Integer> versions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        load();
+    }
+
+    /** Borra revocaciones de tokens ya expirados y sincroniza la memoria con las tablas. */
+    @Scheduled(fixedDelayString = "${app.auth.revocationRefreshMs:60000}",
+            initialDelayString = "${app.auth.revocationRefreshMs:60000}")
+    @Transactional
+    public void refresh() {
+        revokedTokenRepository.deleteExpired(LocalDateTime.now());
+        long nowMillis = System.currentTimeMillis();
+        revoked.values().removeIf(exp -> exp < nowMillis);
+        load();
+    }
+
+    private void load() {
+        for (RevokedToken t : revokedTokenRepository.findAll()) {
+            revoked.put(t.getJti(), toMillis(t.getExpiresAt()));
+        }
+        // Las versiones solo crecen: se combinan con el máximo para no pisar un incremento recién hecho
+        for (CredentialVersion v : credentialVersionRepository.findAll()) {
+            versions.merge(v.getEmail(), v.getVersion(), Math::max);
+        }
+    }
+
+    /**
+     * Indica si un token verificado sigue vigente: no fue revocado y su versión de credenciales es la actual.
+     * Los tokens sin claim {@code ver} se consideran de versión 0.
+     * @param claims claims ya verificados (firma y expiración)
+     * @return true si el token se puede usar
+     */
+    public boolean isActive(Claims claims) {
+        String jti = claims.getId();
+        if (jti != null && revoked.containsKey(jti)) {
+            return false;
+        }
+        Number ver = claims.get(VERSION_CLAIM, Number.class);
+        return (ver != null ? ver.intValue() : 0) == currentVersion(claims.getSubject());
+    }
+
+    /** Versión de credenciales vigente del usuario (0 si nunca cambió su contraseña). */
+    public int currentVersion(String email) {
+        return email == null ? 0 : versions.getOrDefault(email, 0);
+    }
+
+    /**
+     * Revoca un token hasta su expiración.
+     * @param jti identificador del token
+     * @param expiresAt expiración del token
+     */
+    @Transactional
+    public void revoke(String jti, Date expiresAt) {
+        if (jti == null || expiresAt == null) {
+            return;
+        }
+        LocalDateTime expiration = LocalDateTime.ofInstant(expiresAt.toInstant(), ZoneId.systemDefault());
+        revokedTokenRepository.save(new RevokedToken(jti, expiration));
+        revoked.put(jti, expiresAt.getTime());
+    }
+
+    /**
+     * Incrementa la versión de credenciales del usuario: todos sus tokens emitidos hasta ahora quedan inválidos.
+     * @param email usuario
+     * @return nueva versión
+     */
+    @Transactional
+    public int bumpCredentialVersion(String email) {
+        CredentialVersion row = credentialVersionRepository.findById(email)
+                .orElseGet(() -> new CredentialVersion(email));
+        int version = row.bump();
+        credentialVersionRepository.save(row);
+        versions.merge(email, version, Math::max);
+        return version;
+    }
+
+    /**
+     * Ante un cambio o recuperación de contraseña invalida los tokens anteriores del usuario.
+     * Se ejecuta en el momento de publicarse, junto con el cambio.
+     */
+    @EventListener
+    public void onCredentialsChanged(UserCredentialsChangedEvent event) {
+        if (event.getReason() == UserCredentialsChangedEvent.Reason.PASSWORD_CHANGED) {
+            bumpCredentialVersion(event.getEmail());
+        }
+    }
+
+    /**
+     * Tamaño de las estructuras en memoria.
+     * @return revokedTokens y credentialVersions
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("revokedTokens", revoked.size());
+        stats.put("credentialVersions", versions.size());
+        return stats;
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,29 @@
+package com.gym.gym_management.service;
+
+/**
+ * Evento publicado cuando se crea un usuario o cambian sus credenciales (cambio o recuperación de contraseña).
+ * Lo escuchan la caché de usuarios del filtro JWT, para descartar la entrada del usuario, y
+ * {@link TokenRevocationService}, que ante un cambio de contraseña invalida los tokens ya emitidos.
+ */
+public class UserCredentialsChangedEvent {
+
+    /** Motivo del evento. */
+    public enum Reason {
+        /** Alta de usuario. */
+        CREATED,
+        /** Cambio o recuperación de contraseña. */
+        PASSWORD_CHANGED
+    }
+
+    private final String email;
+    private final Reason reason;
+
+    public UserCredentialsChangedEvent(String email, Reason reason) {
+        this.email = email;
+        this.reason = reason;
+    }
+
+    public String getEmail() { return email; }
+
+    public Reason getReason() { return reason; }
+}
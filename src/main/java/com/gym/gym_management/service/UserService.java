@@ -6,6 +6,7 @@ import com.gym.gym_management.model.Role;
 import com.gym.gym_management.model.User;
 import com.gym.gym_management.repository.IUserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -37,13 +38,18 @@ public class UserService {
     // Codificador de contraseñas para almacenar passwords de forma segura.
     private final PasswordEncoder passwordEncoder;
 
+    // Avisa a la caché de usuarios del filtro JWT cuando cambian credenciales.
+    private final ApplicationEventPublisher eventPublisher;
+
     /**
      * Constructor con inyección de dependencias.
      */
     @Autowired
-    public UserService(IUserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(IUserRepository userRepository, PasswordEncoder passwordEncoder,
+                       ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -76,6 +82,8 @@ public class UserService {
         }
         user.setRole(role);
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserCredentialsChangedEvent(user.getEmail(),
+                UserCredentialsChangedEvent.Reason.CREATED));
     }
 
     //obtiene todos los usuarios registrados en el sistema
@@ -143,5 +151,7 @@ public class UserService {
         // Cambiar la contraseña
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserCredentialsChangedEvent(user.getEmail(),
+                UserCredentialsChangedEvent.Reason.PASSWORD_CHANGED));
     }
 }
@@ -0,0 +1,10 @@
+-- Objetos de esquema que JPA no puede expresar con anotaciones.
+-- Se ejecuta después de que Hibernate crea las tablas (spring.jpa.defer-datasource-initialization=true)
+-- y antes de data.sql.
+
+-- Un único pago válido (no anulado) por cliente y período. Garantiza la idempotencia del registro de pagos
+-- aun con envíos concurrentes desde dos recepciones; el INSERT ... ON CONFLICT DO NOTHING de
+-- PaymentJdbcRepository usa este índice como árbitro del conflicto.
+CREATE UNIQUE INDEX IF NOT EXISTS ux_payments_client_period_valid
+    ON payments (client_id, period_month, period_year)
+    WHERE NOT voided;
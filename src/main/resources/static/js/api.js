@@ -1,4 +1,82 @@
-export async function apiFetch(path, options = {}) {
+// Caché de respuestas GET con ETag (por ruta, acotada y LRU): se reenvía la ETag en If-None-Match y,
+// si el servidor responde 304, se reutiliza el cuerpo guardado sin volver a descargarlo.
+const ETAG_CACHE_MAX = 50;
+const etagCache = new Map();
+
+// Renovación en curso del token (compartida: varias peticiones con 401 simultáneas esperan la misma).
+let refreshInFlight = null;
+
+/**
+ * Renueva el token JWT con el refresh token guardado. El refresh token es de un solo uso y se comparte entre
+ * pestañas por localStorage, así que la renovación se serializa entre pestañas con Web Locks (si el navegador
+ * lo soporta): si al obtener el lock el token ya cambió, otra pestaña renovó y se usa ese.
+ * Presentar un refresh token ya usado cierra la sesión en el servidor; solo si dos renovaciones llegan
+ * exactamente a la vez (sin Web Locks) la que pierde recibe 409 y toma el token que guardó la otra.
+ * @param {string|null} staleToken token con el que la petición recibió 401
+ * @returns {Promise<boolean>} true si hay un token nuevo
+ */
+function refreshSession(staleToken) {
+    if (!refreshInFlight) {
+        const run = () => doRefresh(staleToken);
+        const task = navigator.locks ? navigator.locks.request('gym-refresh-token', run) : run();
+        refreshInFlight = task.finally(() => { refreshInFlight = null; });
+    }
+    return refreshInFlight;
+}
+
+async function doRefresh(staleToken) {
+    if (localStorage.getItem('token') !== staleToken) return true; // otra pestaña ya renovó
+    const refreshToken = localStorage.getItem('refreshToken');
+    if (!refreshToken) return false;
+    try {
+        const response = await fetch('/auth/refresh', {
+            method: 'POST',
+            headers: { 'Content-Type': 'application/json' },
+            body: JSON.stringify({ refreshToken })
+        });
+        if (response.status === 409) {
+            // Otra pestaña usó el mismo refresh token: se espera a que guarde el suyo
+            for (let i = 0; i < 10 && localStorage.getItem('refreshToken') === refreshToken; i++) {
+                await new Promise(r => setTimeout(r, 200));
+            }
+            return localStorage.getItem('refreshToken') !== refreshToken;
+        }
+        if (!response.ok) {
+            localStorage.removeItem('refreshToken');
+            return false;
+        }
+        const data = await response.json();
+        localStorage.setItem('token', data.token);
+        localStorage.setItem('refreshToken', data.refreshToken);
+        return true;
+    } catch (err) {
+        return false;
+    }
+}
+
+/**
+ * Cierra la sesión en el servidor (revoca el token y el refresh token) y la borra del navegador.
+ */
+export async function logoutSession() {
+    const token = localStorage.getItem('token');
+    const refreshToken = localStorage.getItem('refreshToken');
+    try {
+        await fetch('/auth/logout', {
+            method: 'POST',
+            headers: {
+                'Content-Type': 'application/json',
+                ...(token ? { 'Authorization': `Bearer ${token}` } : {})
+            },
+            body: JSON.stringify({ refreshToken })
+        });
+    } catch (err) {
+        // Sin conexión: igual se borra la sesión local
+    }
+    localStorage.removeItem('token');
+    localStorage.removeItem('refreshToken');
+}
+
+export async function apiFetch(path, options = {}, retried = false) {
     //Permite desactivar redirección en 401 para manejar el error en el caller
     const { noRedirectOn401, ...rest } = options;
 
@@ -18,11 +96,47 @@ export async function apiFetch(path, options = {}) {
         opts.headers['Authorization'] = `Bearer ${token}`;
     }
 
+    // GET condicional: si ya tenemos una respuesta con ETag para esta ruta, se pide solo si cambió.
+    // cache: 'no-store' evita que el caché HTTP del navegador responda por su cuenta y oculte el 304.
+    const method = (opts.method || 'GET').toUpperCase();
+    const cached = method === 'GET' ? etagCache.get(path) : undefined;
+    if (method === 'GET') {
+        opts.cache = 'no-store';
+        if (cached && !opts.headers['If-None-Match']) {
+            opts.headers['If-None-Match'] = cached.etag;
+        }
+    }
+
     //Ejecuta la llamada HTTP usando fetch con la ruta y las opciones.
     const response = await fetch(path, opts);
 
-    // si el servidor responde con 401 unauthorized y no se desactivó la redirección,
-    // significa que el token no es válido o expiró → volver al login.
+    if (method === 'GET') {
+        if (response.status === 304 && cached) {
+            etagCache.delete(path);
+            etagCache.set(path, cached);
+            return new Response(cached.body, { status: 200, headers: { 'Content-Type': cached.contentType } });
+        }
+        const etag = response.headers.get('ETag');
+        if (response.ok && etag) {
+            etagCache.delete(path);
+            etagCache.set(path, {
+                etag,
+                body: await response.clone().text(),
+                contentType: response.headers.get('Content-Type') || 'application/json'
+            });
+            if (etagCache.size > ETAG_CACHE_MAX) {
+                etagCache.delete(etagCache.keys().next().value);
+            }
+        }
+    }
+
+    // si el servidor responde con 401 el token expiró o no es válido: se intenta renovarlo una vez
+    // con el refresh token y se repite la petición con el token nuevo.
+    if (response.status === 401 && !retried && await refreshSession(token)) {
+        return apiFetch(path, options, true);
+    }
+
+    // si sigue en 401 y no se desactivó la redirección, la sesión terminó → volver al login.
     if (response.status === 401 && !noRedirectOn401) {
         window.location.href = '/index.html';
     }
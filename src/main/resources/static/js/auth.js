@@ -25,10 +25,12 @@ if (form) {
 
           // 5) Si la respuesta es OK (200), significa que el login fue exitoso.
           if (response.ok) {
-              // 5.1) Extrae el token de la respuesta JSON.
-              const { token } = await response.json();
-              // 5.2) Guarda el token en localStorage para usarlo en futuras peticiones.
+              // 5.1) Extrae el token y el refresh token de la respuesta JSON.
+              const { token, refreshToken } = await response.json();
+              // 5.2) Guarda ambos en localStorage: el token para las peticiones y el refresh token
+              //      para renovarlo cuando expire (ver apiFetch en api.js).
               localStorage.setItem('token', token);
+              localStorage.setItem('refreshToken', refreshToken);
               // 5.3) Redirige al dashboard del administrador.
               window.location.href = '/admin/dashboard.html';
           } else {
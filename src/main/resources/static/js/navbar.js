@@ -150,7 +150,19 @@ class Navbar {
     // Función para cerrar sesión
     logout() {
         if (confirm('¿Estás seguro que deseas cerrar sesión?')) {
+            // Revoca la sesión en el servidor (token y refresh token); keepalive para que salga aunque se cambie de página
+            const token = localStorage.getItem('token') || sessionStorage.getItem('token');
+            fetch('/auth/logout', {
+                method: 'POST',
+                keepalive: true,
+                headers: {
+                    'Content-Type': 'application/json',
+                    ...(token ? { 'Authorization': `Bearer ${token}` } : {})
+                },
+                body: JSON.stringify({ refreshToken: localStorage.getItem('refreshToken') })
+            }).catch(() => {});
             localStorage.removeItem('token');
+            localStorage.removeItem('refreshToken');
             sessionStorage.removeItem('token');
             localStorage.removeItem('user');
             sessionStorage.removeItem('user');
@@ -160,7 +172,11 @@ class Navbar {
 
     // Actualizar estadísticas del dashboard
     updateDashboardStats() {
-        // Delegar al módulo principal si existe
+        // Delegar al módulo principal si existe (una sola llamada al resumen)
+        if (typeof window.loadDashboardSummary === 'function') {
+            window.loadDashboardSummary();
+            return;
+        }
         if (typeof window.loadDashboardStats === 'function') {
             window.loadDashboardStats();
         }
@@ -5,7 +5,7 @@
  * como apiFetch, manteniendo el código más organizado y seguro.
  * Los scripts clásicos no permiten imports y pueden causar errores de dependencias.
  */
-import { apiFetch, registerAdmin, getAdmins, changePassword } from './api.js';
+import { apiFetch, registerAdmin, getAdmins, changePassword, logoutSession } from './api.js';
 
 /* ============================================================================
  * UI / Frontend Admin Panel
@@ -162,8 +162,7 @@ function showSection(sectionId, skipAuto = false) {
     if (sec) sec.style.display = 'block';
 
     if (sectionId === 'dashboard') {
-        loadDashboardStats(); // Recargar estadísticas cada vez que se muestra el dashboard
-        loadRecentActivities(); // Recargar actividades recientes cada vez que se muestra el dashboard
+        loadDashboardSummary(); // Recargar estadísticas y actividades cada vez que se muestra el dashboard
     }
     if (sectionId === 'clients') loadClients();
     if (sectionId === 'payments') {
@@ -179,8 +178,9 @@ function showSection(sectionId, skipAuto = false) {
     }
 }
 
-function logout() {
-    localStorage.removeItem('token');
+async function logout() {
+    // Revoca la sesión en el servidor (token y refresh token) antes de salir
+    await logoutSession();
     window.location.href = '/index.html';
 }
 
@@ -1092,9 +1092,9 @@ async function showPaymentForm() {
 // hasExpiration decide si renderiza columna “Fecha de expiración”.
 async function getExpiringReport() {
     try {
-        const response = await apiFetch('/api/reports/expiring');
-        const clients = await response.json();
-        showReportResults('Pagos por Vencer (7 días)', clients);
+        const response = await apiFetch('/api/reports/expiring?days=7&size=200');
+        const page = await response.json();
+        showReportResults('Pagos por Vencer (7 días)', page.content || []);
     } catch (error) {
         console.error('Error al cargar reporte:', error);
     }
@@ -1102,9 +1102,9 @@ async function getExpiringReport() {
 
 async function getOverdueReport() {
     try {
-        const response = await apiFetch('/api/reports/overdue');
-        const clients = await response.json();
-        showReportResults('Pagos Vencidos', clients);
+        const response = await apiFetch('/api/reports/overdue?direction=desc&size=200');
+        const page = await response.json();
+        showReportResults('Pagos Vencidos', page.content || []);
     } catch (error) {
         console.error('Error al cargar reporte:', error);
     }
@@ -1143,19 +1143,20 @@ async function loadReportSummary() {
 
     try {
         // vencidos (conteo)
-        const overdueRes = await apiFetch('/api/reports/overdue');
+        const overdueRes = await apiFetch('/api/reports/overdue?size=1');
         if (overdueRes && overdueRes.ok && expiredEl) {
-            const list = await overdueRes.json();
-            expiredEl.textContent = Array.isArray(list) ? String(list.length) : '0';
+            const page = await overdueRes.json();
+            expiredEl.textContent = String(page.totalElements || 0);
         }
     } catch (_) { /* noop */ }
 
     try {
         // por vencer (7 días) - ya existe endpoint
-        const expiringRes = await apiFetch('/api/reports/expiring');
+        // (respuesta paginada: basta con totalElements de una página de tamaño 1)
+        const expiringRes = await apiFetch('/api/reports/expiring?days=7&size=1');
         if (expiringRes && expiringRes.ok && expiringEl) {
-            const list = await expiringRes.json();
-            expiringEl.textContent = Array.isArray(list) ? String(list.length) : '0';
+            const page = await expiringRes.json();
+            expiringEl.textContent = String(page.totalElements || 0);
         }
     } catch (_) { /* noop */ }
 
@@ -1385,91 +1386,167 @@ function hideConfirmation() {
 // ===================== Dashboard =====================
 // loadDashboardStats / loadRecentActivities: llamadas independientes para que un fallo no afecte la otra.
 // Diseño tolerante: placeholders '--' o mensajes de error contextual.
+// Luego de la carga inicial, connectDashboardStream mantiene ambos bloques actualizados en vivo.
+const DASHBOARD_ACTIVITY_LIMIT = 6;
+let dashboardActivities = [];
+
+function renderDashboardStats(stats) {
+    const activeEl = document.getElementById('active-clients-count');
+    const pendingEl = document.getElementById('pending-payments-count');
+    const { activeClients, expiredPayments } = stats || {};
+    if (activeEl) activeEl.textContent = String(activeClients ?? '--');
+    if (pendingEl) pendingEl.textContent = String(expiredPayments ?? '--');
+}
+
 async function loadDashboardStats() {
     try {
         const response = await apiFetch('/api/dashboard/stats');
-        const activeEl = document.getElementById('active-clients-count');
-        const pendingEl = document.getElementById('pending-payments-count');
         if (response && response.ok) {
-            const { activeClients, expiredPayments } = await response.json();
-            if (activeEl) activeEl.textContent = String(activeClients ?? '--');
-            if (pendingEl) pendingEl.textContent = String(expiredPayments ?? '--');
+            renderDashboardStats(await response.json());
         } else {
-            if (activeEl) activeEl.textContent = '--';
-            if (pendingEl) pendingEl.textContent = '--';
+            renderDashboardStats(null);
         }
     } catch (_) {
-        const activeEl = document.getElementById('active-clients-count');
-        const pendingEl = document.getElementById('pending-payments-count');
-        if (activeEl) activeEl.textContent = '--';
-        if (pendingEl) pendingEl.textContent = '--';
+        renderDashboardStats(null);
+    }
+}
+
+function renderActivityMessage(title, time) {
+    const list = document.getElementById('recent-activity-list');
+    if (!list) return;
+    list.innerHTML = `
+        <div class="activity-item">
+            <div class="activity-indicator new-client"></div>
+            <div class="activity-content">
+                <span class="activity-title">${title}</span>
+                <span class="activity-time">${time}</span>
+            </div>
+        </div>
+    `;
+}
+
+function renderRecentActivities(activities) {
+    const list = document.getElementById('recent-activity-list');
+    if (!list) return;
+    dashboardActivities = (activities || []).slice(0, DASHBOARD_ACTIVITY_LIMIT);
+    if (dashboardActivities.length === 0) {
+        renderActivityMessage('No hay actividades recientes', 'Últimos 7 días');
+        return;
     }
+    list.innerHTML = dashboardActivities.map(a => {
+        const cls = getActivityClass(a.type);
+        const timeAgo = formatTimeAgo(a.timestamp);
+        return `
+            <div class="activity-item">
+                <div class="activity-indicator ${cls}"></div>
+                <div class="activity-content">
+                    <span class="activity-title">${a.title}</span>
+                    <span class="activity-time">${timeAgo}</span>
+                </div>
+            </div>
+        `;
+    }).join('');
 }
 
 async function loadRecentActivities() {
     try {
-        const response = await apiFetch('/api/dashboard/activities?limit=6');
-        const list = document.getElementById('recent-activity-list');
-        if (!list) return;
+        const response = await apiFetch(`/api/dashboard/activities?limit=${DASHBOARD_ACTIVITY_LIMIT}`);
         if (response && response.ok) {
-            const activities = await response.json();
-            if (!activities || activities.length === 0) {
-                list.innerHTML = `
-                    <div class="activity-item">
-                        <div class="activity-indicator new-client"></div>
-                        <div class="activity-content">
-                            <span class="activity-title">No hay actividades recientes</span>
-                            <span class="activity-time">Últimos 7 días</span>
-                        </div>
-                    </div>
-                `;
-                return;
-            }
-            list.innerHTML = activities.map(a => {
-                const cls = getActivityClass(a.type);
-                const timeAgo = formatTimeAgo(a.timestamp);
-                return `
-                    <div class="activity-item">
-                        <div class="activity-indicator ${cls}"></div>
-                        <div class="activity-content">
-                            <span class="activity-title">${a.title}</span>
-                            <span class="activity-time">${timeAgo}</span>
-                        </div>
-                    </div>
-                `;
-            }).join('');
+            renderRecentActivities(await response.json());
         } else {
-            list.innerHTML = `
-                <div class="activity-item">
-                    <div class="activity-indicator new-client"></div>
-                    <div class="activity-content">
-                        <span class="activity-title">Error al cargar actividades</span>
-                        <span class="activity-time">Intenta recargar la página</span>
-                    </div>
-                </div>
-            `;
+            renderActivityMessage('Error al cargar actividades', 'Intenta recargar la página');
         }
     } catch (_) {
-        const list = document.getElementById('recent-activity-list');
-        if (list) {
-            list.innerHTML = `
-                <div class="activity-item">
-                    <div class="activity-indicator new-client"></div>
-                    <div class="activity-content">
-                        <span class="activity-title">Error al cargar actividades</span>
-                        <span class="activity-time">Intenta recargar la página</span>
-                    </div>
-                </div>
-            `;
+        renderActivityMessage('Error al cargar actividades', 'Intenta recargar la página');
+    }
+}
+
+// Carga inicial en una sola llamada (/api/dashboard/summary). Si el resumen llega parcial, solo las
+// secciones que faltan se piden por separado.
+async function loadDashboardSummary() {
+    try {
+        const response = await apiFetch(`/api/dashboard/summary?activities=${DASHBOARD_ACTIVITY_LIMIT}`);
+        if (!response || !response.ok) throw new Error('summary');
+        const summary = await response.json();
+        if (summary.stats) renderDashboardStats(summary.stats); else loadDashboardStats();
+        if (summary.activities) renderRecentActivities(summary.activities); else loadRecentActivities();
+    } catch (_) {
+        loadDashboardStats();
+        loadRecentActivities();
+    }
+}
+
+// Stream en vivo (SSE) de /api/dashboard/stream. EventSource no permite enviar el header Authorization,
+// por eso se lee la respuesta con fetch. Si la conexión se corta (o el servidor la cierra por lenta o porque
+// venció el token), se reintenta con espera creciente; al reconectar el servidor reenvía el estado completo.
+let dashboardStreamActive = false;
+
+async function connectDashboardStream(retryMs = 2000) {
+    if (dashboardStreamActive) return;
+    dashboardStreamActive = true;
+    let nextRetry = Math.min(retryMs * 2, 30000);
+    try {
+        const response = await apiFetch('/api/dashboard/stream', { headers: { 'Accept': 'text/event-stream' } });
+        if (response && response.ok && response.body) {
+            nextRetry = 2000;
+            const reader = response.body.getReader();
+            const decoder = new TextDecoder();
+            let buffer = '';
+            while (true) {
+                const { value, done } = await reader.read();
+                if (done) break;
+                buffer += decoder.decode(value, { stream: true });
+                let idx;
+                while ((idx = buffer.indexOf('\n\n')) >= 0) {
+                    handleDashboardStreamEvent(buffer.slice(0, idx));
+                    buffer = buffer.slice(idx + 2);
+                }
+            }
         }
+    } catch (_) {
+        // desconexión: se reintenta
+    }
+    dashboardStreamActive = false;
+    setTimeout(() => connectDashboardStream(nextRetry), nextRetry);
+}
+
+function handleDashboardStreamEvent(block) {
+    let name = 'message';
+    const data = [];
+    block.split('\n').forEach(line => {
+        if (line.startsWith('event:')) name = line.slice(6).trim();
+        else if (line.startsWith('data:')) data.push(line.slice(5));
+    });
+    if (data.length === 0) return; // heartbeat
+    let payload;
+    try {
+        payload = JSON.parse(data.join('\n'));
+    } catch (_) {
+        return;
+    }
+    if (name === 'stats') {
+        renderDashboardStats(payload);
+    } else if (name === 'activities') {
+        renderRecentActivities(payload);
+    } else if (name === 'activity') {
+        // Tras reconectar puede llegar una actividad ya mostrada: se descarta por id. Una actividad confirmada
+        // tarde puede tener un id menor que otras ya mostradas: se ordena por id, más reciente primero
+        renderRecentActivities([payload, ...dashboardActivities.filter(a => a.id !== payload.id)]
+            .sort((a, b) => (b.id || 0) - (a.id || 0)));
     }
 }
 
 function getActivityClass(type) {
     switch (type) {
         case 'new-client': return 'new-client';
-        case 'payment': return 'payment';
-        case 'expiring': return 'expiring';
+        case 'payment':
+        case 'payments-imported':
+        case 'client-activated':
+        case 'client-resumed': return 'payment';
+        case 'expiring':
+        case 'payment-voided':
+        case 'client-paused':
+        case 'client-deactivated': return 'expiring';
         default: return 'new-client';
     }
 }
@@ -1500,8 +1577,8 @@ function formatTimeAgo(timestamp) {
 document.addEventListener('DOMContentLoaded', () => {
     // Si no hay token, la API devolverá 401 y apiFetch redirigirá a /index.html
     loadClients();
-    loadDashboardStats(); // Cargar estadísticas del dashboard
-    loadRecentActivities(); // Cargar actividades recientes del dashboard
+    loadDashboardSummary(); // Cargar estadísticas y actividades del dashboard
+    connectDashboardStream(); // Mantener el dashboard actualizado en vivo
 
     const stateSel = document.getElementById('payment-state');
     if (stateSel) stateSel.addEventListener('change', filterPayments);
@@ -1554,6 +1631,7 @@ window.voidPayment = voidPayment;
 window.loadAdmins = loadAdmins;
 
 // exponer cargadores del dashboard para que navbar.js delegue correctamente
+window.loadDashboardSummary = loadDashboardSummary;
 window.loadDashboardStats = loadDashboardStats;
 window.loadRecentActivities = loadRecentActivities;
 window.loadReportSummary = loadReportSummary;
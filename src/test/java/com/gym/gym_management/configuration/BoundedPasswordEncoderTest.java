@@ -0,0 +1,86 @@
+package com.gym.gym_management.configuration;
+
+import com.gym.gym_management.service.PasswordHashingBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedPasswordEncoderTest {
+
+    private BoundedPasswordEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        encoder = new BoundedPasswordEncoder(4, 1, 1, 2000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        encoder.shutdown();
+    }
+
+    @Test
+    void encodeAndMatches_runOnPool_andRecordLatency() {
+        String hash = encoder.encode("secreta");
+
+        assertThat(hash).startsWith("$2a$04$");
+        assertThat(encoder.matches("secreta", hash)).isTrue();
+        assertThat(encoder.matches("otra", hash)).isFalse();
+        assertThat(encoder.stats()).containsEntry("completed", 3L).containsEntry("threads", 1);
+    }
+
+    @Test
+    void upgradeEncoding_whenStoredCostDiffers() {
+        String cost4 = encoder.encode("secreta");
+        String cost5 = new BCryptPasswordEncoder(5).encode("secreta");
+
+        assertThat(encoder.upgradeEncoding(cost4)).isFalse();
+        assertThat(encoder.upgradeEncoding(cost5)).isTrue();
+        assertThat(encoder.upgradeEncoding("texto-plano")).isFalse();
+        assertThat(encoder.upgradeEncoding(null)).isFalse();
+    }
+
+    @Test
+    void saturatedPool_rejectsFast() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+        // Un pedido ocupa el único hilo y otro la única posición de la cola
+        Thread busy = new Thread(() -> encoder.run(() -> { running.countDown(); return release.await(5, TimeUnit.SECONDS); }));
+        busy.start();
+        assertThat(running.await(2, TimeUnit.SECONDS)).isTrue();
+        Thread queued = new Thread(() -> encoder.run(() -> true));
+        queued.start();
+        while ((Integer) encoder.stats().get("queueDepth") < 1) {
+            Thread.sleep(5);
+        }
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> encoder.matches("secreta", "$2a$04$abcdefghijklmnopqrstuu"))
+                .isInstanceOf(PasswordHashingBusyException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(500);
+        assertThat(encoder.stats()).containsEntry("rejected", 1L);
+
+        release.countDown();
+        busy.join();
+        queued.join();
+    }
+
+    @Test
+    void waitingTooLong_isRejected() throws Exception {
+        encoder.shutdown();
+        encoder = new BoundedPasswordEncoder(4, 1, 1, 50);
+        CountDownLatch release = new CountDownLatch(1);
+
+        assertThatThrownBy(() -> encoder.run(() -> release.await(5, TimeUnit.SECONDS)))
+                .isInstanceOf(PasswordHashingBusyException.class);
+        assertThat(encoder.stats()).containsEntry("timeouts", 1L);
+        release.countDown();
+    }
+}
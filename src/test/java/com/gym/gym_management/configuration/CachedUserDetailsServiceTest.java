@@ -0,0 +1,99 @@
+package com.gym.gym_management.configuration;
+
+import com.gym.gym_management.model.User;
+import com.gym.gym_management.repository.IUserRepository;
+import com.gym.gym_management.service.UserCredentialsChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CachedUserDetailsServiceTest {
+
+    @Mock private IUserRepository userRepository;
+
+    private CachedUserDetailsService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new CachedUserDetailsService(userRepository, 300, 2);
+    }
+
+    @Test
+    void loadUserByUsername_readsDatabaseOnce_thenServesFromCache() {
+        given(userRepository.findByEmail("admin@gym.com")).willReturn(Optional.of(user("admin@gym.com")));
+
+        UserDetails first = service.loadUserByUsername("admin@gym.com");
+        UserDetails second = service.loadUserByUsername("admin@gym.com");
+
+        assertThat(second).isSameAs(first);
+        verify(userRepository, times(1)).findByEmail("admin@gym.com");
+        assertThat(service.stats()).containsEntry("hits", 1L).containsEntry("misses", 1L);
+    }
+
+    @Test
+    void credentialsChanged_evictsUser_soNextLoadReadsDatabase() {
+        given(userRepository.findByEmail("admin@gym.com")).willReturn(Optional.of(user("admin@gym.com")));
+        service.loadUserByUsername("admin@gym.com");
+
+        service.onCredentialsChanged(new UserCredentialsChangedEvent("admin@gym.com", UserCredentialsChangedEvent.Reason.PASSWORD_CHANGED));
+        service.loadUserByUsername("admin@gym.com");
+
+        verify(userRepository, times(2)).findByEmail("admin@gym.com");
+        assertThat(service.stats()).containsEntry("invalidations", 1L);
+    }
+
+    @Test
+    void unknownUser_isNotCached() {
+        given(userRepository.findByEmail("nadie@gym.com")).willReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.loadUserByUsername("nadie@gym.com")).isInstanceOf(UsernameNotFoundException.class);
+        assertThatThrownBy(() -> service.loadUserByUsername("nadie@gym.com")).isInstanceOf(UsernameNotFoundException.class);
+
+        verify(userRepository, times(2)).findByEmail("nadie@gym.com");
+        assertThat(service.stats()).containsEntry("entries", 0);
+    }
+
+    @Test
+    void cache_isBounded() {
+        for (String email : new String[]{"a@gym.com", "b@gym.com", "c@gym.com"}) {
+            given(userRepository.findByEmail(email)).willReturn(Optional.of(user(email)));
+            service.loadUserByUsername(email);
+        }
+
+        assertThat((Integer) service.stats().get("entries")).isLessThanOrEqualTo(2);
+        assertThat((Long) service.stats().get("evictions")).isPositive();
+    }
+
+    @Test
+    void updatePassword_savesRehashedPassword_andEvictsUser() {
+        User stored = user("admin@gym.com");
+        given(userRepository.findByEmail("admin@gym.com")).willReturn(Optional.of(stored));
+        service.loadUserByUsername("admin@gym.com");
+
+        UserDetails updated = service.updatePassword(stored, "nuevo-hash");
+
+        assertThat(updated.getPassword()).isEqualTo("nuevo-hash");
+        verify(userRepository).save(stored);
+        assertThat(service.stats()).containsEntry("entries", 0).containsEntry("invalidations", 1L);
+    }
+
+    private static User user(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("hash");
+        return user;
+    }
+}
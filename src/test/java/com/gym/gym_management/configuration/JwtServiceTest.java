@@ -0,0 +1,99 @@
+package com.gym.gym_management.configuration;
+
+import com.gym.gym_management.service.TokenRevocationService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtServiceTest {
+
+    private static final String SECRET = "MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWYwMTIzNDU2Nzg5YWJjZGVm";
+
+    private JwtService jwtService;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRET);
+        ReflectionTestUtils.setField(jwtService, "cacheMaxEntries", 2);
+        ReflectionTestUtils.setField(jwtService, "tokenRevocationService", new TokenRevocationService());
+        jwtService.init();
+    }
+
+    @Test
+    void verify_parsesOnce_thenServesClaimsFromCache() {
+        String token = jwtService.generateToken(user("admin@gym.com"));
+
+        Claims first = jwtService.verify(token);
+        Claims second = jwtService.verify(token);
+
+        assertThat(first.getSubject()).isEqualTo("admin@gym.com");
+        assertThat(second).isSameAs(first);
+        assertThat(jwtService.cacheStats()).containsEntry("hits", 1L).containsEntry("misses", 1L);
+        assertThat(jwtService.isTokenValid(first, user("admin@gym.com"))).isTrue();
+        assertThat(jwtService.isTokenValid(first, user("otro@gym.com"))).isFalse();
+    }
+
+    @Test
+    void generateToken_embedsIdRolesAndCredentialVersion_forStatelessAuthentication() {
+        UserDetails admin = new User("admin@gym.com", "x", List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+
+        Claims claims = jwtService.verify(jwtService.generateToken(admin));
+
+        assertThat(claims.getId()).isNotBlank();
+        assertThat(claims.get(TokenRevocationService.VERSION_CLAIM, Integer.class)).isZero();
+        UserDetails principal = jwtService.toUserDetails(claims);
+        assertThat(principal.getUsername()).isEqualTo("admin@gym.com");
+        assertThat(principal.getAuthorities()).extracting("authority").containsExactly("ROLE_ADMIN");
+    }
+
+    @Test
+    void verify_rejectsTamperedToken_andDoesNotCacheIt() {
+        String token = jwtService.generateToken(user("admin@gym.com"));
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertThatThrownBy(() -> jwtService.verify(tampered)).isInstanceOf(JwtException.class);
+        assertThat(jwtService.cacheStats()).containsEntry("entries", 0);
+    }
+
+    @Test
+    void verify_rejectsExpiredToken() {
+        String expired = Jwts.builder()
+                .setSubject("admin@gym.com")
+                .setIssuedAt(new Date(System.currentTimeMillis() - 120_000))
+                .setExpiration(new Date(System.currentTimeMillis() - 60_000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThatThrownBy(() -> jwtService.verify(expired)).isInstanceOf(ExpiredJwtException.class);
+    }
+
+    @Test
+    void cache_isBounded() {
+        jwtService.verify(jwtService.generateToken(user("a@gym.com")));
+        jwtService.verify(jwtService.generateToken(user("b@gym.com")));
+        jwtService.verify(jwtService.generateToken(user("c@gym.com")));
+
+        assertThat((Integer) jwtService.cacheStats().get("entries")).isLessThanOrEqualTo(2);
+    }
+
+    private static UserDetails user(String email) {
+        return new User(email, "x", List.of());
+    }
+}
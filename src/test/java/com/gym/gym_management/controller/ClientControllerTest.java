@@ -4,11 +4,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.gym.gym_management.controller.dto.ClientDTO;
 import com.gym.gym_management.model.PaymentState;
 import com.gym.gym_management.service.ClientService;
+import com.gym.gym_management.service.DataChangedEvent;
+import com.gym.gym_management.service.DataVersionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
@@ -28,6 +31,7 @@ class ClientControllerTest {
     private MockMvc mockMvc;
 
     @Mock private ClientService clientService;
+    @Spy private DataVersionService dataVersionService = new DataVersionService();
     @InjectMocks private ClientController controller;
 
     private final ObjectMapper mapper = new ObjectMapper();
@@ -174,4 +178,26 @@ class ClientControllerTest {
         verify(clientService, never()).search(any(), any(), any());
         verify(clientService, never()).findAll();
     }
+
+    @Test
+    void listaClientes_conIfNoneMatchVigenteDevuelve304SinConsultar() throws Exception {
+        when(clientService.findAll()).thenReturn(List.of(sample(1, "A", true)));
+
+        String etag = mockMvc.perform(get("/api/clients"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/clients").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        verify(clientService, times(1)).findAll();
+
+        // Un cambio confirmado sobre clientes invalida la ETag
+        dataVersionService.onDataChanged(DataChangedEvent.client(DataChangedEvent.Kind.CLIENT_CHANGED, 1L, null));
+        mockMvc.perform(get("/api/clients").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1));
+        verify(clientService, times(2)).findAll();
+    }
 }
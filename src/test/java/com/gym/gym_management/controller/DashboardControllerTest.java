@@ -1,22 +1,34 @@
 package com.gym.gym_management.controller;
 
+import com.gym.gym_management.configuration.JwtService;
 import com.gym.gym_management.controller.dto.ActivityDto;
+import com.gym.gym_management.controller.dto.DashboardStatsDto;
+import com.gym.gym_management.controller.dto.DashboardSummaryDto;
 import com.gym.gym_management.service.ActivityService;
-import com.gym.gym_management.service.ClientService;
-import com.gym.gym_management.service.PaymentService;
+import com.gym.gym_management.service.DashboardCounters;
+import com.gym.gym_management.service.DashboardStream;
+import com.gym.gym_management.service.DashboardStreamFullException;
+import com.gym.gym_management.service.DashboardSummaryService;
+import com.gym.gym_management.service.DataVersionService;
+import io.jsonwebtoken.Claims;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -25,9 +37,12 @@ class DashboardControllerTest {
 
     private MockMvc mockMvc;
 
-    @Mock private ClientService clientService;
-    @Mock private PaymentService paymentService;
     @Mock private ActivityService activityService;
+    @Mock private DashboardCounters dashboardCounters;
+    @Mock private DashboardStream dashboardStream;
+    @Mock private DashboardSummaryService dashboardSummaryService;
+    @Spy private DataVersionService dataVersionService = new DataVersionService();
+    @Mock private JwtService jwtService;
 
     @InjectMocks private DashboardController controller;
 
@@ -38,13 +53,16 @@ class DashboardControllerTest {
 
     @Test
     void stats_returnsCounts() throws Exception {
-        given(clientService.countActiveClients()).willReturn(3L);
-        given(paymentService.countExpiredPayments()).willReturn(1L);
+        given(dashboardCounters.snapshot()).willReturn(new DashboardStatsDto(3L, 1L, 2L, 4L, 1500.5, 1L));
 
         mockMvc.perform(get("/api/dashboard/stats"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.activeClients").value(3))
-                .andExpect(jsonPath("$.expiredPayments").value(1));
+                .andExpect(jsonPath("$.expiredPayments").value(1))
+                .andExpect(jsonPath("$.expiredMemberships").value(2))
+                .andExpect(jsonPath("$.expiringThisWeek").value(4))
+                .andExpect(jsonPath("$.revenueThisMonth").value(1500.5))
+                .andExpect(jsonPath("$.newMembersThisWeek").value(1));
     }
 
     @Test
@@ -56,4 +74,49 @@ class DashboardControllerTest {
                 .andExpect(jsonPath("$[0].type").value("payment"))
                 .andExpect(jsonPath("$[0].relatedId").value(10));
     }
+
+    @Test
+    void stream_startsAsyncEventStream() throws Exception {
+        given(dashboardStream.subscribe(null)).willReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/dashboard/stream").accept("text/event-stream"))
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    void stream_passesTokenExpiration() throws Exception {
+        Date exp = new Date(System.currentTimeMillis() + 60_000);
+        Claims claims = mock(Claims.class);
+        given(claims.getExpiration()).willReturn(exp);
+        given(jwtService.verify("tok")).willReturn(claims);
+        given(dashboardStream.subscribe(exp)).willReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/dashboard/stream").header("Authorization", "Bearer tok").accept("text/event-stream"))
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    void stream_full_returns503() throws Exception {
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).setControllerAdvice(new GlobalExceptionHandler()).build();
+        given(dashboardStream.subscribe(null)).willThrow(new DashboardStreamFullException("lleno"));
+
+        mockMvc.perform(get("/api/dashboard/stream").accept("text/event-stream"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists("Retry-After"));
+    }
+
+    @Test
+    void summary_returnsSectionsAndPartialFlag() throws Exception {
+        var stats = new DashboardStatsDto(3L, 1L, 2L, 4L, 1500.5, 1L);
+        given(dashboardSummaryService.getSummary(6, 7, 10)).willReturn(
+                new DashboardSummaryDto(stats, List.of(), null, null, List.of(), 0L, Map.of("expiring", "timeout")));
+
+        mockMvc.perform(get("/api/dashboard/summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stats.activeClients").value(3))
+                .andExpect(jsonPath("$.partial").value(true))
+                .andExpect(jsonPath("$.failedSections.expiring").value("timeout"))
+                .andExpect(jsonPath("$.overdueTotal").value(0))
+                .andExpect(header().doesNotExist("ETag"));
+    }
 }
@@ -4,12 +4,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.gym.gym_management.controller.dto.PaymentDTO;
 import com.gym.gym_management.model.PaymentMethod;
+import com.gym.gym_management.service.DataVersionService;
 import com.gym.gym_management.service.PaymentService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
@@ -30,6 +32,7 @@ class PaymentControllerTest {
     private MockMvc mockMvc;
 
     @Mock private PaymentService paymentService;
+    @Spy private DataVersionService dataVersionService = new DataVersionService();
     @InjectMocks private PaymentController controller;
 
     private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
@@ -11,6 +11,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
@@ -20,6 +22,8 @@ import org.springframework.test.context.TestPropertySource;
 import java.time.LocalDate;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -45,6 +49,9 @@ class PaymentFilterIntegrationTest {
     @Autowired private IClientRepository clientRepository;
     @Autowired private ObjectMapper objectMapper;
 
+    @MockBean
+    private JavaMailSender javaMailSender; // evitar dependencia real de SMTP
+
     private Long clientUpToDateId;
     private Long clientExpiredId;
     private Long clientVoidedId;
@@ -141,6 +148,53 @@ class PaymentFilterIntegrationTest {
         assertThat(content).hasSize(3);
     }
 
+    @Test
+    @DisplayName("Modo cursor recorre todas las páginas sin total y en orden paymentDate DESC")
+    void modoCursorRecorrePaginas() throws Exception {
+        JsonNode first = getJson("/api/payments?withTotal=false&size=2");
+        assertThat(first.get("content")).hasSize(2);
+        assertThat(first.get("hasNext").asBoolean()).isTrue();
+        assertThat(first.has("totalElements")).isFalse();
+        assertThat(first.get("content").get(0).get("clientId").asLong()).isEqualTo(clientUpToDateId);
+        assertThat(first.get("content").get(1).get("clientId").asLong()).isEqualTo(clientVoidedId);
+
+        String cursor = first.get("nextCursor").asText();
+        JsonNode second = getJson("/api/payments?size=2&after=" + cursor);
+        assertThat(second.get("content")).hasSize(1);
+        assertThat(second.get("hasNext").asBoolean()).isFalse();
+        assertThat(second.get("content").get(0).get("clientId").asLong()).isEqualTo(clientExpiredId);
+    }
+
+    @Test
+    @DisplayName("Cursor alterado devuelve 400")
+    void cursorInvalidoDevuelve400() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/payments?after=no-es-un-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Export CSV en streaming aplica los mismos filtros que el listado")
+    void exportCsvAplicaFiltros() throws Exception {
+        MvcResult started = mockMvc.perform(MockMvcRequestBuilders.get("/api/payments/export?state=anulado"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult res = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertThat(res.getResponse().getHeader("Content-Disposition")).contains("attachment").contains(".csv");
+        String[] lines = res.getResponse().getContentAsString().split("\n");
+        assertThat(lines).hasSize(2); // cabecera + pago anulado
+        assertThat(lines[0]).startsWith("id,clientId,");
+        assertThat(lines[1]).contains("Valeria").contains("VOIDED");
+    }
+
+    private JsonNode getJson(String url) throws Exception {
+        MvcResult res = mockMvc.perform(MockMvcRequestBuilders.get(url))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(res.getResponse().getContentAsString());
+    }
+
     private JsonNode queryState(String state) throws Exception {
         String url = "/api/payments?state=" + state + "&size=20";
         MvcResult res = mockMvc.perform(MockMvcRequestBuilders.get(url))
@@ -0,0 +1,121 @@
+package com.gym.gym_management.repository;
+
+import com.gym.gym_management.model.Client;
+import com.gym.gym_management.model.ClientMembershipStatus;
+import com.gym.gym_management.model.NotificationLog;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reporte de vencidos sobre el estado materializado ({@code findActiveOverdue}):
+ * - Solo clientes activos con expiración anterior a la fecha de referencia
+ * - Orden por los alias {@code expirationDate} / {@code clientId} que arma ReportService
+ * - Indicador de recordatorio enviado (solo notificaciones SENT del último pago válido)
+ * - Cantidad fija de sentencias: la página y su COUNT
+ */
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ClientMembershipStatusRepositoryTest {
+
+    @Autowired
+    private IClientMembershipStatusRepository membershipStatusRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final LocalDate hoy = LocalDate.now();
+
+    private Client masAntiguo;
+    private Client empatado;
+    private Client reciente;
+
+    @BeforeEach
+    void setUp() {
+        masAntiguo = cliente("antiguo@test.com", true, 101L, hoy.minusDays(10));
+        empatado = cliente("empatado@test.com", true, 103L, hoy.minusDays(10));
+        reciente = cliente("reciente@test.com", true, 102L, hoy.minusDays(3));
+        cliente("inactivo@test.com", false, 104L, hoy.minusDays(20));
+        cliente("aldia@test.com", true, 105L, hoy.plusDays(5));
+        cliente("vencehoy@test.com", true, 106L, hoy);
+        notificacion(101L, NotificationLog.NotificationStatus.SENT);
+        notificacion(102L, NotificationLog.NotificationStatus.FAILED);
+        entityManager.flush();
+        entityManager.clear();
+        statistics().clear();
+    }
+
+    @Test
+    @DisplayName("Más atrasados primero: orden por expiración y id, recordatorio y total en dos sentencias")
+    void masAtrasadosPrimero_ordenaYDesempataPorId() {
+        Sort sort = Sort.by(Sort.Direction.ASC, "expirationDate").and(Sort.by(Sort.Direction.ASC, "clientId"));
+
+        Page<ClientMembershipReportView> page = membershipStatusRepository.findActiveOverdue(hoy, PageRequest.of(0, 2, sort));
+
+        assertThat(page.getContent())
+                .extracting(ClientMembershipReportView::getClientId)
+                .containsExactly(masAntiguo.getId(), empatado.getId());
+        assertThat(page.getContent())
+                .extracting(ClientMembershipReportView::getReminderSent)
+                .containsExactly(true, false);
+        assertThat(page.getContent().get(0).getExpirationDate()).isEqualTo(hoy.minusDays(10));
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(statistics().getPrepareStatementCount())
+                .as("la página y su COUNT, sin consultas por fila")
+                .isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Menos atrasados primero: orden descendente por expiración y segunda página")
+    void menosAtrasadosPrimero_segundaPagina() {
+        Sort sort = Sort.by(Sort.Direction.DESC, "expirationDate").and(Sort.by(Sort.Direction.ASC, "clientId"));
+
+        Page<ClientMembershipReportView> first = membershipStatusRepository.findActiveOverdue(hoy, PageRequest.of(0, 2, sort));
+        Page<ClientMembershipReportView> second = membershipStatusRepository.findActiveOverdue(hoy, PageRequest.of(1, 2, sort));
+
+        assertThat(first.getContent())
+                .extracting(ClientMembershipReportView::getClientId)
+                .containsExactly(reciente.getId(), masAntiguo.getId());
+        assertThat(first.getContent().get(0).getReminderSent()).isFalse();
+        assertThat(second.getContent())
+                .extracting(ClientMembershipReportView::getClientId)
+                .containsExactly(empatado.getId());
+        assertThat(second.getTotalElements()).isEqualTo(3);
+    }
+
+    private Client cliente(String email, boolean activo, Long ultimoPagoId, LocalDate expiracion) {
+        Client c = new Client("Nombre", "Apellido", email, "123");
+        c.setActive(activo);
+        entityManager.persist(c);
+        ClientMembershipStatus status = new ClientMembershipStatus(c.getId());
+        status.apply(ultimoPagoId, expiracion, hoy);
+        entityManager.persist(status);
+        return c;
+    }
+
+    private void notificacion(Long paymentId, NotificationLog.NotificationStatus status) {
+        entityManager.persist(new NotificationLog(paymentId, "x@test.com",
+                NotificationLog.NotificationType.EXPIRATION_REMINDER, status, 3));
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -2,7 +2,6 @@ package com.gym.gym_management.security;
 
 import com.gym.gym_management.controller.PaymentController;
 import com.gym.gym_management.controller.dto.PaymentDTO;
-import com.gym.gym_management.model.PaymentState; // nuevo import
 import com.gym.gym_management.service.PaymentService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -19,8 +18,6 @@ import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 
-import java.time.LocalDate; // nuevo import
-
 import static org.mockito.ArgumentMatchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -60,13 +57,13 @@ class SecurityAccessTest {
     @Test
     @WithMockUser(roles = "ADMIN")
     void endpointPagos_conRolAdminDevuelve200() throws Exception {
-        // Ajustado a la nueva firma: (Long, String, LocalDate, LocalDate, PaymentState, Pageable)
+        // Ajustado a la nueva firma: (Long, String, LocalDate, LocalDate, PaymentState, Pageable); sin filtros llegan null
         Mockito.when(paymentService.findPayments(
-                any(Long.class),
-                any(String.class),
-                any(LocalDate.class),
-                any(LocalDate.class),
-                any(PaymentState.class),
+                isNull(),
+                isNull(),
+                isNull(),
+                isNull(),
+                isNull(),
                 any(Pageable.class)
         )).thenReturn(Page.empty());
 
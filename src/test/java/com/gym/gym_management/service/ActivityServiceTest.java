@@ -1,147 +1,144 @@
 package com.gym.gym_management.service;
 
 import com.gym.gym_management.controller.dto.ActivityDto;
+import com.gym.gym_management.controller.dto.ActivityFeedDTO;
+import com.gym.gym_management.model.ActivityEvent;
 import com.gym.gym_management.model.Client;
 import com.gym.gym_management.model.Payment;
 import com.gym.gym_management.model.PaymentMethod;
-import com.gym.gym_management.repository.IClientRepository;
-import com.gym.gym_management.repository.IPaymentRepository;
+import com.gym.gym_management.repository.IActivityEventRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class ActivityServiceTest {
 
-    @Mock private IClientRepository clientRepository;
-    @Mock private IPaymentRepository paymentRepository;
+    @Mock private IActivityEventRepository activityEventRepository;
 
     @InjectMocks private ActivityService activityService;
 
-    private Client activeClient1;
-    private Client activeClient2;
+    private Client client;
 
     @BeforeEach
     void setUp() {
-        activeClient1 = new Client();
-        activeClient1.setId(1L);
-        activeClient1.setFirstName("Ana");
-        activeClient1.setLastName("García");
-        activeClient1.setEmail("ana@example.com");
-        activeClient1.setStartDate(LocalDate.now().minusDays(2));
-
-        activeClient2 = new Client();
-        activeClient2.setId(2L);
-        activeClient2.setFirstName("Juan");
-        activeClient2.setLastName("Pérez");
-        activeClient2.setEmail("juan@example.com");
-        activeClient2.setStartDate(LocalDate.now().minusDays(5));
+        client = new Client();
+        client.setId(1L);
+        client.setFirstName("Ana");
+        client.setLastName("García");
+        client.setEmail("ana@example.com");
+        client.setStartDate(LocalDate.now());
     }
 
     @Test
-    void getRecentActivities_returnsCombinedSortedAndLimitedActivities() {
-        // recent clients within last 7 days
-        given(clientRepository.findByStartDateAfterOrderByStartDateDesc(LocalDate.now().minusDays(7)))
-                .willReturn(List.of(activeClient1, activeClient2));
-
-        // recent payments within last 7 days
-        Payment pay1 = new Payment();
-        pay1.setId(10L);
-        pay1.setAmount(5000.0);
-        pay1.setMethod(PaymentMethod.CASH);
-        pay1.setPaymentDate(LocalDate.now().minusDays(1));
-        pay1.setClient(activeClient1);
-
-        Payment pay2 = new Payment();
-        pay2.setId(11L);
-        pay2.setAmount(6000.0);
-        pay2.setMethod(PaymentMethod.CREDIT);
-        pay2.setPaymentDate(LocalDate.now().minusDays(4));
-        pay2.setClient(activeClient2);
-
-        given(paymentRepository.findByPaymentDateAfterAndVoidedFalseOrderByPaymentDateDesc(LocalDate.now().minusDays(7)))
-                .willReturn(List.of(pay1, pay2));
-
-        // expiring payments between now and 3 days from now
-        Payment expiring = new Payment();
-        expiring.setId(12L);
-        expiring.setAmount(7000.0);
-        expiring.setMethod(PaymentMethod.DEBIT);
-        expiring.setExpirationDate(LocalDate.now().plusDays(2));
-        expiring.setClient(activeClient1);
-        given(paymentRepository.findByExpirationDateBetweenAndVoidedFalseOrderByExpirationDateAsc(LocalDate.now(), LocalDate.now().plusDays(3)))
-                .willReturn(List.of(expiring));
-
-        List<ActivityDto> list = activityService.getRecentActivities(5);
-
-        assertThat(list).isNotEmpty();
-        // limited to requested size and sorted by timestamp desc
-        assertThat(list.size()).isLessThanOrEqualTo(5);
-        assertThat(list).isSortedAccordingTo((a, b) -> b.getTimestamp().compareTo(a.getTimestamp()));
-        // contains at least one of each type
-        assertThat(list).extracting(ActivityDto::getType).contains("new-client", "payment", "expiring");
+    void getFeed_firstPage_readsOneKeyRange_andReturnsCursor() {
+        given(activityEventRepository.findByIdLessThanOrderByIdDesc(Long.MAX_VALUE, PageRequest.ofSize(3)))
+                .willReturn(events(30L, 29L, 28L));
+
+        ActivityFeedDTO feed = activityService.getFeed(null, 2, null);
+
+        assertThat(feed.getContent()).extracting(ActivityDto::getId).containsExactly(30L, 29L);
+        assertThat(feed.isHasNext()).isTrue();
+        assertThat(feed.getNextCursor()).isEqualTo(29L);
+        verify(activityEventRepository).findByIdLessThanOrderByIdDesc(Long.MAX_VALUE, PageRequest.ofSize(3));
+        verifyNoMoreInteractions(activityEventRepository);
     }
 
     @Test
-    void getRecentActivities_handlesEmptySourcesReturningEmptyList() {
-        given(clientRepository.findByStartDateAfterOrderByStartDateDesc(LocalDate.now().minusDays(7)))
-                .willReturn(List.of());
-        given(paymentRepository.findByPaymentDateAfterAndVoidedFalseOrderByPaymentDateDesc(LocalDate.now().minusDays(7)))
-                .willReturn(List.of());
-        given(paymentRepository.findByExpirationDateBetweenAndVoidedFalseOrderByExpirationDateAsc(LocalDate.now(), LocalDate.now().plusDays(3)))
+    void getFeed_withCursorAndTypes_usesTypeIndex_andLastPageHasNoCursor() {
+        Set<ActivityEvent.Type> types = Set.of(ActivityEvent.Type.PAYMENT);
+        given(activityEventRepository.findByTypeInAndIdLessThanOrderByIdDesc(types, 29L, PageRequest.ofSize(11)))
+                .willReturn(events(27L));
+
+        ActivityFeedDTO feed = activityService.getFeed(29L, 10, types);
+
+        assertThat(feed.getContent()).hasSize(1);
+        assertThat(feed.getContent().get(0).getType()).isEqualTo("payment");
+        assertThat(feed.getContent().get(0).getRelatedId()).isEqualTo(127L);
+        assertThat(feed.isHasNext()).isFalse();
+        assertThat(feed.getNextCursor()).isNull();
+    }
+
+    @Test
+    void getRecentActivities_isTheFirstFeedPage() {
+        given(activityEventRepository.findByIdLessThanOrderByIdDesc(Long.MAX_VALUE, PageRequest.ofSize(6)))
                 .willReturn(List.of());
 
-        List<ActivityDto> out = activityService.getRecentActivities(10);
-        assertThat(out).isEmpty();
+        assertThat(activityService.getRecentActivities(5)).isEmpty();
     }
 
     @Test
-    void getRecentActivities_trimsNullNamesGracefully() {
-        Client c = new Client();
-        c.setId(3L);
-        c.setFirstName(null);
-        c.setLastName(null);
-        c.setEmail("nulls@example.com");
-        c.setStartDate(LocalDate.now());
-        given(clientRepository.findByStartDateAfterOrderByStartDateDesc(LocalDate.now().minusDays(7)))
-                .willReturn(List.of(c));
-        given(paymentRepository.findByPaymentDateAfterAndVoidedFalseOrderByPaymentDateDesc(LocalDate.now().minusDays(7)))
-                .willReturn(List.of());
-        given(paymentRepository.findByExpirationDateBetweenAndVoidedFalseOrderByExpirationDateAsc(LocalDate.now(), LocalDate.now().plusDays(3)))
-                .willReturn(List.of());
+    void recordNewClient_storesRenderedTitle_trimmingNullNames() {
+        client.setFirstName(null);
+        client.setLastName("García");
+
+        activityService.recordNewClient(client);
 
-        List<ActivityDto> out = activityService.getRecentActivities(5);
-        assertThat(out).hasSize(1);
-        assertThat(out.get(0).getType()).isEqualTo("new-client");
-        assertThat(out.get(0).getRelatedId()).isEqualTo(3L);
+        ArgumentCaptor<ActivityEvent> captor = ArgumentCaptor.forClass(ActivityEvent.class);
+        verify(activityEventRepository).save(captor.capture());
+        assertThat(captor.getValue().getType()).isEqualTo(ActivityEvent.Type.NEW_CLIENT);
+        assertThat(captor.getValue().getTitle()).isEqualTo("Nuevo cliente registrado: García");
+        assertThat(captor.getValue().getClientId()).isEqualTo(1L);
     }
 
     @Test
-    void getRecentActivities_includesOnlyExpiringWithinThreeDays() {
-        Payment inside = new Payment();
-        inside.setId(20L);
-        inside.setExpirationDate(LocalDate.now().plusDays(1));
-        inside.setClient(activeClient1);
+    void recordPaymentReceived_rendersAmountClientAndMethod() {
+        Payment payment = new Payment();
+        payment.setId(8L);
+        payment.setAmount(5000.0);
+        payment.setMethod(PaymentMethod.CASH);
+        payment.setClient(client);
+
+        activityService.recordPaymentReceived(payment);
+
+        ArgumentCaptor<ActivityEvent> captor = ArgumentCaptor.forClass(ActivityEvent.class);
+        verify(activityEventRepository).save(captor.capture());
+        assertThat(captor.getValue().getType()).isEqualTo(ActivityEvent.Type.PAYMENT);
+        assertThat(captor.getValue().getPaymentId()).isEqualTo(8L);
+        assertThat(captor.getValue().getClientId()).isEqualTo(1L);
+        assertThat(captor.getValue().getTitle()).isEqualTo(String.format("Pago recibido: $%.2f de Ana García", 5000.0));
+        assertThat(captor.getValue().getDescription()).isEqualTo("Pago por método: CASH");
+    }
 
-        given(clientRepository.findByStartDateAfterOrderByStartDateDesc(LocalDate.now().minusDays(7)))
-                .willReturn(List.of());
-        given(paymentRepository.findByPaymentDateAfterAndVoidedFalseOrderByPaymentDateDesc(LocalDate.now().minusDays(7)))
-                .willReturn(List.of());
-        given(paymentRepository.findByExpirationDateBetweenAndVoidedFalseOrderByExpirationDateAsc(LocalDate.now(), LocalDate.now().plusDays(3)))
-                .willReturn(List.of(inside));
+    @Test
+    void recordPaymentVoided_referencesPaymentAndClient() {
+        Payment payment = new Payment();
+        payment.setId(9L);
+        payment.setAmount(1500.0);
+        payment.setClient(client);
+
+        activityService.recordPaymentVoided(payment, "duplicado");
+
+        ArgumentCaptor<ActivityEvent> captor = ArgumentCaptor.forClass(ActivityEvent.class);
+        verify(activityEventRepository).save(captor.capture());
+        assertThat(captor.getValue().getPaymentId()).isEqualTo(9L);
+        assertThat(captor.getValue().getTitle()).contains("Pago anulado").contains("Ana García");
+        assertThat(captor.getValue().getDescription()).isEqualTo("Motivo: duplicado");
+    }
 
-        List<ActivityDto> out = activityService.getRecentActivities(10);
-        assertThat(out).hasSize(1);
-        assertThat(out.get(0).getRelatedId()).isEqualTo(activeClient1.getId());
-        assertThat(out.get(0).getType()).isEqualTo("expiring");
+    private List<ActivityEvent> events(long... ids) {
+        List<ActivityEvent> out = new ArrayList<>();
+        for (long id : ids) {
+            ActivityEvent e = new ActivityEvent(ActivityEvent.Type.PAYMENT, 1L, 100 + id, "Pago recibido", null);
+            e.setId(id);
+            e.setOccurredAt(LocalDateTime.now().minusMinutes(100 - id));
+            out.add(e);
+        }
+        return out;
     }
 }
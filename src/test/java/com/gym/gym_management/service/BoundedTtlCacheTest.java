@@ -0,0 +1,67 @@
+package com.gym.gym_management.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedTtlCacheTest {
+
+    @Test
+    void get_returnsLiveValues_andDropsExpiredOnes() {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(10);
+        cache.put("a", "1", 100);
+
+        assertThat(cache.get("a", 50)).isEqualTo("1");
+        assertThat(cache.get("a", 100)).isNull();
+        assertThat(cache.size()).isZero();
+        assertThat(cache.stats()).containsEntry("hits", 1L).containsEntry("misses", 1L).containsEntry("hitRatio", 0.5);
+    }
+
+    @Test
+    void put_overMaxEntries_evictsEarliestExpiration() {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(2);
+        cache.put("late", "1", 300);
+        cache.put("early", "2", 100);
+        cache.put("middle", "3", 200);
+
+        assertThat(cache.get("early", 0)).isNull();
+        assertThat(cache.get("late", 0)).isEqualTo("1");
+        assertThat(cache.get("middle", 0)).isEqualTo("3");
+        assertThat(cache.stats()).containsEntry("entries", 2).containsEntry("evictions", 1L);
+    }
+
+    @Test
+    void getOrPut_keepsLiveValue_andExpireAtRedatesPendingEntry() {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(10);
+        String pending = "pendiente";
+
+        assertThat(cache.getOrPut("k", pending, BoundedTtlCache.NEVER, 0)).isSameAs(pending);
+        assertThat(cache.getOrPut("k", "otro", BoundedTtlCache.NEVER, 1_000)).isSameAs(pending);
+        assertThat(cache.expireAt("k", pending, 2_000)).isTrue();
+        assertThat(cache.get("k", 2_000)).isNull();
+        assertThat(cache.expireAt("k", pending, 3_000)).isFalse();
+    }
+
+    @Test
+    void invalidate_countsEvenWithoutEntry() {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(10);
+        cache.put("a", "1", 100);
+        cache.put("b", "2", 100);
+
+        cache.invalidate("a");
+        cache.invalidate(null);
+        cache.invalidateAll();
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.stats()).containsEntry("invalidations", 3L);
+    }
+
+    @Test
+    void zeroMaxEntries_storesNothing() {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(0);
+        cache.put("a", "1", 100);
+
+        assertThat(cache.getOrPut("b", "2", 100, 0)).isEqualTo("2");
+        assertThat(cache.size()).isZero();
+    }
+}
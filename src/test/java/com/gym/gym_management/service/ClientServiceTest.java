@@ -11,6 +11,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDate;
 import java.util.Arrays;
@@ -30,6 +31,9 @@ class ClientServiceTest {
     @Mock private IPaymentRepository paymentRepository;
     @Mock private PaymentService paymentService;
     @Mock private AuditService auditService;
+    @Mock private MembershipStatusService membershipStatusService;
+    @Mock private ActivityService activityService;
+    @Mock private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks private ClientService clientService;
 
@@ -65,19 +69,24 @@ class ClientServiceTest {
     }
 
     @Test
-    void search_filtersByDerivedPaymentState() {
-        // base list returned by repository (sin filtros -> usa findAll())
-        given(clientRepository.findAll()).willReturn(Arrays.asList(c1, c2));
-        // payment state derived by month/year for each client
+    void search_filtersByDerivedPaymentState_inSql() {
         LocalDate today = LocalDate.now();
-        given(paymentService.computePeriodState(eq(1L), eq(today.getMonthValue()), eq(today.getYear())))
-                .willReturn(PaymentState.UP_TO_DATE);
-        given(paymentService.computePeriodState(eq(2L), eq(today.getMonthValue()), eq(today.getYear())))
-                .willReturn(PaymentState.EXPIRED);
+        given(clientRepository.searchWithValidPayment(null, null, today)).willReturn(List.of(c1));
 
         List<ClientDTO> result = clientService.search(null, null, PaymentState.UP_TO_DATE);
         assertThat(result).hasSize(1);
         assertThat(result.get(0).getId()).isEqualTo(1L);
+        // sin N+1: no se deriva el estado cliente por cliente
+        verifyNoInteractions(paymentService);
+    }
+
+    @Test
+    void search_expiredUsesNotExistsQuery_andVoidedMatchesNothing() {
+        LocalDate today = LocalDate.now();
+        given(clientRepository.searchWithoutValidPayment("ana", true, today)).willReturn(List.of(c1));
+
+        assertThat(clientService.search(" ana ", true, PaymentState.EXPIRED)).extracting(ClientDTO::getId).containsExactly(1L);
+        assertThat(clientService.search(null, null, PaymentState.VOIDED)).isEmpty();
     }
 
     @Test
@@ -108,6 +117,7 @@ class ClientServiceTest {
         ClientDTO out = clientService.create(in);
         assertThat(out.getId()).isEqualTo(10L);
         verify(auditService).logClientCreation(any(Client.class));
+        verify(membershipStatusService).initialize(10L);
 
         // conflict path
         given(clientRepository.existsByEmail("dup@example.com")).willReturn(true);
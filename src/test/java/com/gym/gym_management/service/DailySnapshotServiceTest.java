@@ -0,0 +1,93 @@
+package com.gym.gym_management.service;
+
+import com.gym.gym_management.controller.dto.DailySnapshotDTO;
+import com.gym.gym_management.controller.dto.RevenueBucketDTO;
+import com.gym.gym_management.model.DailySnapshot;
+import com.gym.gym_management.model.PaymentMethod;
+import com.gym.gym_management.repository.IClientMembershipStatusRepository;
+import com.gym.gym_management.repository.IClientRepository;
+import com.gym.gym_management.repository.IDailySnapshotRepository;
+import com.gym.gym_management.repository.RevenueRollupRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DailySnapshotServiceTest {
+
+    @Mock private IDailySnapshotRepository snapshotRepository;
+    @Mock private IClientRepository clientRepository;
+    @Mock private IClientMembershipStatusRepository membershipStatusRepository;
+    @Mock private RevenueRollupRepository rollupRepository;
+
+    @InjectMocks private DailySnapshotService service;
+
+    @Test
+    void capture_storesCountsAndRevenueByMethodForToday() {
+        LocalDate today = LocalDate.now();
+        given(clientRepository.countByIsActiveTrue()).willReturn(120L);
+        given(clientRepository.countPausedOn(today)).willReturn(4L);
+        given(membershipStatusRepository.countActiveUpToDate(today)).willReturn(100L);
+        given(membershipStatusRepository.countActiveWithExpiredMembership(today)).willReturn(20L);
+        given(clientRepository.countByStartDateBetween(today, today)).willReturn(2L);
+        given(rollupRepository.dailySeries(null, today, today, true)).willReturn(List.of(
+                new RevenueBucketDTO(today, PaymentMethod.CASH, 3, 4500.0),
+                new RevenueBucketDTO(today, PaymentMethod.TRANSFER, 1, 1500.0)));
+        given(snapshotRepository.save(any(DailySnapshot.class))).willAnswer(inv -> inv.getArgument(0));
+
+        DailySnapshotDTO dto = service.capture();
+
+        ArgumentCaptor<DailySnapshot> captor = ArgumentCaptor.forClass(DailySnapshot.class);
+        verify(snapshotRepository).save(captor.capture());
+        DailySnapshot saved = captor.getValue();
+        assertThat(saved.getSnapshotDate()).isEqualTo(today);
+        assertThat(saved.getActiveClients()).isEqualTo(120L);
+        assertThat(saved.getPausedClients()).isEqualTo(4L);
+        assertThat(saved.getUpToDateClients()).isEqualTo(100L);
+        assertThat(saved.getExpiredClients()).isEqualTo(20L);
+        assertThat(saved.getNewMembers()).isEqualTo(2L);
+        assertThat(saved.getPayments()).isEqualTo(4L);
+        assertThat(saved.getRevenueTotal()).isEqualTo(6000.0);
+        assertThat(saved.getRevenueCash()).isEqualTo(4500.0);
+        assertThat(saved.getRevenueTransfer()).isEqualTo(1500.0);
+        assertThat(saved.getCapturedAt()).isNotNull();
+        assertThat(dto.getRevenueByMethod()).containsEntry("CASH", 4500.0).containsEntry("DEBIT", 0.0);
+    }
+
+    @Test
+    void series_readsOneKeyRange() {
+        LocalDate from = LocalDate.of(2025, 7, 1);
+        LocalDate to = LocalDate.of(2025, 9, 30);
+        DailySnapshot s = new DailySnapshot(from);
+        s.setActiveClients(50);
+        given(snapshotRepository.findBySnapshotDateBetweenOrderBySnapshotDateAsc(from, to)).willReturn(List.of(s));
+
+        List<DailySnapshotDTO> out = service.series(from, to);
+
+        assertThat(out).hasSize(1);
+        assertThat(out.get(0).getDate()).isEqualTo(from);
+        assertThat(out.get(0).getActiveClients()).isEqualTo(50L);
+        verifyNoInteractions(clientRepository, membershipStatusRepository, rollupRepository);
+    }
+
+    @Test
+    void series_rejectsInvertedOrTooLongRanges() {
+        LocalDate day = LocalDate.of(2025, 1, 1);
+        assertThatThrownBy(() -> service.series(day, day.minusDays(1))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.series(day, day.plusDays(DailySnapshotService.MAX_SERIES_DAYS)))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(snapshotRepository);
+    }
+}
@@ -0,0 +1,101 @@
+package com.gym.gym_management.service;
+
+import com.gym.gym_management.model.PaymentState;
+import com.gym.gym_management.repository.IClientMembershipStatusRepository;
+import com.gym.gym_management.repository.IClientRepository;
+import com.gym.gym_management.repository.IPaymentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class DashboardCountersTest {
+
+    @Mock private IClientRepository clientRepository;
+    @Mock private IPaymentRepository paymentRepository;
+    @Mock private IClientMembershipStatusRepository membershipStatusRepository;
+    @Mock private RevenueRollupService revenueRollupService;
+
+    @InjectMocks private DashboardCounters counters;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void seed() {
+        given(clientRepository.countByIsActiveTrue()).willReturn(10L);
+        given(paymentRepository.countByPaymentStateAndVoidedFalse(PaymentState.EXPIRED)).willReturn(4L);
+        given(clientRepository.countByStartDateBetween(any(), any())).willReturn(2L);
+        given(revenueRollupService.cashflow(today.withDayOfMonth(1), today)).willReturn(1000.0);
+        given(membershipStatusRepository.countActiveWithExpiredMembership(today)).willReturn(3L);
+        given(membershipStatusRepository.countActiveExpiringBetween(today, today.plusDays(7))).willReturn(5L);
+        counters.seed();
+        clearInvocations(clientRepository, paymentRepository, membershipStatusRepository, revenueRollupService);
+    }
+
+    @Test
+    void snapshot_afterSeed_doesNotQueryTheDatabase() {
+        var stats = counters.snapshot();
+
+        assertThat(stats.getActiveClients()).isEqualTo(10);
+        assertThat(stats.getExpiredPayments()).isEqualTo(4);
+        assertThat(stats.getExpiredMemberships()).isEqualTo(3);
+        assertThat(stats.getExpiringThisWeek()).isEqualTo(5);
+        assertThat(stats.getRevenueThisMonth()).isEqualTo(1000.0);
+        assertThat(stats.getNewMembersThisWeek()).isEqualTo(2);
+        verifyNoInteractions(clientRepository, paymentRepository, membershipStatusRepository, revenueRollupService);
+    }
+
+    @Test
+    void onDataChanged_appliesDeltas_andOnlyRecountsMembershipCounters() {
+        counters.onDataChanged(DataChangedEvent.paymentRegistered(1L, 50L, 120.25, today, PaymentState.UP_TO_DATE));
+        counters.onDataChanged(DataChangedEvent.paymentVoided(2L, 40L, 100.0, today, PaymentState.EXPIRED));
+        counters.onDataChanged(DataChangedEvent.bulk(DataChangedEvent.Kind.PAYMENTS_EXPIRED, 6));
+        counters.onDataChanged(DataChangedEvent.client(DataChangedEvent.Kind.CLIENT_CREATED, 3L, today));
+        counters.onDataChanged(DataChangedEvent.client(DataChangedEvent.Kind.CLIENT_DEACTIVATED, 4L, today.minusYears(1)));
+        given(membershipStatusRepository.countActiveWithExpiredMembership(today)).willReturn(2L);
+
+        var stats = counters.snapshot();
+
+        assertThat(stats.getActiveClients()).isEqualTo(10);
+        assertThat(stats.getExpiredPayments()).isEqualTo(4 - 1 + 6);
+        assertThat(stats.getRevenueThisMonth()).isEqualTo(1020.25);
+        assertThat(stats.getNewMembersThisWeek()).isEqualTo(3);
+        assertThat(stats.getExpiredMemberships()).isEqualTo(2);
+        verify(membershipStatusRepository).countActiveWithExpiredMembership(today);
+        verifyNoInteractions(clientRepository, paymentRepository, revenueRollupService);
+    }
+
+    @Test
+    void onDataChanged_import_triggersFullReconcileOnNextRead() {
+        given(clientRepository.countByIsActiveTrue()).willReturn(11L);
+
+        counters.onDataChanged(DataChangedEvent.bulk(DataChangedEvent.Kind.PAYMENTS_IMPORTED, 500));
+        var stats = counters.snapshot();
+
+        assertThat(stats.getActiveClients()).isEqualTo(11);
+        verify(paymentRepository).countByPaymentStateAndVoidedFalse(PaymentState.EXPIRED);
+    }
+
+    @Test
+    void reconcile_correctsDrift() {
+        counters.onDataChanged(DataChangedEvent.client(DataChangedEvent.Kind.CLIENT_ACTIVATED, 9L, null));
+        assertThat(counters.snapshot().getActiveClients()).isEqualTo(11);
+
+        counters.reconcile();
+
+        assertThat(counters.snapshot().getActiveClients()).isEqualTo(10);
+    }
+}
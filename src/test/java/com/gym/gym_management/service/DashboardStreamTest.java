@@ -0,0 +1,142 @@
+package com.gym.gym_management.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gym.gym_management.controller.dto.ActivityDto;
+import com.gym.gym_management.controller.dto.DashboardStatsDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DashboardStreamTest {
+
+    @Mock private DashboardCounters dashboardCounters;
+    @Mock private ActivityService activityService;
+
+    @InjectMocks private DashboardStream stream;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(stream, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        // Envío que nunca vacía las colas: simula pantallas que no leen
+        ReflectionTestUtils.setField(stream, "sender", (java.util.concurrent.Executor) r -> { });
+        ReflectionTestUtils.setField(stream, "queueCapacity", 4);
+        ReflectionTestUtils.setField(stream, "maxConnections", 3);
+        ReflectionTestUtils.setField(stream, "activityOverlap", 3);
+    }
+
+    private static DashboardStatsDto stats(long active) {
+        return new DashboardStatsDto(active, 0L, 0L, 0L, 0.0, 0L);
+    }
+
+    private static ActivityDto activity(long id) {
+        return new ActivityDto(id, "payment", "Pago recibido", null, LocalDateTime.now(), 100 + id);
+    }
+
+    @Test
+    void flush_buildsChangesOnce_regardlessOfConnectionCount() {
+        given(dashboardCounters.snapshot()).willReturn(stats(1), stats(2));
+        given(activityService.getRecentActivities(anyInt())).willReturn(List.of(activity(5L)));
+        given(activityService.getActivitiesAfter(anyLong(), anyInt())).willReturn(List.of(activity(6L)));
+        stream.subscribe(null);
+        stream.subscribe(null);
+        stream.subscribe(null);
+        clearInvocations(dashboardCounters, activityService);
+
+        stream.onDataChanged(DataChangedEvent.bulk(DataChangedEvent.Kind.PAYMENTS_IMPORTED, 10));
+        stream.onDataChanged(DataChangedEvent.bulk(DataChangedEvent.Kind.PAYMENTS_IMPORTED, 10));
+        stream.flush();
+        stream.flush(); // sin cambios nuevos: no consulta
+
+        verify(dashboardCounters, times(1)).snapshot();
+        verify(activityService, times(1)).getActivitiesAfter(2L, ActivityService.MAX_FEED_SIZE);
+        verifyNoMoreInteractions(dashboardCounters, activityService);
+    }
+
+    @Test
+    void flush_sendsActivityCommittedOutOfIdOrder_withoutRepeatingSentOnes() {
+        given(dashboardCounters.snapshot()).willReturn(stats(1));
+        given(activityService.getRecentActivities(anyInt())).willReturn(List.of(activity(10L)));
+        stream.subscribe(null);
+        // Se confirma la 12 antes que la 11
+        given(activityService.getActivitiesAfter(7L, ActivityService.MAX_FEED_SIZE))
+                .willReturn(List.of(activity(10L), activity(12L)));
+        stream.onDataChanged(DataChangedEvent.bulk(DataChangedEvent.Kind.PAYMENTS_IMPORTED, 1));
+        stream.flush();
+        assertThat(stream.stats().get("broadcasts")).isEqualTo(2L); // contadores + actividad 12
+
+        // La 11 se confirma después: la ventana de relectura (desde 12 - 3) la alcanza y solo se envía ella
+        given(activityService.getActivitiesAfter(9L, ActivityService.MAX_FEED_SIZE))
+                .willReturn(List.of(activity(10L), activity(11L), activity(12L)));
+        stream.onDataChanged(DataChangedEvent.bulk(DataChangedEvent.Kind.PAYMENTS_IMPORTED, 1));
+        stream.flush();
+
+        assertThat(stream.stats().get("broadcasts")).isEqualTo(3L);
+        verify(activityService).getActivitiesAfter(9L, ActivityService.MAX_FEED_SIZE);
+    }
+
+    @Test
+    void flush_withoutConnections_doesNotQuery() {
+        stream.onDataChanged(DataChangedEvent.bulk(DataChangedEvent.Kind.PAYMENTS_EXPIRED, 3));
+
+        stream.flush();
+
+        verifyNoInteractions(dashboardCounters, activityService);
+    }
+
+    @Test
+    void slowConsumer_isEvictedWhenQueueFills() {
+        given(dashboardCounters.snapshot()).willReturn(stats(1));
+        given(activityService.getRecentActivities(anyInt())).willReturn(List.of());
+        stream.subscribe(null); // 2 eventos iniciales en una cola de 4
+
+        stream.heartbeat();
+        stream.heartbeat();
+        assertThat(stream.connectionCount()).isEqualTo(1);
+
+        stream.heartbeat(); // la cola ya está llena
+        assertThat(stream.connectionCount()).isZero();
+        assertThat(stream.stats().get("evictedSlowConsumers")).isEqualTo(1L);
+    }
+
+    @Test
+    void subscribe_rejectsBeyondMaxConnections() {
+        given(dashboardCounters.snapshot()).willReturn(stats(1));
+        given(activityService.getRecentActivities(anyInt())).willReturn(List.of());
+        stream.subscribe(null);
+        stream.subscribe(null);
+        stream.subscribe(null);
+
+        assertThatThrownBy(() -> stream.subscribe(null)).isInstanceOf(DashboardStreamFullException.class);
+    }
+
+    @Test
+    void subscribe_capsTimeoutAtTokenExpiration() {
+        given(dashboardCounters.snapshot()).willReturn(stats(1));
+        given(activityService.getRecentActivities(anyInt())).willReturn(List.of());
+
+        SseEmitter untilToken = stream.subscribe(new Date(System.currentTimeMillis() + 60_000));
+        SseEmitter expired = stream.subscribe(new Date(System.currentTimeMillis() - 1_000));
+        SseEmitter noToken = stream.subscribe(null);
+
+        assertThat(untilToken.getTimeout()).isBetween(1L, 60_000L);
+        assertThat(expired.getTimeout()).isEqualTo(1L);
+        assertThat(noToken.getTimeout()).isEqualTo(1_800_000L);
+    }
+}
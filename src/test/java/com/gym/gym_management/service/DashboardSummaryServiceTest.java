@@ -0,0 +1,137 @@
+package com.gym.gym_management.service;
+
+import com.gym.gym_management.controller.dto.DashboardStatsDto;
+import com.gym.gym_management.controller.dto.DashboardSummaryDto;
+import com.gym.gym_management.controller.dto.ExpiringClientDTO;
+import com.gym.gym_management.controller.dto.OverdueClientDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.atLeastOnce;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class DashboardSummaryServiceTest {
+
+    @Mock private DashboardCounters dashboardCounters;
+    @Mock private ActivityService activityService;
+    @Mock private ReportService reportService;
+    @Mock private ReportCache reportCache;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    @InjectMocks private DashboardSummaryService service;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        ReflectionTestUtils.setField(service, "executor", executor);
+        ReflectionTestUtils.setField(service, "sectionTimeoutMs", 300L);
+        given(reportCache.get(anyString(), any())).willAnswer(inv -> ((Supplier<?>) inv.getArgument(1)).get());
+        given(dashboardCounters.snapshot()).willReturn(new DashboardStatsDto(3L, 1L, 2L, 4L, 100.0, 1L));
+        given(activityService.getRecentActivities(6)).willReturn(List.of());
+        given(reportService.getClientsWithPaymentsExpiringSoon(eq(7), any()))
+                .willReturn(new PageImpl<>(List.of(new ExpiringClientDTO()), PageRequest.of(0, 10), 12));
+        given(reportService.getClientsWithOverduePayments(eq(true), any()))
+                .willReturn(new PageImpl<>(List.<OverdueClientDTO>of(), PageRequest.of(0, 10), 0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void getSummary_allSectionsInTime_isComplete() {
+        DashboardSummaryDto summary = service.getSummary(6, 7, 10);
+
+        assertThat(summary.isPartial()).isFalse();
+        assertThat(summary.getStats().getActiveClients()).isEqualTo(3L);
+        assertThat(summary.getActivities()).isEmpty();
+        assertThat(summary.getExpiring()).hasSize(1);
+        assertThat(summary.getExpiringTotal()).isEqualTo(12L);
+        assertThat(summary.getOverdueTotal()).isZero();
+    }
+
+    @Test
+    void getSummary_slowSection_returnsPartialInsteadOfWaiting() {
+        given(reportService.getClientsWithOverduePayments(eq(true), any())).willAnswer(inv -> {
+            Thread.sleep(5_000);
+            return null;
+        });
+
+        long start = System.nanoTime();
+        DashboardSummaryDto summary = service.getSummary(6, 7, 10);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(elapsedMs).isLessThan(2_000);
+        assertThat(summary.isPartial()).isTrue();
+        assertThat(summary.getFailedSections()).containsEntry("overdue", "timeout").hasSize(1);
+        assertThat(summary.getOverdue()).isNull();
+        assertThat(summary.getStats()).isNotNull();
+        assertThat(summary.getExpiring()).hasSize(1);
+    }
+
+    @Test
+    void getSummary_failingSection_isReportedAsError() {
+        given(activityService.getRecentActivities(6)).willThrow(new IllegalStateException("boom"));
+
+        DashboardSummaryDto summary = service.getSummary(6, 7, 10);
+
+        assertThat(summary.getFailedSections()).containsEntry("activities", "error");
+        assertThat(summary.getActivities()).isNull();
+        assertThat(summary.getStats()).isNotNull();
+    }
+
+    @Test
+    void getSummary_invalidDays_throws() {
+        assertThatThrownBy(() -> service.getSummary(6, 0, 10)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void getSummary_reportSizeIsCapped() {
+        service.getSummary(6, 7, 100_000);
+
+        then(reportService).should().getClientsWithPaymentsExpiringSoon(7,
+                PageRequest.of(0, DashboardSummaryService.MAX_REPORT_SIZE));
+        then(reportCache).should().get(eq(ReportCache.key("overdue", true, 0, DashboardSummaryService.MAX_REPORT_SIZE)), any());
+    }
+
+    @Test
+    void getSummary_databaseSectionsRunWithQueryTimeout() {
+        service.getSummary(6, 7, 10);
+
+        ArgumentCaptor<TransactionDefinition> tx = ArgumentCaptor.forClass(TransactionDefinition.class);
+        then(transactionManager).should(atLeastOnce()).getTransaction(tx.capture());
+        assertThat(tx.getAllValues()).hasSize(3).allSatisfy(def -> {
+            assertThat(def.isReadOnly()).isTrue();
+            assertThat(def.getTimeout()).isEqualTo(1); // plazo de 300 ms redondeado a segundos
+        });
+    }
+}
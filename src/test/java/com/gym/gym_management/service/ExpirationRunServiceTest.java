@@ -0,0 +1,147 @@
+package com.gym.gym_management.service;
+
+import com.gym.gym_management.model.ExpirationRun;
+import com.gym.gym_management.model.PaymentState;
+import com.gym.gym_management.repository.IExpirationRunRepository;
+import com.gym.gym_management.repository.IPaymentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ExpirationRunServiceTest {
+
+    @Mock private IPaymentRepository paymentRepository;
+    @Mock private IExpirationRunRepository runRepository;
+    @Mock private MembershipStatusService membershipStatusService;
+    @Mock private TransactionTemplate transactionTemplate;
+    @Mock private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks private ExpirationRunService service;
+
+    /** Simula la tabla expiration_runs con una única fila. */
+    private ExpirationRun stored;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void init() {
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+        given(transactionTemplate.execute(any())).willAnswer(inv -> ((TransactionCallback<Object>) inv.getArgument(0)).doInTransaction(null));
+        doAnswer(inv -> {
+            ((Consumer<Object>) inv.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        given(runRepository.save(any(ExpirationRun.class))).willAnswer(inv -> {
+            stored = inv.getArgument(0);
+            if (stored.getId() == null) stored.setId(1L);
+            return stored;
+        });
+        given(runRepository.findById(1L)).willAnswer(inv -> Optional.ofNullable(stored));
+        given(runRepository.findFirstByStatusInOrderByIdAsc(any())).willReturn(Optional.empty());
+    }
+
+    @Test
+    void runChunked_expiresInIdOrderedBatches_andRecordsStats() {
+        LocalDate today = LocalDate.now();
+        given(paymentRepository.findExpirableIdsAfter(eq(today), anyLong(), eq(PaymentState.UP_TO_DATE), any()))
+                .willReturn(List.of(3L, 7L), List.of(9L), List.of());
+        given(paymentRepository.expireByIds(anyCollection(), eq(today), any(), any())).willReturn(2, 1);
+
+        ExpirationRun run = service.runChunked();
+
+        assertThat(run.getStatus()).isEqualTo(ExpirationRun.Status.COMPLETED);
+        assertThat(run.getRowsUpdated()).isEqualTo(3);
+        assertThat(run.getBatches()).isEqualTo(2);
+        assertThat(run.getLastPaymentId()).isEqualTo(9L);
+        assertThat(run.getFinishedAt()).isNotNull();
+        // Cada lote parte del checkpoint anterior
+        verify(paymentRepository).findExpirableIdsAfter(eq(today), eq(0L), any(), any());
+        verify(paymentRepository).findExpirableIdsAfter(eq(today), eq(7L), any(), any());
+        verify(paymentRepository).findExpirableIdsAfter(eq(today), eq(9L), any(), any());
+        verify(membershipStatusService).expireOverdue(today);
+    }
+
+    @Test
+    void runChunked_resumesUnfinishedRunFromCheckpoint() {
+        LocalDate today = LocalDate.now();
+        ExpirationRun crashed = new ExpirationRun(today, 2);
+        crashed.setId(1L);
+        crashed.recordBatch(40L, 2, 5);
+        stored = crashed;
+        given(runRepository.findFirstByStatusInOrderByIdAsc(any())).willReturn(Optional.of(crashed));
+        given(paymentRepository.findExpirableIdsAfter(eq(today), eq(40L), any(), any())).willReturn(List.of(41L));
+        given(paymentRepository.findExpirableIdsAfter(eq(today), eq(41L), any(), any())).willReturn(List.of());
+        given(paymentRepository.expireByIds(anyCollection(), any(), any(), any())).willReturn(1);
+
+        ExpirationRun run = service.runChunked();
+
+        assertThat(run.getId()).isEqualTo(1L);
+        assertThat(run.getResumes()).isEqualTo(1);
+        assertThat(run.getRowsUpdated()).isEqualTo(3);
+        assertThat(run.getStatus()).isEqualTo(ExpirationRun.Status.COMPLETED);
+        verify(paymentRepository, never()).findExpirableIdsAfter(any(), eq(0L), any(), any());
+    }
+
+    @Test
+    void runChunked_failure_marksRunFailed_keepingCheckpoint() {
+        given(paymentRepository.findExpirableIdsAfter(any(), anyLong(), any(), any()))
+                .willReturn(List.of(5L, 6L))
+                .willThrow(new IllegalStateException("conexión perdida"));
+        given(paymentRepository.expireByIds(anyCollection(), any(), any(), any())).willReturn(2);
+
+        assertThatThrownBy(() -> service.runChunked()).isInstanceOf(IllegalStateException.class);
+
+        assertThat(stored.getStatus()).isEqualTo(ExpirationRun.Status.FAILED);
+        assertThat(stored.getLastPaymentId()).isEqualTo(6L);
+        assertThat(stored.getErrorMessage()).contains("conexión perdida");
+    }
+
+    @Test
+    void runChunked_runFailingOnEveryAttempt_isAbandoned_andNextExecutionStartsNewRun() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        ExpirationRun failing = new ExpirationRun(yesterday, 2);
+        failing.setId(1L);
+        failing.setStatus(ExpirationRun.Status.FAILED);
+        failing.setResumes(1);
+        stored = failing;
+        given(runRepository.findFirstByStatusInOrderByIdAsc(any())).willReturn(Optional.of(failing));
+        given(paymentRepository.findExpirableIdsAfter(eq(yesterday), anyLong(), any(), any()))
+                .willThrow(new IllegalStateException("viola restricción"));
+
+        // Tercer intento (maxAttempts = 3): falla y queda terminal
+        assertThatThrownBy(() -> service.runChunked()).isInstanceOf(IllegalStateException.class);
+        assertThat(failing.getStatus()).isEqualTo(ExpirationRun.Status.ABANDONED);
+        assertThat(failing.getErrorMessage()).contains("viola restricción");
+
+        // Ya no figura como pendiente: la siguiente ejecución procesa el corte de hoy
+        given(runRepository.findFirstByStatusInOrderByIdAsc(any())).willReturn(Optional.empty());
+        given(paymentRepository.findExpirableIdsAfter(eq(LocalDate.now()), anyLong(), any(), any())).willReturn(List.of());
+        stored = null;
+
+        ExpirationRun today = service.runChunked();
+
+        assertThat(today.getCutoffDate()).isEqualTo(LocalDate.now());
+        assertThat(today.getStatus()).isEqualTo(ExpirationRun.Status.COMPLETED);
+    }
+}
@@ -0,0 +1,126 @@
+package com.gym.gym_management.service;
+
+import com.gym.gym_management.model.PaymentState;
+import com.gym.gym_management.repository.ClientExpirationView;
+import com.gym.gym_management.repository.IPaymentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ExpirationSchedulerTest {
+
+    @Mock private IPaymentRepository paymentRepository;
+    @Mock private ExpirationRunService expirationRunService;
+    @Mock private MembershipStatusService membershipStatusService;
+    @Mock private TransactionTemplate transactionTemplate;
+    @Mock private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks private ExpirationScheduler scheduler;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void init() {
+        ReflectionTestUtils.setField(scheduler, "enabled", true);
+        ReflectionTestUtils.setField(scheduler, "horizonDays", 40);
+        ReflectionTestUtils.setField(scheduler, "batchSize", 1);
+        given(transactionTemplate.execute(any())).willAnswer(inv -> ((TransactionCallback<Object>) inv.getArgument(0)).doInTransaction(null));
+        doAnswer(inv -> {
+            ((Consumer<Object>) inv.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        given(paymentRepository.findPendingExpirations(today, today.plusDays(40), PaymentState.UP_TO_DATE))
+                .willReturn(List.of(row(1L, today.plusDays(3)), row(2L, today.plusDays(10))));
+        given(paymentRepository.expireByIds(anyCollection(), any(), any(), any())).willAnswer(inv -> ((List<?>) inv.getArgument(0)).size());
+        scheduler.reload();
+    }
+
+    @Test
+    void reload_loadsUpcomingExpirationsWithinHorizon() {
+        assertThat(scheduler.trackedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void trackAndUntrack_followRegistrationsAndVoids() {
+        scheduler.track(3L, today.plusDays(5));
+        scheduler.track(4L, today.plusDays(400)); // fuera del horizonte: se carga al extenderlo
+        assertThat(scheduler.trackedCount()).isEqualTo(3);
+
+        scheduler.untrack(1L);
+        assertThat(scheduler.trackedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void expireDue_flipsOnlyPastDates_inBatches_andUpdatesMemberships() {
+        scheduler.track(7L, today.minusDays(1));
+        scheduler.track(8L, today.minusDays(1));
+        scheduler.track(9L, today); // vence al terminar hoy: todavía no
+
+        int updated = scheduler.expireDue();
+
+        assertThat(updated).isEqualTo(2);
+        verify(paymentRepository, times(2)).expireByIds(anyCollection(), eq(today), eq(PaymentState.UP_TO_DATE), eq(PaymentState.EXPIRED));
+        verify(membershipStatusService).expireOverdue(today);
+        assertThat(scheduler.trackedCount()).isEqualTo(3);
+    }
+
+    @Test
+    void reload_keepsTrackAndUntrackThatArriveWhileReadingTheDatabase() {
+        given(paymentRepository.findPendingExpirations(today, today.plusDays(40), PaymentState.UP_TO_DATE)).willAnswer(inv -> {
+            // Registros y anulaciones concurrentes con la lectura (la fila 2 ya estaba en lo leído)
+            scheduler.track(5L, today.plusDays(2));
+            scheduler.untrack(2L);
+            return List.of(row(1L, today.plusDays(3)), row(2L, today.plusDays(10)));
+        });
+
+        scheduler.reload();
+
+        assertThat(scheduler.trackedCount()).isEqualTo(2); // 1 y 5
+        scheduler.untrack(5L);
+        scheduler.untrack(1L);
+        assertThat(scheduler.trackedCount()).isZero();
+    }
+
+    @Test
+    void expireDue_keepsPaymentsTrackedWhileExtendingTheHorizon() {
+        ReflectionTestUtils.setField(scheduler, "loadedUntil", today.plusDays(39));
+        given(paymentRepository.findPendingExpirations(today.plusDays(40), today.plusDays(40), PaymentState.UP_TO_DATE)).willAnswer(inv -> {
+            // Pago registrado durante la lectura que vence en el día recién agregado
+            scheduler.track(6L, today.plusDays(40));
+            return List.of();
+        });
+
+        scheduler.expireDue();
+
+        assertThat(scheduler.trackedCount()).isEqualTo(3);
+    }
+
+    private ClientExpirationView row(Long paymentId, LocalDate expiration) {
+        return new ClientExpirationView() {
+            @Override public Long getClientId() { return 1L; }
+            @Override public Long getPaymentId() { return paymentId; }
+            @Override public LocalDate getExpirationDate() { return expiration; }
+        };
+    }
+}
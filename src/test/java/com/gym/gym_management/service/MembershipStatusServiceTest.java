@@ -0,0 +1,123 @@
+package com.gym.gym_management.service;
+
+import com.gym.gym_management.model.Client;
+import com.gym.gym_management.model.ClientMembershipStatus;
+import com.gym.gym_management.model.Payment;
+import com.gym.gym_management.model.PaymentState;
+import com.gym.gym_management.repository.ClientExpirationView;
+import com.gym.gym_management.repository.IClientMembershipStatusRepository;
+import com.gym.gym_management.repository.IClientRepository;
+import com.gym.gym_management.repository.IPaymentRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MembershipStatusServiceTest {
+
+    @Mock private IClientMembershipStatusRepository statusRepository;
+    @Mock private IPaymentRepository paymentRepository;
+    @Mock private IClientRepository clientRepository;
+    @Mock private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks private MembershipStatusService service;
+
+    @Test
+    void onPaymentRegistered_extendsExpiration_withoutQueryingPayments() {
+        LocalDate today = LocalDate.now();
+        ClientMembershipStatus current = new ClientMembershipStatus(1L);
+        current.apply(5L, today.minusDays(2), today);
+        given(statusRepository.findById(1L)).willReturn(Optional.of(current));
+
+        service.onPaymentRegistered(payment(6L, today.plusMonths(1)));
+
+        assertThat(current.getLastPaymentId()).isEqualTo(6L);
+        assertThat(current.getState()).isEqualTo(PaymentState.UP_TO_DATE);
+        verify(statusRepository).save(current);
+        verifyNoInteractions(paymentRepository);
+    }
+
+    @Test
+    void onPaymentVoided_ofDefiningPayment_recalculatesFromNextValid() {
+        LocalDate today = LocalDate.now();
+        ClientMembershipStatus current = new ClientMembershipStatus(1L);
+        current.apply(6L, today.plusMonths(1), today);
+        given(statusRepository.findById(1L)).willReturn(Optional.of(current));
+        Payment previous = payment(5L, today.minusDays(2));
+        given(paymentRepository.findTopByClient_IdAndVoidedFalseOrderByExpirationDateDesc(1L)).willReturn(previous);
+
+        service.onPaymentVoided(payment(6L, today.plusMonths(1)));
+
+        assertThat(current.getLastPaymentId()).isEqualTo(5L);
+        assertThat(current.getState()).isEqualTo(PaymentState.EXPIRED);
+    }
+
+    @Test
+    void currentState_readsByPrimaryKey_andDefaultsMissingToExpired() {
+        LocalDate today = LocalDate.now();
+        ClientMembershipStatus upToDate = new ClientMembershipStatus(1L);
+        upToDate.apply(10L, today, today);
+        ClientMembershipStatus lapsed = new ClientMembershipStatus(2L);
+        lapsed.apply(11L, today.minusDays(1), today.minusDays(5)); // el job aún no lo marcó
+        given(statusRepository.findById(1L)).willReturn(Optional.of(upToDate));
+        given(statusRepository.findById(2L)).willReturn(Optional.of(lapsed));
+        given(statusRepository.findById(3L)).willReturn(Optional.empty());
+
+        assertThat(service.currentState(1L)).isEqualTo(PaymentState.UP_TO_DATE);
+        assertThat(service.currentState(2L)).isEqualTo(PaymentState.EXPIRED);
+        assertThat(service.currentState(3L)).isEqualTo(PaymentState.EXPIRED); // sin fila => vencido
+        verifyNoInteractions(paymentRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuild_writesOneRowPerClient_keepingHighestPaymentIdOnTies() {
+        LocalDate today = LocalDate.now();
+        given(clientRepository.findAllIds()).willReturn(List.of(1L, 2L));
+        given(paymentRepository.findLastValidPaymentsByClientIds(List.of(1L, 2L)))
+                .willReturn(List.of(view(1L, 7L, today.plusDays(3)), view(1L, 9L, today.plusDays(3))));
+
+        int rows = service.rebuild();
+
+        assertThat(rows).isEqualTo(2);
+        verify(statusRepository).deleteAllInBatch();
+        ArgumentCaptor<List<ClientMembershipStatus>> captor = ArgumentCaptor.forClass(List.class);
+        verify(statusRepository).saveAll(captor.capture());
+        assertThat(captor.getValue()).extracting("clientId", "lastPaymentId", "state")
+                .containsExactly(
+                        tuple(1L, 9L, PaymentState.UP_TO_DATE),
+                        tuple(2L, null, PaymentState.EXPIRED));
+    }
+
+    private Payment payment(Long id, LocalDate expiration) {
+        Client client = new Client();
+        client.setId(1L);
+        Payment p = new Payment();
+        p.setId(id);
+        p.setClient(client);
+        p.setExpirationDate(expiration);
+        return p;
+    }
+
+    private ClientExpirationView view(Long clientId, Long paymentId, LocalDate expirationDate) {
+        return new ClientExpirationView() {
+            @Override public Long getClientId() { return clientId; }
+            @Override public Long getPaymentId() { return paymentId; }
+            @Override public LocalDate getExpirationDate() { return expirationDate; }
+        };
+    }
+}
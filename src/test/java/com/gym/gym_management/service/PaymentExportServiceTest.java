@@ -0,0 +1,75 @@
+package com.gym.gym_management.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gym.gym_management.controller.dto.OverdueClientDTO;
+import com.gym.gym_management.controller.dto.PaymentDTO;
+import com.gym.gym_management.repository.IPaymentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentExportServiceTest {
+
+    @Mock private PaymentService paymentService;
+    @Mock private IPaymentRepository paymentRepository;
+    @Mock private ReportService reportService;
+    @Spy private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks private PaymentExportService service;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "fetchSize", 100);
+    }
+
+    @Test
+    void exportPaymentsCsv_escapesQuotesAndNeutralizesFormulas() throws Exception {
+        PaymentDTO payment = new PaymentDTO();
+        payment.setId(1L);
+        payment.setClientFirstName("=HYPERLINK(\"http://x\",\"ver\")");
+        payment.setClientLastName("+5491100000000");
+        payment.setClientEmail("@SUM(A1:A2)");
+        payment.setVoidReason("-1, devuelto");
+        given(paymentRepository.streamPaymentViews(any(), any(), anyInt())).willReturn(Stream.of(payment));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.exportPayments(null, null, null, null, null, PaymentExportService.Format.CSV, out);
+
+        String row = out.toString(StandardCharsets.UTF_8).split("\n")[1];
+        assertThat(row).startsWith("1,,\"'=HYPERLINK(\"\"http://x\"\",\"\"ver\"\")\",'+5491100000000,'@SUM(A1:A2),");
+        assertThat(row).endsWith(",\"'-1, devuelto\"");
+    }
+
+    @Test
+    void exportOverdueCsv_neutralizesFormulasInClientData() throws Exception {
+        OverdueClientDTO client = new OverdueClientDTO();
+        client.setId(7L);
+        client.setFirstName("\tAna");
+        client.setLastName("Pérez");
+        client.setEmail("ana@gym.com");
+        given(reportService.getClientsWithOverduePayments(eq(true), any())).willReturn(new PageImpl<>(List.of(client)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.exportOverdue(PaymentExportService.Format.CSV, out, PaymentExportService.Progress.NONE);
+
+        assertThat(out.toString(StandardCharsets.UTF_8).split("\n")[1]).startsWith("7,'\tAna,Pérez,ana@gym.com,");
+    }
+}
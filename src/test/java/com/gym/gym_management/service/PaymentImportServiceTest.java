@@ -0,0 +1,174 @@
+package com.gym.gym_management.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.gym.gym_management.controller.dto.PaymentImportResultDTO;
+import com.gym.gym_management.model.Payment;
+import com.gym.gym_management.model.PaymentState;
+import com.gym.gym_management.repository.ClientActiveView;
+import com.gym.gym_management.repository.IClientRepository;
+import com.gym.gym_management.repository.IPaymentRepository;
+import com.gym.gym_management.repository.PaymentJdbcRepository;
+import com.gym.gym_management.repository.PaymentPeriodView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PaymentImportServiceTest {
+
+    @Spy private PaymentService paymentService = new PaymentService();
+    @Mock private IClientRepository clientRepository;
+    @Mock private IPaymentRepository paymentRepository;
+    @Mock private PaymentJdbcRepository paymentJdbcRepository;
+    @Mock private MembershipStatusService membershipStatusService;
+    @Mock private AuditService auditService;
+    @Mock private TransactionTemplate transactionTemplate;
+    @Mock private ExpirationScheduler expirationScheduler;
+    @Mock private RevenueRollupService revenueRollupService;
+    @Mock private ActivityService activityService;
+    @Mock private ApplicationEventPublisher eventPublisher;
+    @Spy private ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @InjectMocks private PaymentImportService importService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void init() {
+        given(transactionTemplate.execute(any())).willAnswer(inv -> ((TransactionCallback<Object>) inv.getArgument(0)).doInTransaction(null));
+        given(clientRepository.findActiveFlagsByIds(anyCollection())).willReturn(List.of(client(1L, true), client(2L, false)));
+        given(paymentJdbcRepository.batchInsert(anyList())).willAnswer(inv -> {
+            int[] counts = new int[((List<?>) inv.getArgument(0)).size()];
+            Arrays.fill(counts, 1);
+            return counts;
+        });
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importCsv_insertsValidRows_andReportsErrorsPerLine() throws Exception {
+        int year = LocalDate.now().getYear();
+        given(paymentRepository.findValidPeriods(anyCollection(), anyCollection())).willReturn(List.of(period(1L, 2, year)));
+        String csv = String.join("\n",
+                "clientId,amount,method,month,year,paymentDate",
+                "1,5000,CASH,1," + year + ",",           // ok
+                "1,5000,CASH,2," + year + ",",           // duplicado en base
+                "1,5000,CASH,1," + year + ",",           // duplicado dentro del archivo
+                "2,5000,CASH,3," + year + ",",           // cliente inactivo
+                "3,5000,CASH,3," + year + ",",           // cliente inexistente
+                "1,0,CASH,4," + year + ",",              // monto inválido
+                "1,5000,BITCOIN,5," + year + ",",        // método inválido
+                "1,5000,DEBIT,6," + year + "," + LocalDate.now().plusDays(2)); // fecha futura
+
+        PaymentImportResultDTO result = importService.importPayments(stream(csv), PaymentImportService.Format.CSV);
+
+        assertThat(result.getTotalRows()).isEqualTo(8);
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getRejected()).isEqualTo(7);
+        assertThat(result.getErrors()).extracting("line").containsExactlyInAnyOrder(3L, 4L, 5L, 6L, 7L, 8L, 9L);
+        assertThat(result.getErrors()).extracting("message").contains(
+                "Ya existe un pago válido para ese período", "El cliente está inactivo", "Cliente no encontrado",
+                "El monto debe ser mayor a 0", "La fecha de pago no puede ser futura");
+
+        // Una sola consulta de clientes y de períodos para toda la tanda; un único lote de inserción
+        verify(clientRepository, times(1)).findActiveFlagsByIds(anyCollection());
+        verify(paymentRepository, times(1)).findValidPeriods(anyCollection(), anyCollection());
+        ArgumentCaptor<List<Payment>> captor = ArgumentCaptor.forClass(List.class);
+        verify(paymentJdbcRepository).batchInsert(captor.capture());
+        assertThat(captor.getValue()).hasSize(1);
+        verify(membershipStatusService).refreshAll(anyCollection());
+        verify(auditService).logPaymentImport(1, 7);
+        verify(paymentRepository, never()).save(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importNdjson_marksHistoricalPaymentsExpired() throws Exception {
+        given(paymentRepository.findValidPeriods(anyCollection(), anyCollection())).willReturn(List.of());
+        String ndjson = "{\"clientId\":1,\"amount\":3000,\"method\":\"TRANSFER\",\"month\":1,\"year\":2023,\"paymentDate\":\"2023-01-05\"}\n"
+                + "no es json\n";
+
+        PaymentImportResultDTO result = importService.importPayments(stream(ndjson), PaymentImportService.Format.NDJSON);
+
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getErrors()).extracting("line").containsExactly(2L);
+        ArgumentCaptor<List<Payment>> captor = ArgumentCaptor.forClass(List.class);
+        verify(paymentJdbcRepository).batchInsert(captor.capture());
+        Payment inserted = captor.getValue().get(0);
+        assertThat(inserted.getExpirationDate()).isEqualTo(LocalDate.of(2023, 2, 5));
+        assertThat(inserted.getState()).isEqualTo(PaymentState.EXPIRED);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importCsv_rowDiscardedByUniqueIndex_isReportedAsDuplicate() throws Exception {
+        int year = LocalDate.now().getYear();
+        given(paymentRepository.findValidPeriods(anyCollection(), anyCollection())).willReturn(List.of());
+        // El período del mes 2 lo confirmó otra transacción después de la consulta de la tanda
+        given(paymentJdbcRepository.batchInsert(anyList())).willReturn(new int[] {1, 0});
+        String csv = String.join("\n",
+                "clientId,amount,method,month,year",
+                "1,5000,CASH,1," + year,
+                "1,5000,CASH,2," + year);
+
+        PaymentImportResultDTO result = importService.importPayments(stream(csv), PaymentImportService.Format.CSV);
+
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getRejected()).isEqualTo(1);
+        assertThat(result.getErrors()).extracting("line").containsExactly(3L);
+        assertThat(result.getErrors()).extracting("message").containsExactly("Ya existe un pago válido para ese período");
+        ArgumentCaptor<List<Payment>> captor = ArgumentCaptor.forClass(List.class);
+        verify(revenueRollupService).onPaymentsImported(captor.capture());
+        assertThat(captor.getValue()).extracting(Payment::getMonth).containsExactly(1);
+        verify(auditService).logPaymentImport(1, 1);
+    }
+
+    @Test
+    void importCsv_missingRequiredColumn_isRejected() {
+        assertThatThrownBy(() -> importService.importPayments(stream("clientId,amount,month,year\n1,10,1,2024"), PaymentImportService.Format.CSV))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("method");
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ClientActiveView client(Long id, boolean active) {
+        return new ClientActiveView() {
+            @Override public Long getId() { return id; }
+            @Override public Boolean getActive() { return active; }
+        };
+    }
+
+    private static PaymentPeriodView period(Long clientId, int month, int year) {
+        return new PaymentPeriodView() {
+            @Override public Long getClientId() { return clientId; }
+            @Override public Integer getMonth() { return month; }
+            @Override public Integer getYear() { return year; }
+        };
+    }
+}
@@ -0,0 +1,137 @@
+package com.gym.gym_management.service;
+
+import com.gym.gym_management.controller.dto.PaymentDTO;
+import com.gym.gym_management.model.Client;
+import com.gym.gym_management.model.PaymentMethod;
+import com.gym.gym_management.repository.IClientRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Alta de pagos contra PostgreSQL: el INSERT ... ON CONFLICT sobre el índice único parcial
+ * ({@code ux_payments_client_period_valid}) no se puede ejercitar en H2.
+ * <p>
+ * Se ejecuta solo si {@code TEST_POSTGRES_URL} apunta a una base de pruebas descartable (Hibernate recrea el
+ * esquema); usuario y contraseña salen de {@code TEST_POSTGRES_USER} / {@code TEST_POSTGRES_PASSWORD}.
+ * Cada test corre en una transacción que se revierte al final.
+ */
+@SpringBootTest
+@Transactional
+@EnabledIfEnvironmentVariable(named = "TEST_POSTGRES_URL", matches = ".+")
+class PaymentRegistrationPostgresTest {
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("TEST_POSTGRES_URL"));
+        registry.add("spring.datasource.username", () -> envOrDefault("TEST_POSTGRES_USER", "postgres"));
+        registry.add("spring.datasource.password", () -> envOrDefault("TEST_POSTGRES_PASSWORD", "postgres"));
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.PostgreSQLDialect");
+    }
+
+    private static String envOrDefault(String name, String fallback) {
+        String value = System.getenv(name);
+        return value != null ? value : fallback;
+    }
+
+    @Autowired private PaymentService paymentService;
+    @Autowired private IClientRepository clientRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private DataSource dataSource;
+    @Autowired private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        // Índice parcial de schema.sql (sql.init está desactivado en tests para no cargar data.sql)
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+    }
+
+    @Test
+    @DisplayName("Alta: inserta el pago y sus servicios escriben auditoría, membresía, rollups y actividad")
+    void registraPagoYEscribeEfectosEnLaMismaTransaccion() {
+        Client client = nuevoCliente("ana@pg.test", true);
+
+        PaymentDTO out = paymentService.registerPayment(pago(client.getId(), 5000.0));
+        entityManager.flush();
+
+        assertThat(out.getId()).isNotNull();
+        assertThat(out.getClientFirstName()).isEqualTo("Ana");
+        assertThat(count("SELECT COUNT(*) FROM payments WHERE client_id = ?", client.getId())).isEqualTo(1);
+        assertThat(count("SELECT COUNT(*) FROM audit_logs WHERE action = 'CREATE_PAYMENT' AND entity_id = ?", out.getId()))
+                .isEqualTo(1);
+        assertThat(count("SELECT COUNT(*) FROM client_membership_status WHERE client_id = ? AND last_payment_id = ?",
+                client.getId(), out.getId())).isEqualTo(1);
+        assertThat(count("SELECT COUNT(*) FROM activity_events WHERE type = 'PAYMENT' AND payment_id = ?", out.getId()))
+                .isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT total FROM revenue_daily WHERE revenue_date = ? AND method = 'CASH'", Double.class,
+                out.getPaymentDate())).isEqualTo(5000.0);
+    }
+
+    @Test
+    @DisplayName("Segundo pago del mismo período: el índice parcial lo descarta y se informa conflicto")
+    void mismoPeriodoDevuelveConflicto() {
+        Client client = nuevoCliente("dup@pg.test", true);
+        paymentService.registerPayment(pago(client.getId(), 5000.0));
+
+        assertThatThrownBy(() -> paymentService.registerPayment(pago(client.getId(), 4000.0)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Ya existe un pago válido");
+        entityManager.flush();
+        assertThat(count("SELECT COUNT(*) FROM payments WHERE client_id = ?", client.getId())).isEqualTo(1);
+        assertThat(count("SELECT COUNT(*) FROM audit_logs WHERE action = 'CREATE_PAYMENT'")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Cliente inactivo o inexistente: no se inserta nada")
+    void clienteInactivoOInexistenteNoInserta() {
+        Client inactive = nuevoCliente("baja@pg.test", false);
+
+        assertThatThrownBy(() -> paymentService.registerPayment(pago(inactive.getId(), 5000.0)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("inactivo");
+        assertThatThrownBy(() -> paymentService.registerPayment(pago(inactive.getId() + 1000, 5000.0)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("no encontrado");
+        assertThat(count("SELECT COUNT(*) FROM payments")).isZero();
+    }
+
+    private Client nuevoCliente(String email, boolean active) {
+        Client c = new Client("Ana", "García", email, "123");
+        c.setActive(active);
+        return clientRepository.saveAndFlush(c);
+    }
+
+    private PaymentDTO pago(Long clientId, double amount) {
+        PaymentDTO dto = new PaymentDTO();
+        dto.setClientId(clientId);
+        dto.setAmount(amount);
+        dto.setMethod(PaymentMethod.CASH);
+        dto.setMonth(LocalDate.now().getMonthValue());
+        dto.setYear(LocalDate.now().getYear());
+        dto.setPaymentDate(LocalDate.now());
+        return dto;
+    }
+
+    private long count(String sql, Object... args) {
+        Long value = jdbcTemplate.queryForObject(sql, Long.class, args);
+        return value != null ? value : 0L;
+    }
+}
@@ -5,17 +5,20 @@ import com.gym.gym_management.model.*;
 import com.gym.gym_management.repository.IClientRepository;
 import com.gym.gym_management.repository.IPaymentRepository;
 import com.gym.gym_management.repository.IUserRepository;
+import com.gym.gym_management.repository.PaymentJdbcRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.*;
@@ -30,6 +33,12 @@ class PaymentServiceTest {
     @Mock private IClientRepository clientRepository;
     @Mock private IUserRepository userRepository;
     @Mock private AuditService auditService;
+    @Mock private MembershipStatusService membershipStatusService;
+    @Mock private PaymentJdbcRepository paymentJdbcRepository;
+    @Mock private ExpirationScheduler expirationScheduler;
+    @Mock private RevenueRollupService revenueRollupService;
+    @Mock private ActivityService activityService;
+    @Mock private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks private PaymentService paymentService;
 
@@ -57,31 +66,75 @@ class PaymentServiceTest {
     }
 
     @Test
-    void registerPayment_success_monthly() {
+    void registerPayment_success_monthly_guardedInsert() {
         PaymentDTO dto = baseDto();
         given(clientRepository.findById(1L)).willReturn(Optional.of(activeClient));
-        given(paymentRepository.existsByClient_IdAndMonthAndYearAndVoidedFalse(1L, dto.getMonth(), dto.getYear())).willReturn(false);
-        given(paymentRepository.save(any(Payment.class))).willAnswer(inv -> {
-            Payment p = inv.getArgument(0);
-            p.setId(10L);
-            return p;
-        });
+        given(paymentJdbcRepository.insertIfPeriodFree(any(Payment.class))).willReturn(Optional.of(10L));
 
         PaymentDTO out = paymentService.registerPayment(dto);
         assertThat(out.getId()).isEqualTo(10L);
         assertThat(out.getState()).isEqualTo(PaymentState.UP_TO_DATE);
+        assertThat(out.getClientFirstName()).isEqualTo("Ana");
         assertThat(out.getExpirationDate()).isEqualTo(dto.getPaymentDate().plusMonths(1));
-        verify(auditService).logPaymentCreation(any(Payment.class));
+        // Sin consulta previa de duplicados: la resuelve el índice único en el INSERT
+        verifyNoInteractions(paymentRepository);
+        verify(auditService).logPaymentCreation(argThat(p -> p.getId() == 10L));
+        verify(membershipStatusService).onPaymentRegistered(argThat(p -> p.getId() == 10L));
+        verify(expirationScheduler).track(10L, dto.getPaymentDate().plusMonths(1));
+        verify(activityService).recordPaymentReceived(argThat(p ->
+                p.getId() == 10L && "Ana".equals(p.getClient().getFirstName()) && "García".equals(p.getClient().getLastName())));
+        verify(revenueRollupService).onPaymentRegistered(argThat(p ->
+                p.getAmount() == 5000.0 && p.getMethod() == PaymentMethod.CASH && p.getPaymentDate().equals(dto.getPaymentDate())));
     }
 
     @Test
-    void registerPayment_duplicatePeriod_throws() {
+    void registerPayment_backdatedAlreadyExpired_isPersistedExpired_andNotScheduled() {
         PaymentDTO dto = baseDto();
+        dto.setPaymentDate(LocalDate.now().minusDays(10));
+        dto.setDurationDays(5);
         given(clientRepository.findById(1L)).willReturn(Optional.of(activeClient));
-        given(paymentRepository.existsByClient_IdAndMonthAndYearAndVoidedFalse(1L, dto.getMonth(), dto.getYear())).willReturn(true);
+        given(paymentJdbcRepository.insertIfPeriodFree(any(Payment.class)))
+                .willAnswer(inv -> {
+                    Payment p = inv.getArgument(0);
+                    assertThat(p.getState()).isEqualTo(PaymentState.EXPIRED);
+                    return Optional.of(11L);
+                });
+
+        PaymentDTO out = paymentService.registerPayment(dto);
+        assertThat(out.getState()).isEqualTo(PaymentState.EXPIRED);
+        verifyNoInteractions(expirationScheduler);
+    }
+
+    @Test
+    void registerPayment_duplicatePeriod_mapsConflictTo409() {
+        PaymentDTO dto = baseDto();
+        given(clientRepository.findById(1L)).willReturn(Optional.of(activeClient));
+        given(paymentJdbcRepository.insertIfPeriodFree(any(Payment.class))).willReturn(Optional.empty());
         assertThatThrownBy(() -> paymentService.registerPayment(dto))
                 .isInstanceOf(IllegalStateException.class)
                 .hasMessageContaining("Ya existe un pago válido");
+        verifyNoInteractions(eventPublisher, auditService, membershipStatusService, activityService, revenueRollupService);
+    }
+
+    @Test
+    void registerPayment_inactiveClient_throws() {
+        PaymentDTO dto = baseDto();
+        activeClient.setActive(false);
+        given(clientRepository.findById(1L)).willReturn(Optional.of(activeClient));
+        assertThatThrownBy(() -> paymentService.registerPayment(dto))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("inactivo");
+        verifyNoInteractions(paymentJdbcRepository);
+    }
+
+    @Test
+    void registerPayment_unknownClient_throwsNotFound() {
+        PaymentDTO dto = baseDto();
+        given(clientRepository.findById(1L)).willReturn(Optional.empty());
+        assertThatThrownBy(() -> paymentService.registerPayment(dto))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("no encontrado");
+        verifyNoInteractions(paymentJdbcRepository);
     }
 
     @Test
@@ -107,6 +160,11 @@ class PaymentServiceTest {
         assertThat(out.getState()).isEqualTo(PaymentState.VOIDED);
         assertThat(out.getVoidedBy()).isEqualTo(99L);
         verify(auditService).logPaymentVoid(any(Payment.class), eq("duplicado"));
+        verify(membershipStatusService).onPaymentVoided(payment);
+        verify(expirationScheduler).untrack(5L);
+        verify(revenueRollupService).onPaymentVoided(payment);
+        verify(eventPublisher).publishEvent(argThat((Object e) -> e instanceof DataChangedEvent ev
+                && ev.getKind() == DataChangedEvent.Kind.PAYMENT_VOIDED && ev.getPaymentId().equals(5L)));
         // cleanup
         SecurityContextHolder.clearContext();
     }
@@ -157,4 +215,14 @@ class PaymentServiceTest {
         PaymentState st = paymentService.computePeriodState(1L, today.getMonthValue(), today.getYear());
         assertThat(st).isEqualTo(PaymentState.EXPIRED);
     }
+
+    @Test
+    void expireOverduePayments_alsoExpiresMaterializedMemberships() {
+        given(paymentRepository.bulkExpire(any(LocalDate.class), eq(PaymentState.UP_TO_DATE), eq(PaymentState.EXPIRED))).willReturn(4);
+
+        int updated = paymentService.expireOverduePayments();
+
+        assertThat(updated).isEqualTo(4);
+        verify(membershipStatusService).expireOverdue(LocalDate.now());
+    }
 }
@@ -0,0 +1,146 @@
+package com.gym.gym_management.service;
+
+import com.gym.gym_management.model.RefreshToken;
+import com.gym.gym_management.repository.IRefreshTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class RefreshTokenServiceTest {
+
+    @Mock private IRefreshTokenRepository refreshTokenRepository;
+
+    @InjectMocks private RefreshTokenService service;
+
+    /** Tabla simulada: el repositorio mock guarda y consulta sobre esta lista. */
+    private final List<RefreshToken> rows = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        given(refreshTokenRepository.save(any(RefreshToken.class))).willAnswer(inv -> {
+            RefreshToken t = inv.getArgument(0);
+            t.setId((long) rows.size() + 1);
+            rows.add(t);
+            return t;
+        });
+        given(refreshTokenRepository.findByTokenHash(anyString())).willAnswer(inv -> rows.stream()
+                .filter(t -> t.getTokenHash().equals(inv.getArgument(0)))
+                .findFirst());
+        given(refreshTokenRepository.markUsed(anyLong(), any())).willAnswer(inv -> {
+            RefreshToken t = rows.get(((Long) inv.getArgument(0)).intValue() - 1);
+            if (t.getUsedAt() != null || t.getRevokedAt() != null) return 0;
+            t.setUsedAt(inv.getArgument(1));
+            return 1;
+        });
+        given(refreshTokenRepository.revokeFamily(anyString(), any())).willAnswer(inv -> {
+            rows.stream().filter(t -> t.getFamilyId().equals(inv.getArgument(0)) && t.getRevokedAt() == null)
+                    .forEach(t -> t.setRevokedAt(inv.getArgument(1)));
+            return 0;
+        });
+    }
+
+    @Test
+    void issue_storesOnlyTheHash() {
+        String raw = service.issue("admin@gym.com");
+
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0).getTokenHash()).hasSize(64).isNotEqualTo(raw);
+        assertThat(rows.get(0).getExpiresAt()).isAfter(LocalDateTime.now().plusDays(6));
+    }
+
+    @Test
+    void rotate_returnsNewTokenOfSameFamily_andOldOneStopsWorking() {
+        String first = service.issue("admin@gym.com");
+
+        RefreshTokenService.Rotation rotation = service.rotate(first);
+
+        assertThat(rotation.getEmail()).isEqualTo("admin@gym.com");
+        assertThat(rotation.getRefreshToken()).isNotEqualTo(first);
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(1).getFamilyId()).isEqualTo(rows.get(0).getFamilyId());
+        assertThat(rows.get(0).getUsedAt()).isNotNull();
+        assertThat(service.rotate(rotation.getRefreshToken()).getEmail()).isEqualTo("admin@gym.com");
+    }
+
+    @Test
+    void reusingRotatedToken_revokesWholeFamily_evenRightAfterUse() {
+        String first = service.issue("admin@gym.com");
+        String second = service.rotate(first).getRefreshToken();
+        String otherSession = service.issue("admin@gym.com");
+
+        assertThatThrownBy(() -> service.rotate(first))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessageContaining("reutilizado");
+
+        // El token vigente de la familia tampoco sirve; otras sesiones del usuario no se tocan
+        assertThatThrownBy(() -> service.rotate(second)).isInstanceOf(InvalidRefreshTokenException.class);
+        assertThat(service.rotate(otherSession).getEmail()).isEqualTo("admin@gym.com");
+    }
+
+    @Test
+    void losingConcurrentMarkUsedRace_isConflict_withoutRevokingFamily() {
+        String shared = service.issue("admin@gym.com");
+        // La otra rotación marca el token entre la lectura y el UPDATE de esta
+        willReturn(0).given(refreshTokenRepository).markUsed(anyLong(), any());
+
+        assertThatThrownBy(() -> service.rotate(shared)).isInstanceOf(RefreshTokenConflictException.class);
+
+        verify(refreshTokenRepository, never()).revokeFamily(anyString(), any());
+        assertThat(rows).hasSize(1);
+    }
+
+    @Test
+    void rotate_rejectsUnknownAndExpiredTokens() {
+        String raw = service.issue("admin@gym.com");
+        rows.get(0).setExpiresAt(LocalDateTime.now().minusMinutes(1));
+
+        assertThatThrownBy(() -> service.rotate("desconocido")).isInstanceOf(InvalidRefreshTokenException.class);
+        assertThatThrownBy(() -> service.rotate(null)).isInstanceOf(InvalidRefreshTokenException.class);
+        assertThatThrownBy(() -> service.rotate(raw))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessageContaining("expirado");
+    }
+
+    @Test
+    void revoke_endsTheSession() {
+        String raw = service.issue("admin@gym.com");
+
+        service.revoke(raw);
+
+        assertThat(rows.get(0).getRevokedAt()).isNotNull();
+        assertThatThrownBy(() -> service.rotate(raw)).isInstanceOf(InvalidRefreshTokenException.class);
+    }
+
+    @Test
+    void passwordChange_revokesAllTokensOfUser() {
+        service.onCredentialsChanged(new UserCredentialsChangedEvent("admin@gym.com",
+                UserCredentialsChangedEvent.Reason.PASSWORD_CHANGED));
+        service.onCredentialsChanged(new UserCredentialsChangedEvent("nuevo@gym.com",
+                UserCredentialsChangedEvent.Reason.CREATED));
+
+        verify(refreshTokenRepository).revokeAllForUser(eq("admin@gym.com"), any());
+        verify(refreshTokenRepository, never()).revokeAllForUser(eq("nuevo@gym.com"), any());
+    }
+}
@@ -0,0 +1,103 @@
+package com.gym.gym_management.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReportCacheTest {
+
+    @Test
+    void get_cachesByKey_andCountsHitsAndMisses() {
+        ReportCache cache = new ReportCache(60, 10);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(cache.get(ReportCache.key("expiring", 7, 0, 50), loads::incrementAndGet)).isEqualTo(1);
+        assertThat(cache.get(ReportCache.key("expiring", 7, 0, 50), loads::incrementAndGet)).isEqualTo(1);
+        assertThat(cache.get(ReportCache.key("expiring", 14, 0, 50), loads::incrementAndGet)).isEqualTo(2);
+
+        assertThat(cache.stats()).containsEntry("hits", 1L).containsEntry("misses", 2L).containsEntry("entries", 2);
+    }
+
+    @Test
+    void get_concurrentIdenticalRequests_shareOneLoad() throws Exception {
+        ReportCache cache = new ReportCache(60, 10);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            Future<Integer> first = pool.submit(() -> cache.get("overdue", () -> {
+                loading.countDown();
+                await(release);
+                return loads.incrementAndGet();
+            }));
+            loading.await(5, TimeUnit.SECONDS);
+            Future<Integer> second = pool.submit(() -> cache.get("overdue", loads::incrementAndGet));
+            Future<Integer> third = pool.submit(() -> cache.get("overdue", loads::incrementAndGet));
+            // deja que los dos pedidos queden esperando el cálculo en curso
+            Thread.sleep(100);
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            assertThat(third.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            assertThat(loads.get()).isEqualTo(1);
+            assertThat(cache.stats()).containsEntry("coalesced", 2L);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void get_failedLoad_isNotCached() {
+        ReportCache cache = new ReportCache(60, 10);
+
+        assertThatThrownBy(() -> cache.get("stats", () -> { throw new IllegalStateException("db caída"); }))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(cache.get("stats", () -> "ok")).isEqualTo("ok");
+        assertThat(cache.stats()).containsEntry("loadFailures", 1L);
+    }
+
+    @Test
+    void onDataChanged_invalidatesEverything() {
+        ReportCache cache = new ReportCache(60, 10);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("stats", loads::incrementAndGet);
+
+        cache.onDataChanged(DataChangedEvent.bulk(DataChangedEvent.Kind.PAYMENTS_EXPIRED, 3));
+
+        assertThat(cache.get("stats", loads::incrementAndGet)).isEqualTo(2);
+        assertThat(cache.stats()).containsEntry("invalidations", 1L);
+    }
+
+    @Test
+    void get_expiredOrOverflowingEntries_areEvicted() {
+        ReportCache noTtl = new ReportCache(0, 10);
+        AtomicInteger loads = new AtomicInteger();
+        noTtl.get("a", loads::incrementAndGet);
+        noTtl.get("a", loads::incrementAndGet);
+        assertThat(loads.get()).isEqualTo(2);
+
+        ReportCache small = new ReportCache(60, 2);
+        small.get("a", () -> 1);
+        small.get("b", () -> 2);
+        small.get("c", () -> 3);
+        assertThat(small.stats()).containsEntry("entries", 2).containsEntry("evictions", 1L);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
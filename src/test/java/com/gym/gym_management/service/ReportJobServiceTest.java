@@ -0,0 +1,169 @@
+package com.gym.gym_management.service;
+
+import com.gym.gym_management.controller.dto.ReportJobRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ReportJobServiceTest {
+
+    @Mock private PaymentExportService paymentExportService;
+
+    @InjectMocks private ReportJobService service;
+
+    @TempDir Path tempDir;
+
+    /** Tareas entregadas al pool, ejecutadas a mano por cada test. */
+    private final List<Runnable> submitted = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "executor", (Executor) submitted::add);
+        ReflectionTestUtils.setField(service, "directory", tempDir);
+        ReflectionTestUtils.setField(service, "threads", 2);
+        ReflectionTestUtils.setField(service, "perTypeLimit", 1);
+        ReflectionTestUtils.setField(service, "maxQueued", 2);
+        ReflectionTestUtils.setField(service, "maxActivePerUser", 5);
+        service.init();
+    }
+
+    @Test
+    void submit_runsExportIntoFile_andReportsProgress() throws Exception {
+        given(paymentExportService.exportOverdue(eq(PaymentExportService.Format.CSV), any(), any()))
+                .willAnswer(inv -> {
+                    OutputStream out = inv.getArgument(1);
+                    PaymentExportService.Progress progress = inv.getArgument(2);
+                    progress.total(2);
+                    out.write("id\n1\n2\n".getBytes(StandardCharsets.UTF_8));
+                    progress.written(2);
+                    return 2L;
+                });
+
+        ReportJob job = service.submit(request(ReportJob.Type.OVERDUE), PaymentExportService.Format.CSV, "admin@gym.com");
+        assertThat(job.getStatus()).isEqualTo(ReportJob.Status.RUNNING);
+        submitted.remove(0).run();
+
+        ReportJob done = service.getResult(job.getId());
+        assertThat(done.getStatus()).isEqualTo(ReportJob.Status.DONE);
+        assertThat(done.getRowsWritten()).isEqualTo(2);
+        assertThat(done.getPercent()).isEqualTo(100);
+        assertThat(done.getFileName()).startsWith("vencidos-").endsWith(".csv");
+        assertThat(Files.readString(done.getFile())).isEqualTo("id\n1\n2\n");
+        assertThat(done.getExpiresAt()).isAfter(LocalDateTime.now());
+    }
+
+    @Test
+    void submit_respectsPerTypeLimit_andDispatchesWhenPreviousFinishes() throws Exception {
+        ReportJobRequest cashflow = request(ReportJob.Type.CASHFLOW);
+        cashflow.setFrom(LocalDate.of(2020, 1, 1));
+        cashflow.setTo(LocalDate.of(2024, 12, 31));
+
+        ReportJob first = service.submit(cashflow, PaymentExportService.Format.CSV, "admin@gym.com");
+        ReportJob second = service.submit(cashflow, PaymentExportService.Format.CSV, "admin@gym.com");
+        ReportJob overdue = service.submit(request(ReportJob.Type.OVERDUE), PaymentExportService.Format.CSV, "admin@gym.com");
+
+        // Hay dos hilos, pero solo un flujo de caja a la vez: el vencidos pasa adelante del segundo
+        assertThat(submitted).hasSize(2);
+        assertThat(first.getStatus()).isEqualTo(ReportJob.Status.RUNNING);
+        assertThat(second.getStatus()).isEqualTo(ReportJob.Status.QUEUED);
+        assertThat(overdue.getStatus()).isEqualTo(ReportJob.Status.RUNNING);
+
+        submitted.remove(0).run();
+        assertThat(first.getStatus()).isEqualTo(ReportJob.Status.DONE);
+        assertThat(second.getStatus()).isEqualTo(ReportJob.Status.RUNNING);
+        assertThat(submitted).hasSize(2);
+    }
+
+    @Test
+    void submit_rejectsWhenQueueIsFull() {
+        ReflectionTestUtils.setField(service, "threads", 0);
+        service.submit(request(ReportJob.Type.OVERDUE), PaymentExportService.Format.CSV, "a@gym.com");
+        service.submit(request(ReportJob.Type.OVERDUE), PaymentExportService.Format.CSV, "b@gym.com");
+
+        assertThatThrownBy(() -> service.submit(request(ReportJob.Type.OVERDUE), PaymentExportService.Format.CSV, "c@gym.com"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void submit_cashflowWithoutDates_isRejected() {
+        assertThatThrownBy(() -> service.submit(request(ReportJob.Type.CASHFLOW), PaymentExportService.Format.CSV, "admin@gym.com"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void cancel_queuedJob_neverRuns_andIsNotDownloadable() throws Exception {
+        ReflectionTestUtils.setField(service, "threads", 0);
+        ReportJob job = service.submit(request(ReportJob.Type.OVERDUE), PaymentExportService.Format.CSV, "admin@gym.com");
+
+        service.cancel(job.getId());
+
+        assertThat(job.getStatus()).isEqualTo(ReportJob.Status.CANCELLED);
+        assertThat(submitted).isEmpty();
+        assertThatThrownBy(() -> service.getResult(job.getId())).isInstanceOf(IllegalStateException.class);
+        verify(paymentExportService, never()).exportOverdue(any(), any(), any());
+    }
+
+    @Test
+    void failedJob_deletesPartialFile() throws Exception {
+        given(paymentExportService.exportOverdue(any(), any(), any())).willThrow(new IOException("boom"));
+
+        ReportJob job = service.submit(request(ReportJob.Type.OVERDUE), PaymentExportService.Format.NDJSON, "admin@gym.com");
+        submitted.remove(0).run();
+
+        assertThat(job.getStatus()).isEqualTo(ReportJob.Status.FAILED);
+        assertThat(job.getError()).isNotBlank();
+        assertThat(job.getFile()).isNull();
+        try (var files = Files.list(tempDir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void purgeExpired_removesJobAndFile() throws Exception {
+        given(paymentExportService.exportOverdue(any(), any(), any())).willReturn(0L);
+        ReflectionTestUtils.setField(service, "ttlMinutes", -1L);
+        ReportJob job = service.submit(request(ReportJob.Type.OVERDUE), PaymentExportService.Format.CSV, "admin@gym.com");
+        submitted.remove(0).run();
+        Path file = job.getFile();
+        assertThat(file).exists();
+
+        service.purgeExpired();
+
+        assertThat(file).doesNotExist();
+        assertThat(service.list()).isEmpty();
+        assertThatThrownBy(() -> service.get(job.getId()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("no encontrado");
+    }
+
+    private static ReportJobRequest request(ReportJob.Type type) {
+        ReportJobRequest request = new ReportJobRequest();
+        request.setType(type);
+        return request;
+    }
+}
@@ -1,83 +1,143 @@
 package com.gym.gym_management.service;
 
-import com.gym.gym_management.model.Client;
-import com.gym.gym_management.model.Payment;
-import com.gym.gym_management.repository.IClientRepository;
+import com.gym.gym_management.repository.ClientMembershipReportView;
+import com.gym.gym_management.repository.ClientMembershipView;
+import com.gym.gym_management.repository.IClientMembershipStatusRepository;
+import com.gym.gym_management.repository.INotificationLogRepository;
 import com.gym.gym_management.repository.IPaymentRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 @ExtendWith(MockitoExtension.class)
 class ReportServiceTest {
 
     @Mock private IPaymentRepository paymentRepository;
-    @Mock private IClientRepository clientRepository;
+    @Mock private IClientMembershipStatusRepository membershipStatusRepository;
+    @Mock private INotificationLogRepository notificationLogRepository;
+    @Mock private RevenueRollupService revenueRollupService;
 
     @InjectMocks private ReportService reportService;
 
     @Test
-    void getClientsWithPaymentsExpiringSoon_filtersWithin7Days() {
-        Client a = new Client("Ana", "García", "ana@example.com", null);
-        a.setId(1L);
-        Client b = new Client("Juan", "Pérez", "juan@example.com", null);
-        b.setId(2L);
-
-        Payment pa = new Payment();
-        pa.setExpirationDate(LocalDate.now().plusDays(3));
-        pa.setVoided(false);
-        a.addPayment(pa);
-
-        Payment pb = new Payment();
-        pb.setExpirationDate(LocalDate.now().plusDays(10)); // fuera de ventana
-        pb.setVoided(false);
-        b.addPayment(pb);
-
-        given(clientRepository.findAllActive()).willReturn(List.of(a, b));
-
-        var result = reportService.getClientsWithPaymentsExpiringSoon();
-        assertThat(result).extracting("id").containsExactly(1L);
+    void getClientsWithPaymentsExpiringSoon_singleQuery_withReminderFlagAndHorizon() {
+        LocalDate today = LocalDate.now();
+        var a = reportRow(1L, "Ana", 11L, today.plusDays(3), true);
+        var b = reportRow(2L, "Juan", 12L, today.plusDays(12), false);
+        given(membershipStatusRepository.findActiveExpiringBetween(today, today.plusDays(14), PageRequest.of(0, 20)))
+                .willReturn(new PageImpl<>(List.of(a, b), PageRequest.of(0, 20), 2));
+
+        var result = reportService.getClientsWithPaymentsExpiringSoon(14, PageRequest.of(0, 20));
+
+        assertThat(result.getContent()).extracting("id").containsExactly(1L, 2L);
+        assertThat(result.getContent()).extracting("reminderSent").containsExactly(true, false);
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        verifyNoInteractions(notificationLogRepository, paymentRepository);
     }
 
     @Test
-    void getClientsWithOverduePayments_filtersBeforeToday() {
-        Client a = new Client("Ana", "García", "ana@example.com", null);
-        a.setId(1L);
-        Client b = new Client("Juan", "Pérez", "juan@example.com", null);
-        b.setId(2L);
-
-        Payment lastA = new Payment();
-        lastA.setExpirationDate(LocalDate.now().minusDays(1)); // vencido
-        lastA.setVoided(false);
-
-        Payment lastB = new Payment();
-        lastB.setExpirationDate(LocalDate.now().plusDays(1)); // no vencido
-        lastB.setVoided(false);
-
-        given(clientRepository.findAllActive()).willReturn(List.of(a, b));
-        given(paymentRepository.findTopByClient_IdAndVoidedFalseOrderByExpirationDateDesc(1L)).willReturn(lastA);
-        given(paymentRepository.findTopByClient_IdAndVoidedFalseOrderByExpirationDateDesc(2L)).willReturn(lastB);
-
-        var result = reportService.getClientsWithOverduePayments();
-        assertThat(result).extracting("id").containsExactly(1L);
+    void getClientsWithPaymentsExpiringSoon_rejectsHorizonOutOfRange() {
+        assertThatThrownBy(() -> reportService.getClientsWithPaymentsExpiringSoon(0, PageRequest.of(0, 20)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> reportService.getClientsWithPaymentsExpiringSoon(ReportService.MAX_EXPIRING_DAYS + 1, PageRequest.of(0, 20)))
+                .isInstanceOf(IllegalArgumentException.class);
     }
 
     @Test
-    void calculateCashflow_sumsNonVoidedWithinRange() {
+    void getClientsWithOverduePayments_usesConstantQueries_regardlessOfMembers() {
+        LocalDate today = LocalDate.now();
+        List<ClientMembershipReportView> rows = new ArrayList<>();
+        for (long i = 1; i <= 200; i++) {
+            rows.add(reportRow(i, "Socio" + i, 100 + i, today.minusDays(i), i % 2 == 0));
+        }
+        given(membershipStatusRepository.findActiveOverdue(eq(today), any(Pageable.class)))
+                .willReturn(new PageImpl<>(rows, PageRequest.of(0, 200), 1000));
+
+        var result = reportService.getClientsWithOverduePayments(true, PageRequest.of(0, 200));
+
+        assertThat(result.getContent()).hasSize(200);
+        assertThat(result.getTotalElements()).isEqualTo(1000);
+        assertThat(result.getContent().get(0).getDaysOverdue()).isEqualTo(1);
+        assertThat(result.getContent().get(1).isReminderSent()).isTrue();
+        // Una sola llamada al repositorio (página + COUNT en SQL) y ninguna consulta por cliente
+        verify(membershipStatusRepository, times(1)).findActiveOverdue(eq(today), any(Pageable.class));
+        verifyNoMoreInteractions(membershipStatusRepository);
+        verifyNoInteractions(notificationLogRepository, paymentRepository);
+    }
+
+    @Test
+    void getClientsWithOverduePayments_sortsByDaysOverdue_withStableTieBreak() {
+        LocalDate today = LocalDate.now();
+        given(membershipStatusRepository.findActiveOverdue(eq(today), any(Pageable.class)))
+                .willReturn(new PageImpl<>(List.of()));
+        ArgumentCaptor<Pageable> captor = ArgumentCaptor.forClass(Pageable.class);
+
+        reportService.getClientsWithOverduePayments(true, PageRequest.of(2, 25, Sort.by("email")));
+        reportService.getClientsWithOverduePayments(false, PageRequest.of(0, 25));
+
+        verify(membershipStatusRepository, times(2)).findActiveOverdue(eq(today), captor.capture());
+        Pageable mostOverdue = captor.getAllValues().get(0);
+        assertThat(mostOverdue.getPageNumber()).isEqualTo(2);
+        assertThat(mostOverdue.getSort()).containsExactly(Sort.Order.asc("expirationDate"), Sort.Order.asc("clientId"));
+        assertThat(captor.getAllValues().get(1).getSort())
+                .containsExactly(Sort.Order.desc("expirationDate"), Sort.Order.asc("clientId"));
+    }
+
+    @Test
+    void calculateCashflow_isServedFromRollups_withoutLoadingPayments() {
         var from = LocalDate.now().minusDays(30);
         var to = LocalDate.now();
-        Payment p1 = new Payment(); p1.setAmount(100.0); p1.setVoided(false);
-        Payment p2 = new Payment(); p2.setAmount(50.5); p2.setVoided(false);
-        given(paymentRepository.findByPaymentDateBetweenAndVoidedFalse(from, to)).willReturn(List.of(p1, p2));
+        given(revenueRollupService.cashflow(from, to)).willReturn(150.5);
         Double total = reportService.calculateCashflow(from, to);
         assertThat(total).isEqualTo(150.5);
+        verifyNoInteractions(paymentRepository);
+    }
+
+    private ClientMembershipView row(Long clientId, String firstName, Long lastPaymentId, LocalDate expirationDate) {
+        return new ClientMembershipView() {
+            @Override public Long getClientId() { return clientId; }
+            @Override public String getFirstName() { return firstName; }
+            @Override public String getLastName() { return "Test"; }
+            @Override public String getEmail() { return firstName.toLowerCase() + "@example.com"; }
+            @Override public Boolean getActive() { return true; }
+            @Override public Long getLastPaymentId() { return lastPaymentId; }
+            @Override public LocalDate getExpirationDate() { return expirationDate; }
+        };
+    }
+
+    private ClientMembershipReportView reportRow(Long clientId, String firstName, Long lastPaymentId,
+                                                 LocalDate expirationDate, boolean reminderSent) {
+        ClientMembershipView base = row(clientId, firstName, lastPaymentId, expirationDate);
+        return new ClientMembershipReportView() {
+            @Override public Long getClientId() { return base.getClientId(); }
+            @Override public String getFirstName() { return base.getFirstName(); }
+            @Override public String getLastName() { return base.getLastName(); }
+            @Override public String getEmail() { return base.getEmail(); }
+            @Override public Boolean getActive() { return base.getActive(); }
+            @Override public Long getLastPaymentId() { return base.getLastPaymentId(); }
+            @Override public LocalDate getExpirationDate() { return base.getExpirationDate(); }
+            @Override public Boolean getReminderSent() { return reminderSent; }
+        };
     }
 }
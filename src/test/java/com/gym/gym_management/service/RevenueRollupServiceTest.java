@@ -0,0 +1,108 @@
+package com.gym.gym_management.service;
+
+import com.gym.gym_management.model.Payment;
+import com.gym.gym_management.model.PaymentMethod;
+import com.gym.gym_management.repository.RevenueRollupRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RevenueRollupServiceTest {
+
+    @Mock private RevenueRollupRepository rollupRepository;
+    @Mock private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks private RevenueRollupService service;
+
+    @Test
+    void cashflow_multiYearRange_usesMonthlyRollupForFullMonths_andDailyForEdges() {
+        LocalDate from = LocalDate.of(2023, 3, 15);
+        LocalDate to = LocalDate.of(2025, 6, 10);
+        given(rollupRepository.sumMonthly(LocalDate.of(2023, 4, 1), LocalDate.of(2025, 5, 1))).willReturn(1000.0);
+        given(rollupRepository.sumDaily(from, LocalDate.of(2023, 3, 31))).willReturn(50.0);
+        given(rollupRepository.sumDaily(LocalDate.of(2025, 6, 1), to)).willReturn(25.5);
+
+        assertThat(service.cashflow(from, to)).isEqualTo(1075.5);
+    }
+
+    @Test
+    void cashflow_withinOneMonth_usesDailyRollupOnly() {
+        LocalDate from = LocalDate.of(2025, 6, 3);
+        LocalDate to = LocalDate.of(2025, 6, 20);
+        given(rollupRepository.sumDaily(from, to)).willReturn(300.0);
+
+        assertThat(service.cashflow(from, to)).isEqualTo(300.0);
+        verify(rollupRepository, never()).sumMonthly(any(), any());
+    }
+
+    @Test
+    void cashflow_invertedRange_throws() {
+        assertThatThrownBy(() -> service.cashflow(LocalDate.of(2025, 6, 2), LocalDate.of(2025, 6, 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void series_monthBucketOverWholeMonths_readsMonthlyRollup() {
+        service.series(RevenueRollupService.Bucket.MONTH, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31), true);
+        verify(rollupRepository).monthlySeries(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 1), true);
+    }
+
+    @Test
+    void series_weekBucket_truncatesDailyRollupByWeek() {
+        LocalDate from = LocalDate.of(2025, 1, 6);
+        LocalDate to = LocalDate.of(2025, 3, 2);
+        service.series(RevenueRollupService.Bucket.parse("week"), from, to, false);
+        verify(rollupRepository).dailySeries("week", from, to, false);
+    }
+
+    @Test
+    void bucketParse_rejectsUnknownValues() {
+        assertThat(RevenueRollupService.Bucket.parse(null)).isEqualTo(RevenueRollupService.Bucket.DAY);
+        assertThatThrownBy(() -> RevenueRollupService.Bucket.parse("year"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void onPaymentRegistered_addsToRollups() {
+        Payment payment = new Payment();
+        payment.setAmount(800.0);
+        payment.setMethod(PaymentMethod.DEBIT);
+        payment.setPaymentDate(LocalDate.of(2025, 6, 5));
+
+        service.onPaymentRegistered(payment);
+
+        verify(rollupRepository).apply(LocalDate.of(2025, 6, 5), PaymentMethod.DEBIT, 1, 800.0);
+    }
+
+    @Test
+    void onPaymentVoided_subtractsFromRollups() {
+        Payment payment = new Payment();
+        payment.setAmount(800.0);
+        payment.setMethod(PaymentMethod.CASH);
+        payment.setPaymentDate(LocalDate.of(2025, 6, 5));
+
+        service.onPaymentVoided(payment);
+
+        verify(rollupRepository).apply(LocalDate.of(2025, 6, 5), PaymentMethod.CASH, -1, -800.0);
+    }
+
+    @Test
+    void onPaymentsImported_appliesBatch() {
+        List<Payment> payments = List.of(new Payment());
+        service.onPaymentsImported(payments);
+        verify(rollupRepository).applyAll(payments);
+    }
+}
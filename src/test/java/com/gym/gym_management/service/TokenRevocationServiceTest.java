@@ -0,0 +1,88 @@
+package com.gym.gym_management.service;
+
+import com.gym.gym_management.model.CredentialVersion;
+import com.gym.gym_management.model.RevokedToken;
+import com.gym.gym_management.repository.ICredentialVersionRepository;
+import com.gym.gym_management.repository.IRevokedTokenRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationServiceTest {
+
+    @Mock private IRevokedTokenRepository revokedTokenRepository;
+    @Mock private ICredentialVersionRepository credentialVersionRepository;
+
+    @InjectMocks private TokenRevocationService service;
+
+    @Test
+    void revokedToken_isRejected_withoutTouchingTheDatabaseOnCheck() {
+        Claims claims = claims("jti-1", "admin@gym.com", 0);
+        assertThat(service.isActive(claims)).isTrue();
+
+        service.revoke("jti-1", new Date(System.currentTimeMillis() + 60_000));
+
+        assertThat(service.isActive(claims)).isFalse();
+        verify(revokedTokenRepository).save(any(RevokedToken.class));
+    }
+
+    @Test
+    void passwordChange_bumpsVersion_andInvalidatesOlderTokens() {
+        given(credentialVersionRepository.findById("admin@gym.com")).willReturn(Optional.empty());
+
+        service.onCredentialsChanged(new UserCredentialsChangedEvent("admin@gym.com",
+                UserCredentialsChangedEvent.Reason.PASSWORD_CHANGED));
+
+        assertThat(service.currentVersion("admin@gym.com")).isEqualTo(1);
+        assertThat(service.isActive(claims("a", "admin@gym.com", 0))).isFalse();
+        assertThat(service.isActive(claims("b", "admin@gym.com", 1))).isTrue();
+        assertThat(service.isActive(claims("c", "otro@gym.com", 0))).isTrue();
+    }
+
+    @Test
+    void userCreation_doesNotBumpVersion() {
+        service.onCredentialsChanged(new UserCredentialsChangedEvent("nuevo@gym.com",
+                UserCredentialsChangedEvent.Reason.CREATED));
+
+        verify(credentialVersionRepository, never()).save(any());
+        assertThat(service.currentVersion("nuevo@gym.com")).isZero();
+    }
+
+    @Test
+    void refresh_dropsExpiredRevocations_andLoadsTables() {
+        CredentialVersion version = new CredentialVersion("admin@gym.com");
+        version.bump();
+        version.bump();
+        given(revokedTokenRepository.findAll())
+                .willReturn(List.of(new RevokedToken("jti-9", LocalDateTime.now().plusHours(1))));
+        given(credentialVersionRepository.findAll()).willReturn(List.of(version));
+
+        service.refresh();
+
+        verify(revokedTokenRepository).deleteExpired(any(LocalDateTime.class));
+        assertThat(service.isActive(claims("jti-9", "otro@gym.com", 0))).isFalse();
+        assertThat(service.currentVersion("admin@gym.com")).isEqualTo(2);
+    }
+
+    private static Claims claims(String jti, String subject, int version) {
+        Claims claims = Jwts.claims().setSubject(subject).setId(jti);
+        claims.put(TokenRevocationService.VERSION_CLAIM, version);
+        return claims;
+    }
+}
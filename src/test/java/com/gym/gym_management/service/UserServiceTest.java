@@ -14,6 +14,7 @@ import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.Arrays;
@@ -30,13 +31,15 @@ class UserServiceTest {
     private IUserRepository userRepository;
     @Mock
     private PasswordEncoder passwordEncoder;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     private UserService userService;
 
     @BeforeEach
     void setUp() {
         // Construimos explícitamente el SUT con los mocks para evitar problemas de inyección
-        userService = new UserService(userRepository, passwordEncoder);
+        userService = new UserService(userRepository, passwordEncoder, eventPublisher);
     }
 
     @Test
@@ -153,4 +156,20 @@ class UserServiceTest {
         assertNotNull(dtos);
         assertTrue(dtos.isEmpty());
     }
+
+    @Test
+    void changePassword_shouldSaveNewHash_andPublishCredentialsChanged() {
+        User user = new User(); user.setEmail("a@a.com"); user.setPassword("old-hash");
+        when(userRepository.findByEmail("a@a.com")).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches("old", "old-hash")).thenReturn(true);
+        when(passwordEncoder.encode("new")).thenReturn("new-hash");
+
+        userService.changePassword("a@a.com", "old", "new", "new");
+
+        assertEquals("new-hash", user.getPassword());
+        ArgumentCaptor<UserCredentialsChangedEvent> captor = ArgumentCaptor.forClass(UserCredentialsChangedEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertEquals("a@a.com", captor.getValue().getEmail());
+        assertEquals(UserCredentialsChangedEvent.Reason.PASSWORD_CHANGED, captor.getValue().getReason());
+    }
 }